@@ -133,6 +133,10 @@ public class Command
         }
         catch (InterruptedException e)
         {
+            // Don't leave the process running after whoever wanted it has gone away
+            this.process.destroyForcibly();
+            Thread.currentThread().interrupt();
+
             //TODO: Toss a better exception
             throw new RuntimeException("Interrupted while waiting for process.");
         }
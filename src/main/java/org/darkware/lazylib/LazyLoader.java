@@ -30,6 +30,34 @@ import java.time.LocalDateTime;
  */
 public abstract class LazyLoader
 {
+    /**
+     * A {@code LoadObserver} is notified whenever any lazy loader fetches its data. This allows the
+     * application to measure loads without this library depending on it.
+     */
+    public interface LoadObserver
+    {
+        /**
+         * Notify the observer that a load is starting.
+         *
+         * @param loader The loader which is fetching its data.
+         * @return A {@link Runnable} to run when the load finishes, or {@code null} if the observer does
+         * not need to be told.
+         */
+        Runnable loading(LazyLoader loader);
+    }
+
+    private static volatile LoadObserver observer;
+
+    /**
+     * Set the observer notified of every load.
+     *
+     * @param observer The {@link LoadObserver}, or {@code null} to remove the current observer.
+     */
+    public static void observe(final LoadObserver observer)
+    {
+        LazyLoader.observer = observer;
+    }
+
     private final Duration ttl;
     private LocalDateTime expiration;
 
@@ -82,6 +110,8 @@ public abstract class LazyLoader
     {
         if (this.isExpired())
         {
+            final LoadObserver current = LazyLoader.observer;
+            final Runnable finished = (current == null) ? null : current.loading(this);
             try
             {
                 this.load();
@@ -90,6 +120,10 @@ public abstract class LazyLoader
             {
                 this.reportLoadError(t);
             }
+            finally
+            {
+                if (finished != null) finished.run();
+            }
         }
     }
 
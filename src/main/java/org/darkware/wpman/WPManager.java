@@ -17,6 +17,8 @@
 
 package org.darkware.wpman;
 
+import com.codahale.metrics.MetricRegistry;
+import org.darkware.lazylib.LazyLoader;
 import org.darkware.wpman.actions.WPAction;
 import org.darkware.wpman.actions.WPActionService;
 import org.darkware.wpman.agents.*;
@@ -26,9 +28,11 @@ import org.darkware.wpman.data.WPInstance;
 import org.darkware.wpman.events.WPEvent;
 import org.darkware.wpman.events.WPEventManager;
 import org.darkware.wpman.events.WPStartupEvent;
+import org.darkware.wpman.security.ChecksumDatabase;
 import org.darkware.wpman.services.ConfigLoaderService;
 import org.darkware.wpman.services.PostNotificationService;
 import org.darkware.wpman.services.UpdateService;
+import org.darkware.wpman.tracing.Tracer;
 import org.darkware.wpman.util.TimeWindow;
 import org.darkware.wpman.wpcli.WPCLI;
 import org.darkware.wpman.wpcli.WPCLIFactory;
@@ -37,6 +41,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledFuture;
 
@@ -68,6 +73,7 @@ public class WPManager extends Thread
     private final WPActionService actionService;
     private final WPCronAgent cron;
     private final WPEventManager eventManager;
+    private final MetricRegistry metrics;
 
     /**
      * Creates a new {@code WPManager} with the given configuration.
@@ -88,6 +94,11 @@ public class WPManager extends Thread
         this.config = config;
         this.context.registerInstance(this.config, WordpressConfig.class);
 
+        // Use the application's metrics registry if one was supplied
+        if (this.context.has(MetricRegistry.class)) this.metrics = this.context.getContextualInstance(MetricRegistry.class);
+        else this.metrics = new MetricRegistry();
+        this.context.registerInstance(this.metrics, MetricRegistry.class);
+
         this.eventManager = new WPEventManager();
         this.context.registerInstance(this.eventManager);
 
@@ -98,6 +109,8 @@ public class WPManager extends Thread
         this.context.registerInstance(this.data);
 
         this.cron = new WPLowLatencyCronAgent();
+        Tracer.configure(this.config.getTracingConfig());
+        LazyLoader.observe(Tracer::lazyLoad);
         this.actionService = new WPActionService();
     }
 
@@ -112,6 +125,16 @@ public class WPManager extends Thread
         return this.config;
     }
 
+    /**
+     * Fetch the {@link MetricRegistry} where this manager and its components report their metrics.
+     *
+     * @return A {@code MetricRegistry} instance.
+     */
+    public MetricRegistry getMetrics()
+    {
+        return this.metrics;
+    }
+
     /**
      * Fetch the current agent responsible for handling cron executions.
      *
@@ -202,12 +225,32 @@ public class WPManager extends Thread
         this.actionService.schedule(themeSync);
         WPCoreUpdateAgent coreUpdater = new WPCoreUpdateAgent();
         this.actionService.schedule(coreUpdater);
-        WPIntegrityCheckAgent integrity = new WPIntegrityCheckAgent();
-        this.actionService.schedule(integrity);
+        if (this.config.getIntegrityConfig().isUnifiedScan())
+        {
+            WPFilesystemScanAgent filesystemScan = new WPFilesystemScanAgent();
+            this.actionService.schedule(filesystemScan);
+        }
+        else
+        {
+            WPIntegrityCheckAgent integrity = new WPIntegrityCheckAgent();
+            this.actionService.schedule(integrity);
+            WPPermissionScanner permScanner = new WPPermissionScanner();
+            this.actionService.schedule(permScanner);
+        }
+        if (this.config.getIntegrityConfig().isRealtime())
+        {
+            try
+            {
+                WPIntegrityWatchAgent integrityWatch = new WPIntegrityWatchAgent();
+                this.actionService.schedule(integrityWatch);
+            }
+            catch (IOException e)
+            {
+                WPManager.log.error("Error while starting up integrity watcher: {}", e.getLocalizedMessage(), e);
+            }
+        }
         WPNetworkPolicyAgent networkPolicy = new WPNetworkPolicyAgent();
         this.actionService.schedule(networkPolicy);
-        WPPermissionScanner permScanner = new WPPermissionScanner();
-        this.actionService.schedule(permScanner);
         try
         {
             WPConfigWatcher configWatcher = new WPConfigWatcher();
@@ -218,6 +261,9 @@ public class WPManager extends Thread
             WPManager.log.error("Error while starting up config file watcher: {}", e.getLocalizedMessage(), e);
         }
 
+        WPManager.log.info("Recovering queued actions.");
+        this.actionService.recoverQueuedActions();
+
         WPManager.log.info("Starting cron runner.");
         this.cron.startThread();
 
@@ -225,13 +271,52 @@ public class WPManager extends Thread
     }
 
     /**
-     * Request shutdown of this manager. The effect may not be instantaneous. No new actions should
-     * be initiated, but some ongoing actions may run to completion.
+     * Shut down this manager without losing work. Shutdown proceeds in phases:
+     * <ol>
+     *     <li>Intake is stopped. The cron agent stops scheduling hooks and the action service rejects new
+     *     actions.</li>
+     *     <li>The action service is drained. Queued actions are cancelled and running actions are given
+     *     the drain timeout of their category to finish.</li>
+     *     <li>Any WP-CLI processes still running are asked to terminate, and killed after a grace
+     *     period.</li>
+     *     <li>Pending durable actions and the cron journal are checkpointed, and the cron shard lease is
+     *     released so other nodes take over immediately.</li>
+     * </ol>
      */
     public void shutdown()
     {
-        this.actionService.shutdown();
         WPManager.log.info("WPManager is shutting down.");
+
+        this.cron.stop(Duration.ofSeconds(10));
+        this.actionService.stopIntake();
+
+        if (!this.actionService.drain()) WPManager.log.warn("Some actions were interrupted during shutdown.");
+
+        try
+        {
+            WPCLI.terminateAll(Duration.ofSeconds(this.config.getActionConfig().getProcessGracePeriod()));
+        }
+        catch (InterruptedException e)
+        {
+            WPManager.log.warn("Interrupted while waiting for WP-CLI processes to exit.");
+            Thread.currentThread().interrupt();
+        }
+
+        this.actionService.close();
+        this.cron.close();
+        if (this.getChecksums() != null) this.getChecksums().close();
+        Tracer.shutdown();
+        WPManager.log.info("WPManager has shut down.");
+    }
+
+    /**
+     * Fetch the {@link ChecksumDatabase} tracking the files of the WordPress instance.
+     *
+     * @return The {@code ChecksumDatabase}, or {@code null} if the integrity agent hasn't loaded it yet.
+     */
+    public ChecksumDatabase getChecksums()
+    {
+        return this.context.has(ChecksumDatabase.class) ? this.context.getContextualInstance(ChecksumDatabase.class) : null;
     }
 
     /**
@@ -17,6 +17,7 @@
 
 package org.darkware.wpman;
 
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import io.dropwizard.Application;
@@ -96,6 +97,9 @@ public class WPManagerApplication extends Application<WPManagerConfiguration>
 
         WordpressConfig config = new ReloadableWordpressConfig(configuration.getPolicyFile(), om);
 
+        // Share the application metrics with the manager
+        ContextManager.local().registerInstance(environment.metrics(), MetricRegistry.class);
+
         // Create the all-important manager object.
         WPManager manager = new WPManager(config);
 
@@ -107,6 +111,7 @@ public class WPManagerApplication extends Application<WPManagerConfiguration>
         environment.jersey().register(new CronResource(manager));
         environment.jersey().register(new ActionResource(manager));
         environment.jersey().register(new CoreResource(manager));
+        environment.jersey().register(new IntegrityResource(manager));
 
         final NoopHealthCheck healthCheck = new NoopHealthCheck();
         environment.healthChecks().register("noop", healthCheck);
@@ -114,6 +119,6 @@ public class WPManagerApplication extends Application<WPManagerConfiguration>
         // Initialize a WPManager
         WPCLI.setPath(configuration.getWpcli().getBinaryPath());
         if (Files.notExists(configuration.getWpcli().getBinaryPath())) WPCLI.update();
-        manager.start();
+        environment.lifecycle().manage(new WPManagerLifecycle(manager));
     }
 }
@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman;
+
+import io.dropwizard.lifecycle.Managed;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code WPManagerLifecycle} ties a {@link WPManager} to the DropWizard application lifecycle. The
+ * manager is started once the application is up, and shut down gracefully before the application exits,
+ * so that a rolling restart neither loses queued work nor leaves WP-CLI processes behind.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class WPManagerLifecycle implements Managed
+{
+    /** The longest time to wait for the manager to finish starting up before shutting it down. */
+    private static final long STARTUP_WAIT = TimeUnit.SECONDS.toMillis(30);
+
+    private final WPManager manager;
+
+    /**
+     * Create a new lifecycle adapter for the given manager.
+     *
+     * @param manager The {@link WPManager} to control.
+     */
+    public WPManagerLifecycle(final WPManager manager)
+    {
+        super();
+
+        this.manager = manager;
+    }
+
+    @Override
+    public void start() throws Exception
+    {
+        this.manager.start();
+    }
+
+    @Override
+    public void stop() throws Exception
+    {
+        this.manager.join(WPManagerLifecycle.STARTUP_WAIT);
+        this.manager.shutdown();
+    }
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.actions;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * An {@code ActionPage} is a single page of results from a query of the {@link ActionRegistry}.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public final class ActionPage
+{
+    private final int total;
+    private final int offset;
+    private final List<ActionSummary> actions;
+
+    /**
+     * Create a new page of results.
+     *
+     * @param total The total number of actions matching the query.
+     * @param offset The offset of the first action on this page.
+     * @param actions The actions on this page.
+     */
+    ActionPage(final int total, final int offset, final List<ActionSummary> actions)
+    {
+        super();
+
+        this.total = total;
+        this.offset = offset;
+        this.actions = actions;
+    }
+
+    /**
+     * Fetch the total number of actions matching the query, across all pages.
+     *
+     * @return The number of matching actions.
+     */
+    @JsonProperty
+    public int getTotal()
+    {
+        return this.total;
+    }
+
+    /**
+     * Fetch the offset of the first action on this page.
+     *
+     * @return The page offset.
+     */
+    @JsonProperty
+    public int getOffset()
+    {
+        return this.offset;
+    }
+
+    /**
+     * Fetch the actions on this page, newest first.
+     *
+     * @return A {@code List} of {@link ActionSummary} objects.
+     */
+    @JsonProperty
+    public List<ActionSummary> getActions()
+    {
+        return this.actions;
+    }
+}
@@ -0,0 +1,506 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.actions;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.darkware.wpman.config.AdaptiveConcurrencyConfig;
+import org.darkware.wpman.config.ExecutorPartitionConfig;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * An {@code ActionPartition} is the executor for a single {@link WPActionCategory} within the
+ * {@link WPActionService}. Each partition has a fixed number of threads and a bounded queue. Actions
+ * arriving at a full queue are handled according to the partition's
+ * {@link ExecutorPartitionConfig.RejectionPolicy}. Any action which is dropped has its future cancelled,
+ * so nothing waiting on it is left hanging. Actions are never run by the scheduler, so under
+ * {@link ExecutorPartitionConfig.RejectionPolicy#CALLER_RUNS CALLER_RUNS} an action
+ * {@link #dispatch(Runnable) dispatched} to a full queue waits in an overflow queue instead. It is moved
+ * into the partition's queue as soon as there is room. The overflow queue holds no more actions than the
+ * partition's queue; once it is full, further dispatched actions are dropped.
+ * <p>
+ * A partition with {@link AdaptiveConcurrencyConfig adaptive concurrency} resizes its thread pool as
+ * actions complete, according to a {@link ConcurrencyLimiter} fed with the latency and outcome of each
+ * action. An action fails if it throws or returns {@link Boolean#FALSE}.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class ActionPartition
+{
+    private final WPActionCategory category;
+    private final ExecutorPartitionConfig.RejectionPolicy rejection;
+    private final ThreadPoolExecutor executor;
+    private final int queueSize;
+    private final long drainTimeout;
+    private final AdaptiveConcurrencyConfig adaptive;
+    private final ConcurrencyLimiter limiter;
+    private final ThreadLocal<Long> startTimes;
+    private final ThreadLocal<Boolean> dispatching;
+    private final Deque<Runnable> overflow;
+    private volatile double load;
+
+    private final Counter rejected;
+    private final Timer latency;
+
+    /**
+     * Create a new partition.
+     *
+     * @param category The {@link WPActionCategory} of actions executed by the partition.
+     * @param config The {@link ExecutorPartitionConfig} declaring the size and policies of the partition.
+     * @param metrics The {@link MetricRegistry} to report saturation metrics to.
+     */
+    public ActionPartition(final WPActionCategory category, final ExecutorPartitionConfig config, final MetricRegistry metrics)
+    {
+        super();
+
+        this.category = category;
+        this.rejection = config.getRejection();
+        this.queueSize = Math.max(1, config.getQueueSize());
+        this.drainTimeout = TimeUnit.SECONDS.toMillis(Math.max(0, config.getDrainTimeout()));
+
+        this.adaptive = config.getAdaptive();
+        this.limiter = this.adaptive.isEnabled() ? new ConcurrencyLimiter(this.adaptive, config.getPoolSize()) : null;
+        this.startTimes = new ThreadLocal<>();
+        this.dispatching = new ThreadLocal<>();
+        this.overflow = new ArrayDeque<>();
+
+        final int poolSize = (this.limiter == null) ? Math.max(1, config.getPoolSize()) : this.limiter.getLimit();
+        final String name = category.name().toLowerCase();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(this.queueSize),
+                                               new ThreadFactoryBuilder().setNameFormat("actions-" + name + "-%d").build(),
+                                               this::reject)
+        {
+            @Override
+            protected void beforeExecute(final Thread thread, final Runnable task)
+            {
+                ActionPartition.this.startTimes.set(System.nanoTime());
+            }
+
+            @Override
+            protected void afterExecute(final Runnable task, final Throwable error)
+            {
+                ActionPartition.this.completed(task, error);
+                ActionPartition.this.refill();
+            }
+        };
+        this.executor.allowCoreThreadTimeOut(true);
+
+        this.rejected = metrics.counter(MetricRegistry.name("actions", name, "rejected"));
+        this.latency = metrics.timer(MetricRegistry.name("actions", name, "latency"));
+        metrics.register(MetricRegistry.name("actions", name, "pool-size"), (Gauge<Integer>) this.executor::getMaximumPoolSize);
+        metrics.register(MetricRegistry.name("actions", name, "active"), (Gauge<Integer>) this.executor::getActiveCount);
+        metrics.register(MetricRegistry.name("actions", name, "queued"), (Gauge<Integer>) () -> this.executor.getQueue().size());
+        metrics.register(MetricRegistry.name("actions", name, "overflow"), (Gauge<Integer>) this::getOverflowSize);
+        metrics.register(MetricRegistry.name("actions", name, "saturation"), (Gauge<Double>) this::getSaturation);
+        metrics.register(MetricRegistry.name("actions", name, "queue-utilization"),
+                         (Gauge<Double>) () -> (double) this.executor.getQueue().size() / this.queueSize);
+        if (this.adaptive.getLoadQuery() != null)
+        {
+            metrics.register(MetricRegistry.name("actions", name, "load"), (Gauge<Double>) () -> this.load);
+        }
+    }
+
+    /**
+     * Fetch the category of actions executed by this partition.
+     *
+     * @return The {@link WPActionCategory} of the partition.
+     */
+    public WPActionCategory getCategory()
+    {
+        return this.category;
+    }
+
+    /**
+     * Fetch the number of threads executing actions in this partition.
+     *
+     * @return The thread pool size.
+     */
+    public int getPoolSize()
+    {
+        return this.executor.getMaximumPoolSize();
+    }
+
+    /**
+     * Checks if this partition adjusts its pool size automatically.
+     *
+     * @return {@code true} if the partition has adaptive concurrency, otherwise {@code false}.
+     */
+    public boolean isAdaptive()
+    {
+        return this.limiter != null;
+    }
+
+    /**
+     * Start measuring the database load for an adaptive partition with a configured load query. The
+     * measurement is timed by the given scheduler and executed in this partition, so it never occupies a
+     * scheduler thread. While the load exceeds the configured maximum, the partition's concurrency is
+     * lowered.
+     *
+     * @param scheduler The scheduler which times the measurements.
+     * @param probe A function which runs the load query and returns the resulting load.
+     */
+    public void watchLoad(final ScheduledExecutorService scheduler, final ToDoubleFunction<String> probe)
+    {
+        if (this.limiter == null || this.adaptive.getLoadQuery() == null) return;
+
+        final int interval = Math.max(1, this.adaptive.getLoadInterval());
+        scheduler.scheduleWithFixedDelay(() -> this.dispatch(new LoadProbe(probe)), interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Fetch the fraction of this partition's threads which are currently executing actions.
+     *
+     * @return The saturation, between 0 and 1.
+     */
+    public double getSaturation()
+    {
+        return (double) this.executor.getActiveCount() / this.executor.getMaximumPoolSize();
+    }
+
+    /**
+     * Fetch the number of actions refused or dropped because the queue was full.
+     *
+     * @return The number of rejected actions.
+     */
+    public long getRejectedCount()
+    {
+        return this.rejected.getCount();
+    }
+
+    /**
+     * Fetch the number of dispatched actions waiting for room in the partition's queue.
+     *
+     * @return The size of the overflow queue.
+     */
+    public int getOverflowSize()
+    {
+        synchronized (this.overflow)
+        {
+            return this.overflow.size();
+        }
+    }
+
+    /**
+     * Submit an action for immediate execution.
+     *
+     * @param action The action to execute.
+     * @param <T> The return type of the action.
+     * @return The {@link Future} for the action execution.
+     * @throws RejectedExecutionException If the queue is full and the partition aborts rejected actions.
+     */
+    public <T> Future<T> submit(final Callable<T> action)
+    {
+        return this.executor.submit(action);
+    }
+
+    /**
+     * Submit a task for immediate execution.
+     *
+     * @param task The task to execute. This should be a {@link Future} so that it can be cancelled if it
+     * is rejected.
+     * @throws RejectedExecutionException If the queue is full and the partition aborts rejected actions.
+     */
+    public void execute(final Runnable task)
+    {
+        this.executor.execute(task);
+    }
+
+    /**
+     * Hand a task over to the partition on behalf of the scheduler. Unlike {@link #submit(Callable)}, a
+     * rejection is logged and the task is cancelled rather than reporting an error to the caller. The task
+     * is never run on the calling thread, even if the partition's policy is to let the caller run it.
+     *
+     * @param task The task to execute. This should be a {@link Future} so that it can be cancelled if it
+     * is rejected.
+     */
+    public void dispatch(final Runnable task)
+    {
+        this.dispatching.set(Boolean.TRUE);
+        try
+        {
+            this.executor.execute(task);
+        }
+        catch (RejectedExecutionException e)
+        {
+            WPActionService.log.warn("Dropped scheduled {} action: {}", this.category, e.getLocalizedMessage());
+        }
+        finally
+        {
+            this.dispatching.remove();
+        }
+    }
+
+    /**
+     * Move tasks waiting in the overflow queue into the partition's queue while there is room.
+     */
+    private void refill()
+    {
+        synchronized (this.overflow)
+        {
+            while (!this.overflow.isEmpty() && this.executor.getQueue().offer(this.overflow.peekFirst())) this.overflow.pollFirst();
+        }
+    }
+
+    /**
+     * Record the completion of a task with the partition's limiter, and resize the pool if the limit has
+     * changed. Load measurements and cancelled tasks are not recorded.
+     *
+     * @param task The completed task.
+     * @param error The error thrown by the task, or {@code null} if it completed normally.
+     */
+    private void completed(final Runnable task, final Throwable error)
+    {
+        final Long start = this.startTimes.get();
+        this.startTimes.remove();
+        if (start == null || task instanceof LoadProbe) return;
+        if (task instanceof Future && ((Future) task).isCancelled()) return;
+
+        final long elapsed = System.nanoTime() - start;
+        this.latency.update(elapsed, TimeUnit.NANOSECONDS);
+        if (this.limiter == null) return;
+
+        final boolean failed = error != null || ActionPartition.isFailure(task);
+        final int limit = this.limiter.sample(elapsed, failed, !this.executor.getQueue().isEmpty());
+        if (limit != this.executor.getMaximumPoolSize()) this.resize(limit);
+    }
+
+    /**
+     * Change the number of threads in the pool. The order of the changes keeps the core size from ever
+     * exceeding the maximum size.
+     *
+     * @param limit The new number of threads.
+     */
+    private synchronized void resize(final int limit)
+    {
+        final int current = this.executor.getMaximumPoolSize();
+        if (limit == current) return;
+
+        if (limit > current)
+        {
+            this.executor.setMaximumPoolSize(limit);
+            this.executor.setCorePoolSize(limit);
+        }
+        else
+        {
+            this.executor.setCorePoolSize(limit);
+            this.executor.setMaximumPoolSize(limit);
+        }
+        WPActionService.log.debug("Adjusted {} concurrency from {} to {}.", this.category, current, limit);
+    }
+
+    /**
+     * Checks if a completed task failed, either by throwing or by returning {@link Boolean#FALSE}. A task
+     * which failed and is waiting to be retried also counts as a failure.
+     *
+     * @param task The completed task.
+     * @return {@code true} if the task is a {@link Future} which failed, otherwise {@code false}.
+     */
+    private static boolean isFailure(final Runnable task)
+    {
+        if (!(task instanceof Future)) return false;
+        if (task instanceof TrackedActionFuture && ((TrackedActionFuture<?>) task).isRetryPending()) return true;
+
+        try
+        {
+            return Boolean.FALSE.equals(((Future) task).get(0, TimeUnit.MILLISECONDS));
+        }
+        catch (ExecutionException e)
+        {
+            return true;
+        }
+        catch (Exception e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Handle a task arriving while the queue is full, according to the partition's rejection policy.
+     *
+     * @param task The rejected task.
+     * @param executor The executor which rejected the task.
+     */
+    private void reject(final Runnable task, final ThreadPoolExecutor executor)
+    {
+        this.rejected.inc();
+
+        if (executor.isShutdown())
+        {
+            ActionPartition.cancel(task);
+            throw new RejectedExecutionException("The " + this.category + " partition is shut down.");
+        }
+
+        switch (this.rejection)
+        {
+            case CALLER_RUNS:
+                if (this.dispatching.get() == null) task.run();
+                else synchronized (this.overflow)
+                {
+                    if (this.overflow.size() >= this.queueSize)
+                    {
+                        ActionPartition.cancel(task);
+                        throw new RejectedExecutionException("The " + this.category + " partition overflow is full.");
+                    }
+                    this.overflow.addLast(task);
+                }
+                break;
+            case DISCARD:
+                ActionPartition.cancel(task);
+                break;
+            case DISCARD_OLDEST:
+                ActionPartition.cancel(executor.getQueue().poll());
+                executor.execute(task);
+                break;
+            default:
+                ActionPartition.cancel(task);
+                throw new RejectedExecutionException("The " + this.category + " partition queue is full.");
+        }
+    }
+
+    /**
+     * Cancel a task which will not be executed.
+     *
+     * @param task The task to cancel.
+     */
+    private static void cancel(final Runnable task)
+    {
+        if (task instanceof Future) ((Future) task).cancel(false);
+    }
+
+    /**
+     * Fetch the time running actions are given to finish when the partition is drained.
+     *
+     * @return The drain timeout, in milliseconds.
+     */
+    public long getDrainTimeout()
+    {
+        return this.drainTimeout;
+    }
+
+    /**
+     * Fetch the number of actions which are currently running in this partition.
+     *
+     * @return The number of busy threads.
+     */
+    public int getActiveCount()
+    {
+        return this.executor.getActiveCount();
+    }
+
+    /**
+     * Stop accepting new actions and cancel every action which is queued but has not started. Running
+     * actions are allowed to continue.
+     *
+     * @return The number of queued actions which were cancelled.
+     */
+    public int drain()
+    {
+        this.executor.shutdown();
+
+        final List<Runnable> queued = new ArrayList<>();
+        synchronized (this.overflow)
+        {
+            queued.addAll(this.overflow);
+            this.overflow.clear();
+        }
+        this.executor.getQueue().drainTo(queued);
+        queued.forEach(ActionPartition::cancel);
+
+        return queued.size();
+    }
+
+    /**
+     * Stop accepting new actions. Actions which are already queued will still be executed.
+     */
+    public void shutdown()
+    {
+        this.executor.shutdown();
+    }
+
+    /**
+     * Wait for all queued and running actions to complete.
+     *
+     * @param timeout The maximum number of milliseconds to wait.
+     * @return {@code true} if all actions completed, {@code false} if the timeout was reached.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public boolean awaitTermination(final long timeout) throws InterruptedException
+    {
+        return this.executor.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Interrupt all running actions and discard the queue.
+     */
+    public void shutdownNow()
+    {
+        this.executor.shutdownNow().forEach(ActionPartition::cancel);
+        synchronized (this.overflow)
+        {
+            this.overflow.forEach(ActionPartition::cancel);
+            this.overflow.clear();
+        }
+    }
+
+    /**
+     * A task which measures the database load and informs the partition's limiter.
+     */
+    private final class LoadProbe implements Runnable
+    {
+        private final ToDoubleFunction<String> probe;
+
+        private LoadProbe(final ToDoubleFunction<String> probe)
+        {
+            super();
+
+            this.probe = probe;
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                ActionPartition.this.load = this.probe.applyAsDouble(ActionPartition.this.adaptive.getLoadQuery());
+                ActionPartition.this.limiter.setOverloaded(ActionPartition.this.load > ActionPartition.this.adaptive.getMaxLoad());
+            }
+            catch (RuntimeException e)
+            {
+                WPActionService.log.warn("Failed to measure load for {} actions: {}", ActionPartition.this.category, e.getLocalizedMessage());
+                ActionPartition.this.limiter.setOverloaded(false);
+            }
+        }
+    }
+}
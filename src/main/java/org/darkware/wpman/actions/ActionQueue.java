@@ -0,0 +1,527 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.actions;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.darkware.wpman.util.serialization.WPActionModule;
+import org.darkware.wpman.util.serialization.WPDateModule;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * The {@code ActionQueue} is a persistent record of the {@link WPDurableAction}s which are waiting or running
+ * in the {@link WPActionService}. Each action is recorded when it is scheduled and released when it finishes,
+ * so the actions that were still pending when the application stopped can be recreated and scheduled again
+ * on the next start. This gives durable actions at-least-once execution: an action which was interrupted
+ * while running will run again.
+ * <p>
+ * The queue is an append-only file of JSON lines, written with the {@link WPActionModule}. Entries are
+ * queued in memory and committed in groups by a single writer thread, so recording an action adds no I/O
+ * to scheduling. The file is rewritten to contain only the pending entries when it is opened and whenever
+ * the released entries outnumber them.
+ * <p>
+ * If no file is supplied, the queue is kept in memory only and nothing is recovered.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class ActionQueue implements Closeable
+{
+    private static final long COMMIT_WAIT_MILLIS = 50;
+    private static final int COMPACTION_THRESHOLD = 1000;
+
+    private final Path file;
+    private final ObjectMapper mapper;
+    private final Map<Long, Entry> pending;
+    private final List<Entry> recovered;
+    private final AtomicLong nextId;
+    private final BlockingQueue<Entry> pendingWrites;
+    private final Thread writer;
+    private volatile boolean open;
+    private volatile boolean persistent;
+
+    private FileChannel channel;
+    private int appended;
+
+    private final Timer commitTimer;
+    private final Histogram batchSize;
+
+    /**
+     * Open an action queue, replaying any existing contents.
+     *
+     * @param file The queue file, or {@code null} to keep the queue in memory only.
+     * @param metrics The {@link MetricRegistry} to report queue statistics to.
+     */
+    public ActionQueue(final Path file, final MetricRegistry metrics)
+    {
+        super();
+
+        this.file = file;
+        this.mapper = new ObjectMapper();
+        this.mapper.registerModule(new WPActionModule());
+        this.mapper.registerModule(new WPDateModule());
+        this.pending = new ConcurrentHashMap<>();
+        this.recovered = new ArrayList<>();
+        this.nextId = new AtomicLong(1);
+        this.pendingWrites = new LinkedBlockingQueue<>();
+        this.commitTimer = metrics.timer(MetricRegistry.name("actions", "queue", "commit"));
+        this.batchSize = metrics.histogram(MetricRegistry.name("actions", "queue", "batch-size"));
+        metrics.register(MetricRegistry.name("actions", "queue", "pending"), (Gauge<Integer>) this.pending::size);
+
+        if (this.file != null)
+        {
+            try
+            {
+                this.openFile();
+                this.persistent = true;
+            }
+            catch (IOException e)
+            {
+                WPActionService.log.error("Failed to open action queue {}. Actions will not be persisted: {}", file, e.getLocalizedMessage());
+                this.closeFile();
+            }
+        }
+
+        this.open = true;
+        this.writer = new Thread(this::writeLoop, "action-queue");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Record a durable action as pending.
+     *
+     * @param action The action being scheduled.
+     * @param dueMillis The time the action is due to execute, in epoch milliseconds.
+     * @return The ID of the queue entry, to be passed to {@link #release(long)} when the action finishes.
+     */
+    public long record(final WPDurableAction<?> action, final long dueMillis)
+    {
+        final Entry entry = new Entry(this.nextId.getAndIncrement(), Entry.QUEUED, action.getIdentity().toString(),
+                                      action.getClass().getName(), action.getRecoveryArgument(), dueMillis);
+        entry.action = action;
+        this.pending.put(entry.id, entry);
+
+        if (this.persistent) this.pendingWrites.add(entry);
+        return entry.id;
+    }
+
+    /**
+     * Release a pending entry once its action has finished. The action will not be recovered again.
+     *
+     * @param id The ID of the queue entry.
+     */
+    public void release(final long id)
+    {
+        if (this.pending.remove(id) == null) return;
+
+        if (this.persistent) this.pendingWrites.add(new Entry(id, Entry.RELEASED, null, null, null, 0));
+    }
+
+    /**
+     * Fetch the number of entries which are currently pending.
+     *
+     * @return The number of pending entries.
+     */
+    public int getPendingCount()
+    {
+        return this.pending.size();
+    }
+
+    /**
+     * Hand each action left pending by the previous run to a handler, then release the old entries. Entries
+     * which share an idempotency key are only handed over once, using the earliest due time. The handler is
+     * expected to schedule the action again, which records a new entry before the old one is released.
+     * Recovered entries are only handed over by the first call.
+     *
+     * @param handler The handler to recover each entry.
+     */
+    public void recover(final Consumer<Entry> handler)
+    {
+        final List<Entry> entries;
+        synchronized (this.recovered)
+        {
+            entries = new ArrayList<>(this.recovered);
+            this.recovered.clear();
+        }
+
+        final Map<String, Entry> unique = new LinkedHashMap<>();
+        for (Entry entry : entries)
+        {
+            unique.merge(entry.key, entry, (a, b) -> (b.due < a.due) ? b : a);
+        }
+
+        for (Entry entry : unique.values())
+        {
+            try
+            {
+                handler.accept(entry);
+            }
+            catch (RuntimeException e)
+            {
+                WPActionService.log.error("Failed to recover queued action {}: {}", entry.key, e.getLocalizedMessage(), e);
+            }
+        }
+
+        entries.forEach(e -> this.release(e.id));
+    }
+
+    /**
+     * Flush all queued writes and close the queue file.
+     */
+    @Override
+    public void close()
+    {
+        // The writer is not interrupted, since an interrupt during a write would close the channel.
+        this.open = false;
+
+        try
+        {
+            this.writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        this.closeFile();
+    }
+
+    /**
+     * The main loop of the writer thread. Each pass collects every queued entry and commits them as a
+     * single batch.
+     */
+    private void writeLoop()
+    {
+        List<Entry> batch = new ArrayList<>();
+
+        while (this.open || !this.pendingWrites.isEmpty())
+        {
+            try
+            {
+                Entry first = this.pendingWrites.poll(ActionQueue.COMMIT_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null)
+                {
+                    batch.add(first);
+                    this.pendingWrites.drainTo(batch);
+                }
+            }
+            catch (InterruptedException e)
+            {
+                this.pendingWrites.drainTo(batch);
+                Thread.interrupted();
+            }
+
+            try
+            {
+                if (!batch.isEmpty()) this.commit(batch);
+                if (this.appended > ActionQueue.COMPACTION_THRESHOLD && this.appended > this.pending.size() * 2) this.compact();
+            }
+            catch (IOException | RuntimeException e)
+            {
+                WPActionService.log.error("Failed to write action queue: {}", e.getLocalizedMessage(), e);
+            }
+
+            batch.clear();
+        }
+    }
+
+    /**
+     * Append a batch of entries to the queue file and force them to storage.
+     *
+     * @param batch The entries to write.
+     * @throws IOException If there is an error while writing the file.
+     */
+    private void commit(final List<Entry> batch) throws IOException
+    {
+        if (this.channel == null) return;
+
+        final Timer.Context timer = this.commitTimer.time();
+        try
+        {
+            this.write(this.channel, batch);
+            this.channel.force(false);
+            this.appended += batch.size();
+            this.batchSize.update(batch.size());
+        }
+        finally
+        {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Write entries to a channel as JSON lines.
+     *
+     * @param target The channel to write to.
+     * @param entries The entries to write.
+     * @throws IOException If there is an error while serializing or writing the entries.
+     */
+    private void write(final FileChannel target, final Collection<Entry> entries) throws IOException
+    {
+        final StringBuilder lines = new StringBuilder();
+        for (Entry entry : entries)
+        {
+            lines.append(this.mapper.writeValueAsString(entry)).append('\n');
+        }
+
+        final ByteBuffer bytes = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining()) target.write(bytes);
+    }
+
+    /**
+     * Rewrite the queue file so that it only contains the pending entries. The compacted file is built in a
+     * temporary file and moved into place.
+     *
+     * @throws IOException If there is an error while writing the compacted file.
+     */
+    private void compact() throws IOException
+    {
+        if (this.channel == null) return;
+
+        final List<Entry> live = new ArrayList<>(this.pending.values());
+        final Path compacted = this.file.resolveSibling(this.file.getFileName() + ".compact");
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                                StandardOpenOption.WRITE))
+        {
+            this.write(out, live);
+            out.force(false);
+        }
+
+        this.closeFile();
+        Files.move(compacted, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        this.channel = FileChannel.open(this.file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.appended = live.size();
+
+        WPActionService.log.debug("Compacted action queue to {} entries.", live.size());
+    }
+
+    /**
+     * Open the queue file, replaying its contents and compacting it down to the pending entries.
+     *
+     * @throws IOException If there is an error while reading or writing the file.
+     */
+    private void openFile() throws IOException
+    {
+        if (this.file.getParent() != null) Files.createDirectories(this.file.getParent());
+        if (Files.exists(this.file)) this.replay();
+
+        this.channel = FileChannel.open(this.file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.compact();
+    }
+
+    /**
+     * Close the queue file, if it's open.
+     */
+    private void closeFile()
+    {
+        if (this.channel == null) return;
+
+        try
+        {
+            this.channel.close();
+        }
+        catch (IOException e)
+        {
+            WPActionService.log.warn("Failed to close action queue: {}", e.getLocalizedMessage());
+        }
+        this.channel = null;
+    }
+
+    /**
+     * Replay the queue file into memory. Lines which cannot be read, such as a line left incomplete by a
+     * crash, are skipped.
+     *
+     * @throws IOException If there is an error while reading the file.
+     */
+    private void replay() throws IOException
+    {
+        int count = 0;
+        int damaged = 0;
+        long maxId = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(this.file, StandardCharsets.UTF_8))
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                if (line.trim().isEmpty()) continue;
+
+                try
+                {
+                    Entry entry = this.mapper.readValue(line, Entry.class);
+                    maxId = Math.max(maxId, entry.id);
+                    if (Entry.QUEUED.equals(entry.event)) this.pending.put(entry.id, entry);
+                    else this.pending.remove(entry.id);
+                    count++;
+                }
+                catch (IOException e)
+                {
+                    WPActionService.log.debug("Damaged action queue line: {}", e.getLocalizedMessage());
+                    damaged++;
+                }
+            }
+        }
+
+        this.nextId.set(maxId + 1);
+        this.recovered.addAll(this.pending.values());
+
+        if (damaged > 0) WPActionService.log.warn("Skipped {} damaged lines in action queue {}.", damaged, this.file);
+        WPActionService.log.info("Replayed {} action queue entries. {} actions are pending recovery.", count, this.recovered.size());
+    }
+
+    /**
+     * A single line of the queue file, either recording a pending action or releasing one.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static final class Entry
+    {
+        private static final String QUEUED = "queued";
+        private static final String RELEASED = "released";
+
+        private final long id;
+        private final String event;
+        private final String key;
+        private final String type;
+        private final String argument;
+        private final long due;
+        private WPAction<?> action;
+
+        @JsonCreator
+        private Entry(@JsonProperty("id") final long id, @JsonProperty("event") final String event,
+                      @JsonProperty("key") final String key, @JsonProperty("type") final String type,
+                      @JsonProperty("argument") final String argument, @JsonProperty("due") final long due)
+        {
+            super();
+
+            this.id = id;
+            this.event = event;
+            this.key = key;
+            this.type = type;
+            this.argument = argument;
+            this.due = due;
+        }
+
+        /**
+         * Fetch the ID of this entry.
+         *
+         * @return The entry ID.
+         */
+        @JsonProperty
+        public long getId()
+        {
+            return this.id;
+        }
+
+        /**
+         * Fetch the event this entry records.
+         *
+         * @return {@code queued} or {@code released}.
+         */
+        @JsonProperty
+        public String getEvent()
+        {
+            return this.event;
+        }
+
+        /**
+         * Fetch the idempotency key of the action, which is its {@link WPActionKey identity}.
+         *
+         * @return The key, as a {@code String}.
+         */
+        @JsonProperty
+        public String getKey()
+        {
+            return this.key;
+        }
+
+        /**
+         * Fetch the class name of the action.
+         *
+         * @return The fully qualified class name.
+         */
+        @JsonProperty
+        public String getType()
+        {
+            return this.type;
+        }
+
+        /**
+         * Fetch the argument used to recreate the action.
+         *
+         * @return The {@link WPDurableAction#getRecoveryArgument() recovery argument}.
+         */
+        @JsonProperty
+        public String getArgument()
+        {
+            return this.argument;
+        }
+
+        /**
+         * Fetch the time the action was due to execute.
+         *
+         * @return The due time, in epoch milliseconds.
+         */
+        @JsonProperty
+        public long getDue()
+        {
+            return this.due;
+        }
+
+        /**
+         * Fetch the action this entry was recorded for. This is written for reference only and is not
+         * available for recovered entries.
+         *
+         * @return The {@link WPAction}, or {@code null} if the entry was recovered.
+         */
+        @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+        public WPAction<?> getAction()
+        {
+            return this.action;
+        }
+    }
+}
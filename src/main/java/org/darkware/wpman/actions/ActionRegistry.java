@@ -0,0 +1,253 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.actions;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code ActionRegistry} tracks the actions of a {@link WPActionService}. Each action is assigned an ID
+ * when it is registered and kept in an index of active actions. When the action finishes, it is removed
+ * from the index and an {@link ActionSummary} is written to a fixed-size ring buffer of recent history.
+ * <p>
+ * History entries are dropped once they are older than the retention period. Since the ring is written
+ * in completion order, expiry only ever removes entries from its tail, and it is only checked once per
+ * minute. Registering and completing actions are therefore cheap no matter how many actions are tracked.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class ActionRegistry
+{
+    private static final long EXPIRY_BUCKET_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final AtomicLong sequence;
+    private final ConcurrentNavigableMap<Long, WPAction<?>> active;
+    private final ActionSummary[] history;
+    private final long retentionMillis;
+    private int head;
+    private int size;
+    private volatile long expiryBucket;
+
+    /**
+     * Create a new registry.
+     *
+     * @param historySize The number of completed actions to remember.
+     * @param retentionMillis The number of milliseconds completed actions are remembered for.
+     */
+    public ActionRegistry(final int historySize, final long retentionMillis)
+    {
+        super();
+
+        this.sequence = new AtomicLong(0);
+        this.active = new ConcurrentSkipListMap<>();
+        this.history = new ActionSummary[Math.max(1, historySize)];
+        this.retentionMillis = retentionMillis;
+    }
+
+    /**
+     * Add an action to the index of active actions.
+     *
+     * @param action The {@link WPAction} to track.
+     * @return The ID assigned to the action.
+     */
+    public long register(final WPAction<?> action)
+    {
+        final long id = this.sequence.incrementAndGet();
+        this.active.put(id, action);
+
+        return id;
+    }
+
+    /**
+     * Move a finished action from the active index to the history. If the action's execution was
+     * cancelled without the action noticing, the action is marked as cancelled first.
+     *
+     * @param id The ID of the action.
+     */
+    public void complete(final long id)
+    {
+        final WPAction<?> action = this.active.remove(id);
+        if (action == null) return;
+
+        if (!action.getState().isComplete() && action.getFuture() != null && action.getFuture().isCancelled()) action.cancel();
+
+        final ActionSummary summary = new ActionSummary(id, action);
+        synchronized (this.history)
+        {
+            this.history[this.head] = summary;
+            this.head = (this.head + 1) % this.history.length;
+            if (this.size < this.history.length) this.size++;
+        }
+
+        this.expire(summary.getRecordedMillis());
+    }
+
+    /**
+     * Fetch an active action.
+     *
+     * @param id The ID of the action.
+     * @return The {@link WPAction}, or {@code null} if there is no such active action.
+     */
+    public WPAction<?> getActive(final long id)
+    {
+        return this.active.get(id);
+    }
+
+    /**
+     * Fetch the actions which have not yet finished.
+     *
+     * @return An unmodifiable {@code Collection} of active {@link WPAction}s.
+     */
+    public Collection<WPAction<?>> getActiveActions()
+    {
+        return Collections.unmodifiableCollection(this.active.values());
+    }
+
+    /**
+     * Fetch the number of actions which have not yet finished.
+     *
+     * @return The number of active actions.
+     */
+    public int getActiveCount()
+    {
+        return this.active.size();
+    }
+
+    /**
+     * Fetch the number of completed actions in the history.
+     *
+     * @return The number of remembered actions.
+     */
+    public int getHistoryCount()
+    {
+        this.expire(System.currentTimeMillis());
+        synchronized (this.history)
+        {
+            return this.size;
+        }
+    }
+
+    /**
+     * Fetch a summary of an action, whether it is active or in the history.
+     *
+     * @param id The ID of the action.
+     * @return An {@link ActionSummary}, or {@code null} if the action is not known.
+     */
+    public ActionSummary getSummary(final long id)
+    {
+        final WPAction<?> action = this.active.get(id);
+        if (action != null) return new ActionSummary(id, action);
+
+        synchronized (this.history)
+        {
+            for (int i = 1; i <= this.size; i++)
+            {
+                ActionSummary summary = this.history[this.index(i)];
+                if (summary.getId() == id) return summary;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Fetch a page of actions, newest first. Active actions are listed before completed actions.
+     *
+     * @param states The states to include, or an empty set to include every state.
+     * @param categories The categories to include, or an empty set to include every category.
+     * @param offset The number of matching actions to skip.
+     * @param limit The maximum number of actions to return.
+     * @return An {@link ActionPage} of matching actions.
+     */
+    public ActionPage list(final Set<WPActionState> states, final Set<WPActionCategory> categories, final int offset, final int limit)
+    {
+        this.expire(System.currentTimeMillis());
+
+        final List<ActionSummary> page = new ArrayList<>();
+        int total = 0;
+
+        for (Map.Entry<Long, WPAction<?>> entry : this.active.descendingMap().entrySet())
+        {
+            final WPAction<?> action = entry.getValue();
+            if (!categories.isEmpty() && !categories.contains(action.getCategory())) continue;
+            if (!states.isEmpty() && !states.contains(action.getState())) continue;
+
+            if (total >= offset && page.size() < limit) page.add(new ActionSummary(entry.getKey(), action));
+            total++;
+        }
+
+        synchronized (this.history)
+        {
+            for (int i = 1; i <= this.size; i++)
+            {
+                final ActionSummary summary = this.history[this.index(i)];
+                if (!categories.isEmpty() && !categories.contains(summary.getCategory())) continue;
+                if (!states.isEmpty() && !states.contains(summary.getState())) continue;
+
+                if (total >= offset && page.size() < limit) page.add(summary);
+                total++;
+            }
+        }
+
+        return new ActionPage(total, offset, page);
+    }
+
+    /**
+     * Find the position of a history entry, counting back from the newest.
+     *
+     * @param age The age of the entry, where 1 is the newest entry.
+     * @return The index of the entry in the ring.
+     */
+    private int index(final int age)
+    {
+        return Math.floorMod(this.head - age, this.history.length);
+    }
+
+    /**
+     * Drop history entries older than the retention period. This only does any work once per minute.
+     *
+     * @param now The current time, in epoch milliseconds.
+     */
+    private void expire(final long now)
+    {
+        final long bucket = now / ActionRegistry.EXPIRY_BUCKET_MILLIS;
+        if (bucket == this.expiryBucket) return;
+        this.expiryBucket = bucket;
+
+        final long oldest = now - this.retentionMillis;
+        synchronized (this.history)
+        {
+            while (this.size > 0)
+            {
+                final int tail = this.index(this.size);
+                if (this.history[tail].getRecordedMillis() >= oldest) break;
+
+                this.history[tail] = null;
+                this.size--;
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.actions;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.darkware.wpman.data.WPBlog;
+import org.darkware.wpman.util.serialization.MinimalBlogSerializer;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@code ActionSummary} is an immutable snapshot of a {@link WPAction} taken by the
+ * {@link ActionRegistry}. Completed actions are only kept as summaries, so the registry's history does
+ * not hold on to the actions themselves.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public final class ActionSummary
+{
+    private final long id;
+    @JsonSerialize(using = MinimalBlogSerializer.class)
+    private final WPBlog blog;
+    private final WPActionCategory category;
+    private final WPActionState state;
+    private final String description;
+    private final LocalDateTime executionTime;
+    private final LocalDateTime creationTime;
+    private final LocalDateTime startTime;
+    private final LocalDateTime completionTime;
+    private final long recordedMillis;
+
+    /**
+     * Take a snapshot of an action.
+     *
+     * @param id The registry ID of the action.
+     * @param action The {@link WPAction} to summarize.
+     */
+    ActionSummary(final long id, final WPAction<?> action)
+    {
+        super();
+
+        this.id = id;
+        this.blog = action.getBlog();
+        this.category = action.getCategory();
+        this.state = action.getState();
+        this.description = action.getDescription();
+        this.creationTime = action.getCreationTime();
+        this.startTime = action.getStartTime();
+        this.completionTime = action.getCompletionTime();
+        this.recordedMillis = System.currentTimeMillis();
+
+        Future<?> future = action.getFuture();
+        if (!this.state.isComplete() && future instanceof ScheduledFuture)
+        {
+            this.executionTime = LocalDateTime.now().plusSeconds(((ScheduledFuture) future).getDelay(TimeUnit.SECONDS));
+        }
+        else this.executionTime = null;
+    }
+
+    /**
+     * Fetch the registry ID of the action.
+     *
+     * @return The action ID.
+     */
+    @JsonProperty
+    public long getId()
+    {
+        return this.id;
+    }
+
+    /**
+     * Fetch the blog the action is associated with.
+     *
+     * @return The {@link WPBlog}, or {@code null} if the action is not linked to a blog.
+     */
+    @JsonProperty
+    public WPBlog getBlog()
+    {
+        return this.blog;
+    }
+
+    /**
+     * Fetch the category of the action.
+     *
+     * @return The {@link WPActionCategory} of the action.
+     */
+    @JsonProperty
+    public WPActionCategory getCategory()
+    {
+        return this.category;
+    }
+
+    /**
+     * Fetch the state of the action when the snapshot was taken.
+     *
+     * @return The {@link WPActionState} of the action.
+     */
+    @JsonProperty
+    public WPActionState getState()
+    {
+        return this.state;
+    }
+
+    /**
+     * Fetch the description of the action.
+     *
+     * @return The action description.
+     */
+    @JsonProperty
+    public String getDescription()
+    {
+        return this.description;
+    }
+
+    /**
+     * Fetch the time a scheduled action is due to execute.
+     *
+     * @return The execution time, or {@code null} if the action is not waiting on a schedule.
+     */
+    @JsonProperty
+    public LocalDateTime getExecutionTime()
+    {
+        return this.executionTime;
+    }
+
+    /**
+     * Fetch the time the action was created.
+     *
+     * @return The creation time.
+     */
+    @JsonProperty
+    public LocalDateTime getCreationTime()
+    {
+        return this.creationTime;
+    }
+
+    /**
+     * Fetch the time the action started executing.
+     *
+     * @return The start time, or {@code null} if the action never started.
+     */
+    @JsonProperty
+    public LocalDateTime getStartTime()
+    {
+        return this.startTime;
+    }
+
+    /**
+     * Fetch the time the action completed.
+     *
+     * @return The completion time, or {@code null} if the action has not completed.
+     */
+    @JsonProperty
+    public LocalDateTime getCompletionTime()
+    {
+        return this.completionTime;
+    }
+
+    /**
+     * Fetch the moment the snapshot was taken.
+     *
+     * @return The snapshot time, in epoch milliseconds.
+     */
+    @JsonIgnore
+    long getRecordedMillis()
+    {
+        return this.recordedMillis;
+    }
+}
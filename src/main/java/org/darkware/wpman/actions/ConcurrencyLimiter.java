@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.actions;
+
+import org.darkware.wpman.config.AdaptiveConcurrencyConfig;
+
+/**
+ * A {@code ConcurrencyLimiter} decides how many actions a partition should run at once, using additive
+ * increase and multiplicative decrease. Completed actions are sampled in windows. After each window, the
+ * limit is lowered if the average latency has risen well above the best latency seen so far, if too many
+ * actions failed, or if an external load measurement is too high. Otherwise, if there was work waiting
+ * during the window, the limit is raised by one. The limit always stays within the configured bounds.
+ * <p>
+ * The best latency slowly drifts toward recent latencies, so that a single unusually fast window does not
+ * hold the limit down indefinitely.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class ConcurrencyLimiter
+{
+    private static final double BASELINE_DRIFT = 0.05;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int window;
+    private final double latencyTolerance;
+    private final double errorThreshold;
+    private final double backoff;
+
+    private volatile int limit;
+    private volatile boolean overloaded;
+
+    private int samples;
+    private int failures;
+    private long totalLatency;
+    private boolean demand;
+    private double baseline;
+
+    /**
+     * Create a new limiter.
+     *
+     * @param config The {@link AdaptiveConcurrencyConfig} declaring the bounds and tuning of the limiter.
+     * @param initial The initial limit. This is clamped to the configured bounds.
+     */
+    public ConcurrencyLimiter(final AdaptiveConcurrencyConfig config, final int initial)
+    {
+        super();
+
+        this.minLimit = Math.max(1, config.getMinLimit());
+        this.maxLimit = Math.max(this.minLimit, config.getMaxLimit());
+        this.window = Math.max(1, config.getWindow());
+        this.latencyTolerance = Math.max(1.0, config.getLatencyTolerance());
+        this.errorThreshold = config.getErrorThreshold();
+        this.backoff = Math.min(Math.max(config.getBackoff(), 0.1), 0.9);
+
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initial));
+        this.baseline = Double.MAX_VALUE;
+    }
+
+    /**
+     * Fetch the current concurrency limit.
+     *
+     * @return The number of actions which should run at once.
+     */
+    public int getLimit()
+    {
+        return this.limit;
+    }
+
+    /**
+     * Fetch the lowest latency seen, after drift.
+     *
+     * @return The baseline latency, in nanoseconds, or {@code 0} if no window has completed.
+     */
+    public long getBaselineLatency()
+    {
+        synchronized (this)
+        {
+            return (this.baseline == Double.MAX_VALUE) ? 0 : (long) this.baseline;
+        }
+    }
+
+    /**
+     * Declare whether an external load measurement reports that the system is overloaded. While it does,
+     * each completed window lowers the limit.
+     *
+     * @param overloaded {@code true} if the system is overloaded.
+     */
+    public void setOverloaded(final boolean overloaded)
+    {
+        this.overloaded = overloaded;
+    }
+
+    /**
+     * Record a completed action.
+     *
+     * @param latency The time the action took to execute, in nanoseconds.
+     * @param failed {@code true} if the action failed.
+     * @param waiting {@code true} if other actions were waiting for a thread when this one completed.
+     * @return The limit after the sample is applied.
+     */
+    public synchronized int sample(final long latency, final boolean failed, final boolean waiting)
+    {
+        this.samples++;
+        this.totalLatency += latency;
+        if (failed) this.failures++;
+        this.demand |= waiting;
+
+        if (this.samples >= this.window) this.adjust();
+
+        return this.limit;
+    }
+
+    /**
+     * Apply the statistics of the completed window to the limit and start a new window.
+     */
+    private void adjust()
+    {
+        final double average = (double) this.totalLatency / this.samples;
+        final double errorRate = (double) this.failures / this.samples;
+
+        if (this.baseline == Double.MAX_VALUE) this.baseline = average;
+        else this.baseline = Math.min(average, this.baseline + (average - this.baseline) * ConcurrencyLimiter.BASELINE_DRIFT);
+
+        if (this.overloaded || errorRate > this.errorThreshold || average > this.baseline * this.latencyTolerance)
+        {
+            this.limit = Math.max(this.minLimit, (int) Math.floor(this.limit * this.backoff));
+        }
+        else if (this.demand)
+        {
+            this.limit = Math.min(this.maxLimit, this.limit + 1);
+        }
+
+        this.samples = 0;
+        this.failures = 0;
+        this.totalLatency = 0;
+        this.demand = false;
+    }
+}
@@ -0,0 +1,276 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.actions;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The {@code DeadlineScheduler} enforces action timeouts with a single thread. Deadlines are kept in a
+ * hashed timing wheel: an array of buckets, each holding a linked list of the deadlines which fall on that
+ * slot of the wheel. Registering and cancelling a deadline are both constant-time list operations, and
+ * each tick of the wheel only inspects a single bucket.
+ * <p>
+ * Deadlines fire within one tick of their due time. Their task runs on the scheduler thread, so it should
+ * be brief.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class DeadlineScheduler
+{
+    private static final int WHEEL_SIZE = 512;
+    private static final int WHEEL_MASK = DeadlineScheduler.WHEEL_SIZE - 1;
+    private static final long DEFAULT_TICK_MILLIS = 100;
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final Deadline[] wheel;
+    private final Thread worker;
+    private volatile boolean running;
+    private long tick;
+    private int pending;
+
+    private final Meter expired;
+    private final Timer timeToCancel;
+
+    /**
+     * Create a new scheduler with the default tick length and start its thread.
+     *
+     * @param metrics The {@link MetricRegistry} to report timeout statistics to.
+     */
+    public DeadlineScheduler(final MetricRegistry metrics)
+    {
+        this(metrics, DeadlineScheduler.DEFAULT_TICK_MILLIS);
+    }
+
+    /**
+     * Create a new scheduler and start its thread.
+     *
+     * @param metrics The {@link MetricRegistry} to report timeout statistics to.
+     * @param tickMillis The length of a tick of the wheel, in milliseconds.
+     */
+    DeadlineScheduler(final MetricRegistry metrics, final long tickMillis)
+    {
+        super();
+
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.startNanos = System.nanoTime();
+        this.wheel = new Deadline[DeadlineScheduler.WHEEL_SIZE];
+        for (int i = 0; i < this.wheel.length; i++) this.wheel[i] = new Deadline(this, 0, 0, null);
+
+        this.expired = metrics.meter(MetricRegistry.name("actions", "timeouts", "expired"));
+        this.timeToCancel = metrics.timer(MetricRegistry.name("actions", "timeouts", "time-to-cancel"));
+        metrics.register(MetricRegistry.name("actions", "timeouts", "pending"), (Gauge<Integer>) this::getPending);
+
+        this.running = true;
+        this.worker = new Thread(this::run, "action-deadlines");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Register a deadline.
+     *
+     * @param delay The time until the deadline is due.
+     * @param unit The {@link TimeUnit} of the delay.
+     * @param task The task to run when the deadline is due.
+     * @return The registered {@link Deadline}.
+     */
+    public Deadline schedule(final long delay, final TimeUnit unit, final Runnable task)
+    {
+        final long due = System.nanoTime() + unit.toNanos(delay);
+        final long dueTick = (due - this.startNanos + this.tickNanos - 1) / this.tickNanos;
+
+        synchronized (this)
+        {
+            Deadline deadline = new Deadline(this, due, Math.max(dueTick, this.tick + 1), task);
+            deadline.linkBefore(this.wheel[(int) (deadline.dueTick & DeadlineScheduler.WHEEL_MASK)]);
+            this.pending++;
+
+            return deadline;
+        }
+    }
+
+    /**
+     * Fetch the number of deadlines which are registered and not yet due.
+     *
+     * @return The number of pending deadlines.
+     */
+    public synchronized int getPending()
+    {
+        return this.pending;
+    }
+
+    /**
+     * Stop the scheduler thread. Pending deadlines will not fire.
+     */
+    public void shutdown()
+    {
+        this.running = false;
+        this.worker.interrupt();
+    }
+
+    /**
+     * The main loop of the scheduler thread. Each pass waits for the next tick, then fires every deadline
+     * in that tick's bucket which is due.
+     */
+    private void run()
+    {
+        final List<Deadline> due = new ArrayList<>();
+
+        while (this.running)
+        {
+            final long nextTick = this.startNanos + (this.tick + 1) * this.tickNanos;
+            long wait = nextTick - System.nanoTime();
+            while (wait > 0 && this.running)
+            {
+                LockSupport.parkNanos(this, wait);
+                wait = nextTick - System.nanoTime();
+            }
+            if (!this.running) return;
+
+            synchronized (this)
+            {
+                this.tick++;
+                final Deadline head = this.wheel[(int) (this.tick & DeadlineScheduler.WHEEL_MASK)];
+                for (Deadline d = head.next; d != head; )
+                {
+                    final Deadline next = d.next;
+                    if (d.dueTick <= this.tick)
+                    {
+                        d.unlink();
+                        d.state = Deadline.EXPIRED;
+                        this.pending--;
+                        due.add(d);
+                    }
+                    d = next;
+                }
+            }
+
+            for (Deadline deadline : due)
+            {
+                this.expired.mark();
+                try
+                {
+                    deadline.task.run();
+                }
+                catch (Throwable t)
+                {
+                    WPActionService.log.error("Error while enforcing action deadline: {}", t.getLocalizedMessage(), t);
+                }
+            }
+            due.clear();
+        }
+    }
+
+    /**
+     * A {@code Deadline} is a single registration with the scheduler. It is also a node in the linked list
+     * of its wheel bucket.
+     */
+    public static final class Deadline
+    {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final DeadlineScheduler scheduler;
+        private final long dueNanos;
+        private final long dueTick;
+        private final Runnable task;
+        private volatile int state;
+        private Deadline prev;
+        private Deadline next;
+
+        private Deadline(final DeadlineScheduler scheduler, final long dueNanos, final long dueTick, final Runnable task)
+        {
+            super();
+
+            this.scheduler = scheduler;
+            this.dueNanos = dueNanos;
+            this.dueTick = dueTick;
+            this.task = task;
+            this.prev = this;
+            this.next = this;
+        }
+
+        /**
+         * Checks if this deadline passed and its task was run.
+         *
+         * @return {@code true} if the deadline expired, otherwise {@code false}.
+         */
+        public boolean isExpired()
+        {
+            return this.state == Deadline.EXPIRED;
+        }
+
+        /**
+         * Cancel this deadline, if it has not already expired.
+         *
+         * @return {@code true} if the deadline was cancelled, {@code false} if it had already expired or
+         * been cancelled.
+         */
+        public boolean cancel()
+        {
+            synchronized (this.scheduler)
+            {
+                if (this.state != Deadline.PENDING) return false;
+
+                this.unlink();
+                this.state = Deadline.CANCELLED;
+                this.scheduler.pending--;
+                return true;
+            }
+        }
+
+        /**
+         * Release this deadline once the guarded work has finished. A pending deadline is cancelled. If the
+         * deadline had expired, the time between the deadline and the end of the work is recorded as the
+         * time taken to cancel it.
+         */
+        public void release()
+        {
+            if (this.cancel() || !this.isExpired()) return;
+
+            this.scheduler.timeToCancel.update(System.nanoTime() - this.dueNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private void linkBefore(final Deadline head)
+        {
+            this.prev = head.prev;
+            this.next = head;
+            head.prev.next = this;
+            head.prev = this;
+        }
+
+        private void unlink()
+        {
+            this.prev.next = this.next;
+            this.next.prev = this.prev;
+            this.prev = this;
+            this.next = this;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.actions;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@code DeferredActionFuture} is the future of an action which is timed by the action service's
+ * scheduler but executed by an {@link ActionPartition}. The scheduler only fires a trigger which hands this
+ * task to the partition, so long-running actions never occupy scheduler threads. The delay of the future
+ * is the delay of the trigger, and cancelling the future also cancels the trigger.
+ * <p>
+ * Actions which are executed immediately use the same type of future without a trigger, so that any
+ * action can be coalesced onto an equivalent one regardless of how each was scheduled.
+ *
+ * @param <T> The return type of the action.
+ * @author jeff
+ * @since 2026-10-18
+ */
+class DeferredActionFuture<T> extends TrackedActionFuture<T> implements ScheduledFuture<T>
+{
+    /**
+     * Create a new future for the given action.
+     *
+     * @param action The action to execute.
+     */
+    DeferredActionFuture(final Callable<T> action)
+    {
+        super(action);
+    }
+
+    @Override
+    public long getDelay(final TimeUnit unit)
+    {
+        ScheduledFuture<?> current = this.getTrigger();
+        return (current == null) ? 0 : current.getDelay(unit);
+    }
+
+    @Override
+    public int compareTo(final Delayed other)
+    {
+        return Long.compare(this.getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+    }
+}
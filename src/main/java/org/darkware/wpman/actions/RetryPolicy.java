@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.actions;
+
+import org.darkware.wpman.config.RetryPolicyConfig;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * A {@code RetryPolicy} decides whether a failed action should be attempted again, and how long to wait
+ * before doing so. A failure is only retried when its error output matches one of the transient error
+ * patterns, since most failures (a missing plugin, a configuration which disallows an install) will fail
+ * the same way every time. The delay grows exponentially with each attempt, up to a limit, and part of
+ * it is chosen at random so that actions which failed together do not all retry together.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class RetryPolicy
+{
+    /** The shortest delay before a retry. */
+    private static final long MIN_DELAY = TimeUnit.SECONDS.toMillis(1);
+
+    /**
+     * Compile a set of regular expressions for use as transient error patterns.
+     *
+     * @param patterns The regular expressions.
+     * @return A {@code List} of compiled {@link Pattern}s.
+     */
+    public static List<Pattern> compile(final Collection<String> patterns)
+    {
+        return patterns.stream().map(Pattern::compile).collect(Collectors.toList());
+    }
+
+    private final int maxAttempts;
+    private final long initialDelay;
+    private final long maxDelay;
+    private final double multiplier;
+    private final double jitter;
+    private final List<Pattern> patterns;
+
+    /**
+     * Create a new retry policy.
+     *
+     * @param config The {@link RetryPolicyConfig} declaring the attempts and delays of the policy.
+     * @param patterns The {@link Pattern}s which identify transient failures.
+     */
+    public RetryPolicy(final RetryPolicyConfig config, final List<Pattern> patterns)
+    {
+        super();
+
+        this.maxAttempts = Math.max(1, config.getMaxAttempts());
+        this.initialDelay = Math.max(RetryPolicy.MIN_DELAY, TimeUnit.SECONDS.toMillis(config.getInitialDelay()));
+        this.maxDelay = Math.max(this.initialDelay, TimeUnit.SECONDS.toMillis(config.getMaxDelay()));
+        this.multiplier = Math.max(1.0, config.getMultiplier());
+        this.jitter = Math.min(Math.max(config.getJitter(), 0.0), 1.0);
+        this.patterns = patterns;
+    }
+
+    /**
+     * Fetch the total number of times an action may be attempted.
+     *
+     * @return The maximum number of attempts, including the first.
+     */
+    public int getMaxAttempts()
+    {
+        return this.maxAttempts;
+    }
+
+    /**
+     * Check if an action which has failed may be attempted again.
+     *
+     * @param attempts The number of attempts already made.
+     * @param failure The error output of the failed attempt, or {@code null} if none was recorded.
+     * @return {@code true} if the action should be retried.
+     */
+    public boolean shouldRetry(final int attempts, final String failure)
+    {
+        return attempts < this.maxAttempts && this.isTransient(failure);
+    }
+
+    /**
+     * Check if a failure is transient.
+     *
+     * @param failure The error output of the failure, or {@code null} if none was recorded.
+     * @return {@code true} if the failure matches one of the transient error patterns.
+     */
+    public boolean isTransient(final String failure)
+    {
+        if (failure == null) return false;
+
+        for (Pattern pattern : this.patterns)
+        {
+            if (pattern.matcher(failure).find()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Calculate the delay before the next attempt.
+     *
+     * @param attempts The number of attempts already made.
+     * @param random A random number between 0 (inclusive) and 1 (exclusive) used to choose the jitter.
+     * @return The delay, in milliseconds.
+     */
+    public long getDelay(final int attempts, final double random)
+    {
+        final double backoff = this.initialDelay * Math.pow(this.multiplier, Math.max(0, attempts - 1));
+        final double delay = Math.min(backoff, this.maxDelay);
+        final double jittered = delay * (1.0 - this.jitter) + delay * this.jitter * random;
+
+        return Math.max(RetryPolicy.MIN_DELAY, (long) jittered);
+    }
+}
@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.actions;
+
+import org.darkware.wpman.tracing.Tracer;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * A {@code TrackedActionFuture} is the future the {@link WPActionService} creates for each action it
+ * executes. It notifies its listeners when the action finishes for any reason, including being cancelled
+ * before it started. The action is executed with its trace ID {@link Tracer#bind(long) bound}, so that its
+ * trace can be found by the ID the action has in the {@link ActionRegistry}.
+ * <p>
+ * If a {@link RetryHandler} is attached, each outcome is offered to it before the future completes. When
+ * the handler schedules a retry, the outcome is discarded and the future stays incomplete until the
+ * action is executed again.
+ *
+ * @param <T> The return type of the action.
+ * @author jeff
+ * @since 2026-10-18
+ */
+class TrackedActionFuture<T> extends FutureTask<T>
+{
+    private volatile Runnable listener;
+    private volatile long traceId;
+    private volatile RetryHandler<T> retryHandler;
+    private volatile ScheduledFuture<?> trigger;
+    private volatile boolean retryPending;
+    private boolean finished;
+
+    /**
+     * Create a new future for the given action.
+     *
+     * @param action The action to execute.
+     */
+    TrackedActionFuture(final Callable<T> action)
+    {
+        super(action);
+    }
+
+    /**
+     * Add a listener to notify when the action finishes. Listeners are run in the order they were added. A
+     * listener added after the action has finished, such as by an action coalesced onto this future, is run
+     * at once on the calling thread.
+     *
+     * @param listener The listener to run on completion.
+     */
+    void whenDone(final Runnable listener)
+    {
+        synchronized (this)
+        {
+            if (!this.finished)
+            {
+                final Runnable previous = this.listener;
+                if (previous == null) this.listener = listener;
+                else this.listener = () -> {
+                    previous.run();
+                    listener.run();
+                };
+                return;
+            }
+        }
+
+        listener.run();
+    }
+
+    /**
+     * Set the ID of the trace recorded while the action executes.
+     *
+     * @param traceId The trace ID.
+     */
+    void traceAs(final long traceId)
+    {
+        this.traceId = traceId;
+    }
+
+    /**
+     * Set the handler which is offered each outcome of the action before the future completes.
+     *
+     * @param retryHandler The {@link RetryHandler} for the action.
+     */
+    void retryWith(final RetryHandler<T> retryHandler)
+    {
+        this.retryHandler = retryHandler;
+    }
+
+    /**
+     * Attach the scheduler trigger which will hand this task to its partition. This is the initial trigger
+     * of a delayed action, or the trigger of a retry.
+     *
+     * @param trigger The {@link ScheduledFuture} of the trigger.
+     */
+    void setTrigger(final ScheduledFuture<?> trigger)
+    {
+        this.trigger = trigger;
+        if (this.isCancelled()) trigger.cancel(false);
+    }
+
+    /**
+     * Fetch the scheduler trigger which will hand this task to its partition.
+     *
+     * @return The {@link ScheduledFuture} of the trigger, or {@code null} if there is none.
+     */
+    ScheduledFuture<?> getTrigger()
+    {
+        return this.trigger;
+    }
+
+    /**
+     * Check if the last execution of the action failed and a retry is waiting to be executed.
+     *
+     * @return {@code true} if a retry is pending.
+     */
+    boolean isRetryPending()
+    {
+        return this.retryPending;
+    }
+
+    @Override
+    public void run()
+    {
+        this.retryPending = false;
+
+        if (this.traceId == 0)
+        {
+            super.run();
+            return;
+        }
+
+        Tracer.bind(this.traceId);
+        try
+        {
+            super.run();
+        }
+        finally
+        {
+            Tracer.unbind();
+        }
+    }
+
+    @Override
+    protected void set(final T result)
+    {
+        if (this.offerRetry(result, null)) return;
+        super.set(result);
+    }
+
+    @Override
+    protected void setException(final Throwable error)
+    {
+        if (this.offerRetry(null, error)) return;
+        super.setException(error);
+    }
+
+    /**
+     * Offer the outcome of an execution to the retry handler.
+     *
+     * @param result The result of the action, if it returned.
+     * @param error The error thrown by the action, if it failed.
+     * @return {@code true} if a retry was scheduled and the outcome should be discarded.
+     */
+    private boolean offerRetry(final T result, final Throwable error)
+    {
+        final RetryHandler<T> handler = this.retryHandler;
+        if (handler == null || this.isCancelled()) return false;
+
+        this.retryPending = handler.retry(this, result, error);
+        return this.retryPending;
+    }
+
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning)
+    {
+        final ScheduledFuture<?> current = this.trigger;
+        if (current != null) current.cancel(false);
+
+        return super.cancel(mayInterruptIfRunning);
+    }
+
+    @Override
+    protected void done()
+    {
+        // Listeners are run outside the lock, since they may take locks of their own
+        final Runnable current;
+        synchronized (this)
+        {
+            this.finished = true;
+            current = this.listener;
+        }
+        if (current != null) current.run();
+    }
+
+    /**
+     * A {@code RetryHandler} decides whether an outcome of an action is a transient failure, and
+     * schedules the future to be executed again if so.
+     *
+     * @param <T> The return type of the action.
+     */
+    @FunctionalInterface
+    interface RetryHandler<T>
+    {
+        /**
+         * Consider an outcome of the action for a retry.
+         *
+         * @param future The future of the action.
+         * @param result The result of the action, if it returned.
+         * @param error The error thrown by the action, if it failed.
+         * @return {@code true} if the future was scheduled to be executed again.
+         */
+        boolean retry(TrackedActionFuture<T> future, T result, Throwable error);
+    }
+}
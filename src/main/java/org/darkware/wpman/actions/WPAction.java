@@ -113,6 +113,20 @@ public interface WPAction<T> extends Callable<T>
     @JsonProperty
     WPActionCategory getCategory();
 
+    /**
+     * Fetch the identity of this action. Actions which share an identity are treated as duplicates, and
+     * scheduling one while another is still waiting or running returns the {@link Future} of the existing
+     * action instead of executing it again.
+     *
+     * @return The {@link WPActionKey} of this action, or {@code null} if the action should never be
+     * merged with another.
+     */
+    @JsonIgnore
+    default WPActionKey getIdentity()
+    {
+        return null;
+    }
+
     /**
      * Fetch the {@link WPBlog} associated with this action. If the action is targeting the network itself
      * or simply is not targeting any particular site, this value may be {@code null}.
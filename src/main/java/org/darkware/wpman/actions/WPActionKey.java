@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.actions;
+
+import java.util.Objects;
+
+/**
+ * A {@code WPActionKey} declares the identity of a {@link WPAction}: what category of work it is, what
+ * it targets and what operation it performs on that target. Two actions with equal keys are expected to
+ * have the same effect, so the {@link WPActionService} will merge a newly scheduled action into an
+ * equivalent one which is still waiting or running rather than executing it again.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public final class WPActionKey
+{
+    private final WPActionCategory category;
+    private final String target;
+    private final String operation;
+
+    /**
+     * Create a new action key.
+     *
+     * @param category The {@link WPActionCategory} of the action.
+     * @param target The thing the action acts upon, such as {@code plugin:akismet}.
+     * @param operation The operation being performed on the target, such as {@code install}.
+     */
+    public WPActionKey(final WPActionCategory category, final String target, final String operation)
+    {
+        super();
+
+        this.category = Objects.requireNonNull(category, "category");
+        this.target = Objects.requireNonNull(target, "target");
+        this.operation = Objects.requireNonNull(operation, "operation");
+    }
+
+    /**
+     * Fetch the category of the identified action.
+     *
+     * @return The {@link WPActionCategory}.
+     */
+    public WPActionCategory getCategory()
+    {
+        return this.category;
+    }
+
+    /**
+     * Fetch the target of the identified action.
+     *
+     * @return The target, as a {@code String}.
+     */
+    public String getTarget()
+    {
+        return this.target;
+    }
+
+    /**
+     * Fetch the operation of the identified action.
+     *
+     * @return The operation, as a {@code String}.
+     */
+    public String getOperation()
+    {
+        return this.operation;
+    }
+
+    @Override
+    public boolean equals(final Object o)
+    {
+        if (this == o) return true;
+        if (!(o instanceof WPActionKey)) return false;
+        final WPActionKey that = (WPActionKey) o;
+        return this.category == that.category &&
+               this.target.equals(that.target) &&
+               this.operation.equals(that.operation);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(this.category, this.target, this.operation);
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.category.name().toLowerCase() + "/" + this.target + "/" + this.operation;
+    }
+}
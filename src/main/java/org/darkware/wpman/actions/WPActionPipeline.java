@@ -0,0 +1,611 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.actions;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.darkware.wpman.data.WPBlog;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * A {@code WPActionPipeline} is a directed acyclic graph of {@link WPAction}s. Each action may declare
+ * other actions in the pipeline which must succeed before it starts. Actions whose dependencies are met
+ * run in parallel, submitted to the {@link WPActionService} as normal actions.
+ * <p>
+ * The number of actions the pipeline has in flight for each {@link WPActionCategory} is bounded by the pool
+ * size of that category's {@link ActionPartition}. This keeps the partition busy without overflowing its
+ * queue, no matter how wide the pipeline is.
+ * <p>
+ * An action fails if it throws an exception or returns {@link Boolean#FALSE}. Every action depending on a
+ * failed or cancelled action is skipped. Branches which don't depend on it continue. An action which is
+ * retried by the action service only fails once its final attempt fails.
+ * <p>
+ * A {@link WPDurableAction} is recorded in the service's {@link ActionQueue} as soon as its dependencies
+ * succeed, even if it is still waiting for room in its partition. If the application stops before it
+ * finishes, it is recovered on its own on the next start.
+ * <p>
+ * Dependencies must be added to the pipeline before the actions which depend on them, so a pipeline can
+ * never contain a cycle.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class WPActionPipeline
+{
+    /** The state of a single action within a pipeline. */
+    public enum NodeState
+    {
+        /** The action is waiting for its dependencies, or for room in its partition. */
+        WAITING,
+        /** The action has been submitted for execution. */
+        RUNNING,
+        /** The action completed successfully. */
+        SUCCEEDED,
+        /** The action threw an exception or reported failure. */
+        FAILED,
+        /** The action was not run because a dependency did not succeed. */
+        SKIPPED,
+        /** The action was cancelled. */
+        CANCELLED;
+
+        /**
+         * Checks if this state is final.
+         *
+         * @return {@code true} if the action will not change state again, otherwise {@code false}.
+         */
+        public boolean isTerminal()
+        {
+            return this != WAITING && this != RUNNING;
+        }
+    }
+
+    private static final AtomicLong sequence = new AtomicLong(0);
+
+    private final long id;
+    private final String name;
+    private final LocalDateTime creationTime;
+    private final List<Node> nodes;
+    private final Map<WPActionCategory, ArrayDeque<Node>> ready;
+    private final Map<WPActionCategory, Integer> inFlight;
+    private WPActionService service;
+    private boolean cancelled;
+    private LocalDateTime completionTime;
+    private int remaining;
+
+    /**
+     * Create a new, empty pipeline.
+     *
+     * @param name A display name for the pipeline.
+     */
+    public WPActionPipeline(final String name)
+    {
+        super();
+
+        this.id = WPActionPipeline.sequence.incrementAndGet();
+        this.name = name;
+        this.creationTime = LocalDateTime.now();
+        this.nodes = new ArrayList<>();
+        this.ready = new EnumMap<>(WPActionCategory.class);
+        this.inFlight = new EnumMap<>(WPActionCategory.class);
+    }
+
+    /**
+     * Add an action to the pipeline.
+     *
+     * @param action The action to add.
+     * @param dependencies The nodes which must succeed before this action starts. These must already be
+     * part of this pipeline.
+     * @return The {@link Node} for the action, which can be used as a dependency of later actions.
+     * @throws IllegalStateException If the pipeline has already started.
+     * @throws IllegalArgumentException If a dependency belongs to a different pipeline.
+     */
+    public synchronized Node add(final WPAction<?> action, final Node... dependencies)
+    {
+        if (this.service != null) throw new IllegalStateException("Cannot add actions to a running pipeline.");
+
+        Node node = new Node(this.nodes.size(), action);
+        for (Node dependency : dependencies)
+        {
+            if (dependency.getPipeline() != this) throw new IllegalArgumentException("Dependency belongs to another pipeline.");
+
+            node.dependencies.add(dependency);
+            dependency.dependents.add(node);
+        }
+        node.pendingDependencies = dependencies.length;
+        this.nodes.add(node);
+        this.remaining++;
+
+        return node;
+    }
+
+    /**
+     * Start executing the pipeline. This is normally called through
+     * {@link WPActionService#startPipeline(WPActionPipeline, Duration)}.
+     *
+     * @param service The {@link WPActionService} to execute the actions on.
+     * @param delay The delay before the first actions are started. Actions started later in the pipeline
+     * are not delayed.
+     */
+    synchronized void start(final WPActionService service, final Duration delay)
+    {
+        if (this.service != null) throw new IllegalStateException("The pipeline has already started.");
+        this.service = service;
+
+        for (Node node : this.nodes)
+        {
+            if (node.pendingDependencies == 0) this.enqueue(node, delay);
+        }
+
+        this.dispatch(delay);
+        if (this.remaining == 0) this.completionTime = LocalDateTime.now();
+    }
+
+    /**
+     * Cancel the pipeline. Running actions are cancelled and waiting actions will never start.
+     */
+    public synchronized void cancel()
+    {
+        this.cancelled = true;
+        this.ready.clear();
+
+        for (Node node : this.nodes)
+        {
+            if (node.state == NodeState.RUNNING) node.action.cancel();
+            if (!node.state.isTerminal()) this.finish(node, NodeState.CANCELLED);
+        }
+    }
+
+    /**
+     * Fetch the unique ID of this pipeline.
+     *
+     * @return The pipeline ID.
+     */
+    @JsonProperty
+    public long getId()
+    {
+        return this.id;
+    }
+
+    /**
+     * Fetch the display name of this pipeline.
+     *
+     * @return The pipeline name.
+     */
+    @JsonProperty
+    public String getName()
+    {
+        return this.name;
+    }
+
+    /**
+     * Fetch the time this pipeline was created.
+     *
+     * @return The creation time.
+     */
+    @JsonProperty
+    public LocalDateTime getCreationTime()
+    {
+        return this.creationTime;
+    }
+
+    /**
+     * Fetch the time at which every action in the pipeline reached a final state.
+     *
+     * @return The completion time, or {@code null} if the pipeline is still running.
+     */
+    @JsonProperty
+    public synchronized LocalDateTime getCompletionTime()
+    {
+        this.reconcile();
+        return this.completionTime;
+    }
+
+    /**
+     * Checks if every action in the pipeline has reached a final state.
+     *
+     * @return {@code true} if the pipeline is complete, otherwise {@code false}.
+     */
+    @JsonProperty
+    public synchronized boolean isComplete()
+    {
+        this.reconcile();
+        return this.remaining == 0;
+    }
+
+    /**
+     * Checks if every action in the pipeline succeeded.
+     *
+     * @return {@code true} if the pipeline completed without any failure, otherwise {@code false}.
+     */
+    @JsonProperty
+    public synchronized boolean isSuccessful()
+    {
+        return this.isComplete() && this.nodes.stream().allMatch(n -> n.state == NodeState.SUCCEEDED);
+    }
+
+    /**
+     * Fetch the actions in this pipeline.
+     *
+     * @return An unmodifiable {@code List} of {@link Node}s, in the order they were added.
+     */
+    @JsonProperty
+    public synchronized List<Node> getNodes()
+    {
+        this.reconcile();
+        return Collections.unmodifiableList(this.nodes);
+    }
+
+    /**
+     * Mark a node as ready to run, recording its action in the {@link ActionQueue} if it is durable.
+     *
+     * @param node The {@link Node} whose dependencies have succeeded.
+     * @param delay The delay before the action is due.
+     */
+    private void enqueue(final Node node, final Duration delay)
+    {
+        node.queueId = this.service.recordDurable(node.action, Math.max(0, delay.getSeconds()));
+        this.ready.computeIfAbsent(node.action.getCategory(), c -> new ArrayDeque<>()).add(node);
+    }
+
+    /**
+     * Submit ready nodes for execution, as long as their partitions have room.
+     *
+     * @param delay The delay before the submitted actions start.
+     */
+    private void dispatch(final Duration delay)
+    {
+        if (this.cancelled) return;
+
+        for (Map.Entry<WPActionCategory, ArrayDeque<Node>> entry : this.ready.entrySet())
+        {
+            final WPActionCategory category = entry.getKey();
+            final int limit = this.service.getPartition(category).getPoolSize();
+            final ArrayDeque<Node> queue = entry.getValue();
+
+            while (!queue.isEmpty() && this.inFlight.getOrDefault(category, 0) < limit)
+            {
+                Node node = queue.poll();
+                node.state = NodeState.RUNNING;
+                this.inFlight.merge(category, 1, Integer::sum);
+
+                try
+                {
+                    if (this.submit(node, node.action, delay).isCancelled()) this.finish(node, NodeState.CANCELLED);
+                }
+                catch (RejectedExecutionException e)
+                {
+                    WPActionService.log.warn("Pipeline action was rejected: {}", node.getDescription());
+                    this.finish(node, this.service.isStopping() ? NodeState.CANCELLED : NodeState.FAILED);
+                }
+            }
+        }
+    }
+
+    /**
+     * Submit the action for a node to the action service.
+     *
+     * @param node The {@link Node} being started.
+     * @param action The node's action.
+     * @param delay The delay before the action starts.
+     * @param <T> The return type of the action.
+     * @return The {@link Future} of the action.
+     */
+    private <T> Future<T> submit(final Node node, final WPAction<T> action, final Duration delay)
+    {
+        Step<T> step = new Step<>(node, action);
+        if (delay.isZero() || delay.isNegative()) return this.service.scheduleAction(step);
+        else return this.service.scheduleAction(step, delay);
+    }
+
+    /**
+     * Catch up with any running action whose execution was cancelled before it could start, such as
+     * when a partition discards it.
+     */
+    private void reconcile()
+    {
+        for (Node node : this.nodes)
+        {
+            if (node.state != NodeState.RUNNING) continue;
+
+            Future<?> future = node.action.getFuture();
+            if (future != null && future.isCancelled() && node.action.getStartTime() == null) this.finish(node, NodeState.CANCELLED);
+        }
+    }
+
+    /**
+     * Record the outcome of a node, release or skip its dependents, and start any actions which are
+     * now able to run.
+     *
+     * @param node The {@link Node} which finished.
+     * @param state The final {@link NodeState} of the node.
+     */
+    private synchronized void finish(final Node node, final NodeState state)
+    {
+        if (node.state.isTerminal()) return;
+
+        if (node.state == NodeState.RUNNING) this.inFlight.merge(node.action.getCategory(), -1, Integer::sum);
+        node.state = state;
+        this.remaining--;
+        if (node.queueId != 0) this.service.releaseDurable(node.queueId, state == NodeState.SUCCEEDED);
+
+        for (Node dependent : node.dependents)
+        {
+            if (dependent.state.isTerminal()) continue;
+
+            if (state == NodeState.SUCCEEDED)
+            {
+                if (--dependent.pendingDependencies == 0) this.enqueue(dependent, Duration.ZERO);
+            }
+            else this.finish(dependent, NodeState.SKIPPED);
+        }
+
+        if (this.service != null) this.dispatch(Duration.ZERO);
+        if (this.remaining == 0) this.completionTime = LocalDateTime.now();
+    }
+
+    /**
+     * A {@code Node} is a single action in a pipeline along with its dependency links.
+     */
+    public final class Node
+    {
+        private final int index;
+        private final WPAction<?> action;
+        private final List<Node> dependencies;
+        private final List<Node> dependents;
+        private int pendingDependencies;
+        private NodeState state;
+        private long queueId;
+
+        private Node(final int index, final WPAction<?> action)
+        {
+            super();
+
+            this.index = index;
+            this.action = action;
+            this.dependencies = new ArrayList<>();
+            this.dependents = new ArrayList<>();
+            this.state = NodeState.WAITING;
+        }
+
+        /**
+         * Fetch the index of this node within its pipeline.
+         *
+         * @return The node index.
+         */
+        @JsonProperty
+        public int getId()
+        {
+            return this.index;
+        }
+
+        /**
+         * Fetch the state of this node within its pipeline.
+         *
+         * @return The {@link NodeState} of the node.
+         */
+        @JsonProperty
+        public NodeState getState()
+        {
+            synchronized (WPActionPipeline.this)
+            {
+                return this.state;
+            }
+        }
+
+        /**
+         * Fetch the IDs of the nodes this node depends on.
+         *
+         * @return A {@code List} of node IDs.
+         */
+        @JsonProperty
+        public List<Integer> getDependsOn()
+        {
+            return this.dependencies.stream().map(Node::getId).collect(Collectors.toList());
+        }
+
+        /**
+         * Fetch the action for this node.
+         *
+         * @return The {@link WPAction} of this node.
+         */
+        @JsonProperty
+        public WPAction<?> getAction()
+        {
+            return this.action;
+        }
+
+        /**
+         * Fetch the description of this node's action.
+         *
+         * @return The action description.
+         */
+        @JsonIgnore
+        public String getDescription()
+        {
+            return this.action.getDescription();
+        }
+
+        /**
+         * Fetch the pipeline this node belongs to.
+         *
+         * @return The owning {@link WPActionPipeline}.
+         */
+        @JsonIgnore
+        public WPActionPipeline getPipeline()
+        {
+            return WPActionPipeline.this;
+        }
+    }
+
+    /**
+     * A {@code Step} is the action actually submitted for a node. It delegates everything to the node's
+     * action and reports the outcome back to the pipeline once the future of the action completes, so
+     * that an attempt which is going to be retried is not reported as a failure.
+     * <p>
+     * The step shares the identity of its action, so it is coalesced with an equal action which is already
+     * waiting or running, whether or not that action belongs to a pipeline. The node then finishes with the
+     * outcome of the shared future.
+     *
+     * @param <T> The return type of the action.
+     */
+    final class Step<T> implements WPAction<T>
+    {
+        private final Node node;
+        private final WPAction<T> action;
+
+        private Step(final Node node, final WPAction<T> action)
+        {
+            super();
+
+            this.node = node;
+            this.action = action;
+        }
+
+        /**
+         * Fetch the node's action, which this step delegates to.
+         *
+         * @return The {@link WPAction} of the node.
+         */
+        WPAction<T> getAction()
+        {
+            return this.action;
+        }
+
+        @Override
+        public T call() throws Exception
+        {
+            return this.action.call();
+        }
+
+        /**
+         * Report the outcome of the action to the pipeline.
+         *
+         * @param future The completed future of the action.
+         */
+        private void finished(final Future<T> future)
+        {
+            NodeState outcome = NodeState.FAILED;
+            if (future.isCancelled() || this.action.getState() == WPActionState.CANCELLED) outcome = NodeState.CANCELLED;
+            else
+            {
+                try
+                {
+                    if (!Boolean.FALSE.equals(future.get())) outcome = NodeState.SUCCEEDED;
+                }
+                catch (InterruptedException | ExecutionException e)
+                {
+                    // The action failed
+                }
+            }
+
+            WPActionPipeline.this.finish(this.node, outcome);
+        }
+
+        @Override
+        public boolean hasTimeout()
+        {
+            return this.action.hasTimeout();
+        }
+
+        @Override
+        public int getTimeout()
+        {
+            return this.action.getTimeout();
+        }
+
+        @Override
+        public String getDescription()
+        {
+            return this.action.getDescription();
+        }
+
+        @Override
+        public WPActionState getState()
+        {
+            return this.action.getState();
+        }
+
+        @Override
+        public LocalDateTime getCreationTime()
+        {
+            return this.action.getCreationTime();
+        }
+
+        @Override
+        public LocalDateTime getStartTime()
+        {
+            return this.action.getStartTime();
+        }
+
+        @Override
+        public LocalDateTime getCompletionTime()
+        {
+            return this.action.getCompletionTime();
+        }
+
+        @Override
+        public void registerFuture(final Future<T> future)
+        {
+            this.action.registerFuture(future);
+            if (future instanceof TrackedActionFuture) ((TrackedActionFuture<T>) future).whenDone(() -> this.finished(future));
+        }
+
+        @Override
+        public WPActionCategory getCategory()
+        {
+            return this.action.getCategory();
+        }
+
+        @Override
+        public WPActionKey getIdentity()
+        {
+            return this.action.getIdentity();
+        }
+
+        @Override
+        public WPBlog getBlog()
+        {
+            return this.action.getBlog();
+        }
+
+        @Override
+        public Future<T> getFuture()
+        {
+            return this.action.getFuture();
+        }
+
+        @Override
+        public void cancel()
+        {
+            this.action.cancel();
+        }
+    }
+}
@@ -17,10 +17,17 @@
 
 package org.darkware.wpman.actions;
 
-import org.darkware.wpman.WPManager;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.darkware.wpman.agents.WPPeriodicAgent;
+import org.darkware.wpman.config.ActionConfig;
+import org.darkware.wpman.config.RetryConfig;
 import org.darkware.wpman.data.WPComponent;
 import org.darkware.wpman.util.TimeWindow;
+import org.darkware.wpman.wpcli.WPCLI;
+import org.darkware.wpman.wpcli.WPCLIFlag;
 import org.eclipse.jetty.util.ConcurrentHashSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,17 +35,41 @@ import org.slf4j.LoggerFactory;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
 
 /**
- * The {@code WPActionService} is a service facade that provides helper methods to access and
- * monitor a {@link ScheduledExecutorService}.
+ * The {@code WPActionService} is a service facade that provides helper methods to schedule and
+ * monitor {@link WPAction}s.
+ * <p>
+ * Actions are executed by a separate {@link ActionPartition} for each {@link WPActionCategory}, so that
+ * a long scan or installation only occupies the threads of its own category. Delayed actions and periodic
+ * agents are timed by a small {@link ScheduledExecutorService} which hands each task to its partition
+ * when it is due and never runs actions itself.
+ * <p>
+ * Actions which declare a {@link WPAction#getIdentity() identity} are coalesced: scheduling an action while
+ * an equivalent one is still waiting or running returns the {@link Future} of the existing action. If the
+ * existing action is delayed beyond the new one, it is brought forward to run when the new one would have.
+ * <p>
+ * {@link WPDurableAction}s are recorded in an {@link ActionQueue} until they finish, so that they can be
+ * {@link #recoverQueuedActions() recovered} after a restart.
  *
  * @author jeff
  * @since 2016-01-25
@@ -48,38 +79,127 @@ public class WPActionService extends WPComponent
     /** A {@code Logger} available for package use to log various execution messages. **/
     protected static final Logger log = LoggerFactory.getLogger("Actions");
 
-    private final ScheduledExecutorService execService;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final Map<WPActionCategory, ActionPartition> partitions;
+    private final DeadlineScheduler deadlineScheduler;
 
     private final Set<WPPeriodicAgent> periodicAgents;
-    private final Set<WPAction> scheduledActions;
+    private final ActionRegistry registry;
+    private final Set<WPActionPipeline> pipelines;
+
+    private final Map<WPActionKey, DeferredActionFuture<?>> inFlight;
+    private final Set<TrackedActionFuture<?>> waiting;
+    private final Counter coalesced;
+    private final Map<WPActionCategory, Counter> coalescedByCategory;
+
+    private final ActionQueue queue;
+    private volatile boolean stopping;
+
+    private final RetryConfig retryConfig;
+    private final List<Pattern> retryPatterns;
+    private final Map<Class<?>, RetryPolicy> retryPolicies;
+    private final Map<WPActionCategory, Counter> retries;
 
     /**
-     * Creates a new {@code WPActionService}, along with its own {@link ScheduledExecutorService}
-     * with a fixed thread pool size.
+     * Creates a new {@code WPActionService}, along with its scheduler and an {@link ActionPartition} for
+     * each {@link WPActionCategory}, sized according to the {@link ActionConfig}.
      */
     public WPActionService()
     {
         super();
 
-        //TODO: Make this configurable
-        this.execService = Executors.newScheduledThreadPool(4);
+        final ActionConfig config = this.getManager().getConfig().getActionConfig();
+        this.scheduler = new ScheduledThreadPoolExecutor(Math.max(1, config.getSchedulerThreads()),
+                                                         new ThreadFactoryBuilder().setNameFormat("actions-scheduler-%d").build());
+        this.scheduler.setRemoveOnCancelPolicy(true);
+        this.scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+
+        this.partitions = new EnumMap<>(WPActionCategory.class);
+        for (WPActionCategory category : WPActionCategory.values())
+        {
+            final ActionPartition partition = new ActionPartition(category, config.getPartition(category), this.getManager().getMetrics());
+            partition.watchLoad(this.scheduler, this::queryLoad);
+            this.partitions.put(category, partition);
+        }
+        this.deadlineScheduler = new DeadlineScheduler(this.getManager().getMetrics());
 
         this.periodicAgents = new ConcurrentHashSet<>();
-        this.scheduledActions = new ConcurrentHashSet<>();
+        this.registry = new ActionRegistry(config.getHistorySize(), TimeUnit.MINUTES.toMillis(config.getHistoryRetention()));
+        this.getManager().getMetrics().register(MetricRegistry.name("actions", "registry", "active"), (Gauge<Integer>) this.registry::getActiveCount);
+        this.getManager().getMetrics().register(MetricRegistry.name("actions", "registry", "history"), (Gauge<Integer>) this.registry::getHistoryCount);
+        this.pipelines = new ConcurrentHashSet<>();
+
+        this.inFlight = new ConcurrentHashMap<>();
+        this.waiting = ConcurrentHashMap.newKeySet();
+        this.coalesced = this.getManager().getMetrics().counter(MetricRegistry.name("actions", "coalesced"));
+        this.coalescedByCategory = new EnumMap<>(WPActionCategory.class);
+        for (WPActionCategory category : WPActionCategory.values())
+        {
+            this.coalescedByCategory.put(category, this.getManager().getMetrics().counter(MetricRegistry.name("actions", category.name().toLowerCase(), "coalesced")));
+        }
+        this.getManager().getMetrics().register(MetricRegistry.name("actions", "identities"), (Gauge<Integer>) this.inFlight::size);
+
+        this.queue = new ActionQueue(this.getManager().getConfig().getDataFile("actionQueue"), this.getManager().getMetrics());
+
+        this.retryConfig = config.getRetry();
+        this.retryPatterns = RetryPolicy.compile(this.retryConfig.getPatterns());
+        this.retryPolicies = new ConcurrentHashMap<>();
+        this.retries = new EnumMap<>(WPActionCategory.class);
+        for (WPActionCategory category : WPActionCategory.values())
+        {
+            this.retries.put(category, this.getManager().getMetrics().counter(MetricRegistry.name("actions", category.name().toLowerCase(), "retries")));
+        }
+    }
+
+    /**
+     * Fetch the partition which executes actions of the given category.
+     *
+     * @param category The {@link WPActionCategory} of the actions.
+     * @return The {@link ActionPartition} for the category.
+     */
+    public ActionPartition getPartition(final WPActionCategory category)
+    {
+        return this.partitions.get(category);
+    }
+
+    /**
+     * Fetch the scheduler which enforces action timeouts.
+     *
+     * @return The {@link DeadlineScheduler} for this service.
+     */
+    public DeadlineScheduler getDeadlineScheduler()
+    {
+        return this.deadlineScheduler;
     }
 
     /**
      * Schedule the repeated execution of a {@link WPPeriodicAgent} on the service. This creates a
-     * repeated scheduling of the agent at a rate that is fixed to the {@code ScheduledExecutorService}.
-     * It does not extend the schedule based on the runtime of any particular invocation of the agent.
+     * repeated scheduling of the agent at a rate that is fixed to the scheduler. It does not extend the
+     * schedule based on the runtime of any particular invocation of the agent. The agent is executed in
+     * the partition for its {@link WPPeriodicAgent#getCategory() category}. If a previous invocation is
+     * still running when the agent is due again, that invocation is skipped.
      *
      * @param agent The agent to schedule.
      */
     public void schedule(final WPPeriodicAgent agent)
     {
-        this.execService.scheduleAtFixedRate(agent, 0, agent.getPeriod(), TimeUnit.SECONDS);
+        final ActionPartition partition = this.getPartition(agent.getCategory());
+        final AtomicBoolean running = new AtomicBoolean(false);
+
+        this.scheduler.scheduleAtFixedRate(() -> {
+            if (!running.compareAndSet(false, true)) return;
+
+            partition.dispatch(new FutureTask<Void>(agent, null)
+            {
+                @Override
+                protected void done()
+                {
+                    running.set(false);
+                }
+            });
+        }, 0, agent.getPeriod(), TimeUnit.SECONDS);
+
         this.periodicAgents.add(agent);
-        this.expireActions();
     }
 
     /**
@@ -87,12 +207,20 @@ public class WPActionService extends WPComponent
      *
      * @param action The action to execute.
      * @param <T> The return type of the action.
-     * @return The {@link Future} for the action execution.
+     * @return The {@link Future} for the action execution, which may belong to an equivalent action that
+     * was already waiting or running.
+     * @throws RejectedExecutionException If the service is shutting down.
      */
     public <T> Future<T> scheduleAction(final WPAction<T> action)
     {
-        Future<T> future = this.execService.submit(action);
-        this.registerAction(action, future);
+        this.checkIntake();
+
+        final DeferredActionFuture<T> created = new DeferredActionFuture<>(action);
+        final DeferredActionFuture<T> future = this.claimIdentity(action, created, 0);
+        if (future != created) return future;
+
+        this.registerAction(action, future, 0);
+        this.getPartition(action.getCategory()).execute(future);
 
         return future;
     }
@@ -104,12 +232,20 @@ public class WPActionService extends WPComponent
      * @param action The action to execute.
      * @param delay The number of seconds to delay execution
      * @param <T> The return type of the action.
-     * @return The {@link ScheduledFuture}
+     * @return The {@link ScheduledFuture}, which may belong to an equivalent action that was already
+     * waiting or running.
+     * @throws RejectedExecutionException If the service is shutting down.
      */
     public <T> ScheduledFuture<T> scheduleAction(final WPAction<T> action, long delay)
     {
-        ScheduledFuture<T> future = this.execService.schedule(action, delay, TimeUnit.SECONDS);
-        this.registerAction(action, future);
+        this.checkIntake();
+
+        final DeferredActionFuture<T> created = new DeferredActionFuture<>(action);
+        final DeferredActionFuture<T> future = this.claimIdentity(action, created, delay);
+        if (future != created) return future;
+
+        this.registerAction(action, future, delay);
+        this.trigger(future, action.getCategory(), delay, TimeUnit.SECONDS);
 
         return future;
     }
@@ -143,86 +279,504 @@ public class WPActionService extends WPComponent
         return this.scheduleAction(action, window.getRandomOffset());
     }
 
-    protected <T> void registerAction(final WPAction<T> action, Future<T> future)
+    /**
+     * Start executing a {@link WPActionPipeline}. Actions without dependencies are submitted immediately.
+     *
+     * @param pipeline The pipeline to execute.
+     * @return The pipeline, for convenience.
+     */
+    public WPActionPipeline startPipeline(final WPActionPipeline pipeline)
+    {
+        return this.startPipeline(pipeline, Duration.ZERO);
+    }
+
+    /**
+     * Start executing a {@link WPActionPipeline} after a delay. Only the actions without dependencies are
+     * delayed. Every other action starts as soon as its dependencies succeed.
+     *
+     * @param pipeline The pipeline to execute.
+     * @param delay The delay before the first actions start.
+     * @return The pipeline, for convenience.
+     */
+    public WPActionPipeline startPipeline(final WPActionPipeline pipeline, final Duration delay)
+    {
+        this.pipelines.add(pipeline);
+        pipeline.start(this, delay);
+        this.expirePipelines();
+
+        return pipeline;
+    }
+
+    /**
+     * Start executing a {@link WPActionPipeline} within a given {@link TimeWindow}. This works in a similar
+     * way to {@link #scheduleAction(WPAction, TimeWindow)}.
+     *
+     * @param pipeline The pipeline to execute.
+     * @param window The {@code TimeWindow} the first actions should start within.
+     * @return The pipeline, for convenience.
+     */
+    public WPActionPipeline startPipeline(final WPActionPipeline pipeline, final TimeWindow window)
+    {
+        return this.startPipeline(pipeline, window.getRandomOffset());
+    }
+
+    /**
+     * Fetch the {@link WPActionPipeline}s tracked by the service. This includes running pipelines and
+     * pipelines that have recently completed.
+     *
+     * @return An unmodifiable {@code Set} of pipelines.
+     */
+    public Set<WPActionPipeline> getPipelines()
+    {
+        this.expirePipelines();
+
+        return Collections.unmodifiableSet(this.pipelines);
+    }
+
+    /**
+     * Fetch a tracked pipeline by its ID.
+     *
+     * @param id The pipeline ID.
+     * @return The {@link WPActionPipeline}, or {@code null} if no such pipeline is tracked.
+     */
+    public WPActionPipeline getPipeline(final long id)
+    {
+        return this.pipelines.stream().filter(p -> p.getId() == id).findFirst().orElse(null);
+    }
+
+    /**
+     * Recreate and schedule the durable actions which were still pending when the application last
+     * stopped. Actions which were due in the past are executed immediately.
+     */
+    public void recoverQueuedActions()
     {
+        this.queue.recover(entry -> {
+            try
+            {
+                final Class<?> type = Class.forName(entry.getType());
+                if (!WPDurableAction.class.isAssignableFrom(type))
+                {
+                    WPActionService.log.warn("Dropping queued action {}: {} is not a durable action.", entry.getKey(), entry.getType());
+                    return;
+                }
+
+                final WPAction<?> action = (WPAction<?>) type.getConstructor(String.class).newInstance(entry.getArgument());
+                final long delay = TimeUnit.MILLISECONDS.toSeconds(entry.getDue() - System.currentTimeMillis());
+                if (delay > 0) this.scheduleAction(action, delay);
+                else this.scheduleAction(action);
+
+                WPActionService.log.info("Recovered queued action: {}", action.getDescription());
+            }
+            catch (ReflectiveOperationException e)
+            {
+                WPActionService.log.warn("Dropping queued action {}: {}", entry.getKey(), e.getLocalizedMessage());
+            }
+        });
+    }
+
+    /**
+     * Register an action and its future with the {@link ActionRegistry}. The action is moved to the
+     * registry's history when the future completes. Durable actions are also recorded in the
+     * {@link ActionQueue} until they finish, unless they were stopped by a shutdown before they succeeded. Failed attempts
+     * are offered to the action's {@link RetryPolicy} before the future completes.
+     *
+     * @param action The action being scheduled.
+     * @param future The future which will execute the action.
+     * @param delay The number of seconds until the action is due.
+     * @param <T> The return type of the action.
+     */
+    protected <T> void registerAction(final WPAction<T> action, final TrackedActionFuture<T> future, final long delay)
+    {
+        future.retryWith((f, result, error) -> this.retry(action, f, result, error));
         action.registerFuture(future);
-        this.scheduledActions.add(action);
-        this.expireActions();
+        final long id = this.registry.register(action);
+        future.traceAs(id);
+        final WPActionKey key = action.getIdentity();
+        final long queueId = (action instanceof WPActionPipeline.Step) ? 0 : this.recordDurable(action, delay);
+
+        future.whenDone(() -> {
+            this.registry.complete(id);
+            this.waiting.remove(future);
+            if (key != null) this.inFlight.remove(key, future);
+            this.releaseDurable(queueId, WPActionService.isSuccessful(future));
+        });
+    }
+
+    /**
+     * Record an action in the {@link ActionQueue} if it is a {@link WPDurableAction} with an identity.
+     * Actions submitted by a {@link WPActionPipeline} are recorded by the pipeline as soon as their
+     * dependencies succeed, so that they survive a restart even while they wait for room in their
+     * partition.
+     *
+     * @param action The action to record.
+     * @param delay The number of seconds until the action is due.
+     * @param <T> The return type of the action.
+     * @return The ID of the queue entry, or {@code 0} if the action is not durable.
+     */
+    <T> long recordDurable(final WPAction<T> action, final long delay)
+    {
+        if (action.getIdentity() == null || !(action instanceof WPDurableAction)) return 0;
+
+        return this.queue.record((WPDurableAction<T>) action, System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(delay));
     }
 
     /**
-     * Shut down the service and terminate the associated {@code ExecutorService}. Any jobs that are
-     * currently executing will have a chance to complete. If they take longer than the shutdown timeout
-     * value, they will be forceably terminated via {@link Thread#interrupt()}.
+     * Release a finished action from the {@link ActionQueue}. Once the service is stopping, actions which
+     * did not succeed are kept, so they are recovered on the next start. This covers actions which were
+     * cancelled before they started as well as running actions interrupted at the drain timeout.
+     *
+     * @param queueId The ID of the queue entry, or {@code 0} if the action was not recorded.
+     * @param succeeded {@code true} if the action completed successfully.
      */
-    public void shutdown()
+    void releaseDurable(final long queueId, final boolean succeeded)
+    {
+        if (queueId != 0 && (succeeded || !this.stopping)) this.queue.release(queueId);
+    }
+
+    /**
+     * Checks if a completed future holds a successful outcome. An action succeeds if it returned anything
+     * other than {@link Boolean#FALSE} without being cancelled or throwing an exception.
+     *
+     * @param future The completed future of an action.
+     * @return {@code true} if the action succeeded, otherwise {@code false}.
+     */
+    private static boolean isSuccessful(final Future<?> future)
     {
+        if (future.isCancelled()) return false;
+
         try
         {
-            WPActionService.log.info("Waiting for action service to complete any queued actions.");
-            this.execService.shutdown();
-            boolean allDone = this.execService.awaitTermination(30, TimeUnit.SECONDS);
-            if (!allDone) WPActionService.log.info("Timeout exceeded. Forcing shutdown.");
+            return !Boolean.FALSE.equals(future.get());
         }
-        catch (InterruptedException e)
+        catch (InterruptedException | ExecutionException e)
         {
-            WPActionService.log.warn("Shutdown wait terminated via thread interrupt. Forcing shutdown.");
+            return false;
         }
+    }
 
-        this.execService.shutdownNow();
-        WPActionService.log.info("Action service has shut down.");
+    /**
+     * Checks if the service has stopped accepting new actions.
+     *
+     * @return {@code true} if the service is shutting down, otherwise {@code false}.
+     */
+    boolean isStopping()
+    {
+        return this.stopping;
     }
 
     /**
-     * Fetch the {@code WPAction}s tracked by the service. This includes actions that are waiting to be
-     * executed and actions that have recently executed.
+     * Claim the identity of an action which is about to be scheduled. If an equivalent action is still
+     * waiting or running, the new action is merged into it and the existing future is returned. If the
+     * existing action is due later than the new one, it is brought forward to the new action's delay.
+     * Only one of the equivalent actions is ever executed.
      *
-     * @return An unmodifiable {@code Set} of {@code WPAction} objects.
+     * @param action The action being scheduled.
+     * @param created The future created for the action.
+     * @param delay The number of seconds until the action is due.
+     * @param <T> The return type of the action.
+     * @return The future to use for the action. If this is not {@code created}, the action has been
+     * coalesced and must not be executed.
      */
-    public Set<WPAction> getActions()
+    @SuppressWarnings("unchecked")
+    private <T> DeferredActionFuture<T> claimIdentity(final WPAction<T> action, final DeferredActionFuture<T> created, final long delay)
     {
-        this.expireActions();
+        final WPActionKey key = action.getIdentity();
+        if (key == null) return created;
+
+        final DeferredActionFuture<?> current = this.inFlight.compute(key, (k, f) -> (f == null || f.isDone()) ? created : f);
+        if (current == created) return created;
 
-        return Collections.unmodifiableSet(this.scheduledActions);
+        final DeferredActionFuture<T> existing = (DeferredActionFuture<T>) current;
+        if (!WPActionService.isDueBy(existing, delay)) this.advance(existing, action.getCategory(), delay);
+
+        action.registerFuture(existing);
+        this.coalesced.inc();
+        this.coalescedByCategory.get(key.getCategory()).inc();
+        WPActionService.log.debug("Coalesced duplicate action: {}", key);
+
+        return existing;
     }
 
     /**
-     * Clean the actions that are expired.
+     * Bring a delayed action forward so that it is handed to its partition after the given delay. Nothing
+     * is changed if the action's trigger has already fired.
+     *
+     * @param future The future of the delayed action.
+     * @param category The {@link WPActionCategory} of the action.
+     * @param delay The new number of seconds until the action is due.
      */
-    private void expireActions()
+    private void advance(final DeferredActionFuture<?> future, final WPActionCategory category, final long delay)
     {
-        final int before = this.scheduledActions.size();
-        this.scheduledActions.removeIf(this::isExpired);
-        final int after = this.scheduledActions.size();
+        final ScheduledFuture<?> trigger = future.getTrigger();
+        if (trigger == null || !trigger.cancel(false)) return;
 
-        final int expiredCount = (before - after);
-        if (expiredCount > 0) WPManager.log.debug("Expired " + (before - after) + " actions.");
+        try
+        {
+            this.trigger(future, category, delay, TimeUnit.SECONDS);
+        }
+        catch (RejectedExecutionException e)
+        {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * Schedule the trigger which hands a future to its partition once it is due. The future is tracked as
+     * waiting until the trigger fires, so that it can be cancelled if the scheduler stops first.
+     *
+     * @param future The future to hand over.
+     * @param category The {@link WPActionCategory} of the action.
+     * @param delay The delay before the future is due.
+     * @param unit The {@link TimeUnit} of the delay.
+     * @throws RejectedExecutionException If the scheduler has been shut down.
+     */
+    private void trigger(final TrackedActionFuture<?> future, final WPActionCategory category, final long delay, final TimeUnit unit)
+    {
+        final ActionPartition partition = this.getPartition(category);
+        this.waiting.add(future);
+        try
+        {
+            future.setTrigger(this.scheduler.schedule(() -> {
+                this.waiting.remove(future);
+                partition.dispatch(future);
+            }, delay, unit));
+        }
+        catch (RejectedExecutionException e)
+        {
+            this.waiting.remove(future);
+            throw e;
+        }
+    }
+
+    /**
+     * Consider an attempt at an action for a retry. The action is retried if it failed, either by throwing
+     * an exception or by returning {@link Boolean#FALSE}, and its {@link RetryPolicy} identifies the
+     * failure as transient and allows another attempt. The retry is timed by the scheduler, leaving the
+     * partition thread free until the action is due again.
+     *
+     * @param action The action which was attempted.
+     * @param future The future of the action.
+     * @param result The result of the attempt, if it returned.
+     * @param error The error thrown by the attempt, if it failed.
+     * @param <T> The return type of the action.
+     * @return {@code true} if a retry was scheduled.
+     */
+    private <T> boolean retry(final WPAction<T> action, final TrackedActionFuture<T> future, final T result, final Throwable error)
+    {
+        if (this.stopping) return false;
+
+        final WPAction<?> target = (action instanceof WPActionPipeline.Step) ? ((WPActionPipeline.Step<?>) action).getAction() : action;
+        if (!(target instanceof WPBasicAction)) return false;
+
+        final WPBasicAction<?> attempt = (WPBasicAction<?>) target;
+        if (attempt.getState() == WPActionState.CANCELLED) return false;
+
+        final String failure;
+        if (error != null) failure = WPActionService.describe(error);
+        else if (Boolean.FALSE.equals(result)) failure = attempt.getFailure();
+        else return false;
+
+        final RetryPolicy policy = this.getRetryPolicy(target);
+        if (!policy.shouldRetry(attempt.getAttempts(), failure)) return false;
+
+        final long delay = policy.getDelay(attempt.getAttempts(), ThreadLocalRandom.current().nextDouble());
+        try
+        {
+            attempt.prepareRetry();
+            this.trigger(future, action.getCategory(), delay, TimeUnit.MILLISECONDS);
+        }
+        catch (RejectedExecutionException e)
+        {
+            return false;
+        }
+
+        this.retries.get(action.getCategory()).inc();
+        WPActionService.log.warn("Retrying action in {}s (attempt {} of {}): {}", TimeUnit.MILLISECONDS.toSeconds(delay),
+                                 attempt.getAttempts() + 1, policy.getMaxAttempts(), action.getDescription());
+        return true;
+    }
+
+    /**
+     * Fetch the retry policy for an action, based on its class and category.
+     *
+     * @param action The action.
+     * @return The {@link RetryPolicy} for the action.
+     */
+    private RetryPolicy getRetryPolicy(final WPAction<?> action)
+    {
+        return this.retryPolicies.computeIfAbsent(action.getClass(), type ->
+                new RetryPolicy(this.retryConfig.getPolicy(type.getSimpleName(), action.getCategory()), this.retryPatterns));
     }
 
     /**
-     * Checks to see if a given action should be expired from the list of tracked actions. An action is
-     * expired if it has reached a completed state &mdash;regardless of the result&mdash; beyond the
-     * grace period where actions are kept around for reporting.
+     * Describe an error and all of its causes, so that a transient error pattern can match any of them.
+     *
+     * @param error The error.
+     * @return The messages of the error and its causes, one per line.
+     */
+    private static String describe(final Throwable error)
+    {
+        final StringBuilder description = new StringBuilder();
+        for (Throwable current = error; current != null; current = current.getCause())
+        {
+            description.append(current).append('\n');
+        }
+        return description.toString();
+    }
+
+    /**
+     * Check that the service is still accepting new actions.
+     *
+     * @throws RejectedExecutionException If the service is shutting down.
+     */
+    private void checkIntake()
+    {
+        if (this.stopping) throw new RejectedExecutionException("The action service is shutting down.");
+    }
+
+    /**
+     * Check if a future will be handed to its partition within the given number of seconds.
+     *
+     * @param future The future to check.
+     * @param delay The number of seconds.
+     * @return {@code true} if the future is due within the delay or has no pending trigger.
+     */
+    private static boolean isDueBy(final ScheduledFuture<?> future, final long delay)
+    {
+        return future.getDelay(TimeUnit.SECONDS) <= delay;
+    }
+
+    /**
+     * Run a database load query for an adaptive partition.
+     *
+     * @param query The SQL query, which must return a single number.
+     * @return The load reported by the query.
+     * @throws RuntimeException If the query fails or does not return a number.
+     */
+    private double queryLoad(final String query)
+    {
+        final WPCLI dbQuery = this.getManager().getBuilder().build("db", "query", query);
+        dbQuery.setOption(new WPCLIFlag("skip-column-names"));
+        dbQuery.loadPlugins(false);
+        dbQuery.loadThemes(false);
+
+        return Double.parseDouble(dbQuery.readValue());
+    }
+
+    /**
+     * Stop accepting new work. Periodic agents are no longer triggered, and delayed actions and retries
+     * which are not yet due are cancelled, so nothing waiting on them is left hanging. Durable ones stay in
+     * the {@link ActionQueue}. Any further attempt to schedule an action is rejected. Actions which are
+     * already queued or running in a partition are not affected.
+     */
+    public void stopIntake()
+    {
+        this.stopping = true;
+        this.scheduler.shutdown();
+
+        int cancelled = 0;
+        for (TrackedActionFuture<?> future : this.waiting)
+        {
+            if (future.cancel(false)) cancelled++;
+        }
+        WPActionService.log.info("Action service has stopped accepting new actions. Cancelled {} delayed actions and retries.", cancelled);
+    }
+
+    /**
+     * Drain every partition. Actions which are queued but have not started are cancelled, which keeps
+     * durable actions in the {@link ActionQueue} to be recovered on the next start. Running actions are
+     * given the {@link ActionPartition#getDrainTimeout() drain timeout} of their partition to finish.
      * <p>
-     * In checking for completion, this method will attempt to resolve a state where the execution
-     * {@code Future} reports a cancelled execution but the action is not yet aware of that.
+     * The partitions drain at the same time, but are waited on from the shortest drain timeout to the
+     * longest. Low priority categories are interrupted first, while long installs are given the most time
+     * to finish. Interrupting an action kills the WP-CLI process it is waiting on.
      *
-     * @param action The {@code WPAction} to be checked.
-     * @return {@code true} if the action has passed the expiration for action tracking, {@code false} if
-     * it should continue to be tracked.
+     * @return {@code true} if every running action finished within the drain timeout of its partition.
      */
-    private boolean isExpired(final WPAction action)
+    public boolean drain()
     {
-        if (action.getCompletionTime() == null && action.getFuture().isCancelled())
+        final long start = System.currentTimeMillis();
+
+        int cancelled = 0;
+        int running = 0;
+        for (ActionPartition partition : this.partitions.values())
         {
-            action.cancel();
+            running += partition.getActiveCount();
+            cancelled += partition.drain();
         }
+        WPActionService.log.info("Draining {} running actions. Cancelled {} queued actions.", running, cancelled);
 
-        LocalDateTime expireTime = LocalDateTime.now().minusMinutes(15);
+        final List<ActionPartition> order = new ArrayList<>(this.partitions.values());
+        order.sort(Comparator.comparingLong(ActionPartition::getDrainTimeout));
 
-        if (action.getCompletionTime() == null) return false;
-        if (action.getCompletionTime().isBefore(expireTime)) return true;
+        boolean drained = true;
+        for (ActionPartition partition : order)
+        {
+            try
+            {
+                final long remaining = start + partition.getDrainTimeout() - System.currentTimeMillis();
+                if (partition.awaitTermination(Math.max(0, remaining))) continue;
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
 
-        return false;
+            drained = false;
+            WPActionService.log.warn("Interrupting {} {} actions which did not finish within the drain timeout.",
+                                     partition.getActiveCount(), partition.getCategory());
+            partition.shutdownNow();
+        }
+
+        return drained;
+    }
+
+    /**
+     * Release the resources of the service once it has been drained. The {@link ActionQueue} is flushed
+     * and closed, checkpointing the durable actions which are still pending.
+     */
+    public void close()
+    {
+        this.scheduler.shutdownNow();
+        this.partitions.values().forEach(ActionPartition::shutdownNow);
+        this.deadlineScheduler.shutdown();
+
+        final int pending = this.queue.getPendingCount();
+        this.queue.close();
+        WPActionService.log.info("Action service has shut down. {} durable actions are pending recovery.", pending);
+    }
+
+    /**
+     * Shut down the service. This stops intake, drains the partitions and closes the service.
+     *
+     * @see #stopIntake()
+     * @see #drain()
+     * @see #close()
+     */
+    public void shutdown()
+    {
+        this.stopIntake();
+        this.drain();
+        this.close();
+    }
+
+    /**
+     * Fetch the registry of actions tracked by the service. This includes actions that are waiting to be
+     * executed or running, and summaries of actions that have recently completed.
+     *
+     * @return The {@link ActionRegistry} of this service.
+     */
+    public ActionRegistry getRegistry()
+    {
+        return this.registry;
+    }
+
+    /**
+     * Clean the pipelines that completed more than 15 minutes ago.
+     */
+    private void expirePipelines()
+    {
+        final LocalDateTime expireTime = LocalDateTime.now().minusMinutes(15);
+        this.pipelines.removeIf(p -> p.getCompletionTime() != null && p.getCompletionTime().isBefore(expireTime));
     }
 }
@@ -20,11 +20,14 @@ package org.darkware.wpman.actions;
 import org.darkware.wpman.ContextManager;
 import org.darkware.wpman.WPManager;
 import org.darkware.wpman.data.WPBlog;
+import org.darkware.wpman.tracing.Span;
+import org.darkware.wpman.tracing.Tracer;
 import org.darkware.wpman.wpcli.WPCLI;
 import org.darkware.wpman.wpcli.WPCLIFactory;
 
 import java.time.LocalDateTime;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class provides a base implementation of the {@link WPAction} interface, including the bulk of the
@@ -42,6 +45,8 @@ public abstract class WPBasicAction<T> implements WPAction<T>
     private final WPBlog blog;
     private WPActionState state;
     protected Future<T> execFuture;
+    private volatile String failure;
+    private volatile int attempts;
 
     protected final LocalDateTime creationTime;
     protected LocalDateTime startTime;
@@ -112,6 +117,47 @@ public abstract class WPBasicAction<T> implements WPAction<T>
         this.timeout = seconds;
     }
 
+    /**
+     * Record the error output of a failed attempt at this action. Actions which report failure by
+     * returning a value rather than throwing an exception should record the error output, so that the
+     * action service can decide whether the failure is transient and worth retrying.
+     *
+     * @param message The error output, such as the output of a failed WP-CLI command.
+     */
+    protected void recordFailure(final String message)
+    {
+        this.failure = message;
+    }
+
+    /**
+     * Fetch the error output recorded by the most recent attempt at this action.
+     *
+     * @return The error output, or {@code null} if none was recorded.
+     */
+    public String getFailure()
+    {
+        return this.failure;
+    }
+
+    /**
+     * Fetch the number of times this action has been started.
+     *
+     * @return The number of attempts.
+     */
+    public int getAttempts()
+    {
+        return this.attempts;
+    }
+
+    /**
+     * Return this action to the scheduled state so that it can be attempted again.
+     */
+    void prepareRetry()
+    {
+        this.failure = null;
+        this.state = WPActionState.SCHEDULED;
+    }
+
     @Override
     public LocalDateTime getCreationTime()
     {
@@ -192,6 +238,19 @@ public abstract class WPBasicAction<T> implements WPAction<T>
         }
     }
 
+    /**
+     * Cancel this action because it has exceeded its timeout. Cancelling interrupts the executing thread,
+     * which also terminates any WP-CLI process the action is waiting on.
+     */
+    private void expire()
+    {
+        if (!this.state.isComplete())
+        {
+            WPActionService.log.warn("Canceled action due to timeout: " + this.getDescription());
+            this.cancel();
+        }
+    }
+
     /**
      * Execute this action.
      *
@@ -205,15 +264,19 @@ public abstract class WPBasicAction<T> implements WPAction<T>
         if (this.state.equals(WPActionState.CANCELLED)) return null;
         this.state = WPActionState.RUNNING;
         this.startTime = LocalDateTime.now();
+        this.attempts++;
 
         String subdomain = "site";
         if (this.getBlog() != null) subdomain = this.getBlog().getSubDomain();
 
-        TimeoutCop<T> watchdog = null;
+        final Span span = Tracer.trace(this.getDescription()).tag("category", this.getCategory()).tag("blog", subdomain)
+                                 .tag("attempt", this.attempts);
+
+        DeadlineScheduler.Deadline deadline = null;
         if (this.hasTimeout() && this.execFuture != null)
         {
-            watchdog = new TimeoutCop<>(this, this.execFuture);
-            watchdog.start();
+            deadline = this.getManager().getActionService().getDeadlineScheduler()
+                           .schedule(this.getTimeout(), TimeUnit.SECONDS, this::expire);
         }
 
         try
@@ -227,13 +290,15 @@ public abstract class WPBasicAction<T> implements WPAction<T>
         catch (Throwable t)
         {
             this.state = WPActionState.ERROR;
+            span.error(t);
             WPActionService.log.error("Cancelled action: {} ({}:{}): ", this.getDescription(), subdomain, this.getCategory(), t.getLocalizedMessage());
             throw t;
         }
         finally
         {
             this.completionTime = LocalDateTime.now();
-            if (watchdog != null && watchdog.isAlive()) watchdog.interrupt();
+            if (deadline != null) deadline.release();
+            span.tag("state", this.state).close();
         }
     }
 }
@@ -72,6 +72,7 @@ public abstract class WPCLIAction extends WPBasicAction<Boolean>
         }
         catch (WPCLIError error)
         {
+            this.recordFailure(error.getMessage());
             return false;
         }
     }
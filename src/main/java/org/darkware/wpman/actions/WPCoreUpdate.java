@@ -29,6 +29,26 @@ import org.darkware.wpman.wpcli.WPCLI;
  */
 public class WPCoreUpdate extends WPBasicAction<Boolean>
 {
+    /**
+     * Build a pipeline which updates WordPress core and then, if the update succeeds, updates the database
+     * of every blog. The database updates run in parallel, up to the size of the install partition.
+     *
+     * @return A new {@link WPActionPipeline} which has not been started.
+     */
+    public static WPActionPipeline pipeline()
+    {
+        WPCoreUpdate coreUpdate = new WPCoreUpdate();
+        WPActionPipeline pipeline = new WPActionPipeline(coreUpdate.getDescription());
+        WPActionPipeline.Node core = pipeline.add(coreUpdate);
+
+        for (WPBlog blog : coreUpdate.getManager().getData().getBlogs())
+        {
+            pipeline.add(new WPDatabaseUpdate(blog), core);
+        }
+
+        return pipeline;
+    }
+
     private final Version originalVersion;
     private final Version updateTargetVersion;
 
@@ -82,12 +102,6 @@ public class WPCoreUpdate extends WPBasicAction<Boolean>
                 WPManager.log.info("Updated WordPress core to {}", newVersion);
             }
 
-            for (WPBlog blog : this.getManager().getData().getBlogs())
-            {
-                final WPDatabaseUpdate updateAction = new WPDatabaseUpdate(blog);
-                this.getManager().scheduleAction(updateAction);
-            }
-
             return true;
         }
         else
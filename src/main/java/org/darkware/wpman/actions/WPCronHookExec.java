@@ -17,6 +17,7 @@
 
 package org.darkware.wpman.actions;
 
+import org.darkware.wpman.agents.CronJournal;
 import org.darkware.wpman.data.WPBlog;
 import org.darkware.wpman.data.WPCronHook;
 import org.darkware.wpman.wpcli.WPCLIFormat;
@@ -32,6 +33,7 @@ import java.util.stream.Collectors;
 public class WPCronHookExec extends WPCLIAction
 {
     private final Set<WPCronHook> hooks;
+    private CronJournal journal;
 
     public WPCronHookExec(final WPBlog blog, final WPCronHook cron)
     {
@@ -52,6 +54,37 @@ public class WPCronHookExec extends WPCLIAction
         this.hooks.add(hook);
     }
 
+    /**
+     * Record the start and outcome of this action's hooks in the given journal.
+     *
+     * @param journal The {@link CronJournal} to record to.
+     */
+    public void journalTo(final CronJournal journal)
+    {
+        this.journal = journal;
+    }
+
+    @Override
+    public Boolean exec()
+    {
+        if (this.journal == null) return super.exec();
+
+        this.hooks.forEach(h -> this.journal.started(this.getBlog(), h));
+        boolean succeeded = false;
+        try
+        {
+            final Boolean result = super.exec();
+            succeeded = Boolean.TRUE.equals(result);
+            return result;
+        }
+        finally
+        {
+            // Failed hooks are still due in WordPress, so they must not be skipped as settled
+            if (succeeded) this.hooks.forEach(h -> this.journal.completed(this.getBlog(), h));
+            else this.hooks.forEach(h -> this.journal.failed(this.getBlog(), h));
+        }
+    }
+
     @Override
     protected void beforeExec()
     {
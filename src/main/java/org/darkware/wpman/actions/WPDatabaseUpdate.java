@@ -26,26 +26,59 @@ import org.darkware.wpman.wpcli.WPCLIError;
  * @author jeff
  * @since 2016-04-10
  */
-public class WPDatabaseUpdate extends WPBasicAction<Boolean>
+public class WPDatabaseUpdate extends WPBasicAction<Boolean> implements WPDurableAction<Boolean>
 {
-    private final WPBlog blog;
+    private final int blogId;
+    private WPBlog blog;
 
     public WPDatabaseUpdate(final WPBlog blog)
     {
         super(WPActionCategory.INSTALL);
 
+        this.blogId = blog.getBlogId();
         this.blog = blog;
     }
 
+    /**
+     * Recreate a database update for a blog after a restart. The blog is looked up when the update runs.
+     *
+     * @param blogId The ID of the blog, as returned by {@link #getRecoveryArgument()}.
+     */
+    public WPDatabaseUpdate(final String blogId)
+    {
+        super(WPActionCategory.INSTALL);
+
+        this.blogId = Integer.parseInt(blogId);
+    }
+
     @Override
     public String getDescription()
     {
-        return "Updating database schema for blog: " + this.blog.getSubDomain();
+        return "Updating database schema for blog: " + this.describeBlog();
+    }
+
+    @Override
+    public WPActionKey getIdentity()
+    {
+        return new WPActionKey(this.getCategory(), "blog:" + this.blogId, "update-db");
+    }
+
+    @Override
+    public String getRecoveryArgument()
+    {
+        return String.valueOf(this.blogId);
     }
 
     @Override
     public Boolean exec()
     {
+        if (this.blog == null) this.blog = this.getManager().getData().getBlogs().get(this.blogId);
+        if (this.blog == null)
+        {
+            WPManager.log.warn("Skipping database update for blog {}, which no longer exists.", this.blogId);
+            return true;
+        }
+
         try
         {
             WPCLI updateDb = this.getManager().getBuilder().build("core", "update-db");
@@ -61,8 +94,19 @@ public class WPDatabaseUpdate extends WPBasicAction<Boolean>
         catch (WPCLIError error)
         {
             WPManager.log.error("Error updating core database for {}: {}", this.blog.getSubDomain(), error.getLocalizedMessage());
+            this.recordFailure(error.getMessage());
 
             return false;
         }
     }
+
+    /**
+     * Describe the blog being updated, without loading the blog list if the update was recovered.
+     *
+     * @return The sub-domain of the blog, or its ID if the blog has not been looked up.
+     */
+    private String describeBlog()
+    {
+        return (this.blog == null) ? "#" + this.blogId : this.blog.getSubDomain();
+    }
 }
@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.actions;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * A {@code WPDurableAction} is an action which is recorded in the {@link ActionQueue} while it is waiting
+ * or running, so that it can be recreated and scheduled again if the application restarts before it
+ * completes.
+ * <p>
+ * A durable action must declare an {@link #getIdentity() identity}, which is used as its idempotency key
+ * during recovery, and its class must have a public constructor which accepts the
+ * {@link #getRecoveryArgument() recovery argument} as its only parameter. Since an action may be executed
+ * again after a restart, it should be safe to run more than once.
+ *
+ * @param <T> The return type of the action.
+ * @author jeff
+ * @since 2026-10-18
+ */
+public interface WPDurableAction<T> extends WPAction<T>
+{
+    /**
+     * Fetch the argument needed to recreate this action. The action is recreated by passing this value to
+     * the public single-{@code String} constructor of its class.
+     *
+     * @return The recovery argument.
+     */
+    @JsonIgnore
+    String getRecoveryArgument();
+}
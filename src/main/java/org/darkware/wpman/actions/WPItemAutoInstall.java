@@ -26,6 +26,8 @@ import org.darkware.wpman.data.WPUpdatableType;
 import org.darkware.wpman.events.WPInstallEvent;
 import org.darkware.wpman.security.ChecksumDatabase;
 import org.darkware.wpman.security.DirectoryScanner;
+import org.darkware.wpman.tracing.Span;
+import org.darkware.wpman.tracing.Tracer;
 import org.darkware.wpman.wpcli.WPCLI;
 import org.darkware.wpman.wpcli.WPCLIFlag;
 
@@ -58,7 +60,7 @@ import java.nio.file.Path;
  * @author jeff
  * @since 2016-02-14
  */
-public abstract class WPItemAutoInstall<T extends WPUpdatableComponent> extends WPBasicAction<Boolean>
+public abstract class WPItemAutoInstall<T extends WPUpdatableComponent> extends WPBasicAction<Boolean> implements WPDurableAction<Boolean>
 {
     /** The item ID which declares which item is being installed. */
     protected final String installToken;
@@ -98,6 +100,18 @@ public abstract class WPItemAutoInstall<T extends WPUpdatableComponent> extends
         return "Auto-install " + this.getItemType() + ": " + this.installToken;
     }
 
+    @Override
+    public WPActionKey getIdentity()
+    {
+        return new WPActionKey(this.getCategory(), this.itemType.getToken() + ":" + this.installToken, "install");
+    }
+
+    @Override
+    public String getRecoveryArgument()
+    {
+        return this.installToken;
+    }
+
     @Override
     public Boolean exec()
     {
@@ -165,6 +179,12 @@ public abstract class WPItemAutoInstall<T extends WPUpdatableComponent> extends
                 WPManager.log.info("Successfully installed {}: {} {}.", this.getItemType(), this.installToken, postInstall.getVersion());
             }
 
+            if (postInstall == null)
+            {
+                WPManager.log.warn("The {} '{}' could not be installed.", this.getItemType(), this.installToken);
+                return false;
+            }
+
             // Send out an event to let everyone know we updated stuff
             if (preInstall == null)
             {
@@ -207,6 +227,7 @@ public abstract class WPItemAutoInstall<T extends WPUpdatableComponent> extends
             else
             {
                 WPManager.log.warn("Failed to update {}: {}", this.getItemType(), this.installToken);
+                this.recordFailure(update.getLastError());
             }
 
         }
@@ -233,8 +254,9 @@ public abstract class WPItemAutoInstall<T extends WPUpdatableComponent> extends
             // Move the existing directory, if it does exist
             if (Files.exists(this.getItemDirectory()))
             {
-                try
+                try (Span span = Tracer.span("fs gutter-move"))
                 {
+                    span.tag("path", this.getItemDirectory());
                     Path gutterDir = this.getGutterDirectory().resolve(this.installToken);
                     if (Files.exists(gutterDir)) FileSystemTools.deleteTree(gutterDir);
                     Files.move(this.getItemDirectory(), gutterDir);
@@ -259,6 +281,7 @@ public abstract class WPItemAutoInstall<T extends WPUpdatableComponent> extends
             else
             {
                 WPManager.log.warn("Failed to update {}: {}", this.getItemType(), this.installToken);
+                this.recordFailure(update.getLastError());
             }
         }
         finally
@@ -273,9 +296,13 @@ public abstract class WPItemAutoInstall<T extends WPUpdatableComponent> extends
      */
     protected void updateChecksums()
     {
-        DirectoryScanner scanner = new DirectoryScanner(this.getItemDirectory(), this.checksums);
-        scanner.updateChecksums(true);
-        scanner.scan();
+        try (Span span = Tracer.span("fs checksum-update"))
+        {
+            span.tag("path", this.getItemDirectory());
+            DirectoryScanner scanner = new DirectoryScanner(this.getItemDirectory(), this.checksums);
+            scanner.updateChecksums(true);
+            scanner.scan();
+        }
     }
 
     /**
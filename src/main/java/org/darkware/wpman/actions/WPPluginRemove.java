@@ -20,6 +20,8 @@ package org.darkware.wpman.actions;
 import org.darkware.cltools.utils.FileSystemTools;
 import org.darkware.wpman.WPManager;
 import org.darkware.wpman.data.WPPlugin;
+import org.darkware.wpman.tracing.Span;
+import org.darkware.wpman.tracing.Tracer;
 import org.darkware.wpman.wpcli.WPCLI;
 
 import java.io.IOException;
@@ -30,7 +32,7 @@ import java.nio.file.Path;
  * @author jeff
  * @since 2016-02-10
  */
-public class WPPluginRemove extends WPBasicAction<Boolean>
+public class WPPluginRemove extends WPBasicAction<Boolean> implements WPDurableAction<Boolean>
 {
     private final String pluginToken;
 
@@ -47,6 +49,18 @@ public class WPPluginRemove extends WPBasicAction<Boolean>
         return "Auto-install plugin: " + this.pluginToken;
     }
 
+    @Override
+    public WPActionKey getIdentity()
+    {
+        return new WPActionKey(this.getCategory(), "plugin:" + this.pluginToken, "remove");
+    }
+
+    @Override
+    public String getRecoveryArgument()
+    {
+        return this.pluginToken;
+    }
+
     @Override
     public Boolean exec()
     {
@@ -79,8 +93,9 @@ public class WPPluginRemove extends WPBasicAction<Boolean>
             if (Files.exists(pluginDir))
             {
                 WPManager.log.warn("Plugin directory still exists: {}", pluginDir);
-                try
+                try (Span span = Tracer.span("fs delete-tree"))
                 {
+                    span.tag("path", pluginDir);
                     FileSystemTools.deleteTree(pluginDir);
                 }
                 catch (IOException e)
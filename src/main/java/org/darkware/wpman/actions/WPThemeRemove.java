@@ -20,6 +20,8 @@ package org.darkware.wpman.actions;
 import org.darkware.cltools.utils.FileSystemTools;
 import org.darkware.wpman.WPManager;
 import org.darkware.wpman.data.WPTheme;
+import org.darkware.wpman.tracing.Span;
+import org.darkware.wpman.tracing.Tracer;
 import org.darkware.wpman.wpcli.WPCLI;
 
 import java.io.IOException;
@@ -30,7 +32,7 @@ import java.nio.file.Path;
  * @author jeff
  * @since 2016-02-10
  */
-public class WPThemeRemove extends WPBasicAction<Boolean>
+public class WPThemeRemove extends WPBasicAction<Boolean> implements WPDurableAction<Boolean>
 {
     private final String themeToken;
 
@@ -47,6 +49,18 @@ public class WPThemeRemove extends WPBasicAction<Boolean>
         return "Auto-install theme: " + this.themeToken;
     }
 
+    @Override
+    public WPActionKey getIdentity()
+    {
+        return new WPActionKey(this.getCategory(), "theme:" + this.themeToken, "remove");
+    }
+
+    @Override
+    public String getRecoveryArgument()
+    {
+        return this.themeToken;
+    }
+
     @Override
     public Boolean exec()
     {
@@ -79,8 +93,9 @@ public class WPThemeRemove extends WPBasicAction<Boolean>
             if (Files.exists(themeDir) && themeToken.equals(""))
             {
                 WPManager.log.warn("Theme directory still exists: {}", themeDir);
-                try
+                try (Span span = Tracer.span("fs delete-tree"))
                 {
+                    span.tag("path", themeDir);
                     FileSystemTools.deleteTree(themeDir);
                 }
                 catch (IOException e)
@@ -31,6 +31,9 @@ import java.util.Comparator;
 
 /**
  * A helper class for storing {@link WPCronHook}s and associated objects.
+ * <p>
+ * Agents track their schedule by packed {@link CronEventKey}s. A {@code CronEvent} is built as a view of a
+ * {@link ScheduledCronEvent} when the schedule is reported.
  */
 public class CronEvent
 {
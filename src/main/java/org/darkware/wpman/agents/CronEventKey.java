@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.agents;
+
+import org.darkware.wpman.data.WPBlog;
+import org.darkware.wpman.data.WPCronHook;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * {@code CronEventKey} packs the identity of a cron event into a single {@code long}. The key holds the
+ * blog ID, the interned hook name ID, and the requested execution time in epoch seconds:
+ * <pre>
+ *   | blog ID (20 bits) | hook ID (12 bits) | execution time (32 bits) |
+ * </pre>
+ * Keys can be compared, hashed and grouped without creating any objects. Grouping by blog is a matter of
+ * comparing the high bits.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public final class CronEventKey
+{
+    /** The number of bits used to store the blog ID. */
+    public static final int BLOG_BITS = 20;
+    /** The number of bits used to store the hook name ID. */
+    public static final int HOOK_BITS = 12;
+    /** The number of bits used to store the execution time. */
+    public static final int TIME_BITS = 32;
+
+    private static final long TIME_MASK = (1L << CronEventKey.TIME_BITS) - 1;
+    private static final long HOOK_MASK = (1L << CronEventKey.HOOK_BITS) - 1;
+    private static final long BLOG_MASK = (1L << CronEventKey.BLOG_BITS) - 1;
+
+    private CronEventKey()
+    {
+        super();
+    }
+
+    /**
+     * Pack the components of an event into a key.
+     *
+     * @param blogId The ID of the blog.
+     * @param hookId The interned ID of the hook name.
+     * @param execSecond The requested execution time, in epoch seconds.
+     * @return The packed key.
+     * @throws IllegalArgumentException If any component is out of range.
+     */
+    public static long pack(final int blogId, final int hookId, final long execSecond)
+    {
+        if (blogId < 0 || blogId > CronEventKey.BLOG_MASK) throw new IllegalArgumentException("Blog ID out of range: " + blogId);
+        if (hookId < 0 || hookId > CronEventKey.HOOK_MASK) throw new IllegalArgumentException("Hook ID out of range: " + hookId);
+        if (execSecond < 0 || execSecond > CronEventKey.TIME_MASK) throw new IllegalArgumentException("Execution time out of range: " + execSecond);
+
+        return ((long) blogId << (CronEventKey.HOOK_BITS + CronEventKey.TIME_BITS)) | ((long) hookId << CronEventKey.TIME_BITS) | execSecond;
+    }
+
+    /**
+     * Pack the key for a hook occurrence on a blog.
+     *
+     * @param blog The {@link WPBlog} the hook runs against.
+     * @param hook The {@link WPCronHook} occurrence.
+     * @param names The {@link CronHookNames} used to intern the hook name.
+     * @return The packed key.
+     */
+    public static long of(final WPBlog blog, final WPCronHook hook, final CronHookNames names)
+    {
+        return CronEventKey.pack(blog.getBlogId(), names.idOf(hook.getHook()), CronEventKey.toEpochSecond(hook.getNextRun()));
+    }
+
+    /**
+     * Convert an execution time to the epoch seconds stored in a key.
+     *
+     * @param time The execution time.
+     * @return The time, in epoch seconds.
+     */
+    public static long toEpochSecond(final LocalDateTime time)
+    {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Extract the blog ID from a key.
+     *
+     * @param key The packed key.
+     * @return The blog ID.
+     */
+    public static int blogId(final long key)
+    {
+        return (int) ((key >>> (CronEventKey.HOOK_BITS + CronEventKey.TIME_BITS)) & CronEventKey.BLOG_MASK);
+    }
+
+    /**
+     * Extract the hook name ID from a key.
+     *
+     * @param key The packed key.
+     * @return The hook name ID.
+     */
+    public static int hookId(final long key)
+    {
+        return (int) ((key >>> CronEventKey.TIME_BITS) & CronEventKey.HOOK_MASK);
+    }
+
+    /**
+     * Extract the execution time from a key.
+     *
+     * @param key The packed key.
+     * @return The execution time, in epoch seconds.
+     */
+    public static long execSecond(final long key)
+    {
+        return key & CronEventKey.TIME_MASK;
+    }
+
+    /**
+     * Extract the execution time from a key.
+     *
+     * @param key The packed key.
+     * @return The execution time as a {@link LocalDateTime}.
+     */
+    public static LocalDateTime execTime(final long key)
+    {
+        return LocalDateTime.ofEpochSecond(CronEventKey.execSecond(key), 0, ZoneOffset.UTC);
+    }
+}
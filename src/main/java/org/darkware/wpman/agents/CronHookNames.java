@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.agents;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * {@code CronHookNames} interns cron hook names as small integer IDs. The same set of hook names recurs on
+ * every blog in a network, so each distinct name only needs to be stored once and events can refer to
+ * their hook by ID.
+ * <p>
+ * Looking up the ID of a known name does not allocate.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class CronHookNames
+{
+    /** The maximum number of distinct hook names, limited by the width of the ID in a {@link CronEventKey}. */
+    public static final int MAX_NAMES = 1 << CronEventKey.HOOK_BITS;
+
+    private final Map<String, Integer> ids;
+    private final AtomicReferenceArray<String> names;
+
+    /**
+     * Create a new, empty set of hook names.
+     */
+    public CronHookNames()
+    {
+        super();
+
+        this.ids = new ConcurrentHashMap<>();
+        this.names = new AtomicReferenceArray<>(CronHookNames.MAX_NAMES);
+    }
+
+    /**
+     * Fetch the ID for the given hook name, assigning a new ID if the name has not been seen before.
+     *
+     * @param name The hook name.
+     * @return The ID of the hook name.
+     * @throws IllegalStateException If there is no room for another hook name.
+     */
+    public int idOf(final String name)
+    {
+        Integer id = this.ids.get(name);
+        if (id != null) return id;
+
+        synchronized (this)
+        {
+            id = this.ids.get(name);
+            if (id != null) return id;
+
+            int next = this.ids.size();
+            if (next >= CronHookNames.MAX_NAMES) throw new IllegalStateException("Too many distinct cron hook names.");
+
+            this.names.set(next, name);
+            this.ids.put(name, next);
+
+            return next;
+        }
+    }
+
+    /**
+     * Fetch the hook name for the given ID.
+     *
+     * @param id The ID of the hook name.
+     * @return The hook name, or {@code null} if no name has that ID.
+     */
+    public String nameOf(final int id)
+    {
+        return this.names.get(id);
+    }
+}
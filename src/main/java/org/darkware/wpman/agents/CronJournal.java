@@ -0,0 +1,610 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.agents;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.darkware.wpman.data.WPBlog;
+import org.darkware.wpman.data.WPCronHook;
+import org.darkware.wpman.util.LongObjectMap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The {@code CronJournal} is a persistent record of the cron hook occurrences handled by a {@link WPCronAgent}.
+ * Each occurrence is journaled as it is scheduled, started, and completed or failed. When the journal is
+ * opened, the previous contents are replayed so that occurrences which already completed are not run a second
+ * time and occurrences which were interrupted can be finished. Failed occurrences are not settled, so they are
+ * scheduled again while WordPress still lists them as due.
+ * <p>
+ * The journal is an append-only, memory-mapped file. Writes are queued and committed in groups by a single
+ * writer thread, so journaling adds no I/O latency to the callers. The journal is periodically compacted
+ * down to the latest state of each occurrence which is still within the retention period.
+ * <p>
+ * If no file is supplied, the journal is kept in memory only. It still prevents duplicate execution within a
+ * single run of the application.
+ * <p>
+ * Occurrences are indexed in memory by their packed {@link CronEventKey}, so checking the state of an
+ * occurrence does not allocate. Hook names are only written out in full on disk.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class CronJournal implements Closeable
+{
+    /** The state of a journaled occurrence. */
+    public enum State
+    {
+        SCHEDULED,
+        STARTED,
+        COMPLETED,
+        FAILED
+    }
+
+    private static final int MAGIC = 0x57504a31;
+    private static final int HEADER_SIZE = 16;
+    private static final int POSITION_OFFSET = 8;
+    private static final int INITIAL_CAPACITY = 4 * 1024 * 1024;
+    private static final long COMMIT_WAIT_MILLIS = 50;
+    private static final Duration RETENTION = Duration.ofHours(24);
+    private static final Duration COMPACTION_INTERVAL = Duration.ofHours(1);
+
+    private final Path file;
+    private final CronHookNames names;
+    private final LongObjectMap<Record> occurrences;
+    private final List<Occurrence> interrupted;
+    private final BlockingQueue<Record> pendingWrites;
+    private final Thread writer;
+    private volatile boolean open;
+    private volatile boolean persistent;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long nextCompaction;
+
+    private final Timer commitTimer;
+    private final Histogram batchSize;
+
+    /**
+     * Open a journal, replaying any existing contents.
+     *
+     * @param file The journal file, or {@code null} to keep the journal in memory only.
+     * @param names The {@link CronHookNames} used to build the keys of journaled occurrences.
+     * @param metrics The {@link MetricRegistry} to report journal statistics to.
+     */
+    public CronJournal(final Path file, final CronHookNames names, final MetricRegistry metrics)
+    {
+        super();
+
+        this.file = file;
+        this.names = names;
+        this.occurrences = new LongObjectMap<>();
+        this.pendingWrites = new LinkedBlockingQueue<>();
+        this.commitTimer = metrics.timer(MetricRegistry.name("cron", "journal", "commit"));
+        this.batchSize = metrics.histogram(MetricRegistry.name("cron", "journal", "batch-size"));
+        this.nextCompaction = System.currentTimeMillis() + CronJournal.COMPACTION_INTERVAL.toMillis();
+
+        if (this.file != null)
+        {
+            try
+            {
+                this.openFile();
+                this.persistent = true;
+            }
+            catch (IOException e)
+            {
+                WPCronAgent.log.error("Failed to open cron journal {}. Journal will not be persisted: {}", file, e.getLocalizedMessage());
+                this.closeFile();
+            }
+        }
+
+        this.interrupted = Collections.unmodifiableList(
+                this.occurrences.values().stream().filter(r -> r.state == State.STARTED).map(r -> new Occurrence(r.key, names)).collect(Collectors.toList()));
+        if (!this.interrupted.isEmpty()) WPCronAgent.log.info("Cron journal contains {} interrupted hooks.", this.interrupted.size());
+
+        this.open = true;
+        this.writer = new Thread(this::writeLoop, "cron-journal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Fetch the occurrences which were started but never completed before the journal was last closed.
+     *
+     * @return An unmodifiable {@code List} of interrupted {@link Occurrence}s.
+     */
+    public List<Occurrence> getInterrupted()
+    {
+        return this.interrupted;
+    }
+
+    /**
+     * Fetch the most recently journaled state of an occurrence.
+     *
+     * @param key The packed {@link CronEventKey} of the occurrence.
+     * @return The {@link State} of the occurrence, or {@code null} if it has not been journaled.
+     */
+    public State getState(final long key)
+    {
+        Record record = this.occurrences.get(key);
+        return (record == null) ? null : record.state;
+    }
+
+    /**
+     * Checks if an occurrence has already been started or completed. Such occurrences should not be
+     * scheduled again. Failed occurrences are not settled.
+     *
+     * @param key The packed {@link CronEventKey} of the occurrence.
+     * @return {@code true} if the occurrence has been started or completed, otherwise {@code false}.
+     */
+    public boolean isSettled(final long key)
+    {
+        State state = this.getState(key);
+        return state == State.STARTED || state == State.COMPLETED;
+    }
+
+    /**
+     * Journal an occurrence as scheduled.
+     *
+     * @param key The packed {@link CronEventKey} of the occurrence.
+     */
+    public void scheduled(final long key)
+    {
+        this.record(key, State.SCHEDULED);
+    }
+
+    /**
+     * Journal an occurrence as started.
+     *
+     * @param blog The {@link WPBlog} the hook runs against.
+     * @param hook The {@link WPCronHook} occurrence.
+     */
+    public void started(final WPBlog blog, final WPCronHook hook)
+    {
+        this.record(CronEventKey.of(blog, hook, this.names), State.STARTED);
+    }
+
+    /**
+     * Journal an occurrence as successfully completed.
+     *
+     * @param blog The {@link WPBlog} the hook runs against.
+     * @param hook The {@link WPCronHook} occurrence.
+     */
+    public void completed(final WPBlog blog, final WPCronHook hook)
+    {
+        this.record(CronEventKey.of(blog, hook, this.names), State.COMPLETED);
+    }
+
+    /**
+     * Journal an occurrence as failed. A failed occurrence may be scheduled and started again.
+     *
+     * @param blog The {@link WPBlog} the hook runs against.
+     * @param hook The {@link WPCronHook} occurrence.
+     */
+    public void failed(final WPBlog blog, final WPCronHook hook)
+    {
+        this.record(CronEventKey.of(blog, hook, this.names), State.FAILED);
+    }
+
+    /**
+     * Record a state change for an occurrence and queue it for writing.
+     *
+     * @param key The packed {@link CronEventKey} of the occurrence.
+     * @param state The new {@link State} of the occurrence.
+     */
+    private void record(final long key, final State state)
+    {
+        Record record = new Record(key, state, System.currentTimeMillis());
+        this.merge(record);
+
+        if (this.persistent) this.pendingWrites.add(record);
+    }
+
+    /**
+     * Store a record in memory, unless a record of a later state is already stored for the occurrence. Any
+     * state replaces a failure, since a failed occurrence starts over.
+     *
+     * @param record The {@link Record} to store.
+     */
+    private void merge(final Record record)
+    {
+        synchronized (this.occurrences)
+        {
+            Record old = this.occurrences.get(record.key);
+            if (old == null || old.state == State.FAILED || record.state.compareTo(old.state) >= 0) this.occurrences.put(record.key, record);
+        }
+    }
+
+    /**
+     * Flush all queued writes and close the journal file.
+     */
+    @Override
+    public void close()
+    {
+        this.open = false;
+        this.writer.interrupt();
+
+        try
+        {
+            this.writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        this.closeFile();
+    }
+
+    /**
+     * The main loop of the writer thread. Each pass collects every queued record and commits them as a
+     * single batch.
+     */
+    private void writeLoop()
+    {
+        List<Record> batch = new ArrayList<>();
+
+        while (this.open || !this.pendingWrites.isEmpty())
+        {
+            try
+            {
+                Record first = this.pendingWrites.poll(CronJournal.COMMIT_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null)
+                {
+                    batch.add(first);
+                    this.pendingWrites.drainTo(batch);
+                }
+            }
+            catch (InterruptedException e)
+            {
+                this.pendingWrites.drainTo(batch);
+            }
+
+            try
+            {
+                if (!batch.isEmpty()) this.commit(batch);
+                if (System.currentTimeMillis() > this.nextCompaction) this.compact();
+            }
+            catch (IOException | RuntimeException e)
+            {
+                WPCronAgent.log.error("Failed to write cron journal: {}", e.getLocalizedMessage(), e);
+            }
+
+            batch.clear();
+        }
+    }
+
+    /**
+     * Write a batch of records to the journal and force them to storage.
+     *
+     * @param batch The records to write.
+     * @throws IOException If there is an error while writing the journal.
+     */
+    private void commit(final List<Record> batch) throws IOException
+    {
+        if (this.buffer == null) return;
+
+        final Timer.Context timer = this.commitTimer.time();
+        try
+        {
+            int bytes = batch.stream().mapToInt(r -> r.size(this.names)).sum();
+            this.ensureCapacity(bytes);
+
+            for (Record record : batch) record.writeTo(this.buffer, this.names);
+
+            this.buffer.putLong(CronJournal.POSITION_OFFSET, this.buffer.position());
+            this.buffer.force();
+            this.batchSize.update(batch.size());
+        }
+        finally
+        {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Make room for the given number of bytes, first by compacting the journal, then by growing the file.
+     *
+     * @param bytes The number of bytes which need to be written.
+     * @throws IOException If there is an error while compacting or resizing the file.
+     */
+    private void ensureCapacity(final int bytes) throws IOException
+    {
+        if (this.buffer.remaining() >= bytes) return;
+
+        this.compact();
+        if (this.buffer.remaining() >= bytes) return;
+
+        final int position = this.buffer.position();
+        final long capacity = Math.max(this.buffer.capacity() * 2L, position + bytes * 2L);
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        this.buffer.position(position);
+    }
+
+    /**
+     * Rewrite the journal so that it only contains the latest state of each occurrence within the
+     * retention period. The compacted journal is built in a temporary file and moved into place.
+     *
+     * @throws IOException If there is an error while writing the compacted journal.
+     */
+    private void compact() throws IOException
+    {
+        this.nextCompaction = System.currentTimeMillis() + CronJournal.COMPACTION_INTERVAL.toMillis();
+        final long oldest = System.currentTimeMillis() - CronJournal.RETENTION.toMillis();
+        this.occurrences.removeIf(r -> r.timestamp < oldest);
+
+        if (this.buffer == null) return;
+
+        final List<Record> live = this.occurrences.values();
+        final int bytes = live.stream().mapToInt(r -> r.size(this.names)).sum();
+        final int capacity = Math.max(CronJournal.INITIAL_CAPACITY, (CronJournal.HEADER_SIZE + bytes) * 2);
+
+        final Path compacted = this.file.resolveSibling(this.file.getFileName() + ".compact");
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                                StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            MappedByteBuffer outBuffer = out.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            CronJournal.writeHeader(outBuffer);
+            for (Record record : live) record.writeTo(outBuffer, this.names);
+            outBuffer.putLong(CronJournal.POSITION_OFFSET, outBuffer.position());
+            outBuffer.force();
+        }
+
+        this.closeFile();
+        Files.move(compacted, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        this.mapFile();
+
+        WPCronAgent.log.debug("Compacted cron journal to {} entries.", live.size());
+    }
+
+    /**
+     * Open the journal file, replaying its contents or initializing a new journal.
+     *
+     * @throws IOException If there is an error while reading the file.
+     */
+    private void openFile() throws IOException
+    {
+        if (this.file.getParent() != null) Files.createDirectories(this.file.getParent());
+        final boolean existing = Files.exists(this.file) && Files.size(this.file) >= CronJournal.HEADER_SIZE;
+
+        this.mapFile();
+
+        if (existing && this.hasValidHeader()) this.replay();
+        else
+        {
+            if (existing) WPCronAgent.log.warn("Cron journal {} is not a valid journal. Starting a new journal.", this.file);
+            CronJournal.writeHeader(this.buffer);
+            this.buffer.putLong(CronJournal.POSITION_OFFSET, this.buffer.position());
+            this.buffer.force();
+        }
+    }
+
+    /**
+     * Map the journal file into memory.
+     *
+     * @throws IOException If there is an error while opening the file.
+     */
+    private void mapFile() throws IOException
+    {
+        this.channel = FileChannel.open(this.file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final long capacity = Math.max(CronJournal.INITIAL_CAPACITY, this.channel.size());
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+
+        if (this.hasValidHeader()) this.buffer.position((int) this.buffer.getLong(CronJournal.POSITION_OFFSET));
+    }
+
+    /**
+     * Checks if the mapped file starts with a journal header whose committed position lies within the file.
+     * A truncated or damaged file fails this check and is replaced with a new journal.
+     *
+     * @return {@code true} if the header is valid, otherwise {@code false}.
+     */
+    private boolean hasValidHeader()
+    {
+        if (this.buffer.getInt(0) != CronJournal.MAGIC) return false;
+
+        final long position = this.buffer.getLong(CronJournal.POSITION_OFFSET);
+        return position >= CronJournal.HEADER_SIZE && position <= this.buffer.capacity();
+    }
+
+    /**
+     * Close the journal file, if it's open.
+     */
+    private void closeFile()
+    {
+        this.buffer = null;
+        if (this.channel == null) return;
+
+        try
+        {
+            this.channel.close();
+        }
+        catch (IOException e)
+        {
+            WPCronAgent.log.warn("Failed to close cron journal: {}", e.getLocalizedMessage());
+        }
+        this.channel = null;
+    }
+
+    /**
+     * Replay all committed records from the journal into memory. Records beyond the last committed position
+     * are ignored.
+     */
+    private void replay()
+    {
+        final int end = (int) this.buffer.getLong(CronJournal.POSITION_OFFSET);
+        this.buffer.position(CronJournal.HEADER_SIZE);
+
+        int count = 0;
+        int recordStart = this.buffer.position();
+        try
+        {
+            while (this.buffer.position() < end)
+            {
+                recordStart = this.buffer.position();
+                this.merge(Record.readFrom(this.buffer, this.names));
+                count++;
+            }
+        }
+        catch (RuntimeException e)
+        {
+            WPCronAgent.log.warn("Cron journal is damaged after {} records. Ignoring the remainder.", count);
+            this.buffer.position(recordStart);
+            this.buffer.putLong(CronJournal.POSITION_OFFSET, recordStart);
+        }
+
+        WPCronAgent.log.info("Replayed {} cron journal records.", count);
+    }
+
+    /**
+     * Write the journal header to the start of a buffer, leaving the buffer positioned after the header.
+     *
+     * @param target The buffer to write to.
+     */
+    private static void writeHeader(final MappedByteBuffer target)
+    {
+        target.position(0);
+        target.putInt(CronJournal.MAGIC);
+        target.putInt(1);
+        target.putLong(CronJournal.HEADER_SIZE);
+    }
+
+    /**
+     * A single occurrence of a cron hook, identified by the blog, the hook name and the requested
+     * execution time.
+     */
+    public static final class Occurrence
+    {
+        private final int blogId;
+        private final String hook;
+        private final long execSecond;
+
+        private Occurrence(final long key, final CronHookNames names)
+        {
+            super();
+
+            this.blogId = CronEventKey.blogId(key);
+            this.hook = names.nameOf(CronEventKey.hookId(key));
+            this.execSecond = CronEventKey.execSecond(key);
+        }
+
+        /**
+         * Fetch the ID of the blog the hook runs against.
+         *
+         * @return The blog ID.
+         */
+        public int getBlogId()
+        {
+            return this.blogId;
+        }
+
+        /**
+         * Fetch the name of the hook.
+         *
+         * @return The hook name.
+         */
+        public String getHook()
+        {
+            return this.hook;
+        }
+
+        /**
+         * Fetch the requested execution time of the occurrence.
+         *
+         * @return The execution time as a {@link LocalDateTime}.
+         */
+        public LocalDateTime getExecTime()
+        {
+            return LocalDateTime.ofEpochSecond(this.execSecond, 0, ZoneOffset.UTC);
+        }
+
+        @Override
+        public String toString()
+        {
+            return this.blogId + ":" + this.hook + "@" + this.getExecTime();
+        }
+    }
+
+    /**
+     * A journal record declaring the state of an occurrence at a given moment.
+     */
+    private static final class Record
+    {
+        private final long key;
+        private final State state;
+        private final long timestamp;
+
+        private Record(final long key, final State state, final long timestamp)
+        {
+            super();
+
+            this.key = key;
+            this.state = state;
+            this.timestamp = timestamp;
+        }
+
+        private int size(final CronHookNames names)
+        {
+            return 1 + 4 + 8 + 8 + 2 + names.nameOf(CronEventKey.hookId(this.key)).getBytes(StandardCharsets.UTF_8).length;
+        }
+
+        private void writeTo(final MappedByteBuffer target, final CronHookNames names)
+        {
+            byte[] hookBytes = names.nameOf(CronEventKey.hookId(this.key)).getBytes(StandardCharsets.UTF_8);
+
+            target.put((byte) this.state.ordinal());
+            target.putInt(CronEventKey.blogId(this.key));
+            target.putLong(CronEventKey.execSecond(this.key));
+            target.putLong(this.timestamp);
+            target.putShort((short) hookBytes.length);
+            target.put(hookBytes);
+        }
+
+        private static Record readFrom(final MappedByteBuffer source, final CronHookNames names)
+        {
+            State state = State.values()[source.get()];
+            int blogId = source.getInt();
+            long execSecond = source.getLong();
+            long timestamp = source.getLong();
+            byte[] hookBytes = new byte[source.getShort() & 0xFFFF];
+            source.get(hookBytes);
+
+            long key = CronEventKey.pack(blogId, names.idOf(new String(hookBytes, StandardCharsets.UTF_8)), execSecond);
+            return new Record(key, state, timestamp);
+        }
+    }
+}
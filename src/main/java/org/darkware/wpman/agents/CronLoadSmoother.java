@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.agents;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.darkware.wpman.config.CronConfig;
+import org.darkware.wpman.config.WordpressConfig;
+import org.darkware.wpman.data.WPBlog;
+import org.darkware.wpman.data.WPCronHook;
+import org.darkware.wpman.util.TimeWindow;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code CronLoadSmoother} decides when a cron hook should actually be started. WordPress schedules
+ * recurring hooks on identical intervals for every blog, so their requested execution times tend to pile
+ * up on the same second. When smoothing is enabled in the {@link CronConfig}, hooks which are not
+ * time-critical are shifted to a moment inside the smoothing window which is chosen deterministically
+ * for each blog, and every hook start is fit into a per-second start limit.
+ * <p>
+ * The smoother keeps a record of the planned starts for each second. These are reported as a set of
+ * metrics describing the resulting start rate.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class CronLoadSmoother
+{
+    private static final HashFunction jitterHash = Hashing.murmur3_32();
+
+    private final WordpressConfig config;
+    private final ConcurrentSkipListMap<Long, AtomicInteger> startSlots;
+
+    private final Histogram startRate;
+    private final Counter shiftedStarts;
+    private final Counter deferredStarts;
+
+    /**
+     * Create a new smoother which reads its settings from the given configuration and reports to the
+     * given metrics registry.
+     *
+     * @param config The {@link WordpressConfig} to read the {@link CronConfig} from.
+     * @param metrics The {@link MetricRegistry} to report the start rate to.
+     */
+    public CronLoadSmoother(final WordpressConfig config, final MetricRegistry metrics)
+    {
+        super();
+
+        this.config = config;
+        this.startSlots = new ConcurrentSkipListMap<>();
+
+        this.startRate = metrics.histogram(MetricRegistry.name("cron", "smoothing", "starts-per-second"));
+        this.shiftedStarts = metrics.counter(MetricRegistry.name("cron", "smoothing", "shifted"));
+        this.deferredStarts = metrics.counter(MetricRegistry.name("cron", "smoothing", "deferred"));
+        metrics.register(MetricRegistry.name("cron", "smoothing", "start-curve"), (Gauge<Map<Long, Integer>>) this::getStartCurve);
+        metrics.register(MetricRegistry.name("cron", "smoothing", "peak-starts"), (Gauge<Integer>) this::getPeakStarts);
+    }
+
+    /**
+     * Compute the jitter seed for a given blog. The seed is stable for the lifetime of the blog, so
+     * a blog's hooks are always shifted by the same amount within the same window.
+     *
+     * @param blog The {@link WPBlog} to compute the seed for.
+     * @return The seed value.
+     */
+    protected static long jitterSeed(final WPBlog blog)
+    {
+        return CronLoadSmoother.jitterHash.hashInt(blog.getBlogId()).asInt();
+    }
+
+    /**
+     * Plan the start time for the given hook. If smoothing is disabled, the hook is planned for its
+     * declared execution time or immediately if that time has already passed. The planned start is
+     * always recorded in the start curve.
+     *
+     * @param blog The {@link WPBlog} the hook runs against.
+     * @param hook The {@link WPCronHook} to plan.
+     * @return The {@link LocalDateTime} when the hook should be started.
+     */
+    public LocalDateTime planStart(final WPBlog blog, final WPCronHook hook)
+    {
+        final LocalDateTime now = LocalDateTime.now();
+        this.expireSlots(now);
+
+        LocalDateTime target = hook.getNextRun().isBefore(now) ? now : hook.getNextRun();
+
+        final CronConfig cronConfig = this.config.getCronConfig();
+        if (!cronConfig.isSmoothing()) return this.claimSlot(target, 0);
+
+        if (!cronConfig.isTimeCritical(hook.getHook()) && cronConfig.getSmoothingWindow() > 0)
+        {
+            TimeWindow window = new TimeWindow(target, Duration.ofSeconds(cronConfig.getSmoothingWindow()));
+            target = window.getSeededMoment(CronLoadSmoother.jitterSeed(blog));
+            this.shiftedStarts.inc();
+        }
+
+        return this.claimSlot(target, cronConfig.getMaxStartsPerSecond());
+    }
+
+    /**
+     * Reserve a start slot at or after the target time. The first second which has not yet reached the
+     * start limit is chosen.
+     *
+     * @param target The desired start time.
+     * @param limit The maximum number of starts per second, or zero if starts are not limited.
+     * @return The start time that was reserved.
+     */
+    private LocalDateTime claimSlot(final LocalDateTime target, final int limit)
+    {
+        long second = target.toEpochSecond(ZoneOffset.UTC);
+
+        while (true)
+        {
+            AtomicInteger slot = this.startSlots.computeIfAbsent(second, s -> new AtomicInteger(0));
+            int claimed = slot.get();
+
+            if (limit > 0 && claimed >= limit)
+            {
+                second++;
+                continue;
+            }
+
+            if (slot.compareAndSet(claimed, claimed + 1))
+            {
+                LocalDateTime start = LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC);
+                if (start.isAfter(target.withNano(0))) this.deferredStarts.inc();
+                return start;
+            }
+        }
+    }
+
+    /**
+     * Remove start slots for seconds which have already passed, recording their final start counts.
+     *
+     * @param now The current time.
+     */
+    private void expireSlots(final LocalDateTime now)
+    {
+        final long currentSecond = now.toEpochSecond(ZoneOffset.UTC);
+
+        Map.Entry<Long, AtomicInteger> oldest;
+        while ((oldest = this.startSlots.firstEntry()) != null && oldest.getKey() < currentSecond)
+        {
+            if (this.startSlots.remove(oldest.getKey(), oldest.getValue())) this.startRate.update(oldest.getValue().get());
+        }
+    }
+
+    /**
+     * Fetch the planned start curve. This is the number of hook starts planned for each upcoming second
+     * which has at least one start.
+     *
+     * @return A {@code Map} of start counts, indexed by the number of seconds from now.
+     */
+    public Map<Long, Integer> getStartCurve()
+    {
+        final LocalDateTime now = LocalDateTime.now();
+        this.expireSlots(now);
+
+        final long currentSecond = now.toEpochSecond(ZoneOffset.UTC);
+        final ConcurrentNavigableMap<Long, AtomicInteger> upcoming = this.startSlots.tailMap(currentSecond);
+
+        Map<Long, Integer> curve = new TreeMap<>();
+        upcoming.forEach((second, count) -> curve.put(second - currentSecond, count.get()));
+
+        return curve;
+    }
+
+    /**
+     * Fetch the highest number of starts planned for any single upcoming second.
+     *
+     * @return The peak number of planned starts per second.
+     */
+    public int getPeakStarts()
+    {
+        return this.getStartCurve().values().stream().mapToInt(Integer::intValue).max().orElse(0);
+    }
+}
@@ -0,0 +1,289 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.agents;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.darkware.wpman.config.CronShardConfig;
+import org.darkware.wpman.config.WordpressConfig;
+import org.darkware.wpman.data.WPBlog;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code CronShardCoordinator} tracks the membership of the nodes sharing cron processing and decides
+ * which blogs belong to the local node. Membership is either declared statically in the configuration or
+ * discovered from lease files which each node renews in a shared directory.
+ * <p>
+ * Membership is only re-evaluated when {@link #refresh()} is called, so ownership is stable for the
+ * duration of a blog scan. The local lease is renewed on its own timer by {@link #startRenewal(Duration)}, so
+ * it stays valid however long a sweep takes.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class CronShardCoordinator
+{
+    private static final String LEASE_SUFFIX = ".lease";
+
+    private final WordpressConfig config;
+    private volatile String nodeId;
+    private volatile CronShardRing ring;
+    private volatile long minimumLease;
+    private ScheduledExecutorService renewer;
+
+    /**
+     * Create a new coordinator which reads its settings from the given configuration. Until the first
+     * refresh, the local node owns every blog.
+     *
+     * @param config The {@link WordpressConfig} to read the {@link CronShardConfig} from.
+     */
+    public CronShardCoordinator(final WordpressConfig config)
+    {
+        super();
+
+        this.config = config;
+        this.nodeId = config.getCronConfig().getSharding().getNodeId();
+        this.ring = new CronShardRing(Collections.singleton(this.nodeId), 1);
+    }
+
+    /**
+     * Fetch the ID of the local node.
+     *
+     * @return The node ID as a {@code String}.
+     */
+    public String getNodeId()
+    {
+        return this.nodeId;
+    }
+
+    /**
+     * Fetch the IDs of all nodes currently sharing cron processing.
+     *
+     * @return A {@code Set} of node IDs.
+     */
+    public Set<String> getMembers()
+    {
+        return this.ring.getMembers();
+    }
+
+    /**
+     * Fetch the number of seconds a lease remains valid after it is renewed. This is the configured lease
+     * duration, raised to the sweep period given to {@link #startRenewal(Duration)} if it is shorter.
+     *
+     * @return The lease duration, in seconds.
+     */
+    public long getLeaseDuration()
+    {
+        return Math.max(this.config.getCronConfig().getSharding().getLeaseDuration(), this.minimumLease);
+    }
+
+    /**
+     * Find the node which owns the given blog.
+     *
+     * @param blog The {@link WPBlog} to look up.
+     * @return The ID of the owning node, or {@code null} if no node owns the blog.
+     */
+    public String ownerOf(final WPBlog blog)
+    {
+        return this.ring.ownerOf(blog.getBlogId());
+    }
+
+    /**
+     * Checks if the local node is responsible for processing cron hooks for the given blog.
+     *
+     * @param blog The {@link WPBlog} to check.
+     * @return {@code true} if the local node owns the blog, {@code false} if another node owns it.
+     */
+    public boolean isOwned(final WPBlog blog)
+    {
+        return this.nodeId.equals(this.ownerOf(blog));
+    }
+
+    /**
+     * Re-evaluate the membership of the cluster, renewing the local lease if lease-based membership is
+     * used.
+     *
+     * @return {@code true} if the membership changed, {@code false} if it remained the same.
+     */
+    public boolean refresh()
+    {
+        final CronShardConfig shardConfig = this.config.getCronConfig().getSharding();
+        final String localId = shardConfig.getNodeId();
+
+        Set<String> members = new HashSet<>();
+        if (shardConfig.getLeaseDir() != null)
+        {
+            this.renewLease(shardConfig.getLeaseDir(), localId);
+            members.addAll(this.readLeases(shardConfig.getLeaseDir(), this.getLeaseDuration()));
+            members.add(localId);
+        }
+        else if (!shardConfig.getNodes().isEmpty())
+        {
+            members.addAll(shardConfig.getNodes());
+            if (!members.contains(localId))
+            {
+                WPCronAgent.log.error("This node ({}) is not in the declared cron node list. No blogs will be processed.", localId);
+            }
+        }
+        else
+        {
+            members.add(localId);
+        }
+
+        if (localId.equals(this.nodeId) && members.equals(this.ring.getMembers())) return false;
+
+        WPCronAgent.log.info("Cron shard membership changed: {} (local node: {})", members, localId);
+        this.ring = new CronShardRing(members, shardConfig.getVirtualNodes());
+        this.nodeId = localId;
+
+        return true;
+    }
+
+    /**
+     * Start renewing the local lease every third of the lease duration. Nothing is renewed if lease-based
+     * membership is not used. A lease duration shorter than the sweep period is raised to the sweep period,
+     * so that peers never drop a node between two of its sweeps.
+     *
+     * @param sweepPeriod The time between the start of two sweeps of the cron agent.
+     */
+    public synchronized void startRenewal(final Duration sweepPeriod)
+    {
+        final CronShardConfig shardConfig = this.config.getCronConfig().getSharding();
+        if (shardConfig.getLeaseDir() == null || this.renewer != null) return;
+
+        if (shardConfig.getLeaseDuration() < sweepPeriod.getSeconds())
+        {
+            WPCronAgent.log.warn("Cron lease duration of {}s is shorter than the sweep period. Using {}s instead.",
+                                 shardConfig.getLeaseDuration(), sweepPeriod.getSeconds());
+        }
+        this.minimumLease = sweepPeriod.getSeconds();
+
+        final long interval = Math.max(1, this.getLeaseDuration() / 3);
+        this.renewer = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("cron-lease-%d").setDaemon(true).build());
+        this.renewer.scheduleWithFixedDelay(() -> this.renewLease(shardConfig.getLeaseDir(), shardConfig.getNodeId()), interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop renewing the local lease. The lease remains in place until it expires or is released.
+     */
+    public synchronized void stopRenewal()
+    {
+        if (this.renewer == null) return;
+
+        this.renewer.shutdownNow();
+        this.renewer = null;
+    }
+
+    /**
+     * Remove the local lease, allowing the remaining nodes to take over this node's blogs at their
+     * next refresh instead of waiting for the lease to expire.
+     */
+    public void release()
+    {
+        this.stopRenewal();
+
+        final Path leaseDir = this.config.getCronConfig().getSharding().getLeaseDir();
+        if (leaseDir == null) return;
+
+        try
+        {
+            Files.deleteIfExists(leaseDir.resolve(this.nodeId + CronShardCoordinator.LEASE_SUFFIX));
+        }
+        catch (IOException e)
+        {
+            WPCronAgent.log.warn("Failed to release cron lease: {}", e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Write a fresh lease for the local node. The lease is written to a temporary file and moved into
+     * place so other nodes never read a partial lease.
+     *
+     * @param leaseDir The directory holding the lease files.
+     * @param localId The ID of the local node.
+     */
+    private void renewLease(final Path leaseDir, final String localId)
+    {
+        try
+        {
+            Files.createDirectories(leaseDir);
+
+            Path lease = leaseDir.resolve(localId + CronShardCoordinator.LEASE_SUFFIX);
+            Path temp = leaseDir.resolve("." + localId + CronShardCoordinator.LEASE_SUFFIX + ".tmp");
+            Files.write(temp, Long.toString(System.currentTimeMillis()).getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, lease, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e)
+        {
+            WPCronAgent.log.warn("Failed to renew cron lease in {}: {}", leaseDir, e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Read the IDs of all nodes holding a current lease.
+     *
+     * @param leaseDir The directory holding the lease files.
+     * @param leaseDuration The number of seconds a lease remains valid after it is renewed.
+     * @return A {@code Set} of node IDs.
+     */
+    private Set<String> readLeases(final Path leaseDir, final long leaseDuration)
+    {
+        final long oldestValid = System.currentTimeMillis() - (leaseDuration * 1000L);
+        Set<String> holders = new HashSet<>();
+
+        try (DirectoryStream<Path> leases = Files.newDirectoryStream(leaseDir, "*" + CronShardCoordinator.LEASE_SUFFIX))
+        {
+            for (Path lease : leases)
+            {
+                String filename = lease.getFileName().toString();
+                if (filename.startsWith(".")) continue;
+
+                try
+                {
+                    String content = new String(Files.readAllBytes(lease), StandardCharsets.UTF_8).trim();
+                    if (Long.parseLong(content) >= oldestValid)
+                    {
+                        holders.add(filename.substring(0, filename.length() - CronShardCoordinator.LEASE_SUFFIX.length()));
+                    }
+                }
+                catch (IOException | NumberFormatException e)
+                {
+                    WPCronAgent.log.debug("Ignoring unreadable cron lease: {}", lease);
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            WPCronAgent.log.warn("Failed to read cron leases from {}: {}", leaseDir, e.getLocalizedMessage());
+        }
+
+        return holders;
+    }
+}
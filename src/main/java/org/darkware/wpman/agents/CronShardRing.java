@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.agents;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * A {@code CronShardRing} is an immutable consistent hash ring which assigns blogs to the nodes sharing
+ * cron processing. Each node is placed on the ring at several points, and a blog is owned by the first
+ * node found at or after the blog's own position. When a node joins or leaves, only the blogs adjacent
+ * to that node's points change owners.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public final class CronShardRing
+{
+    private static final HashFunction ringHash = Hashing.murmur3_32();
+
+    private final SortedSet<String> members;
+    private final NavigableMap<Integer, String> ring;
+
+    /**
+     * Create a new ring containing the given nodes.
+     *
+     * @param members The IDs of the nodes to place on the ring.
+     * @param virtualNodes The number of points to place each node at.
+     */
+    public CronShardRing(final Collection<String> members, final int virtualNodes)
+    {
+        super();
+
+        this.members = Collections.unmodifiableSortedSet(new TreeSet<>(members));
+        this.ring = new TreeMap<>();
+
+        for (String member : this.members)
+        {
+            for (int i = 0; i < Math.max(1, virtualNodes); i++)
+            {
+                int point = CronShardRing.ringHash.hashString(member + "#" + i, StandardCharsets.UTF_8).asInt();
+                this.ring.putIfAbsent(point, member);
+            }
+        }
+    }
+
+    /**
+     * Fetch the IDs of the nodes on this ring.
+     *
+     * @return An unmodifiable, sorted {@code Set} of node IDs.
+     */
+    public SortedSet<String> getMembers()
+    {
+        return this.members;
+    }
+
+    /**
+     * Find the node which owns the given blog.
+     *
+     * @param blogId The ID of the blog to look up.
+     * @return The ID of the owning node, or {@code null} if the ring is empty.
+     */
+    public String ownerOf(final int blogId)
+    {
+        if (this.ring.isEmpty()) return null;
+
+        int position = CronShardRing.ringHash.hashInt(blogId).asInt();
+        Map.Entry<Integer, String> owner = this.ring.ceilingEntry(position);
+        if (owner == null) owner = this.ring.firstEntry();
+
+        return owner.getValue();
+    }
+}
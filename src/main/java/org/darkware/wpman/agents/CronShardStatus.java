@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.agents;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.darkware.wpman.data.WPBlog;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * This is a reporting snapshot of how blogs are assigned to the nodes sharing cron processing.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class CronShardStatus
+{
+    private final String nodeId;
+    private final Set<String> members;
+    private final Map<String, String> owners;
+
+    /**
+     * Create a new snapshot of the shard assignments known to a coordinator.
+     *
+     * @param coordinator The {@link CronShardCoordinator} to report on.
+     * @param blogs The blogs to report ownership for.
+     */
+    public CronShardStatus(final CronShardCoordinator coordinator, final Iterable<WPBlog> blogs)
+    {
+        super();
+
+        this.nodeId = coordinator.getNodeId();
+        this.members = coordinator.getMembers();
+        this.owners = new TreeMap<>();
+
+        for (WPBlog blog : blogs) this.owners.put(blog.getSubDomain(), coordinator.ownerOf(blog));
+    }
+
+    /**
+     * Fetch the ID of the node which produced this report.
+     *
+     * @return The local node ID.
+     */
+    @JsonProperty("node")
+    public String getNodeId()
+    {
+        return this.nodeId;
+    }
+
+    /**
+     * Fetch the IDs of all nodes sharing cron processing.
+     *
+     * @return A {@code Set} of node IDs.
+     */
+    @JsonProperty("members")
+    public Set<String> getMembers()
+    {
+        return this.members;
+    }
+
+    /**
+     * Fetch the number of blogs owned by the local node.
+     *
+     * @return The number of locally owned blogs.
+     */
+    @JsonProperty("owned")
+    public long getOwnedCount()
+    {
+        return this.owners.values().stream().filter(this.nodeId::equals).count();
+    }
+
+    /**
+     * Fetch the owning node of each blog.
+     *
+     * @return A {@code Map} of node IDs, indexed by blog subdomain.
+     */
+    @JsonProperty("owners")
+    public Map<String, String> getOwners()
+    {
+        return this.owners;
+    }
+}
@@ -0,0 +1,345 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.agents;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.darkware.wpman.ContextManager;
+import org.darkware.wpman.config.CronConfig;
+import org.darkware.wpman.config.WordpressConfig;
+import org.darkware.wpman.data.WPBlog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The {@code CronSweepEngine} scans a collection of blogs for cron hooks in parallel. Each blog is scanned
+ * as a separate task on a bounded pool of threads, so a single slow blog only occupies one thread rather
+ * than holding up the entire sweep. Blog scans which exceed the configured deadline are reported as late
+ * and interrupted.
+ * <p>
+ * Each sweep reports its total duration and the distribution of per-blog scan times.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class CronSweepEngine
+{
+    /**
+     * A {@code BlogScanner} performs the cron scan for a single blog.
+     */
+    @FunctionalInterface
+    public interface BlogScanner
+    {
+        /**
+         * Scan the given blog for cron hooks.
+         *
+         * @param blog The {@link WPBlog} to scan.
+         * @throws InterruptedException If the scan is interrupted.
+         */
+        void scan(WPBlog blog) throws InterruptedException;
+    }
+
+    private final WordpressConfig config;
+    private final ContextManager context;
+    private final ThreadPoolExecutor executor;
+
+    private final Timer sweepTimer;
+    private final Timer blogScanTimer;
+    private final Counter lateBlogs;
+
+    private volatile long lastSweepMillis;
+    private volatile long lastP99Millis;
+
+    /**
+     * Create a new sweep engine which reads its settings from the given configuration and reports to the
+     * given metrics registry.
+     *
+     * @param config The {@link WordpressConfig} to read the {@link CronConfig} from.
+     * @param metrics The {@link MetricRegistry} to report sweep statistics to.
+     */
+    public CronSweepEngine(final WordpressConfig config, final MetricRegistry metrics)
+    {
+        super();
+
+        this.config = config;
+        this.context = ContextManager.local();
+
+        final int parallelism = Math.max(1, config.getCronConfig().getSweepParallelism());
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                                               new ThreadFactoryBuilder().setNameFormat("cron-sweep-%d").setDaemon(true).build());
+        this.executor.allowCoreThreadTimeOut(true);
+
+        this.sweepTimer = metrics.timer(MetricRegistry.name("cron", "sweep", "duration"));
+        this.blogScanTimer = metrics.timer(MetricRegistry.name("cron", "sweep", "blog-scan"));
+        this.lateBlogs = metrics.counter(MetricRegistry.name("cron", "sweep", "late-blogs"));
+        metrics.register(MetricRegistry.name("cron", "sweep", "last-duration-ms"), (Gauge<Long>) () -> this.lastSweepMillis);
+        metrics.register(MetricRegistry.name("cron", "sweep", "last-p99-ms"), (Gauge<Long>) () -> this.lastP99Millis);
+    }
+
+    /**
+     * Fetch the duration of the most recently completed sweep.
+     *
+     * @return The sweep duration, in milliseconds.
+     */
+    public long getLastSweepMillis()
+    {
+        return this.lastSweepMillis;
+    }
+
+    /**
+     * Fetch the 99th percentile of the blog scan times from the most recently completed sweep.
+     *
+     * @return The 99th percentile blog scan time, in milliseconds.
+     */
+    public long getLastP99Millis()
+    {
+        return this.lastP99Millis;
+    }
+
+    /**
+     * Scan every given blog using the supplied scanner. This method blocks until every blog scan has
+     * either completed or been abandoned for exceeding its deadline.
+     *
+     * @param blogs The blogs to scan.
+     * @param scanner The {@link BlogScanner} to apply to each blog.
+     * @param enabled A check for whether the sweep should continue. If it returns {@code false}, all
+     * outstanding scans are cancelled.
+     * @return {@code true} if the sweep ran to completion, {@code false} if it was aborted.
+     * @throws InterruptedException If the sweeping thread is interrupted.
+     */
+    public boolean sweep(final Iterable<WPBlog> blogs, final BlogScanner scanner, final BooleanSupplier enabled) throws InterruptedException
+    {
+        final CronConfig cronConfig = this.config.getCronConfig();
+        this.resize(cronConfig.getSweepParallelism());
+        final long deadlineNanos = TimeUnit.SECONDS.toNanos(Math.max(1, cronConfig.getBlogScanDeadline()));
+
+        final long sweepStart = System.nanoTime();
+        final CompletionService<Long> completion = new ExecutorCompletionService<>(this.executor);
+        final List<BlogScan> pending = new ArrayList<>();
+
+        try
+        {
+            for (WPBlog blog : blogs)
+            {
+                BlogScan scan = new BlogScan(blog, scanner);
+                scan.future = completion.submit(scan);
+                pending.add(scan);
+            }
+
+            final long[] scanTimes = new long[pending.size()];
+            int completed = 0;
+            int failed = 0;
+            int late = 0;
+
+            while (completed + failed + late < scanTimes.length)
+            {
+                if (!enabled.getAsBoolean()) return false;
+
+                Future<Long> done = completion.poll(100, TimeUnit.MILLISECONDS);
+                while (done != null)
+                {
+                    if (!done.isCancelled())
+                    {
+                        long scanTime = this.scanTime(done);
+                        if (scanTime < 0) failed++;
+                        else scanTimes[completed++] = scanTime;
+                    }
+                    done = completion.poll();
+                }
+
+                late += this.abandonLateScans(pending, deadlineNanos);
+            }
+
+            this.report(Arrays.copyOf(scanTimes, completed), System.nanoTime() - sweepStart, failed, late);
+            return true;
+        }
+        finally
+        {
+            pending.stream().filter(s -> !s.future.isDone()).forEach(s -> s.future.cancel(true));
+        }
+    }
+
+    /**
+     * Shut down the threads used for blog scans. Running scans are interrupted.
+     */
+    public void shutdown()
+    {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Adjust the number of scanning threads to match the configured parallelism.
+     *
+     * @param parallelism The requested number of threads.
+     */
+    private void resize(final int parallelism)
+    {
+        final int size = Math.max(1, parallelism);
+        if (size == this.executor.getMaximumPoolSize()) return;
+
+        if (size > this.executor.getMaximumPoolSize())
+        {
+            this.executor.setMaximumPoolSize(size);
+            this.executor.setCorePoolSize(size);
+        }
+        else
+        {
+            this.executor.setCorePoolSize(size);
+            this.executor.setMaximumPoolSize(size);
+        }
+    }
+
+    /**
+     * Fetch the scan time from a completed scan.
+     *
+     * @param done The completed scan {@code Future}.
+     * @return The scan time, in nanoseconds, or {@code -1} if the scan failed.
+     * @throws InterruptedException If the thread is interrupted.
+     */
+    private long scanTime(final Future<Long> done) throws InterruptedException
+    {
+        try
+        {
+            return done.get();
+        }
+        catch (ExecutionException e)
+        {
+            return -1;
+        }
+    }
+
+    /**
+     * Cancel all blog scans that have been running longer than the deadline.
+     *
+     * @param pending The list of blog scans which have not yet been collected.
+     * @param deadlineNanos The per-blog deadline, in nanoseconds.
+     * @return The number of scans which were abandoned.
+     */
+    private int abandonLateScans(final List<BlogScan> pending, final long deadlineNanos)
+    {
+        final long now = System.nanoTime();
+        int late = 0;
+
+        Iterator<BlogScan> scans = pending.iterator();
+        while (scans.hasNext())
+        {
+            BlogScan scan = scans.next();
+            if (scan.future.isDone())
+            {
+                scans.remove();
+                continue;
+            }
+
+            // A scan which completes before it can be cancelled is collected as a normal result instead
+            long started = scan.startNanos;
+            if (started != 0 && now - started > deadlineNanos && scan.future.cancel(true))
+            {
+                WPCronAgent.log.warn("Cron scan for {} exceeded its deadline. Interrupted.", scan.blog.getDomain());
+                scans.remove();
+                this.lateBlogs.inc();
+                late++;
+            }
+        }
+
+        return late;
+    }
+
+    /**
+     * Report the statistics for a completed sweep.
+     *
+     * @param scanTimes The scan times for every blog that completed, in nanoseconds.
+     * @param sweepNanos The total duration of the sweep, in nanoseconds.
+     * @param failed The number of blog scans which failed with an error.
+     * @param late The number of blog scans abandoned for being late.
+     */
+    private void report(final long[] scanTimes, final long sweepNanos, final int failed, final int late)
+    {
+        Arrays.sort(scanTimes);
+        final long p99 = (scanTimes.length == 0) ? 0 : scanTimes[(int) Math.ceil(scanTimes.length * 0.99) - 1];
+
+        this.sweepTimer.update(sweepNanos, TimeUnit.NANOSECONDS);
+        this.lastSweepMillis = TimeUnit.NANOSECONDS.toMillis(sweepNanos);
+        this.lastP99Millis = TimeUnit.NANOSECONDS.toMillis(p99);
+
+        WPCronAgent.log.info("Cron sweep of {} blogs finished in {} ms (p99 blog scan: {} ms, failed: {}, late: {})",
+                             scanTimes.length + failed + late, this.lastSweepMillis, this.lastP99Millis, failed, late);
+    }
+
+    /**
+     * A single blog scan task. The task records its own start time so the sweep can detect scans which
+     * run past their deadline.
+     */
+    private final class BlogScan implements Callable<Long>
+    {
+        private final WPBlog blog;
+        private final BlogScanner scanner;
+        private volatile long startNanos;
+        private Future<Long> future;
+
+        private BlogScan(final WPBlog blog, final BlogScanner scanner)
+        {
+            super();
+
+            this.blog = blog;
+            this.scanner = scanner;
+        }
+
+        @Override
+        public Long call() throws Exception
+        {
+            ContextManager.attach(CronSweepEngine.this.context);
+            this.startNanos = System.nanoTime();
+
+            try
+            {
+                WPCronAgent.log.debug("Processing cron events for {}", this.blog.getDomain());
+                this.scanner.scan(this.blog);
+            }
+            catch (InterruptedException e)
+            {
+                WPCronAgent.log.debug("Cron scan for {} was interrupted.", this.blog.getDomain());
+                throw e;
+            }
+            catch (RuntimeException e)
+            {
+                WPCronAgent.log.warn("Cron scan for {} failed: {}", this.blog.getDomain(), e.getLocalizedMessage(), e);
+                throw e;
+            }
+
+            final long elapsed = System.nanoTime() - this.startNanos;
+            CronSweepEngine.this.blogScanTimer.update(elapsed, TimeUnit.NANOSECONDS);
+
+            return elapsed;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.agents;
+
+import org.darkware.wpman.actions.WPCronHookExec;
+import org.darkware.wpman.data.WPBlog;
+
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * A {@code ScheduledCronEvent} is the compact record a {@link WPCronAgent} keeps for each cron event it has
+ * scheduled. The event is identified by its packed {@link CronEventKey}. A {@link CronEvent} view can be
+ * produced for reporting.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public final class ScheduledCronEvent
+{
+    private final long key;
+    private final WPBlog blog;
+    private final WPCronHookExec action;
+    private final ScheduledFuture future;
+    private volatile boolean released;
+
+    /**
+     * Create a new record for a scheduled event.
+     *
+     * @param key The packed {@link CronEventKey} of the event.
+     * @param blog The {@link WPBlog} the event runs against.
+     * @param action The {@link WPCronHookExec} action which executes the event.
+     * @param future The {@link ScheduledFuture} of the action.
+     */
+    public ScheduledCronEvent(final long key, final WPBlog blog, final WPCronHookExec action, final ScheduledFuture future)
+    {
+        super();
+
+        this.key = key;
+        this.blog = blog;
+        this.action = action;
+        this.future = future;
+    }
+
+    /**
+     * Fetch the packed key of this event.
+     *
+     * @return The {@link CronEventKey} of this event.
+     */
+    public long getKey()
+    {
+        return this.key;
+    }
+
+    /**
+     * Fetch the blog this event runs against.
+     *
+     * @return The {@link WPBlog} linked to this event.
+     */
+    public WPBlog getBlog()
+    {
+        return this.blog;
+    }
+
+    /**
+     * Fetch the action which executes this event.
+     *
+     * @return The {@link WPCronHookExec} for this event.
+     */
+    public WPCronHookExec getAction()
+    {
+        return this.action;
+    }
+
+    /**
+     * Fetch the future of the action which executes this event.
+     *
+     * @return The {@link ScheduledFuture} for this event.
+     */
+    public ScheduledFuture getFuture()
+    {
+        return this.future;
+    }
+
+    /**
+     * Fetch the requested execution time of this event.
+     *
+     * @return The execution time, in epoch seconds.
+     */
+    public long getExecSecond()
+    {
+        return CronEventKey.execSecond(this.key);
+    }
+
+    /**
+     * Checks if this event has been released from the schedule.
+     *
+     * @return {@code true} if the event was removed from the schedule.
+     */
+    boolean isReleased()
+    {
+        return this.released;
+    }
+
+    /**
+     * Mark this event as released from the schedule.
+     */
+    void release()
+    {
+        this.released = true;
+    }
+
+    /**
+     * Build a {@link CronEvent} view of this event.
+     *
+     * @param names The {@link CronHookNames} used to resolve the hook name.
+     * @return A new {@code CronEvent}.
+     */
+    public CronEvent toEvent(final CronHookNames names)
+    {
+        CronEvent event = new CronEvent(this.blog, names.nameOf(CronEventKey.hookId(this.key)), CronEventKey.execTime(this.key));
+        event.attachAction(this.action);
+
+        return event;
+    }
+}
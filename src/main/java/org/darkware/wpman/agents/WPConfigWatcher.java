@@ -18,6 +18,7 @@
 package org.darkware.wpman.agents;
 
 import org.darkware.wpman.WPManager;
+import org.darkware.wpman.actions.WPActionCategory;
 import org.darkware.wpman.config.ReloadableWordpressConfig;
 import org.darkware.wpman.events.ConfigurationFileChange;
 
@@ -80,6 +81,12 @@ public class WPConfigWatcher extends WPPeriodicAgent
         }
     }
 
+    @Override
+    public WPActionCategory getCategory()
+    {
+        return WPActionCategory.DATA;
+    }
+
     @Override
     public void executeAction()
     {
@@ -18,10 +18,10 @@
 package org.darkware.wpman.agents;
 
 import org.darkware.wpman.WPManager;
+import org.darkware.wpman.actions.WPActionPipeline;
 import org.darkware.wpman.actions.WPCoreUpdate;
 
 import java.time.Duration;
-import java.util.concurrent.ScheduledFuture;
 
 /**
  *
@@ -31,7 +31,7 @@ import java.util.concurrent.ScheduledFuture;
  */
 public class WPCoreUpdateAgent extends WPPeriodicAgent
 {
-    private ScheduledFuture<Boolean> waitingFuture;
+    private WPActionPipeline waitingUpdate;
 
     /**
      * Create a plugin synchronization agent.
@@ -45,13 +45,12 @@ public class WPCoreUpdateAgent extends WPPeriodicAgent
     @Override
     public void executeAction()
     {
-        if (this.waitingFuture != null)
+        if (this.waitingUpdate != null)
         {
-            if (this.waitingFuture.isCancelled()) this.waitingFuture = null;
-            else if (this.waitingFuture.isDone()) this.waitingFuture = null;
+            if (this.waitingUpdate.isComplete()) this.waitingUpdate = null;
             else
             {
-                // We've got a task waiting to execute.
+                // We've got an update waiting to execute or still running.
                 return;
             }
         }
@@ -59,7 +58,7 @@ public class WPCoreUpdateAgent extends WPPeriodicAgent
         if (this.getManager().getData().getCore().hasUpdate())
         {
             WPManager.log.info("Scheduling a core update in the core update window.");
-            this.waitingFuture = this.getManager().scheduleAction(new WPCoreUpdate(), this.getManager().getConfig().getCoreUpdateWindow());
+            this.waitingUpdate = this.getManager().getActionService().startPipeline(WPCoreUpdate.pipeline(), this.getManager().getConfig().getCoreUpdateWindow());
         }
     }
 }
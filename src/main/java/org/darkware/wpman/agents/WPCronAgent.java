@@ -19,18 +19,22 @@ package org.darkware.wpman.agents;
 
 import org.darkware.wpman.ContextManager;
 import org.darkware.wpman.WPManager;
+import org.darkware.wpman.actions.WPCronHookExec;
 import org.darkware.wpman.data.WPBlog;
 import org.darkware.wpman.data.WPBlogs;
+import org.darkware.wpman.data.WPCronHook;
+import org.darkware.wpman.util.LongObjectMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * A {@code WPCronAgent} is a thread-based agent which collects and executes WordPress
@@ -48,7 +52,14 @@ public abstract class WPCronAgent extends WPAgent
 
     private WPBlogs blogs;
     private final AtomicBoolean enabled;
-    private final Map<CronEvent, ScheduledFuture> scheduledEvents;
+    private final CronHookNames hookNames;
+    private final LongObjectMap<ScheduledCronEvent> scheduledEvents;
+    private final LongObjectMap<List<ScheduledCronEvent>> eventsByBlog;
+    private final CronLoadSmoother loadSmoother;
+    private final CronShardCoordinator shardCoordinator;
+    private final CronSweepEngine sweepEngine;
+    private final CronJournal journal;
+    private volatile Thread runner;
 
     /**
      * Creates a new agent, attached to the {@link WPManager} from the current thread's
@@ -59,27 +70,180 @@ public abstract class WPCronAgent extends WPAgent
         super("cron");
 
         this.enabled = new AtomicBoolean(true);
-        this.scheduledEvents = new ConcurrentHashMap<>();
+        this.hookNames = new CronHookNames();
+        this.scheduledEvents = new LongObjectMap<>();
+        this.eventsByBlog = new LongObjectMap<>();
+        this.loadSmoother = new CronLoadSmoother(this.getManager().getConfig(), this.getManager().getMetrics());
+        this.shardCoordinator = new CronShardCoordinator(this.getManager().getConfig());
+        this.sweepEngine = new CronSweepEngine(this.getManager().getConfig(), this.getManager().getMetrics());
+        this.journal = new CronJournal(this.getManager().getConfig().getDataFile("cronJournal"), this.hookNames, this.getManager().getMetrics());
     }
 
-    public Set<CronEvent> getScheduledEvents()
+    /**
+     * Fetch a view of the events currently scheduled by this agent. The views are built on each call and
+     * are intended for reporting.
+     *
+     * @return A {@code List} of {@link CronEvent} views.
+     */
+    public List<CronEvent> getScheduledEvents()
+    {
+        List<CronEvent> events = new ArrayList<>();
+        for (ScheduledCronEvent scheduled : this.scheduledEvents.values()) events.add(scheduled.toEvent(this.hookNames));
+
+        return events;
+    }
+
+    /**
+     * Fetch the {@link CronHookNames} used to build the keys of cron events.
+     *
+     * @return The {@code CronHookNames} for this agent.
+     */
+    public CronHookNames getHookNames()
+    {
+        return this.hookNames;
+    }
+
+    /**
+     * Build the packed key identifying an occurrence of a hook on a blog.
+     *
+     * @param blog The {@link WPBlog} the hook runs against.
+     * @param hook The {@link WPCronHook} occurrence.
+     * @return The {@link CronEventKey} of the occurrence.
+     */
+    public long eventKey(final WPBlog blog, final WPCronHook hook)
+    {
+        return CronEventKey.of(blog, hook, this.hookNames);
+    }
+
+    /**
+     * Checks if an event has already been scheduled.
+     *
+     * @param key The {@link CronEventKey} of the event.
+     * @return {@code true} if the event is scheduled, otherwise {@code false}.
+     */
+    public boolean isEventScheduled(final long key)
+    {
+        return this.scheduledEvents.containsKey(key);
+    }
+
+    /**
+     * Fetch a scheduled event.
+     *
+     * @param key The {@link CronEventKey} of the event.
+     * @return The {@link ScheduledCronEvent}, or {@code null} if the event is not scheduled.
+     */
+    public ScheduledCronEvent getScheduledEvent(final long key)
+    {
+        return this.scheduledEvents.get(key);
+    }
+
+    /**
+     * Find a scheduled event on the same blog which runs within a few seconds of the given time.
+     *
+     * @param blog The {@link WPBlog} to search.
+     * @param execSecond The execution time to match, in epoch seconds.
+     * @param tolerance The largest difference in execution time to accept, in seconds.
+     * @return A matching {@link ScheduledCronEvent}, or {@code null} if there is none.
+     */
+    protected ScheduledCronEvent findNearbyEvent(final WPBlog blog, final long execSecond, final long tolerance)
     {
-        return this.scheduledEvents.keySet();
+        synchronized (this.scheduledEvents)
+        {
+            List<ScheduledCronEvent> events = this.eventsByBlog.get(blog.getBlogId());
+            if (events == null) return null;
+
+            for (ScheduledCronEvent event : events)
+            {
+                if (Math.abs(event.getExecSecond() - execSecond) <= tolerance) return event;
+            }
+            return null;
+        }
     }
 
-    public boolean isEventScheduled(final CronEvent event)
+    /**
+     * Add an event to the schedule.
+     *
+     * @param event The {@link ScheduledCronEvent} to add.
+     */
+    protected void addToSchedule(final ScheduledCronEvent event)
     {
-        return this.scheduledEvents.containsKey(event);
+        synchronized (this.scheduledEvents)
+        {
+            this.scheduledEvents.put(event.getKey(), event);
+
+            List<ScheduledCronEvent> events = this.eventsByBlog.get(event.getBlog().getBlogId());
+            if (events == null)
+            {
+                events = new ArrayList<>(4);
+                this.eventsByBlog.put(event.getBlog().getBlogId(), events);
+            }
+            events.add(event);
+        }
     }
 
-    public ScheduledFuture getScheduledFuture(final CronEvent event)
+    /**
+     * Remove every event matching a filter from the schedule.
+     *
+     * @param filter The filter selecting events to remove. It is called exactly once for each event.
+     * @return The number of events removed.
+     */
+    private int removeFromSchedule(final Predicate<ScheduledCronEvent> filter)
     {
-        return this.scheduledEvents.get(event);
+        synchronized (this.scheduledEvents)
+        {
+            int removed = this.scheduledEvents.removeIf(e -> {
+                if (!filter.test(e)) return false;
+                e.release();
+                return true;
+            });
+
+            this.eventsByBlog.removeIf(events -> {
+                events.removeIf(ScheduledCronEvent::isReleased);
+                return events.isEmpty();
+            });
+
+            return removed;
+        }
     }
 
-    protected void addToSchedule(final CronEvent event, final ScheduledFuture future)
+    /**
+     * Fetch the {@link CronLoadSmoother} used to plan the start time of cron hooks.
+     *
+     * @return The {@code CronLoadSmoother} for this agent.
+     */
+    public CronLoadSmoother getLoadSmoother()
     {
-        this.scheduledEvents.put(event, future);
+        return this.loadSmoother;
+    }
+
+    /**
+     * Fetch the {@link CronShardCoordinator} which decides which blogs this agent is responsible for.
+     *
+     * @return The {@code CronShardCoordinator} for this agent.
+     */
+    public CronShardCoordinator getShardCoordinator()
+    {
+        return this.shardCoordinator;
+    }
+
+    /**
+     * Fetch the {@link CronSweepEngine} used to scan blogs for cron hooks.
+     *
+     * @return The {@code CronSweepEngine} for this agent.
+     */
+    public CronSweepEngine getSweepEngine()
+    {
+        return this.sweepEngine;
+    }
+
+    /**
+     * Fetch the {@link CronJournal} recording the cron hook occurrences handled by this agent.
+     *
+     * @return The {@code CronJournal} for this agent.
+     */
+    public CronJournal getJournal()
+    {
+        return this.journal;
     }
 
     /**
@@ -106,16 +270,53 @@ public abstract class WPCronAgent extends WPAgent
         return this.enabled.get();
     }
 
+    /**
+     * Stop processing cron hooks. The agent stops scanning blogs and no more hooks are scheduled. Hooks
+     * which were already handed to the action service are drained along with the other actions, so the
+     * journal stays open until the agent is {@link #close() closed}.
+     *
+     * @param timeout The time to wait for the agent's thread to stop.
+     */
+    public void stop(final Duration timeout)
+    {
+        if (!this.enabled.getAndSet(false)) return;
+
+        final Thread thread = this.runner;
+        if (thread == null) return;
+
+        thread.interrupt();
+        try
+        {
+            thread.join(timeout.toMillis());
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        if (thread.isAlive()) WPCronAgent.log.warn("Cron processing did not stop within {}s.", timeout.getSeconds());
+    }
+
+    /**
+     * Checkpoint the state of the agent once the actions it scheduled have been drained. The journal is
+     * flushed and closed, and the shard lease is released so the remaining nodes take over this node's
+     * blogs at their next refresh rather than waiting for the lease to expire.
+     */
+    public void close()
+    {
+        this.enabled.set(false);
+        this.journal.close();
+        this.shardCoordinator.release();
+    }
+
     /**
      * Cleans the cache of any hooks which have completed or are overly stale. Stale events
      * are forcefully canceled.
      */
     protected void cleanHookCache()
     {
-        Set<CronEvent> expired = new HashSet<>();
-        for (CronEvent event : this.getScheduledEvents())
-        {
-            ScheduledFuture future = this.getScheduledFuture(event);
+        this.removeFromSchedule(event -> {
+            ScheduledFuture future = event.getFuture();
 
             // Check for overly stale events
             if (future.getDelay(TimeUnit.SECONDS) < -120)
@@ -123,32 +324,69 @@ public abstract class WPCronAgent extends WPAgent
                 future.cancel(true);
             }
 
-            if (future.isCancelled()) expired.add(event);
-            else if (future.isDone()) expired.add(event);
-        }
+            return future.isCancelled() || future.isDone();
+        });
+    }
 
-        expired.stream().forEach(this.scheduledEvents::remove);
+    /**
+     * Refresh the shard membership and hand off any scheduled events for blogs which are no longer
+     * owned by this node. Events which have not started are cancelled so the new owner can schedule
+     * them. Events which are already running are allowed to complete.
+     */
+    protected void refreshShard()
+    {
+        if (!this.shardCoordinator.refresh()) return;
+
+        int released = this.removeFromSchedule(event -> {
+            if (this.shardCoordinator.isOwned(event.getBlog())) return false;
+
+            event.getFuture().cancel(false);
+            return true;
+        });
+
+        if (released > 0) WPCronAgent.log.info("Handed off {} scheduled cron events to other nodes.", released);
+    }
+
+    /**
+     * Schedule immediate execution of every hook occurrence which the journal shows as started but never
+     * completed. Occurrences for blogs which no longer exist or are owned by another node are skipped.
+     */
+    protected void recoverInterrupted()
+    {
+        for (CronJournal.Occurrence occurrence : this.journal.getInterrupted())
+        {
+            WPBlog blog = this.getBlogs().get(occurrence.getBlogId());
+            if (blog == null || !this.shardCoordinator.isOwned(blog)) continue;
+
+            WPCronAgent.log.info("Finishing interrupted cron hook: {}::{} @ {}", blog.getSubDomain(), occurrence.getHook(), occurrence.getExecTime());
+            WPCronHookExec action = new WPCronHookExec(blog, new WPCronHook(occurrence.getHook(), occurrence.getExecTime()));
+            action.journalTo(this.journal);
+            this.getManager().scheduleAction(action);
+        }
     }
 
     @Override
     public void executeAction()
     {
+        this.runner = Thread.currentThread();
         try
         {
+            this.shardCoordinator.startRenewal(this.getSweepPeriod());
+            this.refreshShard();
+            this.recoverInterrupted();
+
             while (this.enabled.get())
             {
+                this.refreshShard();
                 this.preBlogScan();
-                for (WPBlog blog : this.getBlogs())
+
+                List<WPBlog> ownedBlogs = this.getBlogs().stream().filter(this.shardCoordinator::isOwned).collect(Collectors.toList());
+                if (!this.sweepEngine.sweep(ownedBlogs, this::handleCronEvents, this::isEnabled))
                 {
-                    if (!this.enabled.get())
-                    {
-                        WPCronAgent.log.info("Noticed shutdown request. Aborting cron processing.");
-                        return;
-                    }
-
-                    WPCronAgent.log.debug("Processing cron events for {}", blog.getDomain());
-                    this.handleCronEvents(blog);
+                    WPCronAgent.log.info("Noticed shutdown request. Aborting cron processing.");
+                    return;
                 }
+
                 this.postBlogScan();
             }
         }
@@ -158,6 +396,9 @@ public abstract class WPCronAgent extends WPAgent
         }
         finally
         {
+            this.runner = null;
+            this.shardCoordinator.stopRenewal();
+            this.sweepEngine.shutdown();
             WPCronAgent.log.info("Cron processing is shut down.");
         }
     }
@@ -185,10 +426,19 @@ public abstract class WPCronAgent extends WPAgent
     }
 
     /**
-     * Analyzes the given blog for cron events to run.
+     * Analyzes the given blog for cron events to run. Blogs are analyzed in parallel by the
+     * {@link CronSweepEngine}, so implementations must be safe to call concurrently for different blogs.
      *
      * @param blog The {@link WPBlog} to analyze.
      * @throws InterruptedException If the thread is interrupted
      */
     protected abstract void handleCronEvents(final WPBlog blog) throws InterruptedException;
+
+    /**
+     * Fetch the time between the start of two sweeps of the blogs. Shard leases are kept valid for at least
+     * this long.
+     *
+     * @return The sweep period as a {@code Duration}.
+     */
+    protected abstract Duration getSweepPeriod();
 }
@@ -22,10 +22,19 @@ import org.darkware.wpman.actions.WPCronHookExec;
 import org.darkware.wpman.data.WPBlog;
 import org.darkware.wpman.data.WPCronHook;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ScheduledFuture;
 
 /**
+ * This {@link WPCronAgent} periodically sweeps all blogs and starts every hook which is already
+ * waiting to run. The blogs in each sweep are scanned in parallel by the agent's
+ * {@link CronSweepEngine}.
+ * <p>
+ * The start of a hook may be smoothed beyond the next sweep, so every hook stays on the agent's schedule
+ * until it finishes. Later sweeps skip hooks which are still scheduled.
+ *
  * @author jeff
  * @since 2016-02-01
  */
@@ -67,11 +76,19 @@ public class WPCronAgentRoundRobin extends WPCronAgent
         this.nextScan = LocalDateTime.now().plusSeconds(this.scanPeriod);
     }
 
+    @Override
+    protected Duration getSweepPeriod()
+    {
+        return Duration.ofSeconds(this.scanPeriod);
+    }
+
     @Override
     protected void postBlogScan() throws InterruptedException
     {
         super.postBlogScan();
 
+        this.cleanHookCache();
+
         long millisToNextScan = Math.max(0, LocalDateTime.now().until(this.nextScan, ChronoUnit.MILLIS));
         Thread.sleep(millisToNextScan);
     }
@@ -82,9 +99,19 @@ public class WPCronAgentRoundRobin extends WPCronAgent
     {
         for (WPCronHook hook : blog.getCron().getWaitingHooks())
         {
+            long key = this.eventKey(blog, hook);
+            if (this.isEventScheduled(key)) continue;
+            if (this.getJournal().isSettled(key)) continue;
+
             WPCronHookExec action = new WPCronHookExec(blog, hook);
-            WPManager.log.info("Scheduling cron run for hook: {}::{}", blog.getDomain(), hook.getHook());
-            this.getManager().scheduleAction(action);
+            action.journalTo(this.getJournal());
+            LocalDateTime start = this.getLoadSmoother().planStart(blog, hook);
+            WPManager.log.info("Scheduling cron run for hook: {}::{} @ {}", blog.getDomain(), hook.getHook(), start);
+            ScheduledFuture future = this.getManager().getActionService().scheduleAction(action, Duration.between(LocalDateTime.now(), start));
+
+            // Don't schedule the event again while it is waiting for its smoothed start
+            this.addToSchedule(new ScheduledCronEvent(key, blog, action, future));
+            this.getJournal().scheduled(key);
         }
     }
 }
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.agents;
+
+import org.darkware.wpman.ContextManager;
+import org.darkware.wpman.WPManager;
+import org.darkware.wpman.actions.WPActionCategory;
+import org.darkware.wpman.config.WordpressConfig;
+import org.darkware.wpman.security.DirectoryScanner;
+import org.darkware.wpman.security.PermissionCloner;
+import org.darkware.wpman.security.ScanEngine;
+import org.darkware.wpman.security.ScanReport;
+import org.darkware.wpman.security.SizeAccounting;
+import org.darkware.wpman.security.UploadPermissionPolicy;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * The {@code WPFilesystemScanAgent} replaces the separate walks of the {@link WPIntegrityCheckAgent} and the
+ * {@link WPPermissionScanner} with a single {@link ScanEngine} walk of the WordPress tree. Each entry is
+ * read once and checked against the integrity database, cloned permissions and the uploads permission
+ * policy, while the size of the content directory is totalled along the way.
+ * <p>
+ * The scan runs at the integrity scan interval, or every 30 minutes if that is shorter, so permissions are
+ * enforced at least as often as they are by the standalone scanner.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class WPFilesystemScanAgent extends WPPeriodicAgent
+{
+    /** The longest time allowed between scans, which is the interval of the standalone permission scanner. */
+    private static final Duration MAX_INTERVAL = Duration.ofMinutes(30);
+
+    private final WordpressConfig config;
+    private final WPIntegrityCheckAgent integrity;
+    private final WPPermissionScanner permissions;
+
+    /**
+     * Create a new {@code WPFilesystemScanAgent}.
+     */
+    public WPFilesystemScanAgent()
+    {
+        super("filesystem-scan", WPFilesystemScanAgent.getInterval());
+
+        this.config = ContextManager.local().getContextualInstance(WordpressConfig.class);
+        this.integrity = new WPIntegrityCheckAgent();
+        this.permissions = new WPPermissionScanner();
+    }
+
+    /**
+     * Calculate the time between scans.
+     *
+     * @return The scan interval.
+     */
+    private static Duration getInterval()
+    {
+        final Duration integrity = ContextManager.local().getContextualInstance(WordpressConfig.class)
+                                                 .getIntegrityConfig().getEffectiveScanInterval();
+        return (integrity.compareTo(WPFilesystemScanAgent.MAX_INTERVAL) < 0) ? integrity : WPFilesystemScanAgent.MAX_INTERVAL;
+    }
+
+    @Override
+    public WPActionCategory getCategory()
+    {
+        return WPActionCategory.SECURITY;
+    }
+
+    @Override
+    public void executeAction()
+    {
+        final ScanEngine engine = new ScanEngine(this.config.getIntegrityConfig().getWalkerThreads());
+        final Path uploadDir = this.config.getUploadDir();
+
+        // Integrity checks
+        final DirectoryScanner scanner = this.integrity.createScanner();
+        engine.register(this.config.getBasePath(), scanner.visitor());
+
+        // Permission cloning. The uploads policy controls permissions in the uploads directory.
+        for (PermissionCloner cloner : this.permissions.createCloners(null))
+        {
+            if (cloner.getBaseDirectory().equals(uploadDir)) cloner.cloneModes(false);
+            engine.register(cloner.getBaseDirectory(), cloner);
+        }
+        engine.register(uploadDir, new UploadPermissionPolicy(this.config.getUploadsConfig()));
+
+        // Size accounting
+        final SizeAccounting sizes = new SizeAccounting(this.config.getContentDir());
+        engine.register(this.config.getContentDir(), sizes);
+
+        final ScanReport report = engine.scan();
+        WPManager.log.info("Filesystem Scan: {}", report);
+        WPManager.log.debug("Filesystem Scan: Content directory holds {} bytes in {} files", sizes.getTotalSize(), sizes.getFileCount());
+        sizes.getSizes().forEach((path, size) -> WPManager.log.debug("Filesystem Scan: {} bytes in {}", size, path));
+
+        this.integrity.processResults(scanner.getResults());
+    }
+}
@@ -19,14 +19,21 @@ package org.darkware.wpman.agents;
 
 import org.darkware.wpman.ContextManager;
 import org.darkware.wpman.WPManager;
+import org.darkware.wpman.actions.WPActionCategory;
 import org.darkware.wpman.config.WordpressConfig;
+import org.darkware.wpman.data.WPInstance;
+import org.darkware.wpman.data.WPLanguage;
+import org.darkware.wpman.data.WPPlugin;
 import org.darkware.wpman.events.InstallationFileChange;
 import org.darkware.wpman.security.ChecksumDatabase;
 import org.darkware.wpman.security.DirectoryScanner;
+import org.darkware.wpman.security.KnownChecksums;
+import org.darkware.wpman.security.ManifestCache;
 import org.darkware.wpman.security.ScanResults;
 
 import java.nio.file.Path;
-import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -34,7 +41,12 @@ import java.util.Set;
  * in the WordPress instance.
  * <p>
  * The agent is primarily a driver for the {@link DirectoryScanner} and {@link ChecksumDatabase} classes. In
- * the case where changed files are found, it dispatches an {@link InstallationFileChange} event.
+ * the case where changed files are found, it dispatches an {@link InstallationFileChange} event. Most scans
+ * only hash files whose metadata has changed, but every few scans the agent hashes every file. When
+ * real-time monitoring is enabled, these scans only reconcile changes missed by the {@link WPIntegrityWatchAgent}.
+ * <p>
+ * If a {@code checksumCache} data file is configured, files are also verified against the official
+ * WordPress.org checksums of the installed core and plugin versions.
  *
  * @author jeff
  * @since 2016-03-08
@@ -43,13 +55,16 @@ public class WPIntegrityCheckAgent extends WPPeriodicAgent
 {
     private final WordpressConfig config;
     private final ChecksumDatabase checksums;
+    private final ManifestCache manifests;
+    private int scans;
 
     /**
      * Create a new {@code WPIntegrityCheckAgent}.
      */
     public WPIntegrityCheckAgent()
     {
-        super("integrity", Duration.ofMinutes(30));
+        super("integrity", ContextManager.local().getContextualInstance(WordpressConfig.class)
+                                         .getIntegrityConfig().getEffectiveScanInterval());
 
         this.config = ContextManager.local().getContextualInstance(WordpressConfig.class);
         if (ContextManager.local().has(ChecksumDatabase.class))
@@ -58,30 +73,80 @@ public class WPIntegrityCheckAgent extends WPPeriodicAgent
         }
         else
         {
-            this.checksums = new ChecksumDatabase(this.config.getDataFile("integrityDb"), this.config.getBasePath());
+            this.checksums = new ChecksumDatabase(this.config.getDataFile("integrityDb"), this.config.getBasePath(),
+                                                  this.config.getIntegrityConfig().getAlgorithm());
             ContextManager.local().registerInstance(this.checksums);
         }
+
+        final Path cacheDir = this.config.getDataFile("checksumCache");
+        if (cacheDir == null) this.manifests = null;
+        else if (ContextManager.local().has(ManifestCache.class))
+        {
+            this.manifests = ContextManager.local().getContextualInstance(ManifestCache.class);
+        }
+        else
+        {
+            this.manifests = new ManifestCache(cacheDir);
+            ContextManager.local().registerInstance(this.manifests);
+        }
+    }
+
+    @Override
+    public WPActionCategory getCategory()
+    {
+        return WPActionCategory.SECURITY;
     }
 
     @Override
     public void executeAction()
+    {
+        this.processResults(this.createScanner().scan());
+    }
+
+    /**
+     * Create a scanner for the next periodic scan. Every few scans, the scanner is set to hash every file.
+     *
+     * @return A new {@link DirectoryScanner} for the WordPress root.
+     */
+    DirectoryScanner createScanner()
     {
         DirectoryScanner scanner = new DirectoryScanner(this.config.getBasePath(), this.checksums);
         scanner.updateChecksums(true);
-        ScanResults results = scanner.scan();
+        scanner.verifyKnown(this.loadKnownChecksums());
+
+        // Periodically hash every file, in case a change slipped past the metadata checks
+        final int fullScanInterval = this.config.getIntegrityConfig().getFullScanInterval();
+        if (fullScanInterval > 0 && this.scans++ % fullScanInterval == 0)
+        {
+            WPManager.log.info("Integrity Scan: Hashing all files");
+            scanner.rehashAll(true);
+        }
 
+        return scanner;
+    }
+
+    /**
+     * Report the results of a scan, dispatching an event and saving the database if any changes were found.
+     *
+     * @param results The {@link ScanResults} of the scan.
+     */
+    void processResults(final ScanResults results)
+    {
         Set<Path> newFiles = results.getNewFiles();
         Set<Path> changedFiles = results.getChangedFiles();
         Set<Path> missingFiles = results.getMissingFiles();
+        Set<Path> unverifiedFiles = results.getUnverifiedFiles();
 
         if (results.foundChanges())
         {
             WPManager.log.info("Integrity Scan: New files found: {}", newFiles.size());
             WPManager.log.info("Integrity Scan: Changed files found: {}", changedFiles.size());
             WPManager.log.info("Integrity Scan: Missing files found: {}", missingFiles.size());
+            WPManager.log.info("Integrity Scan: Unverified files found: {}", unverifiedFiles.size());
 
             changedFiles.stream().forEach(p -> WPManager.log.warn("File changed: {}", p));
             newFiles.stream().forEach(p -> WPManager.log.warn("New file found: {}", p));
+            unverifiedFiles.stream().forEach(p -> WPManager.log.warn("File does not match official checksums: {}", p));
 
             // Dispatch an event
             this.getManager().dispatchEvent(new InstallationFileChange(results));
@@ -90,4 +155,36 @@ public class WPIntegrityCheckAgent extends WPPeriodicAgent
             this.checksums.writeDatabase();
         }
     }
+
+    /**
+     * Build an index of the official checksums for the installed core and plugin versions.
+     *
+     * @return The {@link KnownChecksums} to verify against, or {@code null} if verification is disabled.
+     */
+    private KnownChecksums loadKnownChecksums()
+    {
+        if (this.manifests == null) return null;
+
+        try
+        {
+            final WPInstance data = this.getManager().getData();
+
+            final Map<String, String> plugins = new HashMap<>();
+            for (WPPlugin plugin : data.getPlugins())
+            {
+                if (plugin.getVersion() != null) plugins.put(plugin.getId(), plugin.getVersion().toString());
+            }
+
+            final WPLanguage language = data.getCore().getLanguage();
+            final String locale = (language == null || language.getCode() == null) ? "en_US" : language.getCode();
+
+            return this.manifests.index(this.config.getBasePath(), data.getCore().getCoreVersion().toString(), locale,
+                                        this.config.getPluginListConfig().getBaseDir(), plugins);
+        }
+        catch (RuntimeException e)
+        {
+            WPManager.log.warn("Integrity Scan: Failed to load official checksums: {}", e.getLocalizedMessage());
+            return this.manifests.getCurrent();
+        }
+    }
 }
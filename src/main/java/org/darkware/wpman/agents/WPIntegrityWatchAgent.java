@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.agents;
+
+import org.darkware.wpman.ContextManager;
+import org.darkware.wpman.WPManager;
+import org.darkware.wpman.actions.WPActionCategory;
+import org.darkware.wpman.config.IntegrityConfig;
+import org.darkware.wpman.config.WordpressConfig;
+import org.darkware.wpman.events.InstallationFileChange;
+import org.darkware.wpman.security.ChecksumDatabase;
+import org.darkware.wpman.security.DirectoryScanner;
+import org.darkware.wpman.security.IntegrityWatcher;
+import org.darkware.wpman.security.ManifestCache;
+import org.darkware.wpman.security.ScanResults;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * The {@code WPIntegrityWatchAgent} is a {@link WPPeriodicAgent} which checks files in the WordPress
+ * instance as they change, rather than waiting for the next {@link WPIntegrityCheckAgent} scan.
+ * <p>
+ * Changes are collected by an {@link IntegrityWatcher} and checked in batches once they have settled. If
+ * the watcher loses events, the agent falls back to a full scan.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class WPIntegrityWatchAgent extends WPPeriodicAgent
+{
+    private final WordpressConfig config;
+    private final ChecksumDatabase checksums;
+    private final IntegrityWatcher watcher;
+
+    /**
+     * Create a new {@code WPIntegrityWatchAgent}.
+     *
+     * @throws IOException If there is an error while setting up the {@link IntegrityWatcher}.
+     */
+    public WPIntegrityWatchAgent() throws IOException
+    {
+        super("integrity-watch", Duration.ofSeconds(1));
+
+        this.config = ContextManager.local().getContextualInstance(WordpressConfig.class);
+        if (ContextManager.local().has(ChecksumDatabase.class))
+        {
+            this.checksums = ContextManager.local().getContextualInstance(ChecksumDatabase.class);
+        }
+        else
+        {
+            this.checksums = new ChecksumDatabase(this.config.getDataFile("integrityDb"), this.config.getBasePath(),
+                                                  this.config.getIntegrityConfig().getAlgorithm());
+            ContextManager.local().registerInstance(this.checksums);
+        }
+
+        final IntegrityConfig integrityConfig = this.config.getIntegrityConfig();
+        this.watcher = new IntegrityWatcher(this.config.getBasePath(),
+                                            new DirectoryScanner(this.config.getBasePath(), this.checksums),
+                                            Duration.ofSeconds(integrityConfig.getWatchDebounce()),
+                                            integrityConfig.getWatchBatchSize());
+
+        WPManager.log.info("Integrity Watch: Watching {} directories", this.watcher.getWatchCount());
+    }
+
+    @Override
+    public WPActionCategory getCategory()
+    {
+        return WPActionCategory.SECURITY;
+    }
+
+    @Override
+    public void executeAction()
+    {
+        this.watcher.poll();
+
+        DirectoryScanner scanner = new DirectoryScanner(this.config.getBasePath(), this.checksums);
+        scanner.updateChecksums(true);
+
+        // Verify against the official checksums loaded by the last periodic scan
+        if (ContextManager.local().has(ManifestCache.class))
+        {
+            scanner.verifyKnown(ContextManager.local().getContextualInstance(ManifestCache.class).getCurrent());
+        }
+
+        ScanResults results;
+        if (this.watcher.takeOverflow())
+        {
+            WPManager.log.warn("Integrity Watch: File events were lost. Scanning all files.");
+            results = scanner.scan();
+        }
+        else
+        {
+            Set<Path> ready = this.watcher.takeReady();
+            if (ready.isEmpty()) return;
+
+            results = scanner.scanFiles(ready);
+        }
+
+        if (results.foundChanges())
+        {
+            Set<Path> newFiles = results.getNewFiles();
+            Set<Path> changedFiles = results.getChangedFiles();
+            Set<Path> missingFiles = results.getMissingFiles();
+
+            WPManager.log.info("Integrity Watch: New files found: {}", newFiles.size());
+            WPManager.log.info("Integrity Watch: Changed files found: {}", changedFiles.size());
+            WPManager.log.info("Integrity Watch: Missing files found: {}", missingFiles.size());
+
+            changedFiles.stream().forEach(p -> WPManager.log.warn("File changed: {}", p));
+            newFiles.stream().forEach(p -> WPManager.log.warn("New file found: {}", p));
+            results.getUnverifiedFiles().stream().forEach(p -> WPManager.log.warn("File does not match official checksums: {}", p));
+
+            // Dispatch an event
+            this.getManager().dispatchEvent(new InstallationFileChange(results));
+
+            // Write the new state of the database
+            this.checksums.writeDatabase();
+        }
+    }
+}
@@ -50,6 +50,11 @@ import java.util.concurrent.ScheduledFuture;
  */
 public class WPLowLatencyCronAgent extends WPCronAgent
 {
+    /** The largest difference in execution time, in seconds, between hooks which are grouped together. */
+    private static final long GROUPING_TOLERANCE = 15;
+    /** The time between the start of two scans of the blogs. */
+    private static final Duration SCAN_PERIOD = Duration.ofMinutes(5);
+
     private final ScheduledExecutorService cronExecutor;
     private LocalDateTime nextScan;
 
@@ -69,40 +74,35 @@ public class WPLowLatencyCronAgent extends WPCronAgent
     {
         for (WPCronHook hook : blog.getCron())
         {
-            CronEvent event = new CronEvent(blog, hook);
-            if (this.isEventScheduled(event)) continue;
+            long key = this.eventKey(blog, hook);
+            if (this.isEventScheduled(key)) continue;
+            if (this.getJournal().isSettled(key)) continue;
 
-            ScheduledFuture future = null;
+            WPCronHookExec action;
+            ScheduledFuture future;
 
             // Look for an existing event to group with
-            CronEvent matching = null;
-            for (CronEvent e : this.getScheduledEvents())
-            {
-                if (e.reasonablyCloseTo(event))
-                {
-                    matching = e;
-                    break;
-                }
-            }
+            ScheduledCronEvent matching = this.findNearbyEvent(blog, CronEventKey.execSecond(key), WPLowLatencyCronAgent.GROUPING_TOLERANCE);
 
             if (matching == null)
             {
-                WPCronHookExec action = new WPCronHookExec(blog, hook);
-                event.attachAction(action);
-                future = this.getManager().getActionService().scheduleAction(action, Duration.between(LocalDateTime.now(), hook.getNextRun()));
+                action = new WPCronHookExec(blog, hook);
+                action.journalTo(this.getJournal());
+                LocalDateTime start = this.getLoadSmoother().planStart(blog, hook);
+                future = this.getManager().getActionService().scheduleAction(action, Duration.between(LocalDateTime.now(), start));
             }
             else
             {
-                WPCronAgent.log.info("Found existing similar hook: {}", matching);
-                WPCronHookExec action = matching.getAction();
-                event.attachAction(action);
-                future = this.getScheduledFuture(matching);
+                WPCronAgent.log.info("Found existing similar hook: {}", matching.toEvent(this.getHookNames()));
+                action = matching.getAction();
+                future = matching.getFuture();
             }
 
             WPCronAgent.log.info("Scheduling cron hook: {}::{} @ {}", blog.getSubDomain(), hook.getHook(), hook.getNextRun());
 
             // Don't schedule the event again
-            this.addToSchedule(event, future);
+            this.addToSchedule(new ScheduledCronEvent(key, blog, action, future));
+            this.getJournal().scheduled(key);
         }
     }
 
@@ -111,7 +111,13 @@ public class WPLowLatencyCronAgent extends WPCronAgent
     {
         super.preBlogScan();
 
-        this.nextScan = LocalDateTime.now().plusMinutes(5);
+        this.nextScan = LocalDateTime.now().plus(WPLowLatencyCronAgent.SCAN_PERIOD);
+    }
+
+    @Override
+    protected Duration getSweepPeriod()
+    {
+        return WPLowLatencyCronAgent.SCAN_PERIOD;
     }
 
     @Override
@@ -125,6 +131,11 @@ public class WPLowLatencyCronAgent extends WPCronAgent
         Thread.sleep(millisToNextScan);
     }
 
+    @Override
+    public void close()
+    {
+        super.close();
 
-
+        this.cronExecutor.shutdownNow();
+    }
 }
@@ -18,6 +18,7 @@
 package org.darkware.wpman.agents;
 
 import org.darkware.wpman.WPManager;
+import org.darkware.wpman.actions.WPActionCategory;
 import org.darkware.wpman.config.PluginConfig;
 import org.darkware.wpman.config.ThemeConfig;
 import org.darkware.wpman.config.ThemeListConfig;
@@ -54,6 +55,12 @@ public class WPNetworkPolicyAgent extends WPPeriodicAgent
         this.themes = this.getManager().getData().getThemes();
     }
 
+    @Override
+    public WPActionCategory getCategory()
+    {
+        return WPActionCategory.POLICY;
+    }
+
     @Override
     public void executeAction()
     {
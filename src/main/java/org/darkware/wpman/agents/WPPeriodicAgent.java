@@ -17,6 +17,8 @@
 
 package org.darkware.wpman.agents;
 
+import org.darkware.wpman.actions.WPActionCategory;
+
 import java.time.Duration;
 
 /**
@@ -38,4 +40,15 @@ public abstract class WPPeriodicAgent extends WPAgent
     {
         return this.interval.getSeconds();
     }
+
+    /**
+     * Fetch the category of work performed by this agent. The agent is executed in the action service
+     * partition for this category.
+     *
+     * @return The {@link WPActionCategory} of this agent.
+     */
+    public WPActionCategory getCategory()
+    {
+        return WPActionCategory.MAINTENANCE;
+    }
 }
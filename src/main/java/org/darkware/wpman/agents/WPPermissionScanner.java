@@ -17,27 +17,24 @@
 
 package org.darkware.wpman.agents;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.darkware.wpman.WPManager;
+import org.darkware.wpman.actions.WPActionCategory;
 import org.darkware.wpman.config.FilePermissionsConfig;
+import org.darkware.wpman.security.PermissionCloner;
 
-import java.io.IOException;
-import java.nio.file.FileVisitOption;
-import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.attribute.BasicFileAttributes;
-import java.nio.file.attribute.GroupPrincipal;
-import java.nio.file.attribute.PosixFileAttributeView;
-import java.nio.file.attribute.PosixFileAttributes;
-import java.nio.file.attribute.PosixFilePermission;
-import java.nio.file.attribute.PosixFilePermissions;
-import java.nio.file.attribute.UserPrincipal;
 import java.time.Duration;
-import java.util.EnumSet;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * A {@code WPPermissionScanner} is a simple agent that periodically scans the WordPress install directories
@@ -60,12 +57,19 @@ import java.util.concurrent.Callable;
  * {@link FilePermissionsConfig} section of the profile. You can also populate a list of paths which should
  * never be processed by adding entries to the {@code ignorePaths} list. These items will never be processed, and
  * if they are directories, their contents will be ignored as well.
+ * <p>
+ * The example directories are scanned in parallel. Between full checks, only the files of directories which
+ * have had entries added, removed or renamed since the last scan are checked. The number of scans between
+ * full checks is set by the {@code fullCheckInterval} option.
  *
  * @author jeff
  * @since 2016-05-05
  */
 public class WPPermissionScanner extends WPPeriodicAgent
 {
+    private Map<Path, PermissionCloner.Fingerprint> fingerprints;
+    private int scanCount;
+
     /**
      * Create a new permission scanner.
      */
@@ -76,7 +80,20 @@ public class WPPermissionScanner extends WPPeriodicAgent
 
 
     @Override
-    public void executeAction()
+    public WPActionCategory getCategory()
+    {
+        return WPActionCategory.SECURITY;
+    }
+
+    /**
+     * Create a cloner for each example directory which exists. Each cloner excludes the ignored paths and
+     * every other example directory.
+     *
+     * @param fingerprints The directory fingerprints passed to each cloner, or {@code null} to check
+     * every entry.
+     * @return A {@link List} of {@link PermissionCloner}s.
+     */
+    List<PermissionCloner> createCloners(final Map<Path, PermissionCloner.Fingerprint> fingerprints)
     {
         final Path wpRoot = this.getManager().getConfig().getBasePath();
 
@@ -100,7 +117,8 @@ public class WPPermissionScanner extends WPPeriodicAgent
         // Ignore some additional internal paths
         ignoredPaths.add(this.getManager().getConfig().getContentDir().resolve("upgrade"));
 
-        // Process each example directory
+        // Build a cloner for each example directory
+        final List<PermissionCloner> cloners = new ArrayList<>();
         for (Path dir : exampleDirectories)
         {
             // Check if the directory exists before we even try to enforce it
@@ -119,144 +137,62 @@ public class WPPermissionScanner extends WPPeriodicAgent
 
             try
             {
-                PermissionCloner cloner = new PermissionCloner(dir);
+                PermissionCloner cloner = new PermissionCloner(dir, fingerprints);
                 ignoredPaths.stream().filter(p -> !p.equals(dir)).forEach(cloner::exclude);
 
-                cloner.call();
+                cloners.add(cloner);
             }
             catch (Exception e)
             {
                 WPManager.log.error("Error while enforcing permissions under {}: {}", dir, e.getLocalizedMessage(), e);
             }
         }
+
+        return cloners;
     }
 
-    /**
-     * This is a helper class which provides a nice abstraction for the task of cloning
-     * permissions and ownership of filesystem entries within a subdirectory.
-     * <p>
-     * As it processes filesystem entries, it will set the owner of all files and directories
-     * to the owner of the base directory. Permissions will be modified to ensure that the
-     * required permission flags are set or unset, as declared.
-     */
-    private static class PermissionCloner extends SimpleFileVisitor<Path> implements Callable<Boolean>
+    @Override
+    public void executeAction()
     {
-        private final Path baseDirectory;
-        private final UserPrincipal baseDirectoryOwner;
-        private final GroupPrincipal baseDirectoryGroup;
-        private final Set<Path> excludedDirectories;
-
-        private final Set<PosixFilePermission> filePermissions;
-        private final Set<PosixFilePermission> directoryPermissions;
-
-        /**
-         * Create a new {@code PermissionCloner} to scan the given directory. It will take the permissions
-         * of the top level directory and clone those permissions down to the entries beneath it. All
-         * execute permissions are removed for non-directory entries.
-         *
-         * @param baseDirectory The {@link Path} of the base directory to scan.
-         */
-        public PermissionCloner(final Path baseDirectory)
-        {
-            super();
-
-            this.baseDirectory = baseDirectory;
-            this.excludedDirectories = new HashSet<>();
-
-            try
-            {
-                PosixFileAttributes baseDirAttrs = Files.readAttributes(baseDirectory, PosixFileAttributes.class);
-
-                this.directoryPermissions = baseDirAttrs.permissions();
-                this.filePermissions = new HashSet<>(this.directoryPermissions);
-                this.filePermissions.remove(PosixFilePermission.OWNER_EXECUTE);
-                this.filePermissions.remove(PosixFilePermission.GROUP_EXECUTE);
-                this.filePermissions.remove(PosixFilePermission.OTHERS_EXECUTE);
-
-                this.baseDirectoryOwner = baseDirAttrs.owner();
-                this.baseDirectoryGroup = baseDirAttrs.group();
-            }
-            catch (IOException e)
-            {
-                throw new RuntimeException("Failed to discover base directory owner.", e);
-            }
-
-        }
-
-        @Override
-        public Boolean call() throws Exception
+        // A full check starts with fresh fingerprints, which also drops those of removed directories
+        final FilePermissionsConfig permissionsConfig = this.getManager().getConfig().getPermissionsConfig();
+        if (this.fingerprints == null || this.scanCount % Math.max(1, permissionsConfig.getFullCheckInterval()) == 0)
         {
-            Files.walkFileTree(this.baseDirectory, EnumSet.of(FileVisitOption.FOLLOW_LINKS), 32, this);
-
-            return true;
+            this.fingerprints = new ConcurrentHashMap<>();
         }
+        this.scanCount++;
 
-        /**
-         * Exclude a given {@link Path} from permissions and ownership updates. If this path is a directory,
-         * all items underneath that directory will also be exempt and will not be processed at all.
-         *
-         * @param path The path to exclude.
-         */
-        public void exclude(final Path path)
-        {
-            this.excludedDirectories.add(path);
-        }
+        final List<PermissionCloner> cloners = this.createCloners(this.fingerprints);
+        if (cloners.isEmpty()) return;
 
-        @Override
-        public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException
+        // Process the example directories in parallel
+        final int threads = Math.max(1, Math.min(permissionsConfig.getScanThreads(), cloners.size()));
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("permission-scan-%d")
+                                                                                                         .setDaemon(true).build());
+        try
         {
-            if (Files.isSameFile(dir, this.baseDirectory)) return FileVisitResult.CONTINUE;
-            else if (this.excludedDirectories.contains(dir)) return FileVisitResult.SKIP_SUBTREE;
-
-            this.syncOwnerAndPermissions(dir);
-
-            return FileVisitResult.CONTINUE;
+            List<Future<Integer>> results = executor.invokeAll(cloners);
+            for (int i = 0; i < cloners.size(); i++)
+            {
+                try
+                {
+                    int fixed = results.get(i).get();
+                    WPManager.log.debug("Permission scan of {} checked {} entries, skipped {} unchanged directories and fixed {} entries.",
+                                        cloners.get(i).getBaseDirectory(), cloners.get(i).getEntriesChecked(), cloners.get(i).getDirectoriesSkipped(), fixed);
+                }
+                catch (ExecutionException e)
+                {
+                    WPManager.log.error("Error while enforcing permissions: {}", e.getCause().getLocalizedMessage(), e.getCause());
+                }
+            }
         }
-
-        @Override
-        public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException
+        catch (InterruptedException e)
         {
-            if (this.excludedDirectories.contains(file)) return FileVisitResult.CONTINUE;
-            if (Files.isSymbolicLink(file)) return FileVisitResult.CONTINUE;
-
-            this.syncOwnerAndPermissions(file);
-
-            return FileVisitResult.CONTINUE;
+            Thread.currentThread().interrupt();
         }
-
-        /**
-         * Checks the given path and updates its owner, group and permissions as needed according to the state
-         * of the base directory being clones.
-         *
-         * @param file The file to examine.
-         * @throws IOException If there is an error while retrieving or setting file attributes.
-         */
-        protected void syncOwnerAndPermissions(final Path file) throws IOException
+        finally
         {
-            // Fetch file attributes
-            PosixFileAttributes posixAttrs = Files.readAttributes(file, PosixFileAttributes.class);
-
-            // Set the owner and group
-            if (!posixAttrs.group().equals(this.baseDirectoryGroup))
-            {
-                WPManager.log.info("Updating group: {} -> {}", file, this.baseDirectoryGroup.getName());
-                Files.getFileAttributeView(file, PosixFileAttributeView.class).setGroup(this.baseDirectoryGroup);
-            }
-            if (!posixAttrs.owner().equals(this.baseDirectoryOwner))
-            {
-                WPManager.log.info("Updating owner: {} -> {}", file, this.baseDirectoryOwner.getName());
-                Files.setOwner(file, this.baseDirectoryOwner);
-            }
-
-            // Set permissions
-            Set<PosixFilePermission> permissions = posixAttrs.permissions();
-            Set<PosixFilePermission> targetPermissions = (Files.isDirectory(file)) ? this.directoryPermissions : this.filePermissions;
-
-            if (permissions.size() != targetPermissions.size() || !permissions.containsAll(targetPermissions))
-            {
-                Files.setPosixFilePermissions(file, targetPermissions);
-                WPManager.log.info("Updating permissions: {} -> {}", file, PosixFilePermissions.toString(targetPermissions));
-            }
+            executor.shutdownNow();
         }
     }
 }
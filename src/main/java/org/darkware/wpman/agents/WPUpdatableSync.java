@@ -18,6 +18,7 @@
 package org.darkware.wpman.agents;
 
 import org.darkware.wpman.actions.WPAction;
+import org.darkware.wpman.actions.WPActionCategory;
 import org.darkware.wpman.config.UpdatableCollectionConfig;
 import org.darkware.wpman.config.UpdatableConfig;
 import org.darkware.wpman.data.WPUpdatableComponent;
@@ -122,6 +123,12 @@ public abstract class WPUpdatableSync<T extends WPUpdatableComponent, C extends
      */
     protected abstract Stream<T> getUpdatableList();
 
+    @Override
+    public WPActionCategory getCategory()
+    {
+        return WPActionCategory.POLICY;
+    }
+
     @Override
     public void executeAction()
     {
@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.darkware.wpman.actions.WPActionCategory;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * This is a configuration container for the action service. Actions are executed in separate partitions
+ * according to their {@link WPActionCategory}, so a slow category cannot starve the others. Delayed and
+ * periodic work is timed by a small shared scheduler which hands each action to its partition when it
+ * is due.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class ActionConfig
+{
+    @JsonProperty("schedulerThreads")
+    private int schedulerThreads;
+    @JsonProperty("partitions")
+    private Map<WPActionCategory, ExecutorPartitionConfig> partitions;
+    @JsonProperty("historySize")
+    private int historySize;
+    @JsonProperty("historyRetention")
+    private int historyRetention;
+    @JsonProperty("retry")
+    private RetryConfig retry;
+    @JsonProperty("processGracePeriod")
+    private int processGracePeriod;
+
+    /**
+     * Create a new action configuration container with default partitions.
+     */
+    public ActionConfig()
+    {
+        super();
+
+        this.schedulerThreads = 2;
+        this.partitions = new EnumMap<>(WPActionCategory.class);
+        this.historySize = 1000;
+        this.historyRetention = 15;
+        this.retry = new RetryConfig();
+        this.processGracePeriod = 10;
+    }
+
+    /**
+     * Fetch the number of completed actions remembered for reporting.
+     *
+     * @return The size of the action history.
+     */
+    public int getHistorySize()
+    {
+        return this.historySize;
+    }
+
+    /**
+     * Set the number of completed actions remembered for reporting.
+     *
+     * @param historySize The size of the action history.
+     */
+    protected void setHistorySize(final int historySize)
+    {
+        this.historySize = historySize;
+    }
+
+    /**
+     * Fetch the length of time completed actions are remembered for reporting.
+     *
+     * @return The history retention, in minutes.
+     */
+    public int getHistoryRetention()
+    {
+        return this.historyRetention;
+    }
+
+    /**
+     * Set the length of time completed actions are remembered for reporting.
+     *
+     * @param historyRetention The history retention, in minutes.
+     */
+    protected void setHistoryRetention(final int historyRetention)
+    {
+        this.historyRetention = historyRetention;
+    }
+
+    /**
+     * Fetch the settings for retrying actions which fail with transient errors.
+     *
+     * @return The {@link RetryConfig} of the action service.
+     */
+    public RetryConfig getRetry()
+    {
+        return this.retry;
+    }
+
+    /**
+     * Set the settings for retrying actions which fail with transient errors.
+     *
+     * @param retry The {@link RetryConfig} of the action service.
+     */
+    protected void setRetry(final RetryConfig retry)
+    {
+        this.retry = retry;
+    }
+
+    /**
+     * Fetch the time WP-CLI processes which outlive the shutdown drain are given to exit after being asked
+     * to terminate, before they are killed.
+     *
+     * @return The process grace period, in seconds.
+     */
+    public int getProcessGracePeriod()
+    {
+        return this.processGracePeriod;
+    }
+
+    /**
+     * Set the time WP-CLI processes which outlive the shutdown drain are given to exit before being killed.
+     *
+     * @param processGracePeriod The process grace period, in seconds.
+     */
+    protected void setProcessGracePeriod(final int processGracePeriod)
+    {
+        this.processGracePeriod = processGracePeriod;
+    }
+
+    /**
+     * Fetch the number of threads used to time delayed and periodic actions. These threads never execute
+     * actions themselves.
+     *
+     * @return The number of scheduler threads.
+     */
+    public int getSchedulerThreads()
+    {
+        return this.schedulerThreads;
+    }
+
+    /**
+     * Set the number of threads used to time delayed and periodic actions.
+     *
+     * @param schedulerThreads The number of scheduler threads.
+     */
+    protected void setSchedulerThreads(final int schedulerThreads)
+    {
+        this.schedulerThreads = schedulerThreads;
+    }
+
+    /**
+     * Fetch the executor configuration for a category of actions. Categories which are not configured
+     * receive a default configuration suited to the category.
+     *
+     * @param category The {@link WPActionCategory} of the partition.
+     * @return The {@link ExecutorPartitionConfig} for the category.
+     */
+    public ExecutorPartitionConfig getPartition(final WPActionCategory category)
+    {
+        ExecutorPartitionConfig config = this.partitions.get(category);
+        if (config != null) return config;
+
+        switch (category)
+        {
+            case CRON:
+                return new ExecutorPartitionConfig(8, 10000, ExecutorPartitionConfig.RejectionPolicy.ABORT,
+                                                   new AdaptiveConcurrencyConfig(), 60);
+            case INSTALL:
+                return new ExecutorPartitionConfig(1, 1000, ExecutorPartitionConfig.RejectionPolicy.ABORT,
+                                                   new AdaptiveConcurrencyConfig(true, 1, 4), 300);
+            case MAINTENANCE:
+                return new ExecutorPartitionConfig(2, 1000, ExecutorPartitionConfig.RejectionPolicy.ABORT,
+                                                   new AdaptiveConcurrencyConfig(true, 1, 4), 120);
+            default:
+                return new ExecutorPartitionConfig();
+        }
+    }
+
+    /**
+     * Set the executor configuration for a category of actions.
+     *
+     * @param category The {@link WPActionCategory} of the partition.
+     * @param config The {@link ExecutorPartitionConfig} for the category.
+     */
+    protected void setPartition(final WPActionCategory category, final ExecutorPartitionConfig config)
+    {
+        this.partitions.put(category, config);
+    }
+}
@@ -0,0 +1,286 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * This is a configuration container for the adaptive concurrency of an executor partition. When enabled,
+ * the number of threads in the partition is raised while actions complete quickly and successfully and
+ * there is work waiting, and lowered when latency rises, actions fail, or the database reports a high load.
+ * The thread count always stays within the configured bounds.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class AdaptiveConcurrencyConfig
+{
+    @JsonProperty("enabled")
+    private boolean enabled;
+    @JsonProperty("minLimit")
+    private int minLimit;
+    @JsonProperty("maxLimit")
+    private int maxLimit;
+    @JsonProperty("window")
+    private int window;
+    @JsonProperty("latencyTolerance")
+    private double latencyTolerance;
+    @JsonProperty("errorThreshold")
+    private double errorThreshold;
+    @JsonProperty("backoff")
+    private double backoff;
+    @JsonProperty("loadQuery")
+    private String loadQuery;
+    @JsonProperty("maxLoad")
+    private double maxLoad;
+    @JsonProperty("loadInterval")
+    private int loadInterval;
+
+    /**
+     * Create a new adaptive concurrency configuration container which is disabled.
+     */
+    public AdaptiveConcurrencyConfig()
+    {
+        this(false, 1, 4);
+    }
+
+    /**
+     * Create a new adaptive concurrency configuration container with the given bounds and default
+     * tuning.
+     *
+     * @param enabled Whether the concurrency should be adjusted.
+     * @param minLimit The fewest threads the partition may use.
+     * @param maxLimit The most threads the partition may use.
+     */
+    public AdaptiveConcurrencyConfig(final boolean enabled, final int minLimit, final int maxLimit)
+    {
+        super();
+
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.window = 10;
+        this.latencyTolerance = 2.0;
+        this.errorThreshold = 0.2;
+        this.backoff = 0.7;
+        this.maxLoad = 0;
+        this.loadInterval = 30;
+    }
+
+    /**
+     * Checks if the partition's concurrency should be adjusted.
+     *
+     * @return {@code true} if adaptive concurrency is enabled, otherwise {@code false}.
+     */
+    public boolean isEnabled()
+    {
+        return this.enabled;
+    }
+
+    /**
+     * Set whether the partition's concurrency should be adjusted.
+     *
+     * @param enabled {@code true} to enable adaptive concurrency.
+     */
+    protected void setEnabled(final boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Fetch the fewest threads the partition may be reduced to.
+     *
+     * @return The lower concurrency bound.
+     */
+    public int getMinLimit()
+    {
+        return this.minLimit;
+    }
+
+    /**
+     * Set the fewest threads the partition may be reduced to.
+     *
+     * @param minLimit The lower concurrency bound.
+     */
+    protected void setMinLimit(final int minLimit)
+    {
+        this.minLimit = minLimit;
+    }
+
+    /**
+     * Fetch the most threads the partition may be raised to.
+     *
+     * @return The upper concurrency bound.
+     */
+    public int getMaxLimit()
+    {
+        return this.maxLimit;
+    }
+
+    /**
+     * Set the most threads the partition may be raised to.
+     *
+     * @param maxLimit The upper concurrency bound.
+     */
+    protected void setMaxLimit(final int maxLimit)
+    {
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Fetch the number of completed actions observed between adjustments.
+     *
+     * @return The sample window size.
+     */
+    public int getWindow()
+    {
+        return this.window;
+    }
+
+    /**
+     * Set the number of completed actions observed between adjustments.
+     *
+     * @param window The sample window size.
+     */
+    protected void setWindow(final int window)
+    {
+        this.window = window;
+    }
+
+    /**
+     * Fetch the ratio between the average latency of a window and the best observed latency above which
+     * the concurrency is lowered.
+     *
+     * @return The latency tolerance ratio.
+     */
+    public double getLatencyTolerance()
+    {
+        return this.latencyTolerance;
+    }
+
+    /**
+     * Set the ratio between the average latency of a window and the best observed latency above which
+     * the concurrency is lowered.
+     *
+     * @param latencyTolerance The latency tolerance ratio.
+     */
+    protected void setLatencyTolerance(final double latencyTolerance)
+    {
+        this.latencyTolerance = latencyTolerance;
+    }
+
+    /**
+     * Fetch the fraction of failed actions in a window above which the concurrency is lowered.
+     *
+     * @return The error rate threshold, between 0 and 1.
+     */
+    public double getErrorThreshold()
+    {
+        return this.errorThreshold;
+    }
+
+    /**
+     * Set the fraction of failed actions in a window above which the concurrency is lowered.
+     *
+     * @param errorThreshold The error rate threshold, between 0 and 1.
+     */
+    protected void setErrorThreshold(final double errorThreshold)
+    {
+        this.errorThreshold = errorThreshold;
+    }
+
+    /**
+     * Fetch the factor the concurrency is multiplied by when it is lowered.
+     *
+     * @return The backoff factor, between 0 and 1.
+     */
+    public double getBackoff()
+    {
+        return this.backoff;
+    }
+
+    /**
+     * Set the factor the concurrency is multiplied by when it is lowered.
+     *
+     * @param backoff The backoff factor, between 0 and 1.
+     */
+    protected void setBackoff(final double backoff)
+    {
+        this.backoff = backoff;
+    }
+
+    /**
+     * Fetch the SQL query used to measure the database load. The query must return a single number.
+     *
+     * @return The load query, or {@code null} if the database load is not measured.
+     */
+    public String getLoadQuery()
+    {
+        return this.loadQuery;
+    }
+
+    /**
+     * Set the SQL query used to measure the database load.
+     *
+     * @param loadQuery The load query, or {@code null} to not measure the database load.
+     */
+    protected void setLoadQuery(final String loadQuery)
+    {
+        this.loadQuery = loadQuery;
+    }
+
+    /**
+     * Fetch the database load above which the concurrency is lowered.
+     *
+     * @return The maximum load reported by the load query.
+     */
+    public double getMaxLoad()
+    {
+        return this.maxLoad;
+    }
+
+    /**
+     * Set the database load above which the concurrency is lowered.
+     *
+     * @param maxLoad The maximum load reported by the load query.
+     */
+    protected void setMaxLoad(final double maxLoad)
+    {
+        this.maxLoad = maxLoad;
+    }
+
+    /**
+     * Fetch the time between database load measurements.
+     *
+     * @return The load measurement interval, in seconds.
+     */
+    public int getLoadInterval()
+    {
+        return this.loadInterval;
+    }
+
+    /**
+     * Set the time between database load measurements.
+     *
+     * @param loadInterval The load measurement interval, in seconds.
+     */
+    protected void setLoadInterval(final int loadInterval)
+    {
+        this.loadInterval = loadInterval;
+    }
+}
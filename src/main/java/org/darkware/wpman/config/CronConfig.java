@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * This is a configuration container for the cron agent. It controls how WordPress cron hooks are
+ * collected and how their execution is distributed over time.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class CronConfig
+{
+    @JsonProperty("smoothing")
+    private boolean smoothing;
+    @JsonProperty("smoothingWindow")
+    private int smoothingWindow;
+    @JsonProperty("maxStartsPerSecond")
+    private int maxStartsPerSecond;
+    @JsonProperty("timeCriticalHooks")
+    private Set<String> timeCriticalHooks;
+    @JsonProperty("sharding")
+    private CronShardConfig sharding;
+    @JsonProperty("sweepParallelism")
+    private int sweepParallelism;
+    @JsonProperty("blogScanDeadline")
+    private int blogScanDeadline;
+
+    /**
+     * Create a new cron configuration container with load smoothing disabled.
+     */
+    public CronConfig()
+    {
+        super();
+
+        this.smoothing = false;
+        this.smoothingWindow = 300;
+        this.maxStartsPerSecond = 0;
+        this.timeCriticalHooks = new HashSet<>();
+        this.timeCriticalHooks.add("publish_future_post");
+        this.sharding = new CronShardConfig();
+        this.sweepParallelism = 8;
+        this.blogScanDeadline = 60;
+    }
+
+    /**
+     * Checks if cron load smoothing is enabled. When enabled, hooks which are not time-critical are
+     * shifted by a deterministic per-blog offset within the smoothing window and all hook starts are
+     * subject to the per-second start limit.
+     *
+     * @return {@code true} if load smoothing is enabled, {@code false} if hooks run at their declared time.
+     */
+    public boolean isSmoothing()
+    {
+        return this.smoothing;
+    }
+
+    /**
+     * Enable or disable cron load smoothing.
+     *
+     * @param smoothing {@code true} to enable smoothing, {@code false} to disable it.
+     */
+    protected void setSmoothing(final boolean smoothing)
+    {
+        this.smoothing = smoothing;
+    }
+
+    /**
+     * Fetch the length of the window that hook executions may be spread across.
+     *
+     * @return The window length, in seconds.
+     */
+    public int getSmoothingWindow()
+    {
+        return this.smoothingWindow;
+    }
+
+    /**
+     * Set the length of the window that hook executions may be spread across.
+     *
+     * @param smoothingWindow The window length, in seconds.
+     */
+    protected void setSmoothingWindow(final int smoothingWindow)
+    {
+        this.smoothingWindow = smoothingWindow;
+    }
+
+    /**
+     * Fetch the maximum number of cron actions allowed to start in any single second while
+     * smoothing is enabled.
+     *
+     * @return The maximum number of starts per second, or zero if starts are not limited.
+     */
+    public int getMaxStartsPerSecond()
+    {
+        return this.maxStartsPerSecond;
+    }
+
+    /**
+     * Set the maximum number of cron actions allowed to start in any single second.
+     *
+     * @param maxStartsPerSecond The maximum number of starts per second, or zero for no limit.
+     */
+    protected void setMaxStartsPerSecond(final int maxStartsPerSecond)
+    {
+        this.maxStartsPerSecond = maxStartsPerSecond;
+    }
+
+    /**
+     * Fetch the set of hooks which should never be shifted by load smoothing. These hooks will
+     * still be subject to the per-second start limit.
+     *
+     * @return A {@code Set} of hook names.
+     */
+    public Set<String> getTimeCriticalHooks()
+    {
+        return this.timeCriticalHooks;
+    }
+
+    /**
+     * Set the hooks which should never be shifted by load smoothing. This will completely replace
+     * the current set.
+     *
+     * @param timeCriticalHooks A {@code Set} of hook names.
+     */
+    protected void setTimeCriticalHooks(final Set<String> timeCriticalHooks)
+    {
+        this.timeCriticalHooks = timeCriticalHooks;
+    }
+
+    /**
+     * Checks if the given hook is declared as time-critical.
+     *
+     * @param hook The name of the hook to check.
+     * @return {@code true} if the hook should run at its declared time, {@code false} if it may be shifted.
+     */
+    public boolean isTimeCritical(final String hook)
+    {
+        return this.timeCriticalHooks.contains(hook);
+    }
+
+    /**
+     * Fetch the configuration for sharding cron processing across multiple nodes.
+     *
+     * @return A {@link CronShardConfig} object.
+     */
+    public CronShardConfig getSharding()
+    {
+        return this.sharding;
+    }
+
+    /**
+     * Set the configuration for sharding cron processing across multiple nodes.
+     *
+     * @param sharding A {@link CronShardConfig} object.
+     */
+    protected void setSharding(final CronShardConfig sharding)
+    {
+        this.sharding = sharding;
+    }
+
+    /**
+     * Fetch the number of blogs which may be scanned for cron hooks at the same time.
+     *
+     * @return The number of parallel blog scans.
+     */
+    public int getSweepParallelism()
+    {
+        return this.sweepParallelism;
+    }
+
+    /**
+     * Set the number of blogs which may be scanned for cron hooks at the same time.
+     *
+     * @param sweepParallelism The number of parallel blog scans.
+     */
+    protected void setSweepParallelism(final int sweepParallelism)
+    {
+        this.sweepParallelism = sweepParallelism;
+    }
+
+    /**
+     * Fetch the maximum time a single blog scan may take. Scans running longer than this are considered
+     * late and are interrupted so they do not hold up the rest of the sweep.
+     *
+     * @return The blog scan deadline, in seconds.
+     */
+    public int getBlogScanDeadline()
+    {
+        return this.blogScanDeadline;
+    }
+
+    /**
+     * Set the maximum time a single blog scan may take.
+     *
+     * @param blogScanDeadline The blog scan deadline, in seconds.
+     */
+    protected void setBlogScanDeadline(final int blogScanDeadline)
+    {
+        this.blogScanDeadline = blogScanDeadline;
+    }
+}
@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.config;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This is a configuration container for sharding cron processing across multiple WPManager nodes. Each
+ * node identifies itself with a unique node ID. The membership of the cluster is either declared statically
+ * through a list of node IDs or discovered through lease files in a directory on shared storage. If neither
+ * is declared, the node processes cron hooks for every blog.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class CronShardConfig
+{
+    @JsonProperty("nodeId")
+    private String nodeId;
+    @JsonProperty("nodes")
+    private List<String> nodes;
+    @JsonProperty("leaseDir")
+    private Path leaseDir;
+    @JsonProperty("leaseDuration")
+    private int leaseDuration;
+    @JsonProperty("virtualNodes")
+    private int virtualNodes;
+
+    /**
+     * Create a new sharding configuration container with sharding disabled.
+     */
+    public CronShardConfig()
+    {
+        super();
+
+        this.nodes = new ArrayList<>();
+        this.leaseDuration = 600;
+        this.virtualNodes = 64;
+    }
+
+    /**
+     * Fetch the unique ID of this node. If no ID is configured, the local host name is used.
+     *
+     * @return The node ID as a {@code String}.
+     */
+    public String getNodeId()
+    {
+        if (this.nodeId == null)
+        {
+            try
+            {
+                this.nodeId = InetAddress.getLocalHost().getHostName();
+            }
+            catch (UnknownHostException e)
+            {
+                this.nodeId = "wpmanager";
+            }
+        }
+
+        return this.nodeId;
+    }
+
+    /**
+     * Set the unique ID of this node.
+     *
+     * @param nodeId The node ID to use.
+     */
+    protected void setNodeId(final String nodeId)
+    {
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * Fetch the statically declared node IDs which share cron processing.
+     *
+     * @return A {@code List} of node IDs. The list is empty if static membership is not used.
+     */
+    public List<String> getNodes()
+    {
+        return this.nodes;
+    }
+
+    /**
+     * Set the statically declared node IDs. This will completely replace the current list.
+     *
+     * @param nodes A {@code List} of node IDs.
+     */
+    protected void setNodes(final List<String> nodes)
+    {
+        this.nodes = nodes;
+    }
+
+    /**
+     * Fetch the directory used to hold node lease files. This directory should be on storage shared by
+     * all nodes.
+     *
+     * @return The lease directory as a {@code Path}, or {@code null} if lease-based membership is not used.
+     */
+    public Path getLeaseDir()
+    {
+        return this.leaseDir;
+    }
+
+    /**
+     * Set the directory used to hold node lease files.
+     *
+     * @param leaseDir The lease directory, or {@code null} to disable lease-based membership.
+     */
+    protected void setLeaseDir(final Path leaseDir)
+    {
+        this.leaseDir = leaseDir;
+    }
+
+    /**
+     * Fetch the amount of time a lease remains valid after it was last renewed. Nodes which have not
+     * renewed their lease in this time are considered to have left the cluster. Each node renews its lease
+     * every third of this time, and durations shorter than the cron sweep period are raised to it.
+     *
+     * @return The lease duration, in seconds.
+     */
+    public int getLeaseDuration()
+    {
+        return this.leaseDuration;
+    }
+
+    /**
+     * Set the amount of time a lease remains valid after it was last renewed.
+     *
+     * @param leaseDuration The lease duration, in seconds.
+     */
+    protected void setLeaseDuration(final int leaseDuration)
+    {
+        this.leaseDuration = leaseDuration;
+    }
+
+    /**
+     * Fetch the number of points each node is given on the consistent hash ring. Higher values produce
+     * a more even distribution of blogs.
+     *
+     * @return The number of virtual nodes per node.
+     */
+    public int getVirtualNodes()
+    {
+        return this.virtualNodes;
+    }
+
+    /**
+     * Set the number of points each node is given on the consistent hash ring.
+     *
+     * @param virtualNodes The number of virtual nodes per node.
+     */
+    protected void setVirtualNodes(final int virtualNodes)
+    {
+        this.virtualNodes = virtualNodes;
+    }
+
+    /**
+     * Checks if sharding is enabled. Sharding is enabled when either static membership or lease-based
+     * membership is declared.
+     *
+     * @return {@code true} if cron processing is sharded, {@code false} if this node handles every blog.
+     */
+    @JsonIgnore
+    public boolean isEnabled()
+    {
+        return this.leaseDir != null || !this.nodes.isEmpty();
+    }
+}
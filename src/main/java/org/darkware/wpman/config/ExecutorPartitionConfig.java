@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * This is a configuration container for a single executor partition of the action service. Each
+ * partition has its own thread pool and its own bounded queue of actions waiting for a thread.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class ExecutorPartitionConfig
+{
+    /** The policy applied to actions which arrive while a partition's queue is full. */
+    public enum RejectionPolicy
+    {
+        /** Refuse the action and report an error to the code scheduling it. */
+        ABORT,
+        /**
+         * Run the action on the thread which is scheduling it. Actions handed over by the scheduler wait
+         * for room in the queue instead, up to one queue's worth; any beyond that are dropped.
+         */
+        CALLER_RUNS,
+        /** Silently cancel the action. */
+        DISCARD,
+        /** Cancel the oldest queued action to make room for the new action. */
+        DISCARD_OLDEST
+    }
+
+    @JsonProperty("poolSize")
+    private int poolSize;
+    @JsonProperty("queueSize")
+    private int queueSize;
+    @JsonProperty("rejection")
+    private RejectionPolicy rejection;
+    @JsonProperty("adaptive")
+    private AdaptiveConcurrencyConfig adaptive;
+    @JsonProperty("drainTimeout")
+    private int drainTimeout;
+
+    /**
+     * Create a new partition configuration container with a small pool and a large queue.
+     */
+    public ExecutorPartitionConfig()
+    {
+        this(2, 1000, RejectionPolicy.ABORT);
+    }
+
+    /**
+     * Create a new partition configuration container with the given settings and a fixed pool size.
+     *
+     * @param poolSize The number of threads in the partition.
+     * @param queueSize The number of actions which may wait for a thread.
+     * @param rejection The {@link RejectionPolicy} for actions arriving at a full queue.
+     */
+    public ExecutorPartitionConfig(final int poolSize, final int queueSize, final RejectionPolicy rejection)
+    {
+        this(poolSize, queueSize, rejection, new AdaptiveConcurrencyConfig());
+    }
+
+    /**
+     * Create a new partition configuration container with the given settings.
+     *
+     * @param poolSize The number of threads in the partition.
+     * @param queueSize The number of actions which may wait for a thread.
+     * @param rejection The {@link RejectionPolicy} for actions arriving at a full queue.
+     * @param adaptive The {@link AdaptiveConcurrencyConfig} which may adjust the pool size.
+     */
+    public ExecutorPartitionConfig(final int poolSize, final int queueSize, final RejectionPolicy rejection,
+                                   final AdaptiveConcurrencyConfig adaptive)
+    {
+        this(poolSize, queueSize, rejection, adaptive, 30);
+    }
+
+    /**
+     * Create a new partition configuration container with the given settings and shutdown drain timeout.
+     *
+     * @param poolSize The number of threads in the partition.
+     * @param queueSize The number of actions which may wait for a thread.
+     * @param rejection The {@link RejectionPolicy} for actions arriving at a full queue.
+     * @param adaptive The {@link AdaptiveConcurrencyConfig} which may adjust the pool size.
+     * @param drainTimeout The number of seconds running actions may take to finish during shutdown.
+     */
+    public ExecutorPartitionConfig(final int poolSize, final int queueSize, final RejectionPolicy rejection,
+                                   final AdaptiveConcurrencyConfig adaptive, final int drainTimeout)
+    {
+        super();
+
+        this.poolSize = poolSize;
+        this.queueSize = queueSize;
+        this.rejection = rejection;
+        this.adaptive = adaptive;
+        this.drainTimeout = drainTimeout;
+    }
+
+    /**
+     * Fetch the number of threads executing actions in the partition. If adaptive concurrency is enabled,
+     * this is the initial number of threads.
+     *
+     * @return The thread pool size.
+     */
+    public int getPoolSize()
+    {
+        return this.poolSize;
+    }
+
+    /**
+     * Set the number of threads executing actions in the partition.
+     *
+     * @param poolSize The thread pool size.
+     */
+    protected void setPoolSize(final int poolSize)
+    {
+        this.poolSize = poolSize;
+    }
+
+    /**
+     * Fetch the number of actions which may wait for a thread before new actions are rejected.
+     *
+     * @return The queue bound.
+     */
+    public int getQueueSize()
+    {
+        return this.queueSize;
+    }
+
+    /**
+     * Set the number of actions which may wait for a thread before new actions are rejected.
+     *
+     * @param queueSize The queue bound.
+     */
+    protected void setQueueSize(final int queueSize)
+    {
+        this.queueSize = queueSize;
+    }
+
+    /**
+     * Fetch the policy applied to actions which arrive while the queue is full.
+     *
+     * @return The {@link RejectionPolicy} of the partition.
+     */
+    public RejectionPolicy getRejection()
+    {
+        return this.rejection;
+    }
+
+    /**
+     * Set the policy applied to actions which arrive while the queue is full.
+     *
+     * @param rejection The {@link RejectionPolicy} of the partition.
+     */
+    protected void setRejection(final RejectionPolicy rejection)
+    {
+        this.rejection = rejection;
+    }
+
+    /**
+     * Fetch the adaptive concurrency settings of the partition.
+     *
+     * @return The {@link AdaptiveConcurrencyConfig} of the partition.
+     */
+    public AdaptiveConcurrencyConfig getAdaptive()
+    {
+        return (this.adaptive == null) ? new AdaptiveConcurrencyConfig() : this.adaptive;
+    }
+
+    /**
+     * Set the adaptive concurrency settings of the partition.
+     *
+     * @param adaptive The {@link AdaptiveConcurrencyConfig} of the partition.
+     */
+    protected void setAdaptive(final AdaptiveConcurrencyConfig adaptive)
+    {
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * Fetch the time actions which are running when the application shuts down are given to finish. Actions
+     * still running after this time are interrupted, which kills their WP-CLI processes.
+     *
+     * @return The drain timeout, in seconds.
+     */
+    public int getDrainTimeout()
+    {
+        return this.drainTimeout;
+    }
+
+    /**
+     * Set the time actions which are running when the application shuts down are given to finish.
+     *
+     * @param drainTimeout The drain timeout, in seconds.
+     */
+    protected void setDrainTimeout(final int drainTimeout)
+    {
+        this.drainTimeout = drainTimeout;
+    }
+}
@@ -39,6 +39,10 @@ public class FilePermissionsConfig
     private Set<Path> ignorePaths;
     @JsonProperty("scanFrequency")
     private int scanFrequency;
+    @JsonProperty("fullCheckInterval")
+    private int fullCheckInterval = 12;
+    @JsonProperty("scanThreads")
+    private int scanThreads = 4;
 
     /**
      * Create a new configuration container with no directories or paths registered.
@@ -113,4 +117,45 @@ public class FilePermissionsConfig
     {
         this.scanFrequency = scanFrequency;
     }
+
+    /**
+     * Fetch the number of scans between full permission checks. The scans in between only check the files
+     * of directories which have had entries added, removed or renamed since they were last checked.
+     *
+     * @return The number of scans between full checks. A value of one or less checks everything every time.
+     */
+    public int getFullCheckInterval()
+    {
+        return this.fullCheckInterval;
+    }
+
+    /**
+     * Set the number of scans between full permission checks.
+     *
+     * @param fullCheckInterval The number of scans between full checks.
+     */
+    protected void setFullCheckInterval(final int fullCheckInterval)
+    {
+        this.fullCheckInterval = fullCheckInterval;
+    }
+
+    /**
+     * Fetch the number of example directories which may be scanned at the same time.
+     *
+     * @return The number of scanning threads.
+     */
+    public int getScanThreads()
+    {
+        return this.scanThreads;
+    }
+
+    /**
+     * Set the number of example directories which may be scanned at the same time.
+     *
+     * @param scanThreads The number of scanning threads.
+     */
+    protected void setScanThreads(final int scanThreads)
+    {
+        this.scanThreads = scanThreads;
+    }
 }
@@ -0,0 +1,356 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.darkware.wpman.security.ChecksumAlgorithm;
+
+import java.time.Duration;
+
+/**
+ * This is a configuration container for file integrity scanning. Scans walk the directory tree with a
+ * pool of walker threads, each taking a subtree at a time, and hand files off to a separate, bounded pool
+ * of threads which read and hash them. When the hashing queue is full, the walkers hash files themselves,
+ * which keeps the walk from running far ahead of the disk.
+ * <p>
+ * Files whose size, timestamps and inode match the values recorded when they were last hashed are not read
+ * again. As a guard against changes which preserve all of those, a random sample of unchanged files is
+ * hashed on every scan, and every file is hashed on a periodic full scan.
+ * <p>
+ * Files are hashed with SHA-256 by default. xxHash64 is much faster, but it only detects accidental
+ * changes, not deliberate tampering. The algorithm only applies when a new database is created.
+ * <p>
+ * In real-time mode, the WordPress tree is also watched for changes. Changed files are checked in batches
+ * once they have been quiet for a short time, and the periodic scan only runs occasionally to catch
+ * anything the watches missed.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class IntegrityConfig
+{
+    @JsonProperty("walkerThreads")
+    private int walkerThreads;
+    @JsonProperty("hashThreads")
+    private int hashThreads;
+    @JsonProperty("hashQueueSize")
+    private int hashQueueSize;
+    @JsonProperty("fullScanInterval")
+    private int fullScanInterval;
+    @JsonProperty("rehashSample")
+    private double rehashSample;
+    @JsonProperty("algorithm")
+    private ChecksumAlgorithm algorithm;
+    @JsonProperty("realtime")
+    private boolean realtime;
+    @JsonProperty("scanInterval")
+    private int scanInterval;
+    @JsonProperty("reconcileInterval")
+    private int reconcileInterval;
+    @JsonProperty("watchDebounce")
+    private int watchDebounce;
+    @JsonProperty("watchBatchSize")
+    private int watchBatchSize;
+    @JsonProperty("unifiedScan")
+    private boolean unifiedScan;
+
+    /**
+     * Create a new integrity configuration container with one walker thread per processor.
+     */
+    public IntegrityConfig()
+    {
+        this(0, 4);
+    }
+
+    /**
+     * Create a new integrity configuration container with the given parallelism.
+     *
+     * @param walkerThreads The number of threads walking directories, or zero for one per processor.
+     * @param hashThreads The number of threads hashing files.
+     */
+    public IntegrityConfig(final int walkerThreads, final int hashThreads)
+    {
+        super();
+
+        this.walkerThreads = walkerThreads;
+        this.hashThreads = hashThreads;
+        this.hashQueueSize = 1000;
+        this.fullScanInterval = 48;
+        this.rehashSample = 0.01;
+        this.algorithm = ChecksumAlgorithm.SHA256;
+        this.realtime = false;
+        this.scanInterval = 30;
+        this.reconcileInterval = 360;
+        this.watchDebounce = 2;
+        this.watchBatchSize = 500;
+        this.unifiedScan = false;
+    }
+
+    /**
+     * Fetch the number of threads walking directories during a scan. A value of one uses a single-threaded
+     * walk which also hashes each file itself.
+     *
+     * @return The number of walker threads, or zero for one per processor.
+     */
+    public int getWalkerThreads()
+    {
+        return this.walkerThreads;
+    }
+
+    /**
+     * Set the number of threads walking directories during a scan.
+     *
+     * @param walkerThreads The number of walker threads, or zero for one per processor.
+     */
+    protected void setWalkerThreads(final int walkerThreads)
+    {
+        this.walkerThreads = walkerThreads;
+    }
+
+    /**
+     * Fetch the number of threads reading and hashing files during a scan.
+     *
+     * @return The number of hashing threads.
+     */
+    public int getHashThreads()
+    {
+        return this.hashThreads;
+    }
+
+    /**
+     * Set the number of threads reading and hashing files during a scan.
+     *
+     * @param hashThreads The number of hashing threads.
+     */
+    protected void setHashThreads(final int hashThreads)
+    {
+        this.hashThreads = hashThreads;
+    }
+
+    /**
+     * Fetch the number of files which may wait to be hashed before the walkers hash files themselves.
+     *
+     * @return The hashing queue size.
+     */
+    public int getHashQueueSize()
+    {
+        return this.hashQueueSize;
+    }
+
+    /**
+     * Set the number of files which may wait to be hashed before the walkers hash files themselves.
+     *
+     * @param hashQueueSize The hashing queue size.
+     */
+    protected void setHashQueueSize(final int hashQueueSize)
+    {
+        this.hashQueueSize = hashQueueSize;
+    }
+
+    /**
+     * Fetch the number of scans between full scans which hash every file.
+     *
+     * @return The full scan interval, in scans, or zero to never run full scans.
+     */
+    public int getFullScanInterval()
+    {
+        return this.fullScanInterval;
+    }
+
+    /**
+     * Set the number of scans between full scans which hash every file.
+     *
+     * @param fullScanInterval The full scan interval, in scans, or zero to never run full scans.
+     */
+    protected void setFullScanInterval(final int fullScanInterval)
+    {
+        this.fullScanInterval = fullScanInterval;
+    }
+
+    /**
+     * Fetch the fraction of files with unchanged metadata which are hashed anyway on each scan.
+     *
+     * @return The sampled fraction, between 0 and 1.
+     */
+    public double getRehashSample()
+    {
+        return this.rehashSample;
+    }
+
+    /**
+     * Set the fraction of files with unchanged metadata which are hashed anyway on each scan.
+     *
+     * @param rehashSample The sampled fraction, between 0 and 1.
+     */
+    protected void setRehashSample(final double rehashSample)
+    {
+        this.rehashSample = rehashSample;
+    }
+
+    /**
+     * Fetch the algorithm used to hash files when a new integrity database is created.
+     *
+     * @return The {@link ChecksumAlgorithm} for new databases.
+     */
+    public ChecksumAlgorithm getAlgorithm()
+    {
+        return this.algorithm;
+    }
+
+    /**
+     * Set the algorithm used to hash files when a new integrity database is created.
+     *
+     * @param algorithm The {@link ChecksumAlgorithm} for new databases.
+     */
+    protected void setAlgorithm(final ChecksumAlgorithm algorithm)
+    {
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Checks if files should be watched for changes between scans.
+     *
+     * @return {@code true} if real-time monitoring is enabled.
+     */
+    public boolean isRealtime()
+    {
+        return this.realtime;
+    }
+
+    /**
+     * Set whether files should be watched for changes between scans.
+     *
+     * @param realtime {@code true} to enable real-time monitoring.
+     */
+    protected void setRealtime(final boolean realtime)
+    {
+        this.realtime = realtime;
+    }
+
+    /**
+     * Fetch the time between periodic scans when real-time monitoring is disabled.
+     *
+     * @return The scan interval, in minutes.
+     */
+    public int getScanInterval()
+    {
+        return this.scanInterval;
+    }
+
+    /**
+     * Set the time between periodic scans when real-time monitoring is disabled.
+     *
+     * @param scanInterval The scan interval, in minutes.
+     */
+    protected void setScanInterval(final int scanInterval)
+    {
+        this.scanInterval = scanInterval;
+    }
+
+    /**
+     * Fetch the time between periodic scans when real-time monitoring is enabled.
+     *
+     * @return The reconciliation scan interval, in minutes.
+     */
+    public int getReconcileInterval()
+    {
+        return this.reconcileInterval;
+    }
+
+    /**
+     * Set the time between periodic scans when real-time monitoring is enabled.
+     *
+     * @param reconcileInterval The reconciliation scan interval, in minutes.
+     */
+    protected void setReconcileInterval(final int reconcileInterval)
+    {
+        this.reconcileInterval = reconcileInterval;
+    }
+
+    /**
+     * Fetch the time between periodic scans, based on whether real-time monitoring is enabled.
+     *
+     * @return The effective scan interval.
+     */
+    public Duration getEffectiveScanInterval()
+    {
+        return Duration.ofMinutes(Math.max(1, this.realtime ? this.reconcileInterval : this.scanInterval));
+    }
+
+    /**
+     * Fetch the time a watched file must go without further changes before it is checked.
+     *
+     * @return The debounce time, in seconds.
+     */
+    public int getWatchDebounce()
+    {
+        return this.watchDebounce;
+    }
+
+    /**
+     * Set the time a watched file must go without further changes before it is checked.
+     *
+     * @param watchDebounce The debounce time, in seconds.
+     */
+    protected void setWatchDebounce(final int watchDebounce)
+    {
+        this.watchDebounce = watchDebounce;
+    }
+
+    /**
+     * Fetch the largest number of watched files checked in a single batch.
+     *
+     * @return The batch size.
+     */
+    public int getWatchBatchSize()
+    {
+        return this.watchBatchSize;
+    }
+
+    /**
+     * Set the largest number of watched files checked in a single batch.
+     *
+     * @param watchBatchSize The batch size.
+     */
+    protected void setWatchBatchSize(final int watchBatchSize)
+    {
+        this.watchBatchSize = watchBatchSize;
+    }
+
+    /**
+     * Check if integrity checks and permission enforcement share a single walk of the tree. When enabled,
+     * one scan runs at the integrity scan interval, or every 30 minutes if that is shorter, in place of the
+     * separate integrity and permission scans.
+     *
+     * @return {@code true} if the unified scan is enabled.
+     */
+    public boolean isUnifiedScan()
+    {
+        return this.unifiedScan;
+    }
+
+    /**
+     * Set whether integrity checks and permission enforcement share a single walk of the tree.
+     *
+     * @param unifiedScan {@code true} to enable the unified scan.
+     */
+    protected void setUnifiedScan(final boolean unifiedScan)
+    {
+        this.unifiedScan = unifiedScan;
+    }
+}
@@ -327,6 +327,34 @@ public class ReloadableWordpressConfig implements WordpressConfig
         return this.data.getPermissionsConfig();
     }
 
+    @Override
+    @JsonProperty("cron")
+    public CronConfig getCronConfig()
+    {
+        return this.data.getCronConfig();
+    }
+
+    @Override
+    @JsonProperty("actions")
+    public ActionConfig getActionConfig()
+    {
+        return this.data.getActionConfig();
+    }
+
+    @Override
+    @JsonProperty("tracing")
+    public TracingConfig getTracingConfig()
+    {
+        return this.data.getTracingConfig();
+    }
+
+    @Override
+    @JsonProperty("integrity")
+    public IntegrityConfig getIntegrityConfig()
+    {
+        return this.data.getIntegrityConfig();
+    }
+
     @Override
     @JsonProperty("dataFiles")
     public Map<String, Path> getDataFiles()
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.darkware.wpman.actions.WPActionCategory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This is a configuration container for retrying failed actions. Retry policies can be declared for a
+ * single class of action, by its simple class name, or for a whole {@link WPActionCategory}, by the
+ * category name. Only failures whose error output matches one of the transient error patterns are
+ * retried.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class RetryConfig
+{
+    @JsonProperty("patterns")
+    private List<String> patterns;
+    @JsonProperty("policies")
+    private Map<String, RetryPolicyConfig> policies;
+
+    /**
+     * Create a new retry configuration container which recognizes common database lock and download
+     * errors as transient.
+     */
+    public RetryConfig()
+    {
+        super();
+
+        this.patterns = new ArrayList<>(Arrays.asList("Deadlock found",
+                                                      "Lock wait timeout exceeded",
+                                                      "Error establishing a database connection",
+                                                      "MySQL server has gone away",
+                                                      "Too many connections",
+                                                      "Download failed",
+                                                      "cURL error \\d+",
+                                                      "timed out",
+                                                      "Connection refused",
+                                                      "Temporary failure in name resolution",
+                                                      "\\b50[234]\\b"));
+        this.policies = new HashMap<>();
+    }
+
+    /**
+     * Fetch the regular expressions which identify transient failures. A pattern may match anywhere
+     * in the error output.
+     *
+     * @return A {@code List} of regular expressions.
+     */
+    public List<String> getPatterns()
+    {
+        return this.patterns;
+    }
+
+    /**
+     * Set the regular expressions which identify transient failures.
+     *
+     * @param patterns A {@code List} of regular expressions.
+     */
+    protected void setPatterns(final List<String> patterns)
+    {
+        this.patterns = patterns;
+    }
+
+    /**
+     * Fetch the retry policy for a class of actions. A policy declared for the class takes precedence
+     * over a policy declared for its category. Categories which are not configured receive a default
+     * policy suited to the category.
+     *
+     * @param actionType The simple class name of the action.
+     * @param category The {@link WPActionCategory} of the action.
+     * @return The {@link RetryPolicyConfig} for the action.
+     */
+    public RetryPolicyConfig getPolicy(final String actionType, final WPActionCategory category)
+    {
+        RetryPolicyConfig config = this.policies.get(actionType);
+        if (config != null) return config;
+
+        config = this.policies.get(category.name());
+        if (config != null) return config;
+
+        switch (category)
+        {
+            case INSTALL:
+            case MAINTENANCE:
+                return new RetryPolicyConfig(3, 30, 600);
+            default:
+                return new RetryPolicyConfig();
+        }
+    }
+
+    /**
+     * Set the retry policy for a class or category of actions.
+     *
+     * @param name The simple class name of the action or the name of the category.
+     * @param config The {@link RetryPolicyConfig} to apply.
+     */
+    protected void setPolicy(final String name, final RetryPolicyConfig config)
+    {
+        this.policies.put(name, config);
+    }
+}
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * This is a configuration container for the retry policy of a class or category of actions. Failed
+ * actions are only retried when their failure matches one of the transient error patterns in the
+ * {@link RetryConfig}. Each retry waits for an exponentially increasing delay with a random jitter.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class RetryPolicyConfig
+{
+    @JsonProperty("maxAttempts")
+    private int maxAttempts;
+    @JsonProperty("initialDelay")
+    private int initialDelay;
+    @JsonProperty("maxDelay")
+    private int maxDelay;
+    @JsonProperty("multiplier")
+    private double multiplier;
+    @JsonProperty("jitter")
+    private double jitter;
+
+    /**
+     * Create a new retry policy container which never retries.
+     */
+    public RetryPolicyConfig()
+    {
+        this(1, 30, 600);
+    }
+
+    /**
+     * Create a new retry policy container with the given limits, doubling the delay after each attempt.
+     *
+     * @param maxAttempts The total number of attempts, including the first.
+     * @param initialDelay The number of seconds to wait before the first retry.
+     * @param maxDelay The largest number of seconds to wait before any retry.
+     */
+    public RetryPolicyConfig(final int maxAttempts, final int initialDelay, final int maxDelay)
+    {
+        super();
+
+        this.maxAttempts = maxAttempts;
+        this.initialDelay = initialDelay;
+        this.maxDelay = maxDelay;
+        this.multiplier = 2.0;
+        this.jitter = 0.5;
+    }
+
+    /**
+     * Fetch the total number of times an action may be attempted, including the first attempt.
+     *
+     * @return The maximum number of attempts.
+     */
+    public int getMaxAttempts()
+    {
+        return this.maxAttempts;
+    }
+
+    /**
+     * Set the total number of times an action may be attempted, including the first attempt.
+     *
+     * @param maxAttempts The maximum number of attempts.
+     */
+    protected void setMaxAttempts(final int maxAttempts)
+    {
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Fetch the delay before the first retry.
+     *
+     * @return The initial delay, in seconds.
+     */
+    public int getInitialDelay()
+    {
+        return this.initialDelay;
+    }
+
+    /**
+     * Set the delay before the first retry.
+     *
+     * @param initialDelay The initial delay, in seconds.
+     */
+    protected void setInitialDelay(final int initialDelay)
+    {
+        this.initialDelay = initialDelay;
+    }
+
+    /**
+     * Fetch the largest delay before any retry.
+     *
+     * @return The maximum delay, in seconds.
+     */
+    public int getMaxDelay()
+    {
+        return this.maxDelay;
+    }
+
+    /**
+     * Set the largest delay before any retry.
+     *
+     * @param maxDelay The maximum delay, in seconds.
+     */
+    protected void setMaxDelay(final int maxDelay)
+    {
+        this.maxDelay = maxDelay;
+    }
+
+    /**
+     * Fetch the factor the delay grows by after each retry.
+     *
+     * @return The backoff multiplier.
+     */
+    public double getMultiplier()
+    {
+        return this.multiplier;
+    }
+
+    /**
+     * Set the factor the delay grows by after each retry.
+     *
+     * @param multiplier The backoff multiplier.
+     */
+    protected void setMultiplier(final double multiplier)
+    {
+        this.multiplier = multiplier;
+    }
+
+    /**
+     * Fetch the fraction of each delay which is chosen at random. A jitter of zero always waits for the
+     * full delay, while a jitter of one waits for anywhere between no time and the full delay.
+     *
+     * @return The jitter fraction, between 0 and 1.
+     */
+    public double getJitter()
+    {
+        return this.jitter;
+    }
+
+    /**
+     * Set the fraction of each delay which is chosen at random.
+     *
+     * @param jitter The jitter fraction, between 0 and 1.
+     */
+    protected void setJitter(final double jitter)
+    {
+        this.jitter = jitter;
+    }
+}
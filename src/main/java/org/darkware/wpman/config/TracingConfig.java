@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.nio.file.Path;
+
+/**
+ * This is a configuration container for action tracing. Traced actions record a span for the action
+ * itself and child spans for the commands, lazy loads and file operations it performs. Spans are kept
+ * in a fixed-size buffer, and may also be appended to a file in Zipkin JSON format for offline analysis.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class TracingConfig
+{
+    @JsonProperty("enabled")
+    private boolean enabled;
+    @JsonProperty("bufferSize")
+    private int bufferSize;
+    @JsonProperty("exportFile")
+    private Path exportFile;
+    @JsonProperty("serviceName")
+    private String serviceName;
+
+    /**
+     * Create a new tracing configuration container with tracing enabled and no export file.
+     */
+    public TracingConfig()
+    {
+        super();
+
+        this.enabled = true;
+        this.bufferSize = 10000;
+        this.serviceName = "wpmanager";
+    }
+
+    /**
+     * Checks if actions should be traced.
+     *
+     * @return {@code true} if tracing is enabled, otherwise {@code false}.
+     */
+    public boolean isEnabled()
+    {
+        return this.enabled;
+    }
+
+    /**
+     * Set whether actions should be traced.
+     *
+     * @param enabled {@code true} to enable tracing.
+     */
+    protected void setEnabled(final boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Fetch the number of recent spans kept in memory.
+     *
+     * @return The span buffer size.
+     */
+    public int getBufferSize()
+    {
+        return this.bufferSize;
+    }
+
+    /**
+     * Set the number of recent spans kept in memory.
+     *
+     * @param bufferSize The span buffer size.
+     */
+    protected void setBufferSize(final int bufferSize)
+    {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Fetch the file that completed traces are appended to.
+     *
+     * @return The export file, or {@code null} if traces are not exported.
+     */
+    public Path getExportFile()
+    {
+        return this.exportFile;
+    }
+
+    /**
+     * Set the file that completed traces are appended to.
+     *
+     * @param exportFile The export file, or {@code null} to not export traces.
+     */
+    protected void setExportFile(final Path exportFile)
+    {
+        this.exportFile = exportFile;
+    }
+
+    /**
+     * Fetch the service name recorded with exported spans.
+     *
+     * @return The service name.
+     */
+    public String getServiceName()
+    {
+        return this.serviceName;
+    }
+
+    /**
+     * Set the service name recorded with exported spans.
+     *
+     * @param serviceName The service name.
+     */
+    protected void setServiceName(final String serviceName)
+    {
+        this.serviceName = serviceName;
+    }
+}
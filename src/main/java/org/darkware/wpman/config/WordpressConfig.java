@@ -100,6 +100,38 @@ public interface WordpressConfig
     @JsonProperty("permissions")
     FilePermissionsConfig getPermissionsConfig();
 
+    /**
+     * Fetches the cron configuration for this configuration container.
+     *
+     * @return A {@link CronConfig} object for this container.
+     */
+    @JsonProperty("cron")
+    CronConfig getCronConfig();
+
+    /**
+     * Fetches the action service configuration for this configuration container.
+     *
+     * @return An {@link ActionConfig} object for this container.
+     */
+    @JsonProperty("actions")
+    ActionConfig getActionConfig();
+
+    /**
+     * Fetches the action tracing configuration for this configuration container.
+     *
+     * @return A {@link TracingConfig} object for this container.
+     */
+    @JsonProperty("tracing")
+    TracingConfig getTracingConfig();
+
+    /**
+     * Fetches the file integrity scanning configuration for this configuration container.
+     *
+     * @return An {@link IntegrityConfig} object for this container.
+     */
+    @JsonProperty("integrity")
+    IntegrityConfig getIntegrityConfig();
+
     /**
      * Fetch the path to the WordPress content directory. By default this would point to the
      * {@code wp-content} directory under the installation root.
@@ -65,6 +65,14 @@ public class WordpressConfigData implements WordpressConfig
     private UploadsConfig uploadsConfig = new UploadsConfig();
     @Valid
     private FilePermissionsConfig permissionsConfig = new FilePermissionsConfig();
+    @Valid
+    private CronConfig cronConfig = new CronConfig();
+    @Valid
+    private ActionConfig actionConfig = new ActionConfig();
+    @Valid
+    private TracingConfig tracingConfig = new TracingConfig();
+    @Valid
+    private IntegrityConfig integrityConfig = new IntegrityConfig();
 
     private NotificationConfig notification = new NotificationConfig();
     private Map<String, Path> dataFiles = new HashMap<>();
@@ -216,6 +224,78 @@ public class WordpressConfigData implements WordpressConfig
         this.permissionsConfig = permissionsConfig;
     }
 
+    @Override
+    @JsonProperty("cron")
+    public CronConfig getCronConfig()
+    {
+        return this.cronConfig;
+    }
+
+    /**
+     * Set the cron configuration for this container.
+     *
+     * @param cronConfig A {@link CronConfig} object.
+     */
+    @JsonProperty("cron")
+    protected void setCronConfig(final CronConfig cronConfig)
+    {
+        this.cronConfig = cronConfig;
+    }
+
+    @Override
+    @JsonProperty("actions")
+    public ActionConfig getActionConfig()
+    {
+        return this.actionConfig;
+    }
+
+    /**
+     * Set the action service configuration for this container.
+     *
+     * @param actionConfig An {@link ActionConfig} object.
+     */
+    @JsonProperty("actions")
+    protected void setActionConfig(final ActionConfig actionConfig)
+    {
+        this.actionConfig = actionConfig;
+    }
+
+    @Override
+    @JsonProperty("tracing")
+    public TracingConfig getTracingConfig()
+    {
+        return this.tracingConfig;
+    }
+
+    /**
+     * Set the action tracing configuration for this container.
+     *
+     * @param tracingConfig A {@link TracingConfig} object.
+     */
+    @JsonProperty("tracing")
+    protected void setTracingConfig(final TracingConfig tracingConfig)
+    {
+        this.tracingConfig = tracingConfig;
+    }
+
+    @Override
+    @JsonProperty("integrity")
+    public IntegrityConfig getIntegrityConfig()
+    {
+        return this.integrityConfig;
+    }
+
+    /**
+     * Set the file integrity scanning configuration for this container.
+     *
+     * @param integrityConfig An {@link IntegrityConfig} object.
+     */
+    @JsonProperty("integrity")
+    protected void setIntegrityConfig(final IntegrityConfig integrityConfig)
+    {
+        this.integrityConfig = integrityConfig;
+    }
+
     @Override
     @JsonProperty("contentDir")
     public Path getContentDir()
@@ -106,6 +106,17 @@ public class WPBlogs extends WPComponent implements Iterable<WPBlog>
         return this.blogsByDomain.map().get(identifier);
     }
 
+    /**
+     * Fetch a specific blog by its numeric ID.
+     *
+     * @param blogId The ID of the blog to fetch.
+     * @return The {@link WPBlog} with the given ID, or {@code null} if no blog matched.
+     */
+    public WPBlog get(final int blogId)
+    {
+        return this.blogs.map().get(blogId);
+    }
+
     public Iterator<WPBlog> iterator()
     {
         return this.blogs.iterator();
@@ -36,6 +36,20 @@ public class WPCronHook implements Comparable<WPCronHook>
         super();
     }
 
+    /**
+     * Create a new hook reference for a known hook and execution time.
+     *
+     * @param hook The name of the hook.
+     * @param nextRun The time the hook is scheduled to run.
+     */
+    public WPCronHook(final String hook, final LocalDateTime nextRun)
+    {
+        super();
+
+        this.hook = hook;
+        this.nextRun = nextRun;
+    }
+
     public LocalDateTime getNextRun()
     {
         return this.nextRun;
@@ -34,4 +34,24 @@ public class WPLanguage
     {
         super();
     }
+
+    /**
+     * Fetch the locale code of the language, such as {@code en_US}.
+     *
+     * @return The locale code.
+     */
+    public String getCode()
+    {
+        return this.code;
+    }
+
+    /**
+     * Fetch the name of the language, in the language itself.
+     *
+     * @return The native language name.
+     */
+    public String getName()
+    {
+        return this.name;
+    }
 }
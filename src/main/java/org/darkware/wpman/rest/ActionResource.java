@@ -18,14 +18,25 @@
 package org.darkware.wpman.rest;
 
 import org.darkware.wpman.WPManager;
-import org.darkware.wpman.actions.WPAction;
+import org.darkware.wpman.actions.ActionPage;
+import org.darkware.wpman.actions.WPActionCategory;
+import org.darkware.wpman.actions.WPActionPipeline;
 import org.darkware.wpman.actions.WPActionService;
+import org.darkware.wpman.actions.WPActionState;
 import org.darkware.wpman.config.WordpressConfig;
+import org.darkware.wpman.tracing.Span;
+import org.darkware.wpman.tracing.Tracer;
 
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -52,10 +63,67 @@ public class ActionResource
     @GET
     @Path("list")
     @Produces(MediaType.APPLICATION_JSON)
-    public List<WPAction> listActions()
+    public ActionPage listActions(@QueryParam("state") final List<WPActionState> states,
+                                  @QueryParam("category") final List<WPActionCategory> categories,
+                                  @QueryParam("offset") @DefaultValue("0") final int offset,
+                                  @QueryParam("limit") @DefaultValue("100") final int limit)
     {
-        List<WPAction> actions = this.actionService.getActions().stream().collect(Collectors.toList());
+        EnumSet<WPActionState> stateFilter = EnumSet.noneOf(WPActionState.class);
+        if (states != null) stateFilter.addAll(states);
+        EnumSet<WPActionCategory> categoryFilter = EnumSet.noneOf(WPActionCategory.class);
+        if (categories != null) categoryFilter.addAll(categories);
 
-        return actions;
+        return this.actionService.getRegistry().list(stateFilter, categoryFilter, Math.max(0, offset), Math.max(0, limit));
+    }
+
+    @GET
+    @Path("{id}/trace")
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<Span> getTrace(@PathParam("id") final long id)
+    {
+        List<Span> trace = Tracer.getBuffer().getTrace(id);
+        if (trace.isEmpty() && this.actionService.getRegistry().getSummary(id) == null)
+        {
+            throw new NotFoundException("No such action: " + id);
+        }
+
+        return trace;
+    }
+
+    @GET
+    @Path("pipelines")
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<WPActionPipeline> listPipelines()
+    {
+        return this.actionService.getPipelines().stream()
+                                 .sorted((a, b) -> Long.compare(a.getId(), b.getId()))
+                                 .collect(Collectors.toList());
+    }
+
+    @GET
+    @Path("pipelines/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public WPActionPipeline getPipeline(@PathParam("id") final long id)
+    {
+        return this.findPipeline(id);
+    }
+
+    @POST
+    @Path("pipelines/{id}/cancel")
+    @Produces(MediaType.APPLICATION_JSON)
+    public WPActionPipeline cancelPipeline(@PathParam("id") final long id)
+    {
+        WPActionPipeline pipeline = this.findPipeline(id);
+        pipeline.cancel();
+
+        return pipeline;
+    }
+
+    private WPActionPipeline findPipeline(final long id)
+    {
+        WPActionPipeline pipeline = this.actionService.getPipeline(id);
+        if (pipeline == null) throw new NotFoundException("No such pipeline: " + id);
+
+        return pipeline;
     }
 }
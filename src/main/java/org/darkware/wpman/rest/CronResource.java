@@ -19,6 +19,8 @@ package org.darkware.wpman.rest;
 
 import org.darkware.wpman.WPManager;
 import org.darkware.wpman.agents.CronEvent;
+import org.darkware.wpman.agents.CronShardStatus;
+import org.darkware.wpman.agents.WPCronAgent;
 import org.darkware.wpman.config.WordpressConfig;
 
 import javax.ws.rs.GET;
@@ -57,4 +59,14 @@ public class CronResource
 
         return events;
     }
+
+    @GET
+    @Path("shard")
+    @Produces(MediaType.APPLICATION_JSON)
+    public CronShardStatus shard()
+    {
+        WPCronAgent agent = this.manager.getCronAgent();
+
+        return new CronShardStatus(agent.getShardCoordinator(), agent.getBlogs());
+    }
 }
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.rest;
+
+import org.darkware.wpman.WPManager;
+import org.darkware.wpman.config.WordpressConfig;
+import org.darkware.wpman.security.ChecksumDatabase;
+import org.darkware.wpman.security.ChecksumTreeStatus;
+
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+@Path("integrity")
+public class IntegrityResource
+{
+    private final WPManager manager;
+    private final WordpressConfig config;
+
+    public IntegrityResource(final WPManager manager)
+    {
+        super();
+
+        this.manager = manager;
+        this.config = manager.getConfig();
+    }
+
+    private ChecksumDatabase getChecksums()
+    {
+        ChecksumDatabase checksums = this.manager.getChecksums();
+        if (checksums == null) throw new ServiceUnavailableException("The integrity database has not been loaded");
+
+        return checksums;
+    }
+
+    private ChecksumTreeStatus report(final java.nio.file.Path dir, final boolean files)
+    {
+        ChecksumTreeStatus status = this.getChecksums().getTreeStatus(dir, files);
+        if (status == null) throw new NotFoundException("No files are tracked under: " + dir);
+
+        return status;
+    }
+
+    private java.nio.file.Path itemDir(final java.nio.file.Path baseDir, final String slug)
+    {
+        java.nio.file.Path dir = baseDir.resolve(slug).normalize();
+        if (!baseDir.equals(dir.getParent())) throw new NotFoundException("No such item: " + slug);
+
+        return dir;
+    }
+
+    @GET
+    @Path("tree")
+    @Produces(MediaType.APPLICATION_JSON)
+    public ChecksumTreeStatus tree(@QueryParam("path") @DefaultValue("") final String path,
+                                   @QueryParam("files") @DefaultValue("false") final boolean files)
+    {
+        java.nio.file.Path dir = this.config.getBasePath().resolve(path).normalize();
+        if (!dir.startsWith(this.config.getBasePath())) throw new NotFoundException("No such path: " + path);
+
+        return this.report(dir, files);
+    }
+
+    @GET
+    @Path("plugin/{slug}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public ChecksumTreeStatus plugin(@PathParam("slug") final String slug,
+                                     @QueryParam("files") @DefaultValue("false") final boolean files)
+    {
+        return this.report(this.itemDir(this.config.getPluginListConfig().getBaseDir(), slug), files);
+    }
+
+    @GET
+    @Path("theme/{slug}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public ChecksumTreeStatus theme(@PathParam("slug") final String slug,
+                                    @QueryParam("files") @DefaultValue("false") final boolean files)
+    {
+        return this.report(this.itemDir(this.config.getThemeListConfig().getBaseDir(), slug), files);
+    }
+}
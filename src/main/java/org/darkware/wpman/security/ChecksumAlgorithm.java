@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * The {@code ChecksumAlgorithm} declares the digest used by a {@link ChecksumDatabase}. Each database uses
+ * a single algorithm, which is recorded in its file so that digests are never compared across algorithms.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public enum ChecksumAlgorithm
+{
+    /**
+     * SHA-256. This is slower, but an attacker can't craft a modified file which keeps the same digest, so
+     * it provides evidence of tampering.
+     */
+    SHA256(1, 32)
+    {
+        @Override
+        public Digester newDigester()
+        {
+            try
+            {
+                final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                return new Digester()
+                {
+                    @Override
+                    public void update(final ByteBuffer data)
+                    {
+                        digest.update(data);
+                    }
+
+                    @Override
+                    public byte[] digest()
+                    {
+                        return digest.digest();
+                    }
+                };
+            }
+            catch (NoSuchAlgorithmException e)
+            {
+                // Every Java platform is required to support SHA-256
+                throw new IllegalStateException(e);
+            }
+        }
+    },
+
+    /**
+     * xxHash64. This is several times faster than SHA-256 and reliably detects accidental changes, but a
+     * deliberate change can be crafted to keep the same digest. It suits sites where integrity scans are
+     * used to spot changes rather than to prove that files haven't been tampered with.
+     */
+    XXHASH64(2, 8)
+    {
+        @Override
+        public Digester newDigester()
+        {
+            return new XXHash64();
+        }
+    };
+
+    /**
+     * Fetch the algorithm with the given identifier.
+     *
+     * @param id The identifier recorded in a database file.
+     * @return The matching {@code ChecksumAlgorithm}.
+     * @throws IllegalArgumentException If no algorithm has the identifier.
+     */
+    public static ChecksumAlgorithm fromId(final int id)
+    {
+        for (ChecksumAlgorithm algorithm : ChecksumAlgorithm.values())
+        {
+            if (algorithm.id == id) return algorithm;
+        }
+        throw new IllegalArgumentException("Unknown checksum algorithm: " + id);
+    }
+
+    private final int id;
+    private final int digestLength;
+
+    /**
+     * Create a new {@code ChecksumAlgorithm}.
+     *
+     * @param id The identifier recorded in database files.
+     * @param digestLength The length of the digests, in bytes.
+     */
+    ChecksumAlgorithm(final int id, final int digestLength)
+    {
+        this.id = id;
+        this.digestLength = digestLength;
+    }
+
+    /**
+     * Fetch the identifier recorded in database files.
+     *
+     * @return The algorithm identifier.
+     */
+    public int getId()
+    {
+        return this.id;
+    }
+
+    /**
+     * Fetch the length of the digests produced by the algorithm.
+     *
+     * @return The digest length, in bytes.
+     */
+    public int getDigestLength()
+    {
+        return this.digestLength;
+    }
+
+    /**
+     * Create a new {@link Digester} for a single file.
+     *
+     * @return A new {@code Digester}.
+     */
+    public abstract Digester newDigester();
+
+    /**
+     * A {@code Digester} calculates the digest of a stream of data.
+     */
+    public interface Digester
+    {
+        /**
+         * Add data to the digest. All remaining bytes in the buffer are consumed.
+         *
+         * @param data The data to add.
+         */
+        void update(ByteBuffer data);
+
+        /**
+         * Complete the digest. The {@code Digester} should not be used afterwards.
+         *
+         * @return The digest bytes.
+         */
+        byte[] digest();
+    }
+}
@@ -17,14 +17,14 @@
 
 package org.darkware.wpman.security;
 
-import com.google.common.hash.Hasher;
-import com.google.common.hash.Hashing;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.codec.binary.Base64;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
@@ -33,16 +33,22 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
 import java.util.concurrent.ConcurrentSkipListMap;
-import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.stream.Collectors;
 
 /**
  * A {@code ChecksumDatabase} is a threadsafe collection of file {@code Path Paths} and the most
@@ -50,8 +56,20 @@ import java.util.stream.Collectors;
  * state of the files on the filesystem. It supports registering directories to be temporarily
  * excluded from checks, though it is up to the scanning code to check each path.
  * <p>
- * The state of the database can be read from and written to a file on the local filesystem. The format
- * is simple, but is not expected to adhere to normal checksum file lists.
+ * The state of the database is kept in a compact binary file which is memory-mapped for lookups (see
+ * {@link ChecksumSnapshot}). Changes are held in memory and appended to a log file next to the database,
+ * and once enough have built up, a background thread merges them into a new binary file. Databases in
+ * the older text format are converted to the binary format when they are loaded.
+ * <p>
+ * A {@link ChecksumTree} over the entries holds a hash of each directory, so whole directories can be
+ * compared against another database, or an earlier state, without visiting their files.
+ * <p>
+ * Each entry also records the {@link FileStamp} of the file when it was hashed. Scans compare the current
+ * stamp of a file against the recorded one and only read and hash files whose stamp has changed.
+ * <p>
+ * Digests are calculated with the {@link ChecksumAlgorithm} chosen when the database is created, and the
+ * algorithm is recorded in the database file. An existing database keeps its algorithm even if a different
+ * one is requested later, since its digests can't be compared against another algorithm.
  * <p>
  * The database is intended to operate in a concurrent environment with multiple threads reading and
  * writing entries at any time.
@@ -64,12 +82,30 @@ public class ChecksumDatabase
     /** A shared {@link Logger} for code that performs actions on the database. */
     protected static final Logger log = LoggerFactory.getLogger("Integrity");
 
+    /** The smallest number of logged changes which will trigger a compaction. */
+    private static final int MIN_COMPACTION = 1024;
+    /** The size of the buffer used to read files while hashing them. */
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    /** A direct read buffer for each hashing thread, so file data is read without an extra heap copy. */
+    private static final ThreadLocal<ByteBuffer> READ_BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(ChecksumDatabase.READ_BUFFER_SIZE));
+
     private final Path root;
-    private final Map<Path, String> hashes;
-    private final Set<Path> suppressed;
+    private final PathTrie suppressed;
     private final Path dbFile;
+    private final Path logFile;
+    private final Path oldLogFile;
     private final AtomicBoolean initialized;
+    private final AtomicBoolean compactionPending;
     private final ReadWriteLock lock;
+    private final ExecutorService compactor;
+    private final ChecksumTree tree;
+    private final ChecksumAlgorithm preferredAlgorithm;
+
+    private ChecksumSnapshot snapshot;
+    private NavigableMap<String, ChecksumEntry> changes;
+    private NavigableMap<String, ChecksumEntry> compacting;
+    private ChecksumLog changeLog;
+    private volatile ChecksumAlgorithm algorithm;
 
     /**
      * Create a new {@code ChecksumDatabase} for files under the declared root and using the
@@ -79,19 +115,52 @@ public class ChecksumDatabase
      * @param root  The highest level directory represented in the database.
      */
     public ChecksumDatabase(final Path dbFile, final Path root)
+    {
+        this(dbFile, root, ChecksumAlgorithm.SHA256);
+    }
+
+    /**
+     * Create a new {@code ChecksumDatabase} for files under the declared root and using the
+     * given file for saved state.
+     *
+     * @param dbFile The file to load and store the database data into.
+     * @param root  The highest level directory represented in the database.
+     * @param algorithm The {@link ChecksumAlgorithm} to use if a new database is created.
+     */
+    public ChecksumDatabase(final Path dbFile, final Path root, final ChecksumAlgorithm algorithm)
     {
         super();
 
         this.root = root;
         this.dbFile = dbFile;
-        this.hashes = new ConcurrentSkipListMap<>();
-        this.suppressed = new ConcurrentSkipListSet<>();
+        this.preferredAlgorithm = algorithm;
+        this.algorithm = algorithm;
+        this.logFile = dbFile.resolveSibling(dbFile.getFileName() + ".log");
+        this.oldLogFile = dbFile.resolveSibling(dbFile.getFileName() + ".log.old");
+        this.snapshot = ChecksumSnapshot.empty();
+        this.changes = new ConcurrentSkipListMap<>(ChecksumSnapshot.KEY_ORDER);
+        this.compacting = Collections.emptyNavigableMap();
+        this.suppressed = new PathTrie();
         this.initialized = new AtomicBoolean(false);
+        this.compactionPending = new AtomicBoolean(false);
         this.lock = new ReentrantReadWriteLock();
+        this.tree = new ChecksumTree(root.getFileSystem().getSeparator());
+        this.compactor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("integrity-compact")
+                                                                                     .setDaemon(true).build());
 
         this.initialize();
     }
 
+    /**
+     * Fetch the algorithm used for the digests in this database.
+     *
+     * @return The {@link ChecksumAlgorithm} of the database.
+     */
+    public ChecksumAlgorithm getAlgorithm()
+    {
+        return this.algorithm;
+    }
+
     /**
      * Fetch the set of database entries that exist as descendants of the given base directory.
      *
@@ -100,80 +169,344 @@ public class ChecksumDatabase
      */
     public Set<Path> entriesForPath(final Path baseDir)
     {
+        final Path base = baseDir.isAbsolute() ? baseDir : this.root.resolve(baseDir);
+        final Set<Path> entries = new HashSet<>();
+
         this.lock.readLock().lock();
         try
         {
-            return this.hashes.keySet().stream().filter(p -> p.startsWith(baseDir)).collect(Collectors.toSet());
+            if (this.root.startsWith(base)) this.forEachEntry("", (k, e) -> entries.add(this.root.resolve(k)));
+            else if (base.startsWith(this.root))
+            {
+                final String key = this.key(base);
+                if (this.lookup(key) != null) entries.add(base);
+                this.forEachEntry(key + base.getFileSystem().getSeparator(), (k, e) -> entries.add(this.root.resolve(k)));
+            }
+        }
+        catch (IOException e)
+        {
+            // Visitors which only collect entries don't throw
+            throw new IllegalStateException(e);
         }
         finally
         {
             this.lock.readLock().unlock();
         }
+
+        return entries;
     }
 
     /**
      * Load the database from the attached file. The file path is set in the constructor.
+     * <p>
+     * Changes found in the log are replayed and merged into a new database file. Text databases written by
+     * older versions are read and converted to the binary format.
      */
     public void loadDatabase()
     {
         this.lock.writeLock().lock();
         try
         {
-            this.hashes.clear();
+            if (this.changeLog != null) this.changeLog.close();
+            this.changeLog = null;
+            this.changes.clear();
+            this.compacting = Collections.emptyNavigableMap();
+            this.snapshot = ChecksumSnapshot.empty();
+            this.algorithm = this.preferredAlgorithm;
 
             ChecksumDatabase.log.info("Reading integrity database: {}", this.dbFile);
-            try (BufferedReader db = Files.newBufferedReader(this.dbFile, StandardCharsets.UTF_8))
+            if (Files.exists(this.dbFile))
             {
-                String line;
-                while ((line = db.readLine()) != null)
+                if (ChecksumSnapshot.isSnapshot(this.dbFile))
+                {
+                    this.snapshot = ChecksumSnapshot.open(this.dbFile);
+                    this.algorithm = this.snapshot.getAlgorithm();
+                }
+                else
                 {
-                    int sep = line.lastIndexOf(':');
-                    if (sep == -1) continue;
+                    // Text databases always hold SHA-256 digests
+                    this.readTextDatabase();
+                    if (!this.changes.isEmpty()) this.algorithm = ChecksumAlgorithm.SHA256;
+                }
 
-                    String path = line.substring(0, sep);
-                    String checksum = line.substring(sep + 1);
+                if (this.algorithm != this.preferredAlgorithm)
+                    ChecksumDatabase.log.warn("The integrity database uses {} rather than {}. Remove it to change algorithms.",
+                                              this.algorithm, this.preferredAlgorithm);
+            }
 
-                    this.hashes.put(Paths.get(path), checksum);
-                }
-                ChecksumDatabase.log.info("Read {} entries into the integrity database", this.hashes.size());
+            int replayed = ChecksumLog.replay(this.oldLogFile, this.changes::put) + ChecksumLog.replay(this.logFile, this.changes::put);
+            if (replayed > 0) ChecksumDatabase.log.info("Replayed {} logged integrity database changes", replayed);
+
+            if (!this.changes.isEmpty()) this.rewrite();
+            ChecksumDatabase.log.info("Read {} entries into the integrity database", this.snapshot.size());
+        }
+        catch (IOException e)
+        {
+            ChecksumDatabase.log.error("Error while loading integrity database: {}", e.getLocalizedMessage(), e);
+        }
+        finally
+        {
+            this.rebuildTree();
+            try
+            {
+                if (this.changeLog == null) this.changeLog = new ChecksumLog(this.logFile);
             }
             catch (IOException e)
             {
-                ChecksumDatabase.log.error("Error while loading integrity database: {}", e.getLocalizedMessage(), e);
+                ChecksumDatabase.log.error("Failed to open the integrity database log: {}", e.getLocalizedMessage(), e);
             }
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuild the {@link ChecksumTree} from the current entries. The caller must hold the write lock.
+     */
+    private void rebuildTree()
+    {
+        this.tree.clear();
+        try
+        {
+            this.forEachEntry("", (k, e) -> this.tree.add(k, e.getDigest()));
+        }
+        catch (IOException e)
+        {
+            // Adding to the tree doesn't throw
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Read a database in the text format used by older versions. Each line holds a path and its checksum,
+     * optionally followed by the file stamp. The entries are added as pending changes.
+     *
+     * @throws IOException If the file could not be read.
+     */
+    private void readTextDatabase() throws IOException
+    {
+        ChecksumDatabase.log.info("Converting text integrity database: {}", this.dbFile);
+        try (BufferedReader db = Files.newBufferedReader(this.dbFile, StandardCharsets.UTF_8))
+        {
+            String line;
+            while ((line = db.readLine()) != null)
+            {
+                int sep = line.lastIndexOf(':');
+                if (sep == -1) continue;
+
+                Path path = Paths.get(line.substring(0, sep));
+                String checksum = line.substring(sep + 1);
+                if (path.isAbsolute() && !path.startsWith(this.root)) continue;
+
+                // Entries written by older versions have no stamp, and are hashed on the next scan
+                FileStamp stamp = null;
+                int stampSep = checksum.indexOf(',');
+                if (stampSep != -1)
+                {
+                    try
+                    {
+                        stamp = FileStamp.parse(checksum.substring(stampSep + 1));
+                    }
+                    catch (IllegalArgumentException e)
+                    {
+                        ChecksumDatabase.log.debug("Ignoring malformed stamp for {}", path);
+                    }
+                    checksum = checksum.substring(0, stampSep);
+                }
+
+                this.changes.put(this.key(path), ChecksumEntry.of(checksum, stamp));
+            }
+        }
+    }
+
+    /**
+     * Save the database. Pending changes are flushed to the log file, and if enough have built up, a new
+     * database file is written in the background.
+     */
+    public void writeDatabase()
+    {
+        boolean compact = false;
+
+        this.lock.writeLock().lock();
+        try
+        {
+            this.changeLog.flush();
+
+            final int threshold = Math.max(ChecksumDatabase.MIN_COMPACTION, this.snapshot.size() / 8);
+            compact = !this.changes.isEmpty() && (this.snapshot.size() == 0 || this.changes.size() >= threshold);
+        }
+        catch (IOException e)
+        {
+            ChecksumDatabase.log.error("Error while writing integrity database: {}", e.getLocalizedMessage(), e);
         }
         finally
         {
             this.lock.writeLock().unlock();
         }
+
+        if (compact && this.compactionPending.compareAndSet(false, true))
+        {
+            this.compactor.execute(() -> {
+                this.compactionPending.set(false);
+                this.compact();
+            });
+        }
     }
 
     /**
-     * Write the database to the attached file path. This path is declared in the constructor and cannot be
-     * changed.
+     * Merge all pending changes into a new database file. Changes made while the file is being written are
+     * kept for the next compaction. This normally runs in the background after {@link #writeDatabase()}.
      */
-    public void writeDatabase()
+    public synchronized void compact()
     {
+        final NavigableMap<String, ChecksumEntry> frozen;
+        final ChecksumSnapshot base;
+
+        // Start a new log, so the current one only holds the changes being merged
         this.lock.writeLock().lock();
         try
         {
-            ChecksumDatabase.log.info("Writing integrity database: {}", this.dbFile);
-            try (BufferedWriter db = Files.newBufferedWriter(this.dbFile, StandardCharsets.UTF_8,
-                                                             StandardOpenOption.CREATE, StandardOpenOption.WRITE,
-                                                             StandardOpenOption.TRUNCATE_EXISTING))
+            if (this.changes.isEmpty()) return;
+
+            this.changeLog.close();
+            try
             {
-                for (Map.Entry<Path, String> entry : this.hashes.entrySet())
-                {
-                    db.write(entry.getKey().toString());
-                    db.write(":");
-                    db.write(entry.getValue());
-                    db.newLine();
-                }
+                Files.move(this.logFile, this.oldLogFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
             }
-            catch (IOException e)
+            finally
+            {
+                this.changeLog = new ChecksumLog(this.logFile);
+            }
+
+            frozen = this.changes;
+            base = this.snapshot;
+            this.compacting = frozen;
+            this.changes = new ConcurrentSkipListMap<>(ChecksumSnapshot.KEY_ORDER);
+        }
+        catch (IOException e)
+        {
+            ChecksumDatabase.log.error("Failed to rotate the integrity database log: {}", e.getLocalizedMessage(), e);
+            return;
+        }
+        finally
+        {
+            this.lock.writeLock().unlock();
+        }
+
+        try
+        {
+            ChecksumSnapshot next = this.writeSnapshot(base, frozen);
+
+            this.lock.writeLock().lock();
+            try
+            {
+                this.snapshot = next;
+                this.compacting = Collections.emptyNavigableMap();
+            }
+            finally
+            {
+                this.lock.writeLock().unlock();
+            }
+
+            Files.deleteIfExists(this.oldLogFile);
+            ChecksumDatabase.log.info("Wrote {} entries to the integrity database", next.size());
+        }
+        catch (IOException e)
+        {
+            ChecksumDatabase.log.error("Error while writing integrity database: {}", e.getLocalizedMessage(), e);
+            this.restore(frozen);
+        }
+    }
+
+    /**
+     * Return changes from a failed compaction to the pending changes. Newer changes to the same entries are
+     * kept, and the restored changes are logged again so the old log can be removed.
+     *
+     * @param frozen The changes which failed to be merged.
+     */
+    private void restore(final NavigableMap<String, ChecksumEntry> frozen)
+    {
+        this.lock.writeLock().lock();
+        try
+        {
+            for (Map.Entry<String, ChecksumEntry> change : frozen.entrySet())
             {
-                ChecksumDatabase.log.error("Error while writing integrity database: {}", e.getLocalizedMessage(), e);
+                if (!this.changes.containsKey(change.getKey())) this.store(change.getKey(), change.getValue());
             }
+            this.compacting = Collections.emptyNavigableMap();
+            this.changeLog.flush();
+            Files.deleteIfExists(this.oldLogFile);
+        }
+        catch (IOException e)
+        {
+            ChecksumDatabase.log.error("Failed to restore integrity database changes: {}", e.getLocalizedMessage(), e);
+        }
+        finally
+        {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Merge all pending changes into a new database file while holding the write lock. This is used while
+     * loading, before any log is open.
+     *
+     * @throws IOException If the file could not be written.
+     */
+    private void rewrite() throws IOException
+    {
+        this.snapshot = this.writeSnapshot(this.snapshot, this.changes);
+        this.changes.clear();
+
+        Files.deleteIfExists(this.oldLogFile);
+        Files.deleteIfExists(this.logFile);
+    }
+
+    /**
+     * Write a new database file holding the entries of a snapshot updated by a set of changes. The file is
+     * written under a temporary name and then moved over the database file.
+     *
+     * @param base The {@link ChecksumSnapshot} holding the existing entries.
+     * @param updates The changes to apply to the snapshot.
+     * @return A {@code ChecksumSnapshot} of the new file.
+     * @throws IOException If the file could not be written.
+     */
+    private ChecksumSnapshot writeSnapshot(final ChecksumSnapshot base, final NavigableMap<String, ChecksumEntry> updates) throws IOException
+    {
+        final Path temp = this.dbFile.resolveSibling(this.dbFile.getFileName() + ".tmp");
+        try (ChecksumSnapshot.Writer writer = new ChecksumSnapshot.Writer(temp, this.algorithm))
+        {
+            ChecksumDatabase.merge("", base, updates, Collections.emptyNavigableMap(), writer::add);
+            writer.finish();
+        }
+        Files.move(temp, this.dbFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        return ChecksumSnapshot.open(this.dbFile);
+    }
+
+    /**
+     * Flush pending changes and stop the background compaction thread. The database should not be updated
+     * after it has been closed.
+     */
+    public void close()
+    {
+        this.compactor.shutdown();
+        try
+        {
+            if (!this.compactor.awaitTermination(1, TimeUnit.MINUTES)) ChecksumDatabase.log.warn("Gave up waiting for integrity database compaction");
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        this.lock.writeLock().lock();
+        try
+        {
+            this.changeLog.close();
+        }
+        catch (IOException e)
+        {
+            ChecksumDatabase.log.error("Error while closing integrity database: {}", e.getLocalizedMessage(), e);
         }
         finally
         {
@@ -189,58 +522,164 @@ public class ChecksumDatabase
     {
         if (this.initialized.compareAndSet(false, true))
         {
-            this.lock.writeLock().lock();
-            try
-            {
-                if (Files.exists(this.dbFile))
-                {
-                    // TODO: Do some checks for readability
-                    // Load the file
-                    this.loadDatabase();
-                }
-                else
-                {
-                    // Initialize the file
-                    DirectoryScanner scanner = new DirectoryScanner(this.root, this);
-                    scanner.updateChecksums(true);
-                    scanner.scan();
+            boolean exists = Files.exists(this.dbFile);
 
-                    this.writeDatabase();
-                }
-            }
-            finally
+            // TODO: Do some checks for readability
+            // Load the file, along with any changes logged since it was written
+            this.loadDatabase();
+
+            if (!exists)
             {
-                this.lock.writeLock().unlock();
+                // Initialize the file. The scan must not hold the lock, since parallel scans update the
+                // database from their worker threads.
+                DirectoryScanner scanner = new DirectoryScanner(this.root, this);
+                scanner.updateChecksums(true);
+                scanner.scan();
+
+                this.writeDatabase();
             }
         }
     }
 
     /**
      * Normalize the given {@code Path} so that internal {@code Path} operations don't have to think about
-     * absolute/relative comparisons or paths that don't represent concrete files.
+     * absolute/relative comparisons. This only examines the path itself and never touches the filesystem;
+     * files which don't exist simply have no checksum to match.
      *
      * @param file The {@code Path} to normalize.
-     * @return An absolute {@code Path} to a concrete file which is a descendant of the database root.
-     * @throws IllegalArgumentException If the path does not exist, was not a path to a regular file, or pointed
-     * to a file that was outside the database root.
+     * @return An absolute {@code Path} which is a descendant of the database root.
+     * @throws IllegalArgumentException If the path pointed to a file that was outside the database root.
      */
     protected Path normalize(final Path file)
     {
-        Path normalized = file;
+        if (!file.isAbsolute()) return this.root.resolve(file);
+        if (!file.startsWith(this.root)) throw new IllegalArgumentException("The given file is outside the database root path.");
+
+        return file;
+    }
+
+    /**
+     * Convert a file {@code Path} into the key of its database entry. Keys are paths relative to the
+     * database root.
+     *
+     * @param file The file to convert.
+     * @return The key for the file.
+     */
+    protected String key(final Path file)
+    {
+        return this.root.relativize(file.isAbsolute() ? file : this.root.resolve(file)).toString();
+    }
+
+    /**
+     * Look up the current entry for a key. The caller must hold the lock.
+     *
+     * @param key The key to look up.
+     * @return The {@link ChecksumEntry} for the key, or {@code null} if there is no entry.
+     */
+    private ChecksumEntry lookup(final String key)
+    {
+        ChecksumEntry entry = this.changes.get(key);
+        if (entry == null) entry = this.compacting.get(key);
+        if (entry == null) entry = this.snapshot.get(key);
+
+        return (entry == ChecksumEntry.REMOVED) ? null : entry;
+    }
+
+    /**
+     * Record a new or removed entry in memory and in the log, and update the tree. The caller must hold
+     * the write lock.
+     *
+     * @param key The key of the entry.
+     * @param entry The new {@link ChecksumEntry}, or {@link ChecksumEntry#REMOVED}.
+     */
+    private void store(final String key, final ChecksumEntry entry)
+    {
+        final ChecksumEntry previous = this.lookup(key);
+        if (previous == null)
+        {
+            if (entry != ChecksumEntry.REMOVED) this.tree.add(key, entry.getDigest());
+        }
+        else if (entry == ChecksumEntry.REMOVED) this.tree.remove(key, previous.getDigest());
+        else if (!Arrays.equals(previous.getDigest(), entry.getDigest())) this.tree.replace(key, previous.getDigest(), entry.getDigest());
 
-        if (normalized.isAbsolute())
+        this.record(key, entry);
+    }
+
+    /**
+     * Record a new or removed entry in memory and in the log, without updating the tree. The caller must
+     * hold the write lock.
+     *
+     * @param key The key of the entry.
+     * @param entry The new {@link ChecksumEntry}, or {@link ChecksumEntry#REMOVED}.
+     */
+    private void record(final String key, final ChecksumEntry entry)
+    {
+        this.changes.put(key, entry);
+        try
         {
-            if (!file.startsWith(this.root)) throw new IllegalArgumentException("The given file is outside the database root path.");
+            if (entry == ChecksumEntry.REMOVED) this.changeLog.remove(key);
+            else this.changeLog.put(key, entry);
         }
-        else
+        catch (IOException e)
         {
-            normalized = this.root.resolve(normalized);
+            ChecksumDatabase.log.error("Failed to log integrity database change for {}: {}", key, e.getLocalizedMessage());
         }
+    }
 
-        if (Files.notExists(normalized)) throw new IllegalArgumentException("The given file does not exist.");
-        if (!Files.isRegularFile(normalized)) throw new IllegalArgumentException("The given path is not a file.");
+    /**
+     * Visit every current entry whose key starts with the given prefix, in key order. The caller must hold
+     * the lock.
+     *
+     * @param prefix The key prefix to visit.
+     * @param visitor The visitor to call for each entry.
+     * @throws IOException If the visitor throws an exception.
+     */
+    private void forEachEntry(final String prefix, final EntryVisitor visitor) throws IOException
+    {
+        ChecksumDatabase.merge(prefix, this.snapshot, this.compacting, this.changes, visitor);
+    }
 
-        return normalized;
+    /**
+     * Visit the merged entries of a snapshot and two layers of changes, in key order. Newer layers replace
+     * the entries of older ones, and removed entries are skipped.
+     *
+     * @param prefix The key prefix to visit.
+     * @param base The {@link ChecksumSnapshot} holding the oldest entries.
+     * @param older The older layer of changes.
+     * @param newer The newer layer of changes.
+     * @param visitor The visitor to call for each entry.
+     * @throws IOException If the visitor throws an exception.
+     */
+    private static void merge(final String prefix, final ChecksumSnapshot base, final NavigableMap<String, ChecksumEntry> older,
+                              final NavigableMap<String, ChecksumEntry> newer, final EntryVisitor visitor) throws IOException
+    {
+        final ChecksumSnapshot.Cursor cursor = base.seek(prefix);
+        final PeekingIterator<Map.Entry<String, ChecksumEntry>> olderChanges = Iterators.peekingIterator(older.tailMap(prefix).entrySet().iterator());
+        final PeekingIterator<Map.Entry<String, ChecksumEntry>> newerChanges = Iterators.peekingIterator(newer.tailMap(prefix).entrySet().iterator());
+
+        String baseKey = cursor.isValid() ? cursor.key() : null;
+        while (true)
+        {
+            // Find the lowest key among the three sources
+            String key = baseKey;
+            if (olderChanges.hasNext() && (key == null || ChecksumSnapshot.compareKeys(olderChanges.peek().getKey(), key) < 0))
+                key = olderChanges.peek().getKey();
+            if (newerChanges.hasNext() && (key == null || ChecksumSnapshot.compareKeys(newerChanges.peek().getKey(), key) < 0))
+                key = newerChanges.peek().getKey();
+            if (key == null || !key.startsWith(prefix)) break;
+
+            ChecksumEntry entry = null;
+            if (key.equals(baseKey))
+            {
+                entry = cursor.entry();
+                cursor.next();
+                baseKey = cursor.isValid() ? cursor.key() : null;
+            }
+            if (olderChanges.hasNext() && olderChanges.peek().getKey().equals(key)) entry = olderChanges.next().getValue();
+            if (newerChanges.hasNext() && newerChanges.peek().getKey().equals(key)) entry = newerChanges.next().getValue();
+
+            if (entry != ChecksumEntry.REMOVED) visitor.visit(key, entry);
+        }
     }
 
     /**
@@ -250,11 +689,24 @@ public class ChecksumDatabase
      * @return {@code true} if a checksum exists, {@code false} if no entry exists.
      */
     public boolean hasChecksum(final Path file)
+    {
+        return this.getEntry(this.normalize(file)) != null;
+    }
+
+    /**
+     * Fetch the current database entry for a file. Scans should prefer this over separate calls to
+     * {@link #hasChecksum(Path)}, {@link #isUnchanged(Path, FileStamp)} and {@link #check(Path)}, since
+     * it answers all of them with a single lookup.
+     *
+     * @param file The file to fetch the entry for.
+     * @return The {@link ChecksumEntry} for the file, or {@code null} if there is no entry.
+     */
+    public ChecksumEntry getEntry(final Path file)
     {
         this.lock.readLock().lock();
         try
         {
-            return this.hashes.containsKey(this.normalize(file));
+            return this.lookup(this.key(file));
         }
         finally
         {
@@ -264,25 +716,38 @@ public class ChecksumDatabase
 
     /**
      * Check to see if the checksum of the given file matches the checksum in the database. This implicitly
-     * includes a call to {@link #normalize(Path)} and {@link #hasChecksum(Path)}.
+     * includes a call to {@link #normalize(Path)}.
      *
      * @param file The file to check.
      * @return {@code true} if the checksum of the file matches the database checksum, {@code false} if the
      * checksum is different, or if no checksum existed.
      */
     public boolean check(final Path file)
+    {
+        final Path checkFile = this.normalize(file);
+        final ChecksumEntry expect = this.getEntry(checkFile);
+        if (expect == null) return false;
+
+        // The file is hashed without holding the lock, so that checks don't stall writers
+        return Arrays.equals(expect.getDigest(), ChecksumEntry.of(this.calculateChecksum(checkFile), null).getDigest());
+    }
+
+    /**
+     * Check to see if the given stamp matches the stamp recorded when the file was last hashed. Files with
+     * a matching stamp can be assumed to have the recorded checksum without reading them.
+     *
+     * @param file The file to check.
+     * @param stamp The current {@link FileStamp} of the file.
+     * @return {@code true} if the file has a recorded stamp which matches, otherwise {@code false}.
+     */
+    public boolean isUnchanged(final Path file, final FileStamp stamp)
     {
         this.lock.readLock().lock();
         try
         {
-            Path checkFile = this.normalize(file);
-            if (this.hasChecksum(checkFile))
-            {
-                String checksum = this.calculateChecksum(checkFile);
-                String expect = this.hashes.get(checkFile);
-                return (checksum.equals(expect));
-            }
-            else return false;
+            // The stamp was just read from the file, so the full normalization checks aren't needed
+            ChecksumEntry entry = this.lookup(this.key(file));
+            return entry != null && stamp.equals(entry.getStamp());
         }
         finally
         {
@@ -290,6 +755,29 @@ public class ChecksumDatabase
         }
     }
 
+    /**
+     * Record a new stamp for a file whose contents have been verified against its existing checksum. This
+     * is used when the metadata of a file changes without its contents changing, so that later scans can
+     * skip the file again.
+     *
+     * @param file The file to record the stamp for.
+     * @param stamp The current {@link FileStamp} of the file.
+     */
+    public void updateStamp(final Path file, final FileStamp stamp)
+    {
+        this.lock.writeLock().lock();
+        try
+        {
+            final String key = this.key(file);
+            final ChecksumEntry entry = this.lookup(key);
+            if (entry != null) this.store(key, entry.withStamp(stamp));
+        }
+        finally
+        {
+            this.lock.writeLock().unlock();
+        }
+    }
+
     /**
      * Update the checksum for the given file using the current file contents.
      *
@@ -297,11 +785,25 @@ public class ChecksumDatabase
      */
     public void update(final Path file)
     {
+        // The stamp is read before hashing, so a write during hashing leaves a stale stamp which forces
+        // the file to be hashed again on the next scan.
+        FileStamp stamp = null;
+        try
+        {
+            stamp = FileStamp.read(file);
+        }
+        catch (IOException e)
+        {
+            ChecksumDatabase.log.debug("Failed to read the stamp of {}: {}", file, e.getLocalizedMessage());
+        }
+
+        // Hash the file before locking, so that updates don't stall other readers and writers
+        String checksum = this.calculateChecksum(file);
+
         this.lock.writeLock().lock();
         try
         {
-            String checksum = this.calculateChecksum(file);
-            this.hashes.put(file, checksum);
+            this.store(this.key(file), ChecksumEntry.of(checksum, stamp));
             ChecksumDatabase.log.debug("Updated checksum: {} = {}", file, checksum);
         }
         finally
@@ -310,6 +812,27 @@ public class ChecksumDatabase
         }
     }
 
+    /**
+     * Record an entry which has already been calculated for the given file. The stamp of the entry must
+     * have been read before the file was hashed, as {@link #update(Path)} does.
+     *
+     * @param file The file to update the entry for.
+     * @param entry The new {@link ChecksumEntry} for the file.
+     */
+    public void update(final Path file, final ChecksumEntry entry)
+    {
+        this.lock.writeLock().lock();
+        try
+        {
+            this.store(this.key(file), entry);
+            ChecksumDatabase.log.debug("Updated checksum: {} = {}", file, entry.getChecksum());
+        }
+        finally
+        {
+            this.lock.writeLock().unlock();
+        }
+    }
+
     /**
      * Remove a given {@code Path} from the database.
      * <p>
@@ -324,7 +847,8 @@ public class ChecksumDatabase
         this.lock.writeLock().lock();
         try
         {
-            this.hashes.remove(file);
+            final String key = this.key(file);
+            if (this.lookup(key) != null) this.store(key, ChecksumEntry.REMOVED);
         }
         finally
         {
@@ -346,7 +870,11 @@ public class ChecksumDatabase
         this.lock.writeLock().lock();
         try
         {
-            files.forEach(this.hashes::remove);
+            for (Path file : files)
+            {
+                final String key = this.key(file);
+                if (this.lookup(key) != null) this.store(key, ChecksumEntry.REMOVED);
+            }
         }
         finally
         {
@@ -368,7 +896,13 @@ public class ChecksumDatabase
         this.lock.writeLock().lock();
         try
         {
-            this.hashes.entrySet().removeIf(e -> e.getKey().startsWith(dir));
+            final Set<Path> entries = this.entriesForPath(dir);
+            final Path base = dir.isAbsolute() ? dir : this.root.resolve(dir);
+
+            // Directories are dropped from the tree as a whole, rather than a file at a time
+            if (base.startsWith(this.root) && this.tree.removeDirectory(this.key(base)))
+                entries.forEach(p -> this.record(this.key(p), ChecksumEntry.REMOVED));
+            else entries.forEach(p -> this.store(this.key(p), ChecksumEntry.REMOVED));
         }
         finally
         {
@@ -376,6 +910,63 @@ public class ChecksumDatabase
         }
     }
 
+    /**
+     * Fetch the hash of a directory in the database. Directories which hold the same files with the same
+     * contents have the same hash, regardless of where they are.
+     *
+     * @param dir The directory to fetch the hash of.
+     * @return The directory hash as a hex {@code String}, or {@code null} if no files under the directory
+     * are in the database.
+     */
+    public String getTreeHash(final Path dir)
+    {
+        final ChecksumTreeStatus status = this.getTreeStatus(dir, false);
+        return (status == null) ? null : status.getHash();
+    }
+
+    /**
+     * Fetch a report on a directory in the database, holding its hash and the hashes of its subdirectories.
+     *
+     * @param dir The directory to report on.
+     * @param includeFiles {@code true} if the checksums of the files directly inside the directory should be
+     * included. This visits every entry under the directory.
+     * @return A {@link ChecksumTreeStatus} for the directory, or {@code null} if no files under the directory
+     * are in the database.
+     */
+    public ChecksumTreeStatus getTreeStatus(final Path dir, final boolean includeFiles)
+    {
+        final Path base = dir.isAbsolute() ? dir : this.root.resolve(dir);
+        if (!base.startsWith(this.root)) return null;
+
+        this.lock.readLock().lock();
+        try
+        {
+            final String key = this.key(base);
+            final ChecksumTree.Node node = this.tree.find(key);
+            if (node == null) return null;
+
+            final ChecksumTreeStatus status = new ChecksumTreeStatus(key, node);
+            if (includeFiles)
+            {
+                final String separator = base.getFileSystem().getSeparator();
+                final String prefix = key.isEmpty() ? "" : key + separator;
+                this.forEachEntry(prefix, (k, e) -> {
+                    if (k.indexOf(separator, prefix.length()) == -1) status.addFile(k.substring(prefix.length()), e.getChecksum());
+                });
+            }
+            return status;
+        }
+        catch (IOException e)
+        {
+            // Visitors which only collect entries don't throw
+            throw new IllegalStateException(e);
+        }
+        finally
+        {
+            this.lock.readLock().unlock();
+        }
+    }
+
     /**
      * Add an advisory entry for paths which are undergoing changes and should not be reported. This
      * does not change any internal behavior and {@link #check(Path)} will still operate against the most
@@ -398,7 +989,7 @@ public class ChecksumDatabase
      */
     public boolean isSuppressed(final Path file)
     {
-        return (this.suppressed.stream().filter(file::startsWith).count() > 0);
+        return this.suppressed.covers(file);
     }
 
     /**
@@ -433,9 +1024,12 @@ public class ChecksumDatabase
 
     /**
      * Perform a checksum calculation on the given {@link ReadableByteChannel}. Other code should not create
-     * implementations which are dependant on any particular characteristics of the checksum, but the checksum
-     * is very likely to be based on a cryptographic-strength hash. The results of the checksum are encoded as
+     * implementations which are dependant on any particular characteristics of the checksum, beyond the
+     * properties of the database's {@link ChecksumAlgorithm}. The results of the checksum are encoded as
      * a base64 {@code String}.
+     * <p>
+     * Data is read into a direct buffer which is reused by each thread, so that reads don't allocate or
+     * copy through the heap.
      *
      * @param channel The {@code ReadableByteChannel} to read data from.
      * @return A Base64 encoded {@code String} representing the checksum.
@@ -444,24 +1038,33 @@ public class ChecksumDatabase
      */
     protected String doChecksum(ReadableByteChannel channel) throws IOException
     {
-        Hasher hasher = Hashing.sha256().newHasher();
+        final ChecksumAlgorithm.Digester digester = this.algorithm.newDigester();
 
-        final ByteBuffer block = ByteBuffer.allocate(4096);
-        while (channel.isOpen())
+        final ByteBuffer block = ChecksumDatabase.READ_BUFFER.get();
+        block.clear();
+        while (channel.read(block) != -1)
         {
-            int bytesRead = channel.read(block);
-            if (bytesRead > 0)
-            {
-                block.flip();
-                hasher.putBytes(block.array(), 0, block.limit());
-                block.clear();
-            }
-            else if (bytesRead == -1)
-            {
-                channel.close();
-            }
+            block.flip();
+            digester.update(block);
+            block.clear();
         }
 
-        return Base64.encodeBase64String(hasher.hash().asBytes());
+        return Base64.encodeBase64String(digester.digest());
+    }
+
+    /**
+     * An {@code EntryVisitor} receives the entries of the database in key order.
+     */
+    @FunctionalInterface
+    private interface EntryVisitor
+    {
+        /**
+         * Visit a single entry.
+         *
+         * @param key The key of the entry.
+         * @param entry The {@link ChecksumEntry}.
+         * @throws IOException If the entry could not be processed.
+         */
+        void visit(String key, ChecksumEntry entry) throws IOException;
     }
 }
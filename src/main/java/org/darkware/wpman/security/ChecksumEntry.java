@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import org.apache.commons.codec.binary.Base64;
+
+import java.util.Arrays;
+
+/**
+ * A {@code ChecksumEntry} is the value stored for a single file in a {@link ChecksumDatabase}: the raw
+ * digest of the contents of the file and the {@link FileStamp} of the file when it was hashed.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public final class ChecksumEntry
+{
+    /** A marker entry recording that a file has been removed from the database. */
+    static final ChecksumEntry REMOVED = new ChecksumEntry(null, null);
+
+    /**
+     * Create a new entry from an encoded checksum.
+     *
+     * @param checksum The Base64 encoded checksum, or an empty {@code String} if the file could not be hashed.
+     * @param stamp The {@link FileStamp} of the file, or {@code null} if it is not known.
+     * @return A new {@code ChecksumEntry}.
+     */
+    public static ChecksumEntry of(final String checksum, final FileStamp stamp)
+    {
+        return new ChecksumEntry(checksum.isEmpty() ? null : Base64.decodeBase64(checksum), stamp);
+    }
+
+    private final byte[] digest;
+    private final FileStamp stamp;
+
+    /**
+     * Create a new {@code ChecksumEntry}.
+     *
+     * @param digest The raw digest of the file contents, or {@code null} if the file could not be hashed.
+     * @param stamp The {@link FileStamp} of the file, or {@code null} if it is not known.
+     */
+    public ChecksumEntry(final byte[] digest, final FileStamp stamp)
+    {
+        super();
+
+        this.digest = digest;
+        this.stamp = stamp;
+    }
+
+    /**
+     * Fetch the raw digest of the file contents.
+     *
+     * @return The digest bytes, or {@code null} if the file could not be hashed.
+     */
+    public byte[] getDigest()
+    {
+        return this.digest;
+    }
+
+    /**
+     * Fetch the digest of the file contents in the encoded form used by {@link ChecksumDatabase}.
+     *
+     * @return The Base64 encoded digest, or an empty {@code String} if the file could not be hashed.
+     */
+    public String getChecksum()
+    {
+        return (this.digest == null) ? "" : Base64.encodeBase64String(this.digest);
+    }
+
+    /**
+     * Fetch the stamp of the file when it was hashed.
+     *
+     * @return The {@link FileStamp}, or {@code null} if it is not known.
+     */
+    public FileStamp getStamp()
+    {
+        return this.stamp;
+    }
+
+    /**
+     * Create a copy of this entry with a new stamp.
+     *
+     * @param stamp The new {@link FileStamp}.
+     * @return A new {@code ChecksumEntry} with the same digest.
+     */
+    public ChecksumEntry withStamp(final FileStamp stamp)
+    {
+        return new ChecksumEntry(this.digest, stamp);
+    }
+
+    @Override
+    public boolean equals(final Object o)
+    {
+        if (this == o) return true;
+        if (!(o instanceof ChecksumEntry)) return false;
+
+        final ChecksumEntry other = (ChecksumEntry) o;
+        return Arrays.equals(this.digest, other.digest) &&
+               (this.stamp == null ? other.stamp == null : this.stamp.equals(other.stamp));
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * Arrays.hashCode(this.digest) + (this.stamp == null ? 0 : this.stamp.hashCode());
+    }
+}
@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiConsumer;
+
+/**
+ * A {@code ChecksumLog} is the append-only record of changes made to a {@link ChecksumDatabase} since its
+ * binary file was last written. Each change is written as a single record, so a log cut short by a crash
+ * can still be replayed up to the last complete record.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+final class ChecksumLog implements Closeable
+{
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+
+    /**
+     * Replay the records in a log file.
+     *
+     * @param file The log file to replay.
+     * @param visitor A consumer for each record, which receives {@link ChecksumEntry#REMOVED} for removals.
+     * @return The number of records replayed.
+     * @throws IOException If the file could not be opened.
+     */
+    static int replay(final Path file, final BiConsumer<String, ChecksumEntry> visitor) throws IOException
+    {
+        if (Files.notExists(file)) return 0;
+
+        int replayed = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 65536)))
+        {
+            while (true)
+            {
+                final int op = in.read();
+                if (op == -1) break;
+
+                final String key = in.readUTF();
+                if (op == ChecksumLog.REMOVE) visitor.accept(key, ChecksumEntry.REMOVED);
+                else if (op == ChecksumLog.PUT)
+                {
+                    byte[] digest = null;
+                    final int digestLength = in.readUnsignedByte();
+                    if (digestLength > 0)
+                    {
+                        digest = new byte[digestLength];
+                        in.readFully(digest);
+                    }
+
+                    FileStamp stamp = null;
+                    if (in.readBoolean()) stamp = new FileStamp(in.readLong(), in.readLong(), in.readLong(), in.readLong());
+
+                    visitor.accept(key, new ChecksumEntry(digest, stamp));
+                }
+                else throw new IOException("Unknown record type in checksum log: " + op);
+
+                replayed++;
+            }
+        }
+        catch (EOFException e)
+        {
+            ChecksumDatabase.log.warn("Ignoring an incomplete record at the end of {}", file);
+        }
+
+        return replayed;
+    }
+
+    private final DataOutputStream out;
+
+    /**
+     * Open a log file for appending, creating it if needed.
+     *
+     * @param file The log file.
+     * @throws IOException If the file could not be opened.
+     */
+    ChecksumLog(final Path file) throws IOException
+    {
+        super();
+
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE,
+                                                                                      StandardOpenOption.WRITE,
+                                                                                      StandardOpenOption.APPEND), 65536));
+    }
+
+    /**
+     * Append a record of a new or updated entry.
+     *
+     * @param key The key of the entry.
+     * @param entry The new {@link ChecksumEntry}.
+     * @throws IOException If the record could not be written.
+     */
+    void put(final String key, final ChecksumEntry entry) throws IOException
+    {
+        this.out.writeByte(ChecksumLog.PUT);
+        this.out.writeUTF(key);
+
+        final byte[] digest = entry.getDigest();
+        if (digest == null) this.out.writeByte(0);
+        else
+        {
+            this.out.writeByte(digest.length);
+            this.out.write(digest);
+        }
+
+        final FileStamp stamp = entry.getStamp();
+        this.out.writeBoolean(stamp != null);
+        if (stamp != null)
+        {
+            this.out.writeLong(stamp.getSize());
+            this.out.writeLong(stamp.getModified());
+            this.out.writeLong(stamp.getChanged());
+            this.out.writeLong(stamp.getInode());
+        }
+    }
+
+    /**
+     * Append a record of a removed entry.
+     *
+     * @param key The key of the removed entry.
+     * @throws IOException If the record could not be written.
+     */
+    void remove(final String key) throws IOException
+    {
+        this.out.writeByte(ChecksumLog.REMOVE);
+        this.out.writeUTF(key);
+    }
+
+    /**
+     * Flush buffered records to the file.
+     *
+     * @throws IOException If the records could not be written.
+     */
+    void flush() throws IOException
+    {
+        this.out.flush();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        this.out.close();
+    }
+}
@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@code ChecksumManifest} holds the official checksums of the files in a single release of WordPress
+ * core or of a plugin, as published by WordPress.org. These are the same checksums used by the
+ * {@code wp core verify-checksums} and {@code wp plugin verify-checksums} commands.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public final class ChecksumManifest
+{
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * Parse a core checksum manifest from the WordPress.org core checksums API. Core manifests only hold
+     * MD5 checksums.
+     *
+     * @param version The core version the manifest was requested for.
+     * @param in The manifest data.
+     * @return The parsed {@code ChecksumManifest}.
+     * @throws IOException If the data could not be read, or held no checksums.
+     */
+    public static ChecksumManifest parseCore(final String version, final InputStream in) throws IOException
+    {
+        JsonNode checksums = ChecksumManifest.MAPPER.readTree(in).path("checksums");
+
+        // Checksums are sometimes nested under the version they belong to
+        if (checksums.path(version).isObject()) checksums = checksums.get(version);
+        if (!checksums.isObject()) throw new IOException("No checksums in the core manifest for version " + version);
+
+        final Map<String, FileChecksums> files = new HashMap<>();
+        final Iterator<Map.Entry<String, JsonNode>> fields = checksums.fields();
+        while (fields.hasNext())
+        {
+            final Map.Entry<String, JsonNode> field = fields.next();
+            files.put(field.getKey(), new FileChecksums(ChecksumManifest.hexValues(field.getValue()), Collections.emptySet()));
+        }
+
+        return new ChecksumManifest("core", version, files);
+    }
+
+    /**
+     * Parse a plugin checksum manifest from the WordPress.org plugin checksums service. Plugin manifests
+     * hold MD5 and SHA-256 checksums, and may list several accepted values for a file.
+     *
+     * @param slug The slug of the plugin.
+     * @param version The plugin version the manifest was requested for.
+     * @param in The manifest data.
+     * @return The parsed {@code ChecksumManifest}.
+     * @throws IOException If the data could not be read, or held no checksums.
+     */
+    public static ChecksumManifest parsePlugin(final String slug, final String version, final InputStream in) throws IOException
+    {
+        final JsonNode filesNode = ChecksumManifest.MAPPER.readTree(in).path("files");
+        if (!filesNode.isObject()) throw new IOException("No checksums in the manifest for plugin " + slug + " " + version);
+
+        final Map<String, FileChecksums> files = new HashMap<>();
+        final Iterator<Map.Entry<String, JsonNode>> fields = filesNode.fields();
+        while (fields.hasNext())
+        {
+            final Map.Entry<String, JsonNode> field = fields.next();
+            files.put(field.getKey(), new FileChecksums(ChecksumManifest.hexValues(field.getValue().get("md5")),
+                                                        ChecksumManifest.hexValues(field.getValue().get("sha256"))));
+        }
+
+        return new ChecksumManifest(slug, version, files);
+    }
+
+    /**
+     * Read a checksum field, which may hold a single hex value or an array of them.
+     *
+     * @param node The field to read.
+     * @return A {@code Set} of lower case hex values, which is empty if the field is missing.
+     */
+    private static Set<String> hexValues(final JsonNode node)
+    {
+        if (node == null || node.isNull()) return Collections.emptySet();
+        if (node.isTextual()) return Collections.singleton(node.asText().toLowerCase(Locale.ROOT));
+
+        final Set<String> values = new HashSet<>();
+        for (JsonNode value : node)
+        {
+            if (value.isTextual()) values.add(value.asText().toLowerCase(Locale.ROOT));
+        }
+        return values;
+    }
+
+    private final String slug;
+    private final String version;
+    private final Map<String, FileChecksums> files;
+
+    /**
+     * Create a new {@code ChecksumManifest}.
+     *
+     * @param slug The slug of the component, or "core" for WordPress core.
+     * @param version The version of the component.
+     * @param files The checksums of each file, indexed by the path relative to the component directory.
+     */
+    public ChecksumManifest(final String slug, final String version, final Map<String, FileChecksums> files)
+    {
+        super();
+
+        this.slug = slug;
+        this.version = version;
+        this.files = Collections.unmodifiableMap(files);
+    }
+
+    /**
+     * Fetch the slug of the component.
+     *
+     * @return The component slug, or "core" for WordPress core.
+     */
+    public String getSlug()
+    {
+        return this.slug;
+    }
+
+    /**
+     * Fetch the version of the component.
+     *
+     * @return The component version.
+     */
+    public String getVersion()
+    {
+        return this.version;
+    }
+
+    /**
+     * Fetch the checksums of the files in the component.
+     *
+     * @return A {@code Map} of {@link FileChecksums}, indexed by the path relative to the component directory.
+     */
+    public Map<String, FileChecksums> getFiles()
+    {
+        return this.files;
+    }
+
+    /**
+     * A {@code FileChecksums} holds the accepted checksums of a single file.
+     */
+    public static final class FileChecksums
+    {
+        private final Set<String> md5;
+        private final Set<String> sha256;
+
+        /**
+         * Create a new {@code FileChecksums}.
+         *
+         * @param md5 The accepted MD5 checksums, as lower case hex.
+         * @param sha256 The accepted SHA-256 checksums, as lower case hex.
+         */
+        public FileChecksums(final Set<String> md5, final Set<String> sha256)
+        {
+            super();
+
+            this.md5 = md5;
+            this.sha256 = sha256;
+        }
+
+        /**
+         * Fetch the accepted MD5 checksums.
+         *
+         * @return A {@code Set} of lower case hex checksums, which may be empty.
+         */
+        public Set<String> getMd5()
+        {
+            return this.md5;
+        }
+
+        /**
+         * Fetch the accepted SHA-256 checksums.
+         *
+         * @return A {@code Set} of lower case hex checksums, which may be empty.
+         */
+        public Set<String> getSha256()
+        {
+            return this.sha256;
+        }
+    }
+}
@@ -0,0 +1,580 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+
+/**
+ * A {@code ChecksumSnapshot} is an immutable, memory-mapped view of a binary checksum database file. Lookups
+ * read directly from the mapped file, so a loaded database costs a few objects rather than several per
+ * entry.
+ * <p>
+ * The file starts with a fixed header, followed by one fixed-width record per entry and then the path
+ * table. Records hold the raw digest, the {@link FileStamp} fields, the offset of the path in the path
+ * table and a set of flags. Paths are relative to the database root, sorted by {@link #KEY_ORDER} and
+ * prefix-compressed: each path stores the number of leading bytes it shares with the previous path and
+ * the remaining bytes. Every {@value #RESTART_INTERVAL}th path is stored in full, so lookups can binary
+ * search the full paths and then decode at most a handful of entries.
+ * <p>
+ * The header records the {@link ChecksumAlgorithm} of the stored digests. Each record reserves
+ * {@value #DIGEST_LENGTH} bytes for the digest, and shorter digests are padded with zeros. Files written
+ * by the first version of the format have no recorded algorithm and hold SHA-256 digests.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+final class ChecksumSnapshot
+{
+    /** The marker at the start of every binary database file: "WPKC". */
+    static final int MAGIC = 0x57504B43;
+    /** The version of the binary format. */
+    static final int VERSION = 2;
+    /** The space reserved for the digest in each record. */
+    static final int DIGEST_LENGTH = 32;
+
+    /** The ordering of database keys. This is code point order, which matches the order of their UTF-8 bytes. */
+    static final Comparator<String> KEY_ORDER = ChecksumSnapshot::compareKeys;
+
+    private static final int HEADER_SIZE = 40;
+    private static final int RESTART_INTERVAL = 16;
+    private static final int RECORD_SIZE = ChecksumSnapshot.DIGEST_LENGTH + 4 * 8 + 4 + 4;
+    private static final int FLAG_DIGEST = 1;
+    private static final int FLAG_STAMP = 2;
+    private static final byte[] NO_DIGEST = new byte[ChecksumSnapshot.DIGEST_LENGTH];
+
+    private static final ChecksumSnapshot EMPTY = new ChecksumSnapshot(null, 0, 0, 0, ChecksumAlgorithm.SHA256);
+
+    /**
+     * Fetch a snapshot with no entries.
+     *
+     * @return An empty {@code ChecksumSnapshot}.
+     */
+    static ChecksumSnapshot empty()
+    {
+        return ChecksumSnapshot.EMPTY;
+    }
+
+    /**
+     * Checks if the given file is a binary checksum database.
+     *
+     * @param file The file to check.
+     * @return {@code true} if the file starts with the binary database marker.
+     * @throws IOException If the file could not be read.
+     */
+    static boolean isSnapshot(final Path file) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining()) if (channel.read(magic) == -1) return false;
+            return magic.getInt(0) == ChecksumSnapshot.MAGIC;
+        }
+    }
+
+    /**
+     * Open and map a binary checksum database file.
+     *
+     * @param file The file to open.
+     * @return A {@code ChecksumSnapshot} of the file contents.
+     * @throws IOException If the file could not be read, or was not a valid database.
+     */
+    static ChecksumSnapshot open(final Path file) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            if (channel.size() < ChecksumSnapshot.HEADER_SIZE || channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Not a valid checksum database: " + file);
+
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (data.getInt(0) != ChecksumSnapshot.MAGIC) throw new IOException("Not a checksum database: " + file);
+            final int version = data.getInt(4);
+            if (version < 1 || version > ChecksumSnapshot.VERSION) throw new IOException("Unsupported checksum database version: " + version);
+            if (data.getInt(12) != ChecksumSnapshot.DIGEST_LENGTH || data.getInt(16) != ChecksumSnapshot.RESTART_INTERVAL)
+                throw new IOException("Unsupported checksum database layout: " + file);
+
+            final ChecksumAlgorithm algorithm;
+            try
+            {
+                algorithm = (version == 1) ? ChecksumAlgorithm.SHA256 : ChecksumAlgorithm.fromId(data.getInt(20));
+            }
+            catch (IllegalArgumentException e)
+            {
+                throw new IOException("Unsupported checksum database algorithm: " + file, e);
+            }
+
+            int count = data.getInt(8);
+            long recordsOffset = data.getLong(24);
+            long pathsOffset = data.getLong(32);
+            if (count < 0 || recordsOffset + (long) count * ChecksumSnapshot.RECORD_SIZE != pathsOffset || pathsOffset > data.limit())
+                throw new IOException("Corrupt checksum database: " + file);
+
+            return new ChecksumSnapshot(data, count, (int) recordsOffset, (int) pathsOffset, algorithm);
+        }
+    }
+
+    /**
+     * Compare two database keys by code point.
+     *
+     * @param a The first key.
+     * @param b The second key.
+     * @return A negative number, zero or a positive number as the first key sorts before, equal to, or
+     * after the second.
+     */
+    static int compareKeys(final String a, final String b)
+    {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length())
+        {
+            int ca = a.codePointAt(i);
+            int cb = b.codePointAt(j);
+            if (ca != cb) return Integer.compare(ca, cb);
+
+            i += Character.charCount(ca);
+            j += Character.charCount(cb);
+        }
+        return Boolean.compare(i < a.length(), j < b.length());
+    }
+
+    /**
+     * Compare two byte sequences as unsigned bytes.
+     *
+     * @param a The first sequence.
+     * @param aLength The number of bytes used in the first sequence.
+     * @param b The second sequence.
+     * @param bLength The number of bytes used in the second sequence.
+     * @return A negative number, zero or a positive number as the first sequence sorts before, equal to, or
+     * after the second.
+     */
+    private static int compareBytes(final byte[] a, final int aLength, final byte[] b, final int bLength)
+    {
+        int length = Math.min(aLength, bLength);
+        for (int i = 0; i < length; i++)
+        {
+            if (a[i] != b[i]) return Integer.compare(a[i] & 0xFF, b[i] & 0xFF);
+        }
+        return Integer.compare(aLength, bLength);
+    }
+
+    private final ByteBuffer data;
+    private final int count;
+    private final int recordsOffset;
+    private final int pathsOffset;
+    private final ChecksumAlgorithm algorithm;
+
+    /**
+     * Create a new {@code ChecksumSnapshot} over mapped data.
+     *
+     * @param data The mapped database file.
+     * @param count The number of entries.
+     * @param recordsOffset The offset of the first record.
+     * @param pathsOffset The offset of the path table.
+     * @param algorithm The {@link ChecksumAlgorithm} of the stored digests.
+     */
+    private ChecksumSnapshot(final ByteBuffer data, final int count, final int recordsOffset, final int pathsOffset,
+                             final ChecksumAlgorithm algorithm)
+    {
+        super();
+
+        this.data = data;
+        this.count = count;
+        this.recordsOffset = recordsOffset;
+        this.pathsOffset = pathsOffset;
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Fetch the algorithm of the stored digests.
+     *
+     * @return The {@link ChecksumAlgorithm} of the snapshot.
+     */
+    ChecksumAlgorithm getAlgorithm()
+    {
+        return this.algorithm;
+    }
+
+    /**
+     * Fetch the number of entries in the snapshot.
+     *
+     * @return The entry count.
+     */
+    int size()
+    {
+        return this.count;
+    }
+
+    /**
+     * Look up the entry for a key.
+     *
+     * @param key The key to look up.
+     * @return The {@link ChecksumEntry} for the key, or {@code null} if there is no entry.
+     */
+    ChecksumEntry get(final String key)
+    {
+        final byte[] target = key.getBytes(StandardCharsets.UTF_8);
+        final Cursor cursor = this.seek(target);
+
+        if (cursor.isValid() && cursor.compareTo(target) == 0) return cursor.entry();
+        else return null;
+    }
+
+    /**
+     * Create a cursor positioned at the first entry whose key is equal to or after the given key.
+     *
+     * @param key The key to seek to.
+     * @return A new {@link Cursor}.
+     */
+    Cursor seek(final String key)
+    {
+        return this.seek(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Create a cursor positioned at the first entry whose key is equal to or after the given key.
+     *
+     * @param target The UTF-8 bytes of the key to seek to.
+     * @return A new {@link Cursor}.
+     */
+    private Cursor seek(final byte[] target)
+    {
+        // Find the last restart point at or before the target
+        int low = 0;
+        int high = (this.count + ChecksumSnapshot.RESTART_INTERVAL - 1) / ChecksumSnapshot.RESTART_INTERVAL - 1;
+        int restart = 0;
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            if (this.compareRestart(mid * ChecksumSnapshot.RESTART_INTERVAL, target) <= 0)
+            {
+                restart = mid;
+                low = mid + 1;
+            }
+            else high = mid - 1;
+        }
+
+        final Cursor cursor = new Cursor(restart * ChecksumSnapshot.RESTART_INTERVAL);
+        while (cursor.isValid() && cursor.compareTo(target) < 0) cursor.next();
+        return cursor;
+    }
+
+    /**
+     * Compare the full path stored at a restart point with a key.
+     *
+     * @param index The index of the restart entry.
+     * @param target The UTF-8 bytes of the key.
+     * @return The comparison of the stored path with the key.
+     */
+    private int compareRestart(final int index, final byte[] target)
+    {
+        int position = this.pathsOffset + this.data.getInt(this.recordsOffset + index * ChecksumSnapshot.RECORD_SIZE + ChecksumSnapshot.DIGEST_LENGTH + 32);
+        int length = this.data.getShort(position + 2) & 0xFFFF;
+        position += 4;
+
+        int common = Math.min(length, target.length);
+        for (int i = 0; i < common; i++)
+        {
+            int stored = this.data.get(position + i) & 0xFF;
+            int wanted = target[i] & 0xFF;
+            if (stored != wanted) return Integer.compare(stored, wanted);
+        }
+        return Integer.compare(length, target.length);
+    }
+
+    /**
+     * Decode the entry stored in a record.
+     *
+     * @param index The index of the record.
+     * @return The decoded {@link ChecksumEntry}.
+     */
+    private ChecksumEntry entry(final int index)
+    {
+        final int record = this.recordsOffset + index * ChecksumSnapshot.RECORD_SIZE;
+        final int flags = this.data.getInt(record + ChecksumSnapshot.DIGEST_LENGTH + 36);
+
+        byte[] digest = null;
+        if ((flags & ChecksumSnapshot.FLAG_DIGEST) != 0)
+        {
+            digest = new byte[this.algorithm.getDigestLength()];
+            for (int i = 0; i < digest.length; i++) digest[i] = this.data.get(record + i);
+        }
+
+        FileStamp stamp = null;
+        if ((flags & ChecksumSnapshot.FLAG_STAMP) != 0)
+        {
+            int fields = record + ChecksumSnapshot.DIGEST_LENGTH;
+            stamp = new FileStamp(this.data.getLong(fields), this.data.getLong(fields + 8),
+                                  this.data.getLong(fields + 16), this.data.getLong(fields + 24));
+        }
+
+        return new ChecksumEntry(digest, stamp);
+    }
+
+    /**
+     * A {@code Cursor} steps through the entries of a snapshot in key order, decoding the prefix-compressed
+     * paths as it goes. Cursors are not threadsafe, but any number of them may read the same snapshot.
+     */
+    final class Cursor
+    {
+        private int index;
+        private int next;
+        private byte[] key;
+        private int keyLength;
+
+        /**
+         * Create a new cursor at a restart point.
+         *
+         * @param start The index of the restart entry to start at.
+         */
+        private Cursor(final int start)
+        {
+            super();
+
+            this.index = start;
+            this.key = new byte[256];
+            if (this.isValid())
+            {
+                this.next = ChecksumSnapshot.this.pathsOffset +
+                            ChecksumSnapshot.this.data.getInt(ChecksumSnapshot.this.recordsOffset + start * ChecksumSnapshot.RECORD_SIZE + ChecksumSnapshot.DIGEST_LENGTH + 32);
+                this.decode();
+            }
+        }
+
+        /**
+         * Decode the path at the current position in the path table.
+         */
+        private void decode()
+        {
+            final ByteBuffer data = ChecksumSnapshot.this.data;
+            final int shared = data.getShort(this.next) & 0xFFFF;
+            final int suffix = data.getShort(this.next + 2) & 0xFFFF;
+
+            this.keyLength = shared + suffix;
+            if (this.keyLength > this.key.length)
+            {
+                byte[] grown = new byte[Math.max(this.keyLength, this.key.length * 2)];
+                System.arraycopy(this.key, 0, grown, 0, shared);
+                this.key = grown;
+            }
+            for (int i = 0; i < suffix; i++) this.key[shared + i] = data.get(this.next + 4 + i);
+
+            this.next += 4 + suffix;
+        }
+
+        /**
+         * Checks if the cursor is positioned on an entry.
+         *
+         * @return {@code true} if there is a current entry, {@code false} if the cursor has passed the end.
+         */
+        boolean isValid()
+        {
+            return this.index < ChecksumSnapshot.this.count;
+        }
+
+        /**
+         * Move to the next entry.
+         */
+        void next()
+        {
+            this.index++;
+            if (this.isValid()) this.decode();
+        }
+
+        /**
+         * Compare the key of the current entry to the given key.
+         *
+         * @param target The UTF-8 bytes of the key.
+         * @return The comparison of the current key with the given key.
+         */
+        private int compareTo(final byte[] target)
+        {
+            return ChecksumSnapshot.compareBytes(this.key, this.keyLength, target, target.length);
+        }
+
+        /**
+         * Fetch the key of the current entry.
+         *
+         * @return The key, as a path relative to the database root.
+         */
+        String key()
+        {
+            return new String(this.key, 0, this.keyLength, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Fetch the current entry.
+         *
+         * @return The {@link ChecksumEntry} at the cursor.
+         */
+        ChecksumEntry entry()
+        {
+            return ChecksumSnapshot.this.entry(this.index);
+        }
+    }
+
+    /**
+     * A {@code Writer} writes a new binary database file. Entries must be added in {@link #KEY_ORDER}. The
+     * path table is staged in a temporary file next to the database and appended once the record count
+     * is known.
+     */
+    static final class Writer implements Closeable
+    {
+        private final Path pathsFile;
+        private final FileChannel channel;
+        private final DataOutputStream records;
+        private final DataOutputStream paths;
+        private final ChecksumAlgorithm algorithm;
+        private byte[] previous;
+        private int count;
+        private long pathsSize;
+
+        /**
+         * Create a new {@code Writer} which replaces the given file.
+         *
+         * @param file The file to write.
+         * @param algorithm The {@link ChecksumAlgorithm} of the digests to store.
+         * @throws IOException If the file could not be created.
+         */
+        Writer(final Path file, final ChecksumAlgorithm algorithm) throws IOException
+        {
+            super();
+
+            this.algorithm = algorithm;
+            this.pathsFile = file.resolveSibling(file.getFileName() + ".paths");
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.channel.position(ChecksumSnapshot.HEADER_SIZE);
+            this.records = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(this.channel), 65536));
+            this.paths = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(this.pathsFile), 65536));
+            this.previous = new byte[0];
+        }
+
+        /**
+         * Add an entry to the file.
+         *
+         * @param key The key of the entry.
+         * @param entry The {@link ChecksumEntry} to store.
+         * @throws IOException If the entry could not be written, or was out of order.
+         */
+        void add(final String key, final ChecksumEntry entry) throws IOException
+        {
+            final byte[] path = key.getBytes(StandardCharsets.UTF_8);
+            if (path.length > 0xFFFF) throw new IOException("Path is too long for the checksum database: " + key);
+            if (this.count > 0 && ChecksumSnapshot.compareBytes(this.previous, this.previous.length, path, path.length) >= 0)
+                throw new IOException("Checksum database entries are out of order: " + key);
+
+            int shared = 0;
+            if (this.count % ChecksumSnapshot.RESTART_INTERVAL != 0)
+            {
+                int common = Math.min(this.previous.length, path.length);
+                while (shared < common && this.previous[shared] == path[shared]) shared++;
+            }
+
+            int flags = 0;
+            final byte[] digest = entry.getDigest();
+            if (digest != null && digest.length == this.algorithm.getDigestLength())
+            {
+                this.records.write(digest);
+                this.records.write(ChecksumSnapshot.NO_DIGEST, 0, ChecksumSnapshot.DIGEST_LENGTH - digest.length);
+                flags |= ChecksumSnapshot.FLAG_DIGEST;
+            }
+            else this.records.write(ChecksumSnapshot.NO_DIGEST);
+
+            final FileStamp stamp = entry.getStamp();
+            if (stamp != null)
+            {
+                this.records.writeLong(stamp.getSize());
+                this.records.writeLong(stamp.getModified());
+                this.records.writeLong(stamp.getChanged());
+                this.records.writeLong(stamp.getInode());
+                flags |= ChecksumSnapshot.FLAG_STAMP;
+            }
+            else for (int i = 0; i < 4; i++) this.records.writeLong(0);
+
+            this.records.writeInt((int) this.pathsSize);
+            this.records.writeInt(flags);
+
+            this.paths.writeShort(shared);
+            this.paths.writeShort(path.length - shared);
+            this.paths.write(path, shared, path.length - shared);
+            this.pathsSize += 4 + path.length - shared;
+            if (this.pathsSize > Integer.MAX_VALUE) throw new IOException("The checksum database is too large");
+
+            this.previous = path;
+            this.count++;
+        }
+
+        /**
+         * Complete the file by appending the path table and writing the header.
+         *
+         * @throws IOException If the file could not be written.
+         */
+        void finish() throws IOException
+        {
+            this.records.flush();
+            this.paths.close();
+
+            final long pathsOffset = ChecksumSnapshot.HEADER_SIZE + (long) this.count * ChecksumSnapshot.RECORD_SIZE;
+            if (pathsOffset + this.pathsSize > Integer.MAX_VALUE) throw new IOException("The checksum database is too large");
+
+            try (FileChannel in = FileChannel.open(this.pathsFile, StandardOpenOption.READ))
+            {
+                long copied = 0;
+                while (copied < in.size()) copied += in.transferTo(copied, in.size() - copied, this.channel);
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(ChecksumSnapshot.HEADER_SIZE);
+            header.putInt(ChecksumSnapshot.MAGIC);
+            header.putInt(ChecksumSnapshot.VERSION);
+            header.putInt(this.count);
+            header.putInt(ChecksumSnapshot.DIGEST_LENGTH);
+            header.putInt(ChecksumSnapshot.RESTART_INTERVAL);
+            header.putInt(this.algorithm.getId());
+            header.putLong(ChecksumSnapshot.HEADER_SIZE);
+            header.putLong(pathsOffset);
+            header.flip();
+            long position = 0;
+            while (header.hasRemaining()) position += this.channel.write(header, position);
+
+            this.channel.force(true);
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            try
+            {
+                this.paths.close();
+                this.channel.close();
+            }
+            finally
+            {
+                Files.deleteIfExists(this.pathsFile);
+            }
+        }
+    }
+}
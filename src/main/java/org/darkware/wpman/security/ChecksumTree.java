@@ -0,0 +1,367 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * A {@code ChecksumTree} is a Merkle tree over the entries of a {@link ChecksumDatabase}. Each directory node
+ * holds a hash of its children, so two trees, or two versions of the same tree, can be compared by
+ * descending only into the directories whose hashes differ.
+ * <p>
+ * Only directories are held in memory. A directory hash is the SHA-256 of the sum (modulo 2<sup>256</sup>)
+ * of the hashes of its children, where a file contributes the hash of its name and digest, and a
+ * subdirectory contributes the hash of its name and directory hash. Because the sum doesn't depend on the
+ * order of the children, a changed file updates each of its ancestors in constant time, without reading
+ * its siblings. The tree must be externally synchronized.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+final class ChecksumTree
+{
+    private static final HashFunction HASH = Hashing.sha256();
+    private static final byte FILE = 1;
+    private static final byte DIRECTORY = 2;
+    private static final byte[] NO_DIGEST = new byte[0];
+
+    private final String separator;
+    private final Pattern splitter;
+    private Node root;
+
+    /**
+     * Create a new, empty {@code ChecksumTree}.
+     *
+     * @param separator The separator between the names in a database key.
+     */
+    ChecksumTree(final String separator)
+    {
+        super();
+
+        this.separator = separator;
+        this.splitter = Pattern.compile(Pattern.quote(separator));
+        this.root = new Node(null, "");
+    }
+
+    /**
+     * Remove all entries from the tree.
+     */
+    void clear()
+    {
+        this.root = new Node(null, "");
+    }
+
+    /**
+     * Fetch the root directory of the tree.
+     *
+     * @return The root {@link Node}.
+     */
+    Node getRoot()
+    {
+        return this.root;
+    }
+
+    /**
+     * Find the node for a directory.
+     *
+     * @param dirKey The key of the directory, or an empty {@code String} for the root.
+     * @return The directory {@link Node}, or {@code null} if no files exist under the directory.
+     */
+    Node find(final String dirKey)
+    {
+        Node node = this.root;
+        if (dirKey.isEmpty()) return node;
+
+        for (String name : this.splitter.split(dirKey))
+        {
+            node = node.children.get(name);
+            if (node == null) return null;
+        }
+        return node;
+    }
+
+    /**
+     * Add a file to the tree.
+     *
+     * @param key The key of the file.
+     * @param digest The digest of the file, or {@code null} if the file could not be hashed.
+     */
+    void add(final String key, final byte[] digest)
+    {
+        final String[] names = this.splitter.split(key);
+        Node dir = this.root;
+        for (int i = 0; i < names.length - 1; i++)
+        {
+            final Node parent = dir;
+            dir = parent.children.computeIfAbsent(names[i], n -> new Node(parent, n));
+        }
+
+        this.update(dir, null, ChecksumTree.contribution(ChecksumTree.FILE, names[names.length - 1], digest), 1);
+    }
+
+    /**
+     * Remove a file from the tree.
+     *
+     * @param key The key of the file.
+     * @param digest The digest the file was added with.
+     */
+    void remove(final String key, final byte[] digest)
+    {
+        final Node dir = this.find(this.parentKey(key));
+        if (dir == null) return;
+
+        this.update(dir, ChecksumTree.contribution(ChecksumTree.FILE, this.fileName(key), digest), null, -1);
+    }
+
+    /**
+     * Change the digest of a file in the tree.
+     *
+     * @param key The key of the file.
+     * @param oldDigest The digest the file was added with.
+     * @param newDigest The new digest of the file.
+     */
+    void replace(final String key, final byte[] oldDigest, final byte[] newDigest)
+    {
+        final Node dir = this.find(this.parentKey(key));
+        if (dir == null)
+        {
+            this.add(key, newDigest);
+            return;
+        }
+
+        final String name = this.fileName(key);
+        this.update(dir, ChecksumTree.contribution(ChecksumTree.FILE, name, oldDigest),
+                    ChecksumTree.contribution(ChecksumTree.FILE, name, newDigest), 0);
+    }
+
+    /**
+     * Remove a directory and everything under it from the tree. This only touches the ancestors of the
+     * directory.
+     *
+     * @param dirKey The key of the directory, or an empty {@code String} for the root.
+     * @return {@code true} if the directory existed, otherwise {@code false}.
+     */
+    boolean removeDirectory(final String dirKey)
+    {
+        final Node dir = this.find(dirKey);
+        if (dir == null) return false;
+
+        if (dir.parent == null) this.clear();
+        else
+        {
+            dir.parent.children.remove(dir.name);
+            this.update(dir.parent, ChecksumTree.contribution(ChecksumTree.DIRECTORY, dir.name, dir.hash), null, -dir.files);
+        }
+        return true;
+    }
+
+    /**
+     * Fetch the key of the directory containing a file.
+     *
+     * @param key The key of the file.
+     * @return The key of its directory.
+     */
+    private String parentKey(final String key)
+    {
+        final int split = key.lastIndexOf(this.separator);
+        return (split == -1) ? "" : key.substring(0, split);
+    }
+
+    /**
+     * Fetch the name of a file, without its directory.
+     *
+     * @param key The key of the file.
+     * @return The file name.
+     */
+    private String fileName(final String key)
+    {
+        final int split = key.lastIndexOf(this.separator);
+        return (split == -1) ? key : key.substring(split + this.separator.length());
+    }
+
+    /**
+     * Apply a change to the sum of a directory, and carry the resulting change in its hash up to the root.
+     *
+     * @param start The directory which changed.
+     * @param removed The contribution to remove from the directory, or {@code null}.
+     * @param added The contribution to add to the directory, or {@code null}.
+     * @param fileDelta The change in the number of files under the directory.
+     */
+    private void update(final Node start, final byte[] removed, final byte[] added, final int fileDelta)
+    {
+        Node node = start;
+        byte[] out = removed;
+        byte[] in = added;
+        while (node != null)
+        {
+            // A directory only contributes to its parent once it holds files
+            final byte[] before = (node.parent == null || node.files == 0) ? null : ChecksumTree.contribution(ChecksumTree.DIRECTORY, node.name, node.hash);
+
+            if (out != null) node.subtract(out);
+            if (in != null) node.add(in);
+            node.files += fileDelta;
+            node.rehash();
+
+            final Node parent = node.parent;
+            if (parent == null) break;
+
+            out = before;
+            if (node.files > 0) in = ChecksumTree.contribution(ChecksumTree.DIRECTORY, node.name, node.hash);
+            else
+            {
+                parent.children.remove(node.name);
+                in = null;
+            }
+            node = parent;
+        }
+    }
+
+    /**
+     * Calculate the contribution of a child to the sum of its directory.
+     *
+     * @param type The type of the child.
+     * @param name The name of the child.
+     * @param hash The digest of a file or the hash of a directory.
+     * @return The hash of the child.
+     */
+    private static byte[] contribution(final byte type, final String name, final byte[] hash)
+    {
+        final Hasher hasher = ChecksumTree.HASH.newHasher();
+        hasher.putByte(type);
+        hasher.putBytes(name.getBytes(StandardCharsets.UTF_8));
+        hasher.putByte((byte) 0);
+        hasher.putBytes((hash == null) ? ChecksumTree.NO_DIGEST : hash);
+        return hasher.hash().asBytes();
+    }
+
+    /**
+     * A {@code Node} is a single directory in the tree.
+     */
+    static final class Node
+    {
+        private final Node parent;
+        private final String name;
+        private final Map<String, Node> children;
+        private final long[] sum;
+        private byte[] hash;
+        private int files;
+
+        /**
+         * Create a new, empty directory node.
+         *
+         * @param parent The parent directory, or {@code null} for the root.
+         * @param name The name of the directory.
+         */
+        private Node(final Node parent, final String name)
+        {
+            super();
+
+            this.parent = parent;
+            this.name = name;
+            this.children = new HashMap<>();
+            this.sum = new long[4];
+            this.rehash();
+        }
+
+        /**
+         * Fetch the hash of this directory.
+         *
+         * @return The directory hash.
+         */
+        byte[] getHash()
+        {
+            return this.hash;
+        }
+
+        /**
+         * Fetch the number of files under this directory, including those in subdirectories.
+         *
+         * @return The file count.
+         */
+        int getFileCount()
+        {
+            return this.files;
+        }
+
+        /**
+         * Fetch the subdirectories of this directory.
+         *
+         * @return A {@code Map} of directory nodes, indexed by name.
+         */
+        Map<String, Node> getChildren()
+        {
+            return Collections.unmodifiableMap(this.children);
+        }
+
+        /**
+         * Add a value to the sum of this directory.
+         *
+         * @param value A 256-bit value.
+         */
+        private void add(final byte[] value)
+        {
+            final ByteBuffer words = ByteBuffer.wrap(value).order(ByteOrder.LITTLE_ENDIAN);
+            long carry = 0;
+            for (int i = 0; i < 4; i++)
+            {
+                final long word = words.getLong(i * 8);
+                final long total = this.sum[i] + word + carry;
+                carry = (Long.compareUnsigned(total, this.sum[i]) < 0 || (carry == 1 && total == this.sum[i])) ? 1 : 0;
+                this.sum[i] = total;
+            }
+        }
+
+        /**
+         * Subtract a value from the sum of this directory.
+         *
+         * @param value A 256-bit value.
+         */
+        private void subtract(final byte[] value)
+        {
+            final ByteBuffer words = ByteBuffer.wrap(value).order(ByteOrder.LITTLE_ENDIAN);
+            long borrow = 0;
+            for (int i = 0; i < 4; i++)
+            {
+                final long word = words.getLong(i * 8);
+                final long total = this.sum[i] - word - borrow;
+                borrow = (Long.compareUnsigned(this.sum[i], word) < 0 || (borrow == 1 && this.sum[i] == word)) ? 1 : 0;
+                this.sum[i] = total;
+            }
+        }
+
+        /**
+         * Recalculate the hash of this directory from its sum.
+         */
+        private void rehash()
+        {
+            final Hasher hasher = ChecksumTree.HASH.newHasher();
+            for (long word : this.sum) hasher.putLong(word);
+            this.hash = hasher.hash().asBytes();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.hash.HashCode;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * This is a reporting snapshot of a single directory in the {@link ChecksumTree} of a
+ * {@link ChecksumDatabase}. It holds the hash of the directory and of each of its subdirectories, so a
+ * client comparing two databases can descend only into the subdirectories whose hashes differ.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChecksumTreeStatus
+{
+    private final String path;
+    private final String hash;
+    private final int fileCount;
+    private final Map<String, String> directories;
+    private Map<String, String> files;
+
+    /**
+     * Create a new snapshot of a directory node.
+     *
+     * @param path The path of the directory, relative to the database root.
+     * @param node The {@link ChecksumTree.Node} of the directory.
+     */
+    ChecksumTreeStatus(final String path, final ChecksumTree.Node node)
+    {
+        super();
+
+        this.path = path;
+        this.hash = HashCode.fromBytes(node.getHash()).toString();
+        this.fileCount = node.getFileCount();
+        this.directories = new TreeMap<>();
+
+        node.getChildren().forEach((name, child) -> this.directories.put(name, HashCode.fromBytes(child.getHash()).toString()));
+    }
+
+    /**
+     * Fetch the path of the directory.
+     *
+     * @return The path, relative to the database root.
+     */
+    @JsonProperty("path")
+    public String getPath()
+    {
+        return this.path;
+    }
+
+    /**
+     * Fetch the hash of the directory.
+     *
+     * @return The directory hash, as a hex {@code String}.
+     */
+    @JsonProperty("hash")
+    public String getHash()
+    {
+        return this.hash;
+    }
+
+    /**
+     * Fetch the number of files under the directory, including those in subdirectories.
+     *
+     * @return The file count.
+     */
+    @JsonProperty("fileCount")
+    public int getFileCount()
+    {
+        return this.fileCount;
+    }
+
+    /**
+     * Fetch the hashes of the subdirectories.
+     *
+     * @return A {@code Map} of hex directory hashes, indexed by directory name.
+     */
+    @JsonProperty("directories")
+    public Map<String, String> getDirectories()
+    {
+        return this.directories;
+    }
+
+    /**
+     * Fetch the checksums of the files directly inside the directory, if they were requested.
+     *
+     * @return A {@code Map} of checksums, indexed by file name, or {@code null} if files weren't requested.
+     */
+    @JsonProperty("files")
+    public Map<String, String> getFiles()
+    {
+        return this.files;
+    }
+
+    /**
+     * Record the checksum of a file directly inside the directory.
+     *
+     * @param name The name of the file.
+     * @param checksum The checksum of the file.
+     */
+    void addFile(final String name, final String checksum)
+    {
+        if (this.files == null) this.files = new TreeMap<>();
+        this.files.put(name, checksum);
+    }
+}
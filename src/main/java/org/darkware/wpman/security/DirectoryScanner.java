@@ -17,37 +17,80 @@
 
 package org.darkware.wpman.security;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.darkware.wpman.ContextManager;
+import org.darkware.wpman.config.IntegrityConfig;
 import org.darkware.wpman.config.WordpressConfig;
 
 import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileVisitOption;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A {@code DirectoryScanner} is a utility class that contains logic for performing recursive directory
  * traversals while checking files against a {@link ChecksumDatabase}.
+ * <p>
+ * By default, scans are parallel. Directories are walked on a {@link ForkJoinPool}, with one task per
+ * subtree so idle walkers steal the unexplored parts of large trees. Files are handed off to a separate,
+ * bounded pool which reads and hashes them, so the walk is not held up by disk reads. If the hashing
+ * queue fills, the walker hashes the file itself. The {@link IntegrityConfig} declares the number of
+ * threads in each pool, and can select a single-threaded walk instead.
+ * <p>
+ * Files whose {@link FileStamp} matches the stamp recorded in the database are assumed to be unchanged and
+ * aren't read at all, so most scans only need to stat the tree. A random sample of these files is hashed
+ * anyway, and {@link #rehashAll(boolean)} requests a scan which hashes every file.
+ * <p>
+ * If a {@link KnownChecksums} index is supplied, every file hashed during the scan is also verified
+ * against its official checksum, and failures are reported as unverified files. Files which aren't hashed
+ * are verified using the digest recorded in the database, when it is a SHA-256 digest.
+ * <p>
+ * Instead of walking the tree itself, a scanner can also check the files found by a shared
+ * {@link ScanEngine} walk, using the {@link ScanVisitor} returned by {@link #visitor()}.
  *
  * @author jeff
  * @since 2016-03-08
  */
 public class DirectoryScanner extends SimpleFileVisitor<Path>
 {
-    /** The configuration for the scanner. */
-    protected final WordpressConfig config;
+    /** The deepest directory level visited below the root of the scan. */
+    private static final int MAX_DEPTH = 20;
+
     /** The {@code ChecksumDatabase} this scanner checks files against. */
     protected final ChecksumDatabase checksums;
     private final Path root;
-    private final Set<Path> pruneDirectories;
-    private final Set<Path> ignoreFiles;
-    private final ScanResults results;
+    private final PathTrie pruneDirectories;
+    private final PathTrie ignoreFiles;
+    private ScanResults results;
+    private final int walkerThreads;
+    private final int hashThreads;
+    private final int hashQueueSize;
+    private final double rehashSample;
     private boolean updateChecksums;
+    private boolean rehashAll;
+    private KnownChecksums known;
+    private final AtomicLong hashed;
 
     /**
      * Create a new {@code DirectoryScanner} which scans files under the given {@code Path} against
@@ -57,21 +100,50 @@ public class DirectoryScanner extends SimpleFileVisitor<Path>
      * @param checksums The {@code ChecksumDatabase} to check files against.
      */
     public DirectoryScanner(final Path root, final ChecksumDatabase checksums)
+    {
+        this(root, checksums, ContextManager.local().getContextualInstance(WordpressConfig.class));
+    }
+
+    /**
+     * Create a new {@code DirectoryScanner} which skips the upload and gutter directories of the given
+     * configuration.
+     *
+     * @param root The directory to use as the root of the scan.
+     * @param checksums The {@code ChecksumDatabase} to check files against.
+     * @param config The {@link WordpressConfig} of the scanned installation.
+     */
+    private DirectoryScanner(final Path root, final ChecksumDatabase checksums, final WordpressConfig config)
+    {
+        this(root, checksums, config.getIntegrityConfig());
+
+        this.prune(config.getUploadDir());
+        this.prune(config.getPluginListConfig().getGutterDir());
+        this.prune(config.getThemeListConfig().getGutterDir());
+
+        this.ignore(this.root.resolve("wp-content/debug.log"));
+    }
+
+    /**
+     * Create a new {@code DirectoryScanner} with explicit scan settings and no pruned directories.
+     *
+     * @param root The directory to use as the root of the scan.
+     * @param checksums The {@code ChecksumDatabase} to check files against.
+     * @param integrity The {@link IntegrityConfig} declaring the parallelism of the scan.
+     */
+    public DirectoryScanner(final Path root, final ChecksumDatabase checksums, final IntegrityConfig integrity)
     {
         super();
 
-        this.config = ContextManager.local().getContextualInstance(WordpressConfig.class);
         this.checksums = checksums;
         this.root = root;
-        this.pruneDirectories = new HashSet<>();
-        this.ignoreFiles = new HashSet<>();
-        this.results = new ScanResults(this.checksums.entriesForPath(root));
-
-        this.prune(this.config.getUploadDir());
-        this.prune(this.config.getPluginListConfig().getGutterDir());
-        this.prune(this.config.getThemeListConfig().getGutterDir());
+        this.pruneDirectories = new PathTrie();
+        this.ignoreFiles = new PathTrie();
+        this.hashed = new AtomicLong();
 
-        this.ignore(this.root.resolve("wp-content/debug.log"));
+        this.walkerThreads = (integrity.getWalkerThreads() > 0) ? integrity.getWalkerThreads() : Runtime.getRuntime().availableProcessors();
+        this.hashThreads = Math.max(1, integrity.getHashThreads());
+        this.hashQueueSize = Math.max(1, integrity.getHashQueueSize());
+        this.rehashSample = integrity.getRehashSample();
     }
 
     /**
@@ -85,6 +157,28 @@ public class DirectoryScanner extends SimpleFileVisitor<Path>
         this.updateChecksums = update;
     }
 
+    /**
+     * Declare whether the scanner will hash every file, even those whose {@link FileStamp} matches the
+     * stamp recorded in the database. Normally, only files with changed stamps and a small random sample
+     * of the others are hashed.
+     *
+     * @param rehash {@code true} if the scan should hash every file.
+     */
+    public void rehashAll(final boolean rehash)
+    {
+        this.rehashAll = rehash;
+    }
+
+    /**
+     * Declare an index of official checksums to verify files against.
+     *
+     * @param known The {@link KnownChecksums} to verify against, or {@code null} to skip verification.
+     */
+    public void verifyKnown(final KnownChecksums known)
+    {
+        this.known = known;
+    }
+
     /**
      * Register a directory that should be skipped by the scan. This will prevent all files and directories
      * under the given path from being checked.
@@ -107,73 +201,441 @@ public class DirectoryScanner extends SimpleFileVisitor<Path>
     }
 
     /**
-     * Scan the directory and aggregate teh list of changes that were detected during the scan.
+     * Scan the directory and aggregate the list of changes that were detected during the scan.
      *
      * @return A {@link ScanResults} object containing lists of changed, new, and deleted files.
      */
     public ScanResults scan()
     {
-        Set<FileVisitOption> options = new HashSet<>();
+        this.begin();
         try
         {
-            Files.walkFileTree(this.root, options, 20, this);
-
-            // Pull out missing files that are suppressed
-            this.results.filterSuppressedEntries(this.checksums);
+            if (this.walkerThreads > 1) this.walkParallel();
+            else Files.walkFileTree(this.root, new HashSet<FileVisitOption>(), DirectoryScanner.MAX_DEPTH, this);
 
-            // Remove entries for missing files
-            this.checksums.removeAll(this.results.getMissingFiles());
+            this.complete();
         }
         catch (IOException e)
         {
             e.printStackTrace();
         }
+        catch (InterruptedException e)
+        {
+            ChecksumDatabase.log.warn("Interrupted while scanning: {}", this.root);
+            Thread.currentThread().interrupt();
+        }
 
         return this.results;
     }
 
-    @Override
-    public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException
+    /**
+     * Fetch a {@link ScanVisitor} which checks the files found by a {@link ScanEngine} walk. The visitor
+     * should be registered with the root directory of this scanner, and its results are available from
+     * {@link #getResults()} once the walk is complete.
+     *
+     * @return A new {@code ScanVisitor} for this scanner.
+     */
+    public ScanVisitor visitor()
     {
-        if (this.pruneDirectories.contains(dir))
+        return new ChecksumVisitor();
+    }
+
+    /**
+     * Fetch the results of the most recent scan.
+     *
+     * @return The {@link ScanResults} of the last scan, or {@code null} if no scan has been run.
+     */
+    public ScanResults getResults()
+    {
+        return this.results;
+    }
+
+    /**
+     * Prepare the results for a scan of the whole tree.
+     */
+    private void begin()
+    {
+        this.results = new ScanResults(this.checksums.entriesForPath(this.root));
+        this.hashed.set(0);
+    }
+
+    /**
+     * Complete a scan of the whole tree once every file has been checked.
+     */
+    private void complete()
+    {
+        // Pull out missing files that are suppressed
+        this.results.filterSuppressedEntries(this.checksums);
+
+        // Remove entries for missing files
+        this.checksums.removeAll(this.results.getMissingFiles());
+    }
+
+    /**
+     * Check a set of individual files, rather than the whole directory tree. Paths that no longer exist are
+     * reported as missing, along with any database entries under them, so a removed directory can be
+     * checked by its own path. A directory which still exists is walked, and its files are checked.
+     *
+     * @param files The files to check.
+     * @return A {@link ScanResults} object containing lists of changed, new, and deleted files.
+     */
+    public ScanResults scanFiles(final Collection<Path> files)
+    {
+        final Set<Path> known = new HashSet<>();
+        for (Path file : files) known.addAll(this.checksums.entriesForPath(file));
+
+        this.results = new ScanResults(known);
+        for (Path file : files)
         {
-            ChecksumDatabase.log.debug("Skipping directory: ", dir);
-            return FileVisitResult.SKIP_SUBTREE;
+            if (this.pruneDirectories.covers(file)) continue;
+            try
+            {
+                final FileStamp stamp = FileStamp.read(file);
+                if (stamp.isDirectory()) Files.walkFileTree(file, new HashSet<FileVisitOption>(), DirectoryScanner.MAX_DEPTH, this);
+                else this.checkFile(file, stamp);
+            }
+            catch (IOException e)
+            {
+                // Files which no longer exist are reported as missing from the known entries, but anything
+                // which is still there and just couldn't be read is left alone
+                if (Files.exists(file, LinkOption.NOFOLLOW_LINKS)) this.keepKnown(file, e);
+            }
         }
-        else if (dir.toString().endsWith(".bak"))
+
+        this.results.filterSuppressedEntries(this.checksums);
+        this.checksums.removeAll(this.results.getMissingFiles());
+
+        return this.results;
+    }
+
+    /**
+     * Walk the directory tree in parallel. This returns once every file has been checked.
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting for files to be hashed.
+     */
+    private void walkParallel() throws InterruptedException
+    {
+        final ForkJoinPool walkers = new ForkJoinPool(this.walkerThreads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("integrity-walk-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        final ThreadPoolExecutor hashers = this.createHashers();
+
+        try
         {
-            ChecksumDatabase.log.debug("Ignoring directory: {}", dir);
-            return FileVisitResult.SKIP_SUBTREE;
+            walkers.invoke(new WalkTask(this.root, 0, hashers));
+        }
+        finally
+        {
+            walkers.shutdown();
+            hashers.shutdown();
+        }
+
+        if (!hashers.awaitTermination(1, TimeUnit.DAYS)) ChecksumDatabase.log.warn("Gave up waiting for files to be hashed: {}", this.root);
+    }
+
+    /**
+     * Create the pool which hashes the files found by a walk. The pool has a bounded queue, and a walker
+     * which finds the queue full hashes the file itself, so the walk never runs far ahead of hashing.
+     *
+     * @return A new {@code ThreadPoolExecutor}.
+     */
+    private ThreadPoolExecutor createHashers()
+    {
+        return new ThreadPoolExecutor(this.hashThreads, this.hashThreads, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(this.hashQueueSize),
+                                      new ThreadFactoryBuilder().setNameFormat("integrity-hash-%d").setDaemon(true).build(),
+                                      new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Checks if a directory is permanently excluded from scans. Unlike {@link #isPruned(Path)}, this
+     * ignores directories which are only temporarily suppressed.
+     *
+     * @param dir The directory to check.
+     * @return {@code true} if the directory and everything under it are never scanned.
+     */
+    public boolean isExcluded(final Path dir)
+    {
+        return this.pruneDirectories.contains(dir) || dir.toString().endsWith(".bak");
+    }
+
+    /**
+     * Checks if a directory should be skipped by the scan.
+     *
+     * @param dir The directory to check.
+     * @return {@code true} if the directory and everything under it should be skipped.
+     */
+    protected boolean isPruned(final Path dir)
+    {
+        if (this.isExcluded(dir))
+        {
+            ChecksumDatabase.log.debug("Skipping directory: {}", dir);
+            return true;
         }
         else if (this.checksums.isSuppressed(dir))
         {
             ChecksumDatabase.log.debug("Suppressed directory: {}", dir);
-            return FileVisitResult.SKIP_SUBTREE;
+            return true;
         }
-        else return FileVisitResult.CONTINUE;
+        else return false;
     }
 
-    @Override
-    public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException
+    /**
+     * Check a single file against the database and report the outcome to the results. This is safe to
+     * call from several threads at once.
+     *
+     * @param file The file to check.
+     */
+    protected void checkFile(final Path file)
+    {
+        try
+        {
+            this.checkFile(file, FileStamp.read(file));
+        }
+        catch (IOException e)
+        {
+            // The file was removed or replaced while the scan was running
+            ChecksumDatabase.log.debug("Skipping file which changed during the scan: {}", file);
+        }
+    }
+
+    /**
+     * Check a single file whose stamp has already been read. This makes a single database lookup, and
+     * only touches the filesystem again if the file has to be hashed.
+     *
+     * @param file The file to check.
+     * @param stamp The current {@link FileStamp} of the file.
+     */
+    protected void checkFile(final Path file, final FileStamp stamp)
     {
         // Check to see if the file should be ignored
-        if (this.ignoreFiles.contains(file)) return FileVisitResult.CONTINUE;
+        if (this.ignoreFiles.contains(file)) return;
 
-        if (this.checksums.hasChecksum(file))
+        final ChecksumEntry entry = this.checksums.getEntry(file);
+        if (entry == null)
+        {
+            this.results.reportNew(file);
+            if (this.updateChecksums) this.checksums.update(file, this.hash(file, stamp));
+            else if (this.known != null) this.hash(file, stamp);
+        }
+        else
         {
             this.results.reportFound(file);
-            if (!this.checksums.check(file) && !this.checksums.isSuppressed(file))
+            if (stamp.equals(entry.getStamp()) && !this.isRehashed())
+            {
+                if (this.known != null && !this.known.matchesRecorded(file, entry.getDigest(), this.checksums.getAlgorithm()))
+                {
+                    this.results.reportUnverified(file);
+                }
+                return;
+            }
+
+            final ChecksumEntry current = this.hash(file, stamp);
+            if (Arrays.equals(current.getDigest(), entry.getDigest())) this.checksums.updateStamp(file, stamp);
+            else if (!this.checksums.isSuppressed(file))
             {
                 this.results.reportChanged(file);
-                if (this.updateChecksums) this.checksums.update(file);
+                if (this.updateChecksums) this.checksums.update(file, current);
             }
         }
-        else
+    }
+
+    /**
+     * Keep the known entries under a path which exists but could not be read, so they are not reported
+     * as missing.
+     *
+     * @param path The path which could not be read.
+     * @param cause The error raised while reading it.
+     */
+    private void keepKnown(final Path path, final IOException cause)
+    {
+        ChecksumDatabase.log.warn("Failed to check {}: {}", path, cause.getLocalizedMessage());
+        this.checksums.entriesForPath(path).forEach(this.results::reportFound);
+    }
+
+    /**
+     * Hash a file into a new database entry, and verify it against its official checksums.
+     *
+     * @param file The file to hash.
+     * @param stamp The {@link FileStamp} read before hashing the file.
+     * @return A new {@link ChecksumEntry} for the file.
+     */
+    private ChecksumEntry hash(final Path file, final FileStamp stamp)
+    {
+        this.hashed.incrementAndGet();
+        final ChecksumEntry entry = ChecksumEntry.of(this.checksums.calculateChecksum(file), stamp);
+        if (this.known != null && !this.known.matches(file, entry.getDigest(), this.checksums.getAlgorithm()))
         {
-            this.results.reportNew(file);
-            if (this.updateChecksums) this.checksums.update(file);
+            this.results.reportUnverified(file);
         }
+        return entry;
+    }
+
+    /**
+     * Decide whether a file with an unchanged stamp should be hashed anyway.
+     *
+     * @return {@code true} if the file should be hashed.
+     */
+    private boolean isRehashed()
+    {
+        return this.rehashAll || (this.rehashSample > 0 && ThreadLocalRandom.current().nextDouble() < this.rehashSample);
+    }
+
+    @Override
+    public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException
+    {
+        return this.isPruned(dir) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+    }
+
+    @Override
+    public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException
+    {
+        this.checkFile(file);
 
         return FileVisitResult.CONTINUE;
     }
+
+    @Override
+    public FileVisitResult visitFileFailed(final Path file, final IOException exc) throws IOException
+    {
+        // Files removed during the walk are left to be reported as missing
+        if (Files.exists(file, LinkOption.NOFOLLOW_LINKS)) this.keepKnown(file, exc);
+
+        return FileVisitResult.CONTINUE;
+    }
+
+    @Override
+    public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) throws IOException
+    {
+        if (exc != null) this.keepKnown(dir, exc);
+
+        return FileVisitResult.CONTINUE;
+    }
+
+    /**
+     * A {@code ChecksumVisitor} checks the files found by a {@link ScanEngine} walk, using the stamps read
+     * by the walk. It prunes the same directories as the scanner's own walk. Files are handed to the same
+     * kind of bounded hashing pool as the scanner's own walk, so hashing doesn't hold up the walker threads.
+     */
+    private final class ChecksumVisitor implements ScanVisitor
+    {
+        private ThreadPoolExecutor hashers;
+
+        @Override
+        public void start()
+        {
+            DirectoryScanner.this.begin();
+            this.hashers = DirectoryScanner.this.createHashers();
+        }
+
+        @Override
+        public boolean isPruned(final Path dir)
+        {
+            if (!dir.equals(DirectoryScanner.this.root) &&
+                DirectoryScanner.this.root.relativize(dir).getNameCount() >= DirectoryScanner.MAX_DEPTH) return true;
+
+            return DirectoryScanner.this.isPruned(dir);
+        }
+
+        @Override
+        public void visitFile(final Path file, final ScanEntry entry)
+        {
+            this.hashers.execute(() -> DirectoryScanner.this.checkFile(file, entry.getStamp()));
+        }
+
+        @Override
+        public void visitFailed(final Path path, final IOException cause)
+        {
+            DirectoryScanner.this.keepKnown(path, cause);
+        }
+
+        @Override
+        public void finish()
+        {
+            this.hashers.shutdown();
+            try
+            {
+                if (!this.hashers.awaitTermination(1, TimeUnit.DAYS)) ChecksumDatabase.log.warn("Gave up waiting for files to be hashed: {}", DirectoryScanner.this.root);
+            }
+            catch (InterruptedException e)
+            {
+                // Files which were never checked would be reported as missing, so the scan is abandoned
+                ChecksumDatabase.log.warn("Interrupted while scanning: {}", DirectoryScanner.this.root);
+                this.hashers.shutdownNow();
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            DirectoryScanner.this.complete();
+        }
+
+        @Override
+        public long getOperationCount()
+        {
+            return DirectoryScanner.this.hashed.get();
+        }
+    }
+
+    /**
+     * A {@code WalkTask} walks a single directory. Each subdirectory is walked by a forked task, and each
+     * file is handed to the hashing pool.
+     */
+    private final class WalkTask extends RecursiveAction
+    {
+        private final Path dir;
+        private final int depth;
+        private final ThreadPoolExecutor hashers;
+
+        private WalkTask(final Path dir, final int depth, final ThreadPoolExecutor hashers)
+        {
+            super();
+
+            this.dir = dir;
+            this.depth = depth;
+            this.hashers = hashers;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (DirectoryScanner.this.isPruned(this.dir)) return;
+
+            final List<WalkTask> subtrees = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(this.dir))
+            {
+                for (Path entry : entries)
+                {
+                    // A single stat gives both the type of the entry and the stamp used to check it
+                    final FileStamp stamp;
+                    try
+                    {
+                        stamp = FileStamp.read(entry);
+                    }
+                    catch (IOException e)
+                    {
+                        // Entries removed during the walk are left to be reported as missing
+                        if (Files.exists(entry, LinkOption.NOFOLLOW_LINKS)) DirectoryScanner.this.keepKnown(entry, e);
+                        continue;
+                    }
+
+                    if (stamp.isDirectory())
+                    {
+                        if (this.depth + 1 < DirectoryScanner.MAX_DEPTH) subtrees.add(new WalkTask(entry, this.depth + 1, this.hashers));
+                    }
+                    else this.hashers.execute(() -> DirectoryScanner.this.checkFile(entry, stamp));
+                }
+            }
+            catch (IOException e)
+            {
+                DirectoryScanner.this.keepKnown(this.dir, e);
+            }
+            catch (DirectoryIteratorException e)
+            {
+                DirectoryScanner.this.keepKnown(this.dir, e.getCause());
+            }
+
+            ForkJoinTask.invokeAll(subtrees);
+        }
+    }
 }
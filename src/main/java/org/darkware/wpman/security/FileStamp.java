@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@code FileStamp} is a snapshot of the filesystem metadata of a file: its size, modification time,
+ * status change time and inode number. If the stamp of a file matches the stamp recorded when it was last
+ * hashed, the contents of the file are assumed to be unchanged. Rewriting a file changes its modification
+ * time, and even when that is reset, the status change time and inode still catch replaced files.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public final class FileStamp
+{
+    /** The attributes read from the unix attribute view, when it is available. */
+    private static final String UNIX_ATTRIBUTES = "unix:size,lastModifiedTime,ctime,ino,isDirectory";
+
+    /**
+     * Read the current stamp of the given file. Symbolic links are not followed. Directories can be stamped
+     * too, which lets a directory walk read the type and the stamp of each entry in one call.
+     *
+     * @param file The file to read the stamp of.
+     * @return A new {@code FileStamp} for the file.
+     * @throws IOException If the file attributes could not be read.
+     */
+    public static FileStamp read(final Path file) throws IOException
+    {
+        try
+        {
+            Map<String, Object> attrs = Files.readAttributes(file, FileStamp.UNIX_ATTRIBUTES, LinkOption.NOFOLLOW_LINKS);
+            return new FileStamp((Long) attrs.get("size"),
+                                 ((FileTime) attrs.get("lastModifiedTime")).to(TimeUnit.NANOSECONDS),
+                                 ((FileTime) attrs.get("ctime")).to(TimeUnit.NANOSECONDS),
+                                 (Long) attrs.get("ino"),
+                                 (Boolean) attrs.get("isDirectory"));
+        }
+        catch (UnsupportedOperationException | IllegalArgumentException e)
+        {
+            // Without the unix view, fall back to the portable attributes
+            BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            long modified = attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+            long inode = (attrs.fileKey() == null) ? 0 : attrs.fileKey().hashCode();
+            return new FileStamp(attrs.size(), modified, modified, inode, attrs.isDirectory());
+        }
+    }
+
+    /**
+     * Parse a stamp from the form produced by {@link #toString()}.
+     *
+     * @param text The text to parse.
+     * @return The parsed {@code FileStamp}.
+     * @throws IllegalArgumentException If the text is not a valid stamp.
+     */
+    public static FileStamp parse(final String text)
+    {
+        String[] fields = text.split(",");
+        if (fields.length != 4) throw new IllegalArgumentException("Malformed file stamp: " + text);
+
+        try
+        {
+            return new FileStamp(Long.parseLong(fields[0]), Long.parseLong(fields[1]),
+                                 Long.parseLong(fields[2]), Long.parseLong(fields[3]));
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IllegalArgumentException("Malformed file stamp: " + text, e);
+        }
+    }
+
+    private final long size;
+    private final long modified;
+    private final long changed;
+    private final long inode;
+    private final boolean directory;
+
+    /**
+     * Create a new {@code FileStamp}.
+     *
+     * @param size The size of the file, in bytes.
+     * @param modified The modification time of the file, in nanoseconds since the epoch.
+     * @param changed The status change time of the file, in nanoseconds since the epoch.
+     * @param inode The inode number of the file.
+     */
+    public FileStamp(final long size, final long modified, final long changed, final long inode)
+    {
+        this(size, modified, changed, inode, false);
+    }
+
+    /**
+     * Create a new {@code FileStamp} for a file or directory.
+     *
+     * @param size The size of the file, in bytes.
+     * @param modified The modification time of the file, in nanoseconds since the epoch.
+     * @param changed The status change time of the file, in nanoseconds since the epoch.
+     * @param inode The inode number of the file.
+     * @param directory {@code true} if the stamp was read from a directory.
+     */
+    private FileStamp(final long size, final long modified, final long changed, final long inode, final boolean directory)
+    {
+        super();
+
+        this.size = size;
+        this.modified = modified;
+        this.changed = changed;
+        this.inode = inode;
+        this.directory = directory;
+    }
+
+    /**
+     * Fetch the size of the file.
+     *
+     * @return The size, in bytes.
+     */
+    public long getSize()
+    {
+        return this.size;
+    }
+
+    /**
+     * Fetch the modification time of the file.
+     *
+     * @return The modification time, in nanoseconds since the epoch.
+     */
+    public long getModified()
+    {
+        return this.modified;
+    }
+
+    /**
+     * Fetch the status change time of the file.
+     *
+     * @return The status change time, in nanoseconds since the epoch.
+     */
+    public long getChanged()
+    {
+        return this.changed;
+    }
+
+    /**
+     * Fetch the inode number of the file.
+     *
+     * @return The inode number.
+     */
+    public long getInode()
+    {
+        return this.inode;
+    }
+
+    /**
+     * Check if the stamp was read from a directory. This is only known for stamps read from the
+     * filesystem, and is not part of the stored form or of stamp equality.
+     *
+     * @return {@code true} if the stamp was read from a directory.
+     */
+    public boolean isDirectory()
+    {
+        return this.directory;
+    }
+
+    @Override
+    public boolean equals(final Object o)
+    {
+        if (this == o) return true;
+        if (!(o instanceof FileStamp)) return false;
+
+        final FileStamp other = (FileStamp) o;
+        return this.size == other.size && this.modified == other.modified &&
+               this.changed == other.changed && this.inode == other.inode;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int result = Long.hashCode(this.size);
+        result = 31 * result + Long.hashCode(this.modified);
+        result = 31 * result + Long.hashCode(this.changed);
+        result = 31 * result + Long.hashCode(this.inode);
+        return result;
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.size + "," + this.modified + "," + this.changed + "," + this.inode;
+    }
+}
@@ -0,0 +1,245 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An {@code IntegrityWatcher} watches a directory tree for file changes between integrity scans. Every
+ * directory under the root is registered with a {@link WatchService}, except those excluded by a
+ * {@link DirectoryScanner}, and new directories are registered as they appear.
+ * <p>
+ * Changed paths are held until they have gone without further changes for the debounce time, so a file
+ * being written, or a directory being unpacked, is checked once rather than once per write. If the watch
+ * service drops events, the watcher records an overflow, and the caller should fall back to a full scan.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class IntegrityWatcher implements Closeable
+{
+    private final DirectoryScanner rules;
+    private final WatchService watcher;
+    private final Map<WatchKey, Path> directories;
+    private final LinkedHashMap<Path, Long> pending;
+    private final long debounce;
+    private final int batchSize;
+    private boolean overflowed;
+
+    /**
+     * Create a new {@code IntegrityWatcher} and register every directory under the root.
+     *
+     * @param root The root of the directory tree to watch.
+     * @param rules The {@link DirectoryScanner} which declares the directories to exclude.
+     * @param debounce The time a path must go without changes before it is ready to check.
+     * @param batchSize The largest number of paths returned by {@link #takeReady()}.
+     * @throws IOException If the watch service could not be created.
+     */
+    public IntegrityWatcher(final Path root, final DirectoryScanner rules, final Duration debounce, final int batchSize) throws IOException
+    {
+        super();
+
+        this.rules = rules;
+        this.watcher = root.getFileSystem().newWatchService();
+        this.directories = new HashMap<>();
+        this.pending = new LinkedHashMap<>();
+        this.debounce = debounce.toNanos();
+        this.batchSize = Math.max(1, batchSize);
+
+        this.register(root, false);
+    }
+
+    /**
+     * Register a directory and all of its subdirectories with the watch service.
+     *
+     * @param dir The directory to register.
+     * @param queueFiles {@code true} if the files found should be queued as changed. This is used for new
+     * directories, whose files may have been written before the directory was registered.
+     * @throws IOException If the directory could not be walked.
+     */
+    private void register(final Path dir, final boolean queueFiles) throws IOException
+    {
+        Files.walkFileTree(dir, EnumSet.noneOf(FileVisitOption.class), Integer.MAX_VALUE, new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult preVisitDirectory(final Path subdir, final BasicFileAttributes attrs) throws IOException
+            {
+                if (IntegrityWatcher.this.rules.isExcluded(subdir)) return FileVisitResult.SKIP_SUBTREE;
+
+                WatchKey key = subdir.register(IntegrityWatcher.this.watcher,
+                                               StandardWatchEventKinds.ENTRY_CREATE,
+                                               StandardWatchEventKinds.ENTRY_DELETE,
+                                               StandardWatchEventKinds.ENTRY_MODIFY);
+                IntegrityWatcher.this.directories.put(key, subdir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException
+            {
+                if (queueFiles) IntegrityWatcher.this.queue(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(final Path file, final IOException exc) throws IOException
+            {
+                // Files removed during the walk will show up as deletion events
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Mark a path as changed, restarting its debounce time.
+     *
+     * @param path The changed path.
+     */
+    private void queue(final Path path)
+    {
+        // Reinserting keeps the pending paths in order of their last change
+        this.pending.remove(path);
+        this.pending.put(path, System.nanoTime());
+    }
+
+    /**
+     * Collect all events waiting in the watch service. This does not block.
+     */
+    public synchronized void poll()
+    {
+        WatchKey key;
+        while ((key = this.watcher.poll()) != null)
+        {
+            final Path dir = this.directories.get(key);
+            for (WatchEvent<?> event : key.pollEvents())
+            {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+                {
+                    this.overflowed = true;
+                    continue;
+                }
+                if (dir == null) continue;
+
+                final Path path = dir.resolve((Path) event.context());
+
+                // Modifying a directory only changes its own metadata, such as its permissions. Changes to
+                // its entries raise their own events.
+                if (event.kind() == StandardWatchEventKinds.ENTRY_MODIFY && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) continue;
+
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS))
+                {
+                    if (this.rules.isExcluded(path)) continue;
+                    try
+                    {
+                        this.register(path, true);
+                    }
+                    catch (IOException e)
+                    {
+                        ChecksumDatabase.log.warn("Failed to watch new directory {}: {}", path, e.getLocalizedMessage());
+                        this.overflowed = true;
+                    }
+                }
+                else this.queue(path);
+            }
+
+            if (!key.reset()) this.directories.remove(key);
+        }
+    }
+
+    /**
+     * Take the changed paths which have gone without further changes for the debounce time, up to the
+     * batch size. Removed directories are returned by their own path.
+     *
+     * @return A {@code Set} of changed paths, which may be empty.
+     */
+    public synchronized Set<Path> takeReady()
+    {
+        final long cutoff = System.nanoTime() - this.debounce;
+        final Set<Path> ready = new HashSet<>();
+
+        final Iterator<Map.Entry<Path, Long>> entries = this.pending.entrySet().iterator();
+        while (entries.hasNext() && ready.size() < this.batchSize)
+        {
+            final Map.Entry<Path, Long> entry = entries.next();
+            if (entry.getValue() - cutoff > 0) break;
+
+            ready.add(entry.getKey());
+            entries.remove();
+        }
+
+        return ready;
+    }
+
+    /**
+     * Check if any events were lost since the last call, and clear the flag.
+     *
+     * @return {@code true} if events were lost and a full scan is needed.
+     */
+    public synchronized boolean takeOverflow()
+    {
+        final boolean lost = this.overflowed;
+        this.overflowed = false;
+        return lost;
+    }
+
+    /**
+     * Fetch the number of directories being watched.
+     *
+     * @return The watched directory count.
+     */
+    public synchronized int getWatchCount()
+    {
+        return this.directories.size();
+    }
+
+    /**
+     * Fetch the number of changed paths waiting to be checked.
+     *
+     * @return The pending path count.
+     */
+    public synchronized int getPendingCount()
+    {
+        return this.pending.size();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        this.watcher.close();
+    }
+}
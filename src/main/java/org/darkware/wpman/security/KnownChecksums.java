@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import com.google.common.io.BaseEncoding;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@code KnownChecksums} is an index of the official checksums of the installed WordPress core and
+ * plugin files, built from {@link ChecksumManifest ChecksumManifests}. Unlike the {@link ChecksumDatabase},
+ * which only knows what a file looked like when it was last scanned, this can show that a file was never
+ * what WordPress.org shipped, even if it was already there on the first scan.
+ * <p>
+ * Checksums are indexed by file path, so a {@link DirectoryScanner} can verify a file it has just hashed
+ * with a single lookup. When the database uses SHA-256 and the manifest has SHA-256 checksums, the digest
+ * the scan already calculated is compared directly. Otherwise the file is hashed again with the algorithm
+ * of the manifest. Directories which should only hold official files are also tracked, so that files added
+ * to them are caught as well.
+ * <p>
+ * An index is built once and then only read, so it can be shared by the threads of a scan.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class KnownChecksums
+{
+    private static final BaseEncoding HEX = BaseEncoding.base16().lowerCase();
+
+    private final Map<Path, ChecksumManifest.FileChecksums> files;
+    private final PathTrie listedOnly;
+
+    /**
+     * Create a new, empty {@code KnownChecksums} index.
+     */
+    public KnownChecksums()
+    {
+        super();
+
+        this.files = new HashMap<>();
+        this.listedOnly = new PathTrie();
+    }
+
+    /**
+     * Add the checksums of WordPress core. Files under {@code wp-content} are skipped, since bundled
+     * plugins and themes are updated separately from core. The {@code wp-admin} and {@code wp-includes}
+     * directories may only hold files listed in the manifest.
+     *
+     * @param root The root directory of the WordPress installation.
+     * @param manifest The core {@link ChecksumManifest}.
+     */
+    public void addCore(final Path root, final ChecksumManifest manifest)
+    {
+        for (Map.Entry<String, ChecksumManifest.FileChecksums> file : manifest.getFiles().entrySet())
+        {
+            if (file.getKey().startsWith("wp-content/")) continue;
+            this.files.put(root.resolve(file.getKey()), file.getValue());
+        }
+
+        this.listedOnly.add(root.resolve("wp-admin"));
+        this.listedOnly.add(root.resolve("wp-includes"));
+    }
+
+    /**
+     * Add the checksums of a plugin. The plugin directory may only hold files listed in the manifest.
+     *
+     * @param pluginDir The directory the plugin is installed in.
+     * @param manifest The plugin {@link ChecksumManifest}.
+     */
+    public void addPlugin(final Path pluginDir, final ChecksumManifest manifest)
+    {
+        for (Map.Entry<String, ChecksumManifest.FileChecksums> file : manifest.getFiles().entrySet())
+        {
+            this.files.put(pluginDir.resolve(file.getKey()), file.getValue());
+        }
+
+        this.listedOnly.add(pluginDir);
+    }
+
+    /**
+     * Fetch the number of files with official checksums.
+     *
+     * @return The number of indexed files.
+     */
+    public int size()
+    {
+        return this.files.size();
+    }
+
+    /**
+     * Check a file against its official checksums.
+     *
+     * @param file The file to check.
+     * @param digest The digest of the file, as calculated by the database.
+     * @param algorithm The {@link ChecksumAlgorithm} of the digest.
+     * @return {@code false} if the file has official checksums and doesn't match them, or if it isn't
+     * listed in a directory which may only hold listed files. Otherwise {@code true}, including for files
+     * that aren't covered by any manifest.
+     */
+    public boolean matches(final Path file, final byte[] digest, final ChecksumAlgorithm algorithm)
+    {
+        final ChecksumManifest.FileChecksums expected = this.files.get(file);
+        if (expected == null) return !this.listedOnly.covers(file);
+
+        try
+        {
+            if (!expected.getSha256().isEmpty())
+            {
+                // Reuse the digest from the scan when it's the same algorithm
+                final String sha256 = (algorithm == ChecksumAlgorithm.SHA256 && digest != null)
+                                      ? KnownChecksums.HEX.encode(digest)
+                                      : KnownChecksums.digestFile(file, "SHA-256");
+                return expected.getSha256().contains(sha256);
+            }
+            if (!expected.getMd5().isEmpty()) return expected.getMd5().contains(KnownChecksums.digestFile(file, "MD5"));
+
+            return true;
+        }
+        catch (IOException e)
+        {
+            // The file was removed or replaced, and will be checked on a later scan
+            ChecksumDatabase.log.debug("Failed to verify {} against its official checksum: {}", file, e.getLocalizedMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Check a file against its official checksums using a digest recorded by an earlier scan, without
+     * reading the file. Only SHA-256 digests can be compared this way.
+     *
+     * @param file The file to check.
+     * @param digest The recorded digest of the file.
+     * @param algorithm The {@link ChecksumAlgorithm} of the digest.
+     * @return {@code false} if the digest doesn't match the official SHA-256 checksums of the file, or if
+     * the file isn't listed in a directory which may only hold listed files. Otherwise {@code true},
+     * including for files whose official checksums can't be compared to the digest.
+     */
+    public boolean matchesRecorded(final Path file, final byte[] digest, final ChecksumAlgorithm algorithm)
+    {
+        final ChecksumManifest.FileChecksums expected = this.files.get(file);
+        if (expected == null) return !this.listedOnly.covers(file);
+        if (algorithm != ChecksumAlgorithm.SHA256 || digest == null || expected.getSha256().isEmpty()) return true;
+
+        return expected.getSha256().contains(KnownChecksums.HEX.encode(digest));
+    }
+
+    /**
+     * Calculate the digest of a file.
+     *
+     * @param file The file to hash.
+     * @param algorithm The name of the {@link MessageDigest} algorithm to use.
+     * @return The digest as lower case hex.
+     * @throws IOException If the file could not be read.
+     */
+    private static String digestFile(final Path file, final String algorithm) throws IOException
+    {
+        final MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance(algorithm);
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            // Every Java platform is required to support MD5 and SHA-256
+            throw new IllegalStateException(e);
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            final ByteBuffer block = ByteBuffer.allocate(64 * 1024);
+            while (channel.read(block) != -1)
+            {
+                block.flip();
+                digest.update(block);
+                block.clear();
+            }
+        }
+
+        return KnownChecksums.HEX.encode(digest.digest());
+    }
+}
@@ -0,0 +1,389 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * A {@code ManifestCache} fetches {@link ChecksumManifest ChecksumManifests} from WordPress.org and keeps
+ * them in a local directory, keyed by slug and version. Released versions never change, so a manifest is
+ * only downloaded once. Versions with no published checksums, such as plugins which aren't hosted on
+ * WordPress.org, are remembered for a day so they aren't requested on every scan. Failed downloads are
+ * retried after an hour. A download is only added to the cache once it parses as a manifest.
+ * <p>
+ * Core releases are only published with checksums for some locales. If a locale has none, the checksums
+ * of the {@code en_US} release are used instead.
+ * <p>
+ * The cache also holds the most recent {@link KnownChecksums} index built from its manifests, so that
+ * several agents can share it.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class ManifestCache
+{
+    /** The characters allowed in slugs, versions and locales, which become part of cache file names. */
+    private static final Pattern SAFE_NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._+-]*");
+    /** The time before a version with no published checksums is requested again. */
+    private static final Duration MISSING_RETRY = Duration.ofDays(1);
+    /** The time before a manifest which failed to download is requested again. */
+    private static final Duration FAILURE_RETRY = Duration.ofHours(1);
+    /** The locale whose core checksums are used when a locale has none of its own. */
+    private static final String DEFAULT_LOCALE = "en_US";
+    /** The timeouts for connecting to WordPress.org and waiting for data. */
+    private static final RequestConfig REQUEST_CONFIG = RequestConfig.custom().setConnectTimeout(10000)
+                                                                     .setConnectionRequestTimeout(10000)
+                                                                     .setSocketTimeout(30000).build();
+
+    private final Path cacheDir;
+    private final Map<String, ChecksumManifest> manifests;
+    private volatile KnownChecksums current;
+
+    /**
+     * Create a new {@code ManifestCache} which stores manifests in the given directory.
+     *
+     * @param cacheDir The directory to store manifests in.
+     */
+    public ManifestCache(final Path cacheDir)
+    {
+        super();
+
+        this.cacheDir = cacheDir;
+        this.manifests = new ConcurrentHashMap<>();
+        this.current = new KnownChecksums();
+    }
+
+    /**
+     * Fetch the manifest for a release of WordPress core.
+     *
+     * @param version The core version.
+     * @param locale The locale of the installation.
+     * @return The {@link ChecksumManifest}, or {@code null} if it isn't available. The {@code en_US}
+     * manifest is returned if the locale has no published checksums.
+     */
+    public ChecksumManifest getCore(final String version, final String locale)
+    {
+        if (!ManifestCache.isSafe(version) || !ManifestCache.isSafe(locale)) return null;
+
+        try
+        {
+            final URI source = new URIBuilder().setScheme("https").setHost("api.wordpress.org").setPath("/core/checksums/1.0/")
+                                               .addParameter("version", version).addParameter("locale", locale).build();
+            final String name = "core/" + version + "-" + locale;
+            final ChecksumManifest manifest = this.get(name, source, in -> ChecksumManifest.parseCore(version, in));
+            if (manifest != null || locale.equals(ManifestCache.DEFAULT_LOCALE) || !this.isUnpublished(name)) return manifest;
+
+            ChecksumDatabase.log.debug("No core checksums for locale {}, using {}", locale, ManifestCache.DEFAULT_LOCALE);
+            return this.getCore(version, ManifestCache.DEFAULT_LOCALE);
+        }
+        catch (URISyntaxException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Fetch the manifest for a release of a plugin.
+     *
+     * @param slug The slug of the plugin.
+     * @param version The plugin version.
+     * @return The {@link ChecksumManifest}, or {@code null} if it isn't available.
+     */
+    public ChecksumManifest getPlugin(final String slug, final String version)
+    {
+        if (!ManifestCache.isSafe(slug) || !ManifestCache.isSafe(version)) return null;
+
+        try
+        {
+            final URI source = new URIBuilder().setScheme("https").setHost("downloads.wordpress.org")
+                                               .setPath("/plugin-checksums/" + slug + "/" + version + ".json").build();
+            return this.get("plugins/" + slug + "/" + version, source, in -> ChecksumManifest.parsePlugin(slug, version, in));
+        }
+        catch (URISyntaxException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Build a new {@link KnownChecksums} index for an installation, and make it the current index.
+     * Components without an available manifest are left out.
+     *
+     * @param root The root directory of the WordPress installation.
+     * @param coreVersion The installed core version.
+     * @param locale The locale of the installation.
+     * @param pluginDir The directory plugins are installed in.
+     * @param plugins The installed plugin versions, indexed by slug.
+     * @return The new {@code KnownChecksums}.
+     */
+    public KnownChecksums index(final Path root, final String coreVersion, final String locale, final Path pluginDir,
+                                final Map<String, String> plugins)
+    {
+        final KnownChecksums known = new KnownChecksums();
+
+        final ChecksumManifest core = this.getCore(coreVersion, locale);
+        if (core != null) known.addCore(root, core);
+
+        for (Map.Entry<String, String> plugin : plugins.entrySet())
+        {
+            final ChecksumManifest manifest = this.getPlugin(plugin.getKey(), plugin.getValue());
+            if (manifest != null) known.addPlugin(pluginDir.resolve(plugin.getKey()), manifest);
+        }
+
+        this.current = known;
+        return known;
+    }
+
+    /**
+     * Fetch the most recent index built by {@link #index(Path, String, String, Path, Map)}.
+     *
+     * @return The current {@link KnownChecksums}, which is empty if no index has been built.
+     */
+    public KnownChecksums getCurrent()
+    {
+        return this.current;
+    }
+
+    /**
+     * Fetch a manifest from memory, from the cache directory, or from WordPress.org, in that order.
+     * Downloads which fail, or which don't hold a valid manifest, are not requested again until their
+     * back-off time has passed.
+     *
+     * @param name The name of the manifest in the cache.
+     * @param source The location to download the manifest from.
+     * @param parser The parser for the manifest data.
+     * @return The {@link ChecksumManifest}, or {@code null} if it isn't available.
+     */
+    private ChecksumManifest get(final String name, final URI source, final ManifestParser parser)
+    {
+        final ChecksumManifest cached = this.manifests.get(name);
+        if (cached != null) return cached;
+
+        final Path file = this.cacheDir.resolve(name + ".json");
+        if (Files.exists(file))
+        {
+            try
+            {
+                return this.load(name, file, parser);
+            }
+            catch (IOException e)
+            {
+                ChecksumDatabase.log.warn("Discarding unreadable checksum manifest {}: {}", name, e.getLocalizedMessage());
+            }
+        }
+
+        final Path missing = this.cacheDir.resolve(name + ".missing");
+        final Path failed = this.cacheDir.resolve(name + ".failed");
+        if (this.isUnpublished(name) || ManifestCache.isBackingOff(failed, ManifestCache.FAILURE_RETRY)) return null;
+
+        final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try
+        {
+            Files.createDirectories(file.getParent());
+            if (!this.download(source, temp))
+            {
+                ManifestCache.mark(missing);
+                return null;
+            }
+
+            final ChecksumManifest manifest;
+            try
+            {
+                manifest = this.load(name, temp, parser);
+            }
+            catch (IOException e)
+            {
+                ChecksumDatabase.log.info("No usable checksums in manifest {}: {}", name, e.getLocalizedMessage());
+                ManifestCache.mark(missing);
+                return null;
+            }
+
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return manifest;
+        }
+        catch (IOException e)
+        {
+            ChecksumDatabase.log.warn("Failed to download checksum manifest {}: {}", name, e.getLocalizedMessage());
+            ManifestCache.mark(failed);
+            return null;
+        }
+        finally
+        {
+            ManifestCache.deleteQuietly(temp);
+        }
+    }
+
+    /**
+     * Parse a manifest file and keep it in memory.
+     *
+     * @param name The name of the manifest in the cache.
+     * @param file The file to parse.
+     * @param parser The parser for the manifest data.
+     * @return The parsed {@link ChecksumManifest}.
+     * @throws IOException If the file could not be read, or does not hold a valid manifest.
+     */
+    private ChecksumManifest load(final String name, final Path file, final ManifestParser parser) throws IOException
+    {
+        try (InputStream in = Files.newInputStream(file))
+        {
+            final ChecksumManifest manifest = parser.parse(in);
+            this.manifests.put(name, manifest);
+            return manifest;
+        }
+    }
+
+    /**
+     * Download a manifest to a file.
+     *
+     * @param source The location to download the manifest from.
+     * @param target The file to write.
+     * @return {@code true} if the manifest was downloaded, or {@code false} if it isn't published.
+     * @throws IOException If the manifest could not be downloaded or written.
+     */
+    protected boolean download(final URI source, final Path target) throws IOException
+    {
+        ChecksumDatabase.log.info("Downloading checksum manifest: {}", source);
+
+        try (CloseableHttpClient client = HttpClients.custom().setDefaultRequestConfig(ManifestCache.REQUEST_CONFIG).build();
+             CloseableHttpResponse response = client.execute(new HttpGet(source)))
+        {
+            final int status = response.getStatusLine().getStatusCode();
+            if (status == HttpStatus.SC_NOT_FOUND) return false;
+            if (status != HttpStatus.SC_OK) throw new IOException("Unexpected response: " + response.getStatusLine());
+
+            try (OutputStream out = Files.newOutputStream(target))
+            {
+                response.getEntity().writeTo(out);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Checks if a manifest was recently found to have no published checksums.
+     *
+     * @param name The name of the manifest in the cache.
+     * @return {@code true} if the manifest is unpublished, {@code false} if it is available or failed to
+     * download.
+     */
+    private boolean isUnpublished(final String name)
+    {
+        return ManifestCache.isBackingOff(this.cacheDir.resolve(name + ".missing"), ManifestCache.MISSING_RETRY);
+    }
+
+    /**
+     * Checks if a back-off marker was written within the given time.
+     *
+     * @param marker The marker file.
+     * @param retry The time to back off for.
+     * @return {@code true} if the marker exists and has not yet expired.
+     */
+    private static boolean isBackingOff(final Path marker, final Duration retry)
+    {
+        try
+        {
+            return Files.getLastModifiedTime(marker).toInstant().plus(retry).isAfter(Instant.now());
+        }
+        catch (IOException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Write a back-off marker, which starts the back-off time from now.
+     *
+     * @param marker The marker file.
+     */
+    private static void mark(final Path marker)
+    {
+        try
+        {
+            Files.deleteIfExists(marker);
+            Files.createFile(marker);
+        }
+        catch (IOException e)
+        {
+            ChecksumDatabase.log.warn("Failed to write checksum manifest marker {}: {}", marker, e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Delete a file, ignoring any error.
+     *
+     * @param file The file to delete.
+     */
+    private static void deleteQuietly(final Path file)
+    {
+        try
+        {
+            Files.deleteIfExists(file);
+        }
+        catch (IOException e)
+        {
+            // Nothing to clean up
+        }
+    }
+
+    /**
+     * Checks if a name is safe to use as part of a cache file name and a download location.
+     *
+     * @param name The name to check.
+     * @return {@code true} if the name is safe.
+     */
+    private static boolean isSafe(final String name)
+    {
+        return name != null && ManifestCache.SAFE_NAME.matcher(name).matches() && !name.contains("..");
+    }
+
+    /**
+     * A {@code ManifestParser} reads a single kind of manifest.
+     */
+    @FunctionalInterface
+    private interface ManifestParser
+    {
+        /**
+         * Parse a manifest.
+         *
+         * @param in The manifest data.
+         * @return The parsed {@link ChecksumManifest}.
+         * @throws IOException If the data could not be parsed.
+         */
+        ChecksumManifest parse(InputStream in) throws IOException;
+    }
+}
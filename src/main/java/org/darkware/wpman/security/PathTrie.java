@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@code PathTrie} is a set of paths stored by their name elements, so checking whether a path or one of
+ * its ancestors is in the set takes one map probe per element of the path, no matter how many paths the
+ * set holds.
+ * <p>
+ * Lookups don't lock and are safe to run while paths are being added or removed. Changes are serialized,
+ * and a lookup running during a change sees the set either before or after it. Removed paths leave their nodes behind, which is harmless for
+ * the small, slowly changing sets of suppressed and pruned paths this holds.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+final class PathTrie
+{
+    private final Node top;
+    private volatile int size;
+
+    /**
+     * Create a new, empty {@code PathTrie}.
+     */
+    PathTrie()
+    {
+        super();
+
+        this.top = new Node();
+    }
+
+    /**
+     * Add a path to the set.
+     *
+     * @param path The path to add.
+     */
+    synchronized void add(final Path path)
+    {
+        Node node = this.top.child(path.getRoot(), true);
+        for (Path name : path) node = node.child(name, true);
+
+        if (!node.member)
+        {
+            node.member = true;
+            this.size++;
+        }
+    }
+
+    /**
+     * Remove a path from the set. Paths under it are not affected.
+     *
+     * @param path The path to remove.
+     */
+    synchronized void remove(final Path path)
+    {
+        final Node node = this.find(path, false);
+        if (node != null && node.member)
+        {
+            node.member = false;
+            this.size--;
+        }
+    }
+
+    /**
+     * Check if the exact path is in the set.
+     *
+     * @param path The path to check.
+     * @return {@code true} if the path was added, otherwise {@code false}.
+     */
+    boolean contains(final Path path)
+    {
+        if (this.size == 0) return false;
+
+        final Node node = this.find(path, false);
+        return node != null && node.member;
+    }
+
+    /**
+     * Check if the path or any of its ancestors is in the set.
+     *
+     * @param path The path to check.
+     * @return {@code true} if the path is covered by an entry in the set, otherwise {@code false}.
+     */
+    boolean covers(final Path path)
+    {
+        if (this.size == 0) return false;
+
+        return this.find(path, true) != null;
+    }
+
+    /**
+     * Fetch the number of paths in the set.
+     *
+     * @return The number of paths.
+     */
+    int size()
+    {
+        return this.size;
+    }
+
+    /**
+     * Walk down the trie along the elements of a path.
+     *
+     * @param path The path to follow.
+     * @param firstMember {@code true} if the walk should stop at the first node which is in the set.
+     * @return The node for the path, or the first member node if requested, or {@code null} if the walk
+     * left the trie.
+     */
+    private Node find(final Path path, final boolean firstMember)
+    {
+        Node node = this.top.child(path.getRoot(), false);
+        if (node == null || (firstMember && node.member)) return node;
+
+        final int count = path.getNameCount();
+        for (int i = 0; i < count; i++)
+        {
+            node = node.child(path.getName(i), false);
+            if (node == null || (firstMember && node.member)) return node;
+        }
+
+        return firstMember ? null : node;
+    }
+
+    /**
+     * A {@code Node} is a single path element in the trie.
+     */
+    private static final class Node
+    {
+        /** The key used for the root of relative paths, which have no root element. */
+        private static final Object RELATIVE = new Object();
+
+        private final Map<Object, Node> children = new ConcurrentHashMap<>();
+        private volatile boolean member;
+
+        /**
+         * Fetch the child node for a path element.
+         *
+         * @param name The path element, or {@code null} for the root of a relative path.
+         * @param create {@code true} if a missing child should be created.
+         * @return The child node, or {@code null} if it doesn't exist and wasn't created.
+         */
+        private Node child(final Path name, final boolean create)
+        {
+            final Object key = (name == null) ? Node.RELATIVE : name;
+            if (create) return this.children.computeIfAbsent(key, k -> new Node());
+            return this.children.get(key);
+        }
+    }
+}
@@ -0,0 +1,466 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import org.darkware.wpman.WPManager;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.GroupPrincipal;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@code PermissionCloner} clones the owner, group and permissions of a base directory down to all the
+ * files and directories beneath it. Directories receive the permissions of the base directory, while all
+ * other entries receive the same permissions with every execute bit removed. Symbolic links are never
+ * followed or modified.
+ * <p>
+ * Each entry is examined with a single attribute read, and every fix is collected during a read-only walk
+ * and then applied in one pass once the walk is complete. When a fingerprint map is supplied, the
+ * modification and status change times of every directory are recorded. On later runs, a directory whose
+ * fingerprint is unchanged has not had entries added, removed or renamed, so its files are not read again
+ * and only its subdirectories are visited. Permission changes made to an existing file do not show up in
+ * the fingerprint of its directory, so a full check should still be run from time to time.
+ * <p>
+ * A cloner can also be registered as a {@link ScanVisitor} with a {@link ScanEngine}, in which case it
+ * checks the entries found by the shared walk instead of walking the directory itself.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class PermissionCloner implements Callable<Integer>, ScanVisitor
+{
+    /** The deepest level of directories that will be processed beneath the base directory. */
+    private static final int MAX_DEPTH = 32;
+    /** The mode bits which hold the execute permissions. */
+    private static final int EXECUTE_BITS = 0111;
+
+    private final Path baseDirectory;
+    private final PathTrie excludedPaths;
+    private final Map<Path, Fingerprint> fingerprints;
+
+    private final Object baseOwner;
+    private final Object baseGroup;
+    private final UserPrincipal baseOwnerPrincipal;
+    private final GroupPrincipal baseGroupPrincipal;
+
+    private final int directoryMode;
+    private final int fileMode;
+    private final Set<PosixFilePermission> directoryPermissions;
+    private final Set<PosixFilePermission> filePermissions;
+
+    private final Queue<Fix> fixes;
+    private final AtomicInteger entriesChecked;
+    private final AtomicInteger directoriesSkipped;
+    private final AtomicLong operations;
+    private boolean cloneModes;
+
+    /**
+     * Create a new {@code PermissionCloner} to scan the given directory. Every entry beneath the directory
+     * will be checked.
+     *
+     * @param baseDirectory The {@link Path} of the base directory to scan.
+     * @throws IOException If the attributes of the base directory could not be read.
+     */
+    public PermissionCloner(final Path baseDirectory) throws IOException
+    {
+        this(baseDirectory, null);
+    }
+
+    /**
+     * Create a new {@code PermissionCloner} to scan the given directory, skipping the files of directories
+     * whose fingerprint is unchanged since the last run. The same fingerprint map should be passed on every
+     * run. It may be shared by cloners running in parallel, as long as it is safe for concurrent use.
+     *
+     * @param baseDirectory The {@link Path} of the base directory to scan.
+     * @param fingerprints The {@link Map} of directory fingerprints to check and update, or {@code null} to
+     * check every entry.
+     * @throws IOException If the attributes of the base directory could not be read.
+     */
+    public PermissionCloner(final Path baseDirectory, final Map<Path, Fingerprint> fingerprints) throws IOException
+    {
+        super();
+
+        this.baseDirectory = baseDirectory;
+        this.excludedPaths = new PathTrie();
+        this.fingerprints = fingerprints;
+        this.fixes = new ConcurrentLinkedQueue<>();
+        this.entriesChecked = new AtomicInteger();
+        this.directoriesSkipped = new AtomicInteger();
+        this.operations = new AtomicLong();
+        this.cloneModes = true;
+
+        PosixFileAttributes baseDirAttrs = Files.readAttributes(baseDirectory, PosixFileAttributes.class);
+        this.baseOwnerPrincipal = baseDirAttrs.owner();
+        this.baseGroupPrincipal = baseDirAttrs.group();
+
+        ScanEntry base = ScanEntry.read(baseDirectory);
+        this.baseOwner = base.getOwner();
+        this.baseGroup = base.getGroup();
+        this.directoryMode = base.getMode();
+        this.fileMode = base.getMode() & ~PermissionCloner.EXECUTE_BITS;
+        this.directoryPermissions = PermissionCloner.toPermissions(this.directoryMode);
+        this.filePermissions = PermissionCloner.toPermissions(this.fileMode);
+    }
+
+    /**
+     * Exclude a given {@link Path} from permissions and ownership updates. If this path is a directory,
+     * all items underneath that directory will also be exempt and will not be processed at all.
+     *
+     * @param path The path to exclude.
+     */
+    public void exclude(final Path path)
+    {
+        this.excludedPaths.add(path);
+    }
+
+    /**
+     * Declare whether permissions are cloned along with the owner and group. This can be disabled when
+     * another policy controls the permissions under the base directory.
+     *
+     * @param cloneModes {@code true} if permissions should be cloned.
+     */
+    public void cloneModes(final boolean cloneModes)
+    {
+        this.cloneModes = cloneModes;
+    }
+
+    /**
+     * Scan the base directory and apply all of the fixes that are needed.
+     *
+     * @return The number of fixes applied.
+     * @throws IOException If the base directory could not be read.
+     */
+    @Override
+    public Integer call() throws IOException
+    {
+        this.walkDirectory(this.baseDirectory, ScanEntry.read(this.baseDirectory), 0);
+
+        return this.applyFixes();
+    }
+
+    @Override
+    public void start()
+    {
+        this.fixes.clear();
+        this.entriesChecked.set(0);
+        this.directoriesSkipped.set(0);
+        this.operations.set(0);
+    }
+
+    @Override
+    public boolean isPruned(final Path dir)
+    {
+        return this.excludedPaths.contains(dir);
+    }
+
+    @Override
+    public void visitDirectory(final Path dir, final ScanEntry entry)
+    {
+        this.visitFile(dir, entry);
+    }
+
+    @Override
+    public void visitFile(final Path file, final ScanEntry entry)
+    {
+        if (this.excludedPaths.contains(file) || entry.isSymbolicLink()) return;
+
+        this.entriesChecked.incrementAndGet();
+        this.check(file, entry);
+    }
+
+    @Override
+    public void finish()
+    {
+        this.applyFixes();
+    }
+
+    @Override
+    public long getOperationCount()
+    {
+        return this.operations.get();
+    }
+
+    /**
+     * Fetch the base directory being scanned.
+     *
+     * @return The {@link Path} of the base directory.
+     */
+    public Path getBaseDirectory()
+    {
+        return this.baseDirectory;
+    }
+
+    /**
+     * Fetch the number of entries whose attributes were read during the last scan.
+     *
+     * @return The number of entries checked.
+     */
+    public int getEntriesChecked()
+    {
+        return this.entriesChecked.get();
+    }
+
+    /**
+     * Fetch the number of directories whose files were skipped because their fingerprint was unchanged.
+     *
+     * @return The number of directories skipped.
+     */
+    public int getDirectoriesSkipped()
+    {
+        return this.directoriesSkipped.get();
+    }
+
+    /**
+     * Process a directory beneath the base directory. The directory entry itself is checked by the caller.
+     *
+     * @param dir The directory to process.
+     * @param state The attributes of the directory, read before it is listed.
+     * @param depth The depth of the directory beneath the base directory.
+     * @throws IOException If the directory could not be listed.
+     */
+    private void walkDirectory(final Path dir, final ScanEntry state, final int depth) throws IOException
+    {
+        Fingerprint previous = (this.fingerprints == null) ? null : this.fingerprints.get(dir);
+        if (previous != null && previous.matches(state))
+        {
+            this.directoriesSkipped.incrementAndGet();
+            for (Path subdir : previous.subdirectories) this.walkEntry(subdir, depth + 1, null);
+            return;
+        }
+
+        List<Path> subdirectories = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir))
+        {
+            for (Path entry : entries) this.walkEntry(entry, depth + 1, subdirectories);
+        }
+
+        if (this.fingerprints != null) this.fingerprints.put(dir, new Fingerprint(state, subdirectories));
+    }
+
+    /**
+     * Check a single entry and descend into it if it is a directory.
+     *
+     * @param entry The entry to check.
+     * @param depth The depth of the entry beneath the base directory.
+     * @param subdirectories The list to record subdirectories in, or {@code null} if they are not recorded.
+     */
+    private void walkEntry(final Path entry, final int depth, final List<Path> subdirectories)
+    {
+        if (this.excludedPaths.contains(entry)) return;
+
+        try
+        {
+            ScanEntry state = ScanEntry.read(entry);
+            this.entriesChecked.incrementAndGet();
+            if (state.isSymbolicLink()) return;
+
+            this.check(entry, state);
+
+            if (state.isDirectory())
+            {
+                if (subdirectories != null) subdirectories.add(entry);
+                if (depth < PermissionCloner.MAX_DEPTH) this.walkDirectory(entry, state, depth);
+            }
+        }
+        catch (IOException e)
+        {
+            // Entries may be removed while the scan is running
+            WPManager.log.debug("Skipping permission check of {}: {}", entry, e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Compare the attributes of an entry against those of the base directory, and record a fix if they
+     * differ.
+     *
+     * @param file The entry being checked.
+     * @param state The attributes of the entry.
+     */
+    private void check(final Path file, final ScanEntry state)
+    {
+        boolean owner = !Objects.equals(state.getOwner(), this.baseOwner);
+        boolean group = !Objects.equals(state.getGroup(), this.baseGroup);
+        boolean mode = this.cloneModes && state.getMode() != ((state.isDirectory()) ? this.directoryMode : this.fileMode);
+
+        if (owner || group || mode) this.fixes.add(new Fix(file, state.isDirectory(), owner, group, mode));
+    }
+
+    /**
+     * Apply all of the fixes collected during the walk.
+     *
+     * @return The number of fixes applied.
+     */
+    private int applyFixes()
+    {
+        int applied = 0;
+        Fix fix;
+        while ((fix = this.fixes.poll()) != null)
+        {
+            try
+            {
+                PosixFileAttributeView view = Files.getFileAttributeView(fix.file, PosixFileAttributeView.class, LinkOption.NOFOLLOW_LINKS);
+                if (fix.group)
+                {
+                    WPManager.log.info("Updating group: {} -> {}", fix.file, this.baseGroupPrincipal.getName());
+                    view.setGroup(this.baseGroupPrincipal);
+                    this.operations.incrementAndGet();
+                }
+                if (fix.owner)
+                {
+                    WPManager.log.info("Updating owner: {} -> {}", fix.file, this.baseOwnerPrincipal.getName());
+                    view.setOwner(this.baseOwnerPrincipal);
+                    this.operations.incrementAndGet();
+                }
+                if (fix.mode)
+                {
+                    Set<PosixFilePermission> target = (fix.directory) ? this.directoryPermissions : this.filePermissions;
+                    view.setPermissions(target);
+                    this.operations.incrementAndGet();
+                    WPManager.log.info("Updating permissions: {} -> {}", fix.file, PosixFilePermissions.toString(target));
+                }
+                applied++;
+            }
+            catch (IOException e)
+            {
+                WPManager.log.error("Failed to update permissions of {}: {}", fix.file, e.getLocalizedMessage());
+            }
+
+            // Fixing a directory changes its status change time, so it must be listed again next time
+            if (fix.directory && this.fingerprints != null) this.fingerprints.remove(fix.file);
+        }
+
+        return applied;
+    }
+
+    /**
+     * Convert a set of permissions to mode bits.
+     *
+     * @param permissions The permissions to convert.
+     * @return The equivalent mode bits.
+     */
+    static int toMode(final Set<PosixFilePermission> permissions)
+    {
+        int mode = 0;
+        for (PosixFilePermission permission : permissions) mode |= 0400 >> permission.ordinal();
+        return mode;
+    }
+
+    /**
+     * Convert mode bits to a set of permissions.
+     *
+     * @param mode The mode bits to convert.
+     * @return The equivalent set of permissions.
+     */
+    static Set<PosixFilePermission> toPermissions(final int mode)
+    {
+        Set<PosixFilePermission> permissions = EnumSet.noneOf(PosixFilePermission.class);
+        for (PosixFilePermission permission : PosixFilePermission.values())
+        {
+            if ((mode & (0400 >> permission.ordinal())) != 0) permissions.add(permission);
+        }
+        return permissions;
+    }
+
+    /**
+     * A {@code Fingerprint} records the state of a directory when its entries were last checked, along
+     * with the subdirectories found inside it.
+     */
+    public static final class Fingerprint
+    {
+        private final long modified;
+        private final long changed;
+        private final List<Path> subdirectories;
+
+        /**
+         * Create a new fingerprint.
+         *
+         * @param state The attributes of the directory, read before it was listed.
+         * @param subdirectories The subdirectories found inside the directory.
+         */
+        private Fingerprint(final ScanEntry state, final List<Path> subdirectories)
+        {
+            super();
+
+            this.modified = state.getModified();
+            this.changed = state.getChanged();
+            this.subdirectories = subdirectories;
+        }
+
+        /**
+         * Check if the directory is unchanged since this fingerprint was recorded.
+         *
+         * @param state The current attributes of the directory.
+         * @return {@code true} if the directory is unchanged.
+         */
+        private boolean matches(final ScanEntry state)
+        {
+            return this.modified == state.getModified() && this.changed == state.getChanged();
+        }
+    }
+
+    /**
+     * A pending fix for a single entry.
+     */
+    private static final class Fix
+    {
+        private final Path file;
+        private final boolean directory;
+        private final boolean owner;
+        private final boolean group;
+        private final boolean mode;
+
+        /**
+         * Create a new pending fix.
+         *
+         * @param file The entry to fix.
+         * @param directory {@code true} if the entry is a directory.
+         * @param owner {@code true} if the owner must be changed.
+         * @param group {@code true} if the group must be changed.
+         * @param mode {@code true} if the permissions must be changed.
+         */
+        private Fix(final Path file, final boolean directory, final boolean owner, final boolean group, final boolean mode)
+        {
+            super();
+
+            this.file = file;
+            this.directory = directory;
+            this.owner = owner;
+            this.group = group;
+            this.mode = mode;
+        }
+    }
+}
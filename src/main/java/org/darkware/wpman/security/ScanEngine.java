@@ -0,0 +1,332 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@code ScanEngine} walks the filesystem once and hands every entry it finds to a set of registered
+ * {@link ScanVisitor}s. This lets several checks of the same tree, such as integrity checks and permission
+ * enforcement, share a single walk where each entry is listed and read exactly once.
+ * <p>
+ * Each visitor is registered with its own root directory, and only receives entries beneath that root.
+ * Visitors prune their own subtrees, and the walk only descends into a directory while at least one
+ * visitor still wants to see what is inside it. Directories are walked in parallel on a
+ * {@link ForkJoinPool}, with one task per subtree. Entries which can't be read are reported to the visitors
+ * through {@link ScanVisitor#visitFailed(Path, IOException)}.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class ScanEngine
+{
+    /** The deepest directory level visited below each root of the walk. */
+    private static final int MAX_DEPTH = 32;
+
+    private final int walkerThreads;
+    private final List<Registration> registrations;
+
+    private final LongAdder entries;
+    private final LongAdder directoryReads;
+    private final LongAdder attributeReads;
+
+    /**
+     * Create a new {@code ScanEngine}.
+     *
+     * @param walkerThreads The number of threads walking directories, or zero for one per processor.
+     */
+    public ScanEngine(final int walkerThreads)
+    {
+        super();
+
+        this.walkerThreads = (walkerThreads > 0) ? walkerThreads : Runtime.getRuntime().availableProcessors();
+        this.registrations = new ArrayList<>();
+
+        this.entries = new LongAdder();
+        this.directoryReads = new LongAdder();
+        this.attributeReads = new LongAdder();
+    }
+
+    /**
+     * Register a visitor which will receive every entry beneath the given root directory.
+     *
+     * @param root The root directory of the visitor.
+     * @param visitor The {@link ScanVisitor} to register.
+     */
+    public void register(final Path root, final ScanVisitor visitor)
+    {
+        this.registrations.add(new Registration(root, visitor));
+    }
+
+    /**
+     * Walk the filesystem once, passing each entry to the visitors registered for it. Every visitor is
+     * started before the walk, and finished once the walk is complete.
+     *
+     * @return A {@link ScanReport} summarizing the walk.
+     */
+    public ScanReport scan()
+    {
+        final long start = System.nanoTime();
+        this.entries.reset();
+        this.directoryReads.reset();
+        this.attributeReads.reset();
+
+        for (Registration registration : this.registrations) registration.visitor.start();
+
+        final ForkJoinPool walkers = new ForkJoinPool(this.walkerThreads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("scan-walk-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        try
+        {
+            for (Path root : this.findWalkRoots()) this.walk(walkers, root);
+        }
+        finally
+        {
+            walkers.shutdown();
+        }
+
+        long operations = 0;
+        for (Registration registration : this.registrations)
+        {
+            try
+            {
+                registration.visitor.finish();
+            }
+            catch (RuntimeException e)
+            {
+                ChecksumDatabase.log.error("Failed to complete scan of {}: {}", registration.root, e.getLocalizedMessage(), e);
+            }
+            operations += registration.visitor.getOperationCount();
+        }
+
+        return new ScanReport(Duration.ofNanos(System.nanoTime() - start), this.entries.sum(), this.directoryReads.sum(),
+                              this.attributeReads.sum(), operations);
+    }
+
+    /**
+     * Find the directories the walk must start from. These are the registered roots which are not beneath
+     * any other registered root.
+     *
+     * @return The list of roots to walk.
+     */
+    private List<Path> findWalkRoots()
+    {
+        final List<Path> roots = new ArrayList<>();
+        for (Registration registration : this.registrations)
+        {
+            boolean covered = false;
+            for (Registration other : this.registrations)
+            {
+                if (!other.root.equals(registration.root) && registration.root.startsWith(other.root)) covered = true;
+            }
+            if (!covered && !roots.contains(registration.root)) roots.add(registration.root);
+        }
+        return roots;
+    }
+
+    /**
+     * Walk a single root directory.
+     *
+     * @param walkers The pool to walk the directory on.
+     * @param root The directory to walk.
+     */
+    private void walk(final ForkJoinPool walkers, final Path root)
+    {
+        this.attributeReads.increment();
+        if (!Files.isDirectory(root, LinkOption.NOFOLLOW_LINKS))
+        {
+            ChecksumDatabase.log.warn("Skipping scan of {}: Not a directory", root);
+            return;
+        }
+
+        final List<Registration> active = new ArrayList<>();
+        final List<Registration> pending = new ArrayList<>();
+        for (Registration registration : this.registrations)
+        {
+            if (registration.root.equals(root))
+            {
+                if (!registration.visitor.isPruned(root)) active.add(registration);
+            }
+            else if (registration.root.startsWith(root)) pending.add(registration);
+        }
+
+        walkers.invoke(new WalkTask(root, 0, active, pending));
+    }
+
+    /**
+     * A registered visitor, along with its root directory.
+     */
+    private static final class Registration
+    {
+        private final Path root;
+        private final ScanVisitor visitor;
+
+        /**
+         * Create a new registration.
+         *
+         * @param root The root directory of the visitor.
+         * @param visitor The visitor.
+         */
+        private Registration(final Path root, final ScanVisitor visitor)
+        {
+            super();
+
+            this.root = root;
+            this.visitor = visitor;
+        }
+    }
+
+    /**
+     * A {@code WalkTask} walks a single directory. Each subdirectory is walked by a forked task.
+     */
+    private final class WalkTask extends RecursiveAction
+    {
+        private final Path dir;
+        private final int depth;
+        private final List<Registration> active;
+        private final List<Registration> pending;
+
+        /**
+         * Create a new task to walk a directory.
+         *
+         * @param dir The directory to walk.
+         * @param depth The depth of the directory below the root of the walk.
+         * @param active The visitors which receive the entries of the directory.
+         * @param pending The visitors whose roots are further down the tree.
+         */
+        private WalkTask(final Path dir, final int depth, final List<Registration> active, final List<Registration> pending)
+        {
+            super();
+
+            this.dir = dir;
+            this.depth = depth;
+            this.active = active;
+            this.pending = pending;
+        }
+
+        @Override
+        protected void compute()
+        {
+            final List<WalkTask> subtrees = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(this.dir))
+            {
+                ScanEngine.this.directoryReads.increment();
+                for (Path entry : entries)
+                {
+                    final ScanEntry state;
+                    ScanEngine.this.attributeReads.increment();
+                    try
+                    {
+                        state = ScanEntry.read(entry);
+                    }
+                    catch (IOException e)
+                    {
+                        // Entries removed while the scan is running are not reported
+                        if (Files.exists(entry, LinkOption.NOFOLLOW_LINKS)) this.failed(entry, e);
+                        continue;
+                    }
+                    ScanEngine.this.entries.increment();
+
+                    if (state.isDirectory())
+                    {
+                        for (Registration registration : this.active) registration.visitor.visitDirectory(entry, state);
+                        if (this.depth + 1 < ScanEngine.MAX_DEPTH) this.descend(entry, subtrees);
+                    }
+                    else
+                    {
+                        for (Registration registration : this.active) registration.visitor.visitFile(entry, state);
+                    }
+                }
+            }
+            catch (IOException e)
+            {
+                ChecksumDatabase.log.warn("Failed to read directory {}: {}", this.dir, e.getLocalizedMessage());
+                this.failed(this.dir, e);
+            }
+            catch (DirectoryIteratorException e)
+            {
+                ChecksumDatabase.log.warn("Failed to read directory {}: {}", this.dir, e.getCause().getLocalizedMessage());
+                this.failed(this.dir, e.getCause());
+            }
+
+            ForkJoinTask.invokeAll(subtrees);
+        }
+
+        /**
+         * Report an entry which could not be read to the visitors of this directory.
+         *
+         * @param path The entry which could not be read.
+         * @param cause The error raised while reading it.
+         */
+        private void failed(final Path path, final IOException cause)
+        {
+            for (Registration registration : this.active) registration.visitor.visitFailed(path, cause);
+        }
+
+        /**
+         * Work out which visitors are interested in a subdirectory, and queue a task to walk it if any are.
+         *
+         * @param subdir The subdirectory.
+         * @param subtrees The list of tasks to add the subdirectory to.
+         */
+        private void descend(final Path subdir, final List<WalkTask> subtrees)
+        {
+            List<Registration> subActive = Collections.emptyList();
+            List<Registration> subPending = Collections.emptyList();
+
+            for (Registration registration : this.active)
+            {
+                if (registration.visitor.isPruned(subdir)) continue;
+                if (subActive.isEmpty()) subActive = new ArrayList<>();
+                subActive.add(registration);
+            }
+            for (Registration registration : this.pending)
+            {
+                if (registration.root.equals(subdir))
+                {
+                    if (registration.visitor.isPruned(subdir)) continue;
+                    if (subActive.isEmpty()) subActive = new ArrayList<>();
+                    subActive.add(registration);
+                }
+                else if (registration.root.startsWith(subdir))
+                {
+                    if (subPending.isEmpty()) subPending = new ArrayList<>();
+                    subPending.add(registration);
+                }
+            }
+
+            if (!subActive.isEmpty() || !subPending.isEmpty()) subtrees.add(new WalkTask(subdir, this.depth + 1, subActive, subPending));
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@code ScanEntry} holds the filesystem metadata of a single directory entry, read with one attribute
+ * call. It carries everything the {@link ScanVisitor}s of a {@link ScanEngine} need, so no visitor has to
+ * stat an entry again: its type, owner, group and permissions, along with the {@link FileStamp} used by
+ * integrity checks.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public final class ScanEntry
+{
+    /** The attributes read from the unix attribute view, when it is available. */
+    private static final String UNIX_ATTRIBUTES = "unix:mode,uid,gid,size,lastModifiedTime,ctime,ino,isDirectory,isSymbolicLink";
+    /** The mode bits which hold the permissions. */
+    private static final int PERMISSION_BITS = 0777;
+
+    /**
+     * Read the metadata of the given entry. Symbolic links are not followed.
+     *
+     * @param file The entry to read.
+     * @return A new {@code ScanEntry} for the entry.
+     * @throws IOException If the attributes could not be read.
+     */
+    public static ScanEntry read(final Path file) throws IOException
+    {
+        try
+        {
+            Map<String, Object> attrs = Files.readAttributes(file, ScanEntry.UNIX_ATTRIBUTES, LinkOption.NOFOLLOW_LINKS);
+            return new ScanEntry(attrs.get("uid"), attrs.get("gid"), (Integer) attrs.get("mode") & ScanEntry.PERMISSION_BITS,
+                                 (Boolean) attrs.get("isDirectory"), (Boolean) attrs.get("isSymbolicLink"),
+                                 (Long) attrs.get("size"),
+                                 ((FileTime) attrs.get("lastModifiedTime")).to(TimeUnit.NANOSECONDS),
+                                 ((FileTime) attrs.get("ctime")).to(TimeUnit.NANOSECONDS),
+                                 (Long) attrs.get("ino"));
+        }
+        catch (UnsupportedOperationException | IllegalArgumentException e)
+        {
+            // Without the unix view, fall back to the portable attributes
+            PosixFileAttributes attrs = Files.readAttributes(file, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            long modified = attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+            long inode = (attrs.fileKey() == null) ? 0 : attrs.fileKey().hashCode();
+            return new ScanEntry(attrs.owner(), attrs.group(), PermissionCloner.toMode(attrs.permissions()),
+                                 attrs.isDirectory(), attrs.isSymbolicLink(), attrs.size(), modified, modified, inode);
+        }
+    }
+
+    private final Object owner;
+    private final Object group;
+    private final int mode;
+    private final boolean directory;
+    private final boolean link;
+    private final long size;
+    private final long modified;
+    private final long changed;
+    private final long inode;
+
+    /**
+     * Create a new {@code ScanEntry}.
+     *
+     * @param owner The owner of the entry.
+     * @param group The group of the entry.
+     * @param mode The permission bits of the entry.
+     * @param directory {@code true} if the entry is a directory.
+     * @param link {@code true} if the entry is a symbolic link.
+     * @param size The size of the entry, in bytes.
+     * @param modified The modification time, in nanoseconds since the epoch.
+     * @param changed The status change time, in nanoseconds since the epoch.
+     * @param inode The inode number of the entry.
+     */
+    private ScanEntry(final Object owner, final Object group, final int mode, final boolean directory, final boolean link,
+                      final long size, final long modified, final long changed, final long inode)
+    {
+        super();
+
+        this.owner = owner;
+        this.group = group;
+        this.mode = mode;
+        this.directory = directory;
+        this.link = link;
+        this.size = size;
+        this.modified = modified;
+        this.changed = changed;
+        this.inode = inode;
+    }
+
+    /**
+     * Fetch the owner of the entry. This is a numeric user id when the unix attribute view is available,
+     * and a principal otherwise, so it should only be compared against the owner of another entry.
+     *
+     * @return The owner of the entry.
+     */
+    public Object getOwner()
+    {
+        return this.owner;
+    }
+
+    /**
+     * Fetch the group of the entry. Like the owner, this should only be compared against the group of
+     * another entry.
+     *
+     * @return The group of the entry.
+     */
+    public Object getGroup()
+    {
+        return this.group;
+    }
+
+    /**
+     * Fetch the permission bits of the entry.
+     *
+     * @return The permissions, as mode bits.
+     */
+    public int getMode()
+    {
+        return this.mode;
+    }
+
+    /**
+     * Check if the entry is a directory.
+     *
+     * @return {@code true} if the entry is a directory.
+     */
+    public boolean isDirectory()
+    {
+        return this.directory;
+    }
+
+    /**
+     * Check if the entry is a symbolic link.
+     *
+     * @return {@code true} if the entry is a symbolic link.
+     */
+    public boolean isSymbolicLink()
+    {
+        return this.link;
+    }
+
+    /**
+     * Fetch the size of the entry.
+     *
+     * @return The size, in bytes.
+     */
+    public long getSize()
+    {
+        return this.size;
+    }
+
+    /**
+     * Fetch the modification time of the entry.
+     *
+     * @return The modification time, in nanoseconds since the epoch.
+     */
+    public long getModified()
+    {
+        return this.modified;
+    }
+
+    /**
+     * Fetch the status change time of the entry.
+     *
+     * @return The status change time, in nanoseconds since the epoch.
+     */
+    public long getChanged()
+    {
+        return this.changed;
+    }
+
+    /**
+     * Fetch the {@link FileStamp} of the entry, as used by integrity checks.
+     *
+     * @return A new {@code FileStamp}.
+     */
+    public FileStamp getStamp()
+    {
+        return new FileStamp(this.size, this.modified, this.changed, this.inode);
+    }
+}
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import java.time.Duration;
+
+/**
+ * A {@code ScanReport} summarizes the cost of a single {@link ScanEngine} walk: how long it took, how many
+ * entries were visited, and how many filesystem calls were made by the walk and by its visitors.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public final class ScanReport
+{
+    private final Duration elapsed;
+    private final long entries;
+    private final long directoryReads;
+    private final long attributeReads;
+    private final long operations;
+
+    /**
+     * Create a new scan report.
+     *
+     * @param elapsed The time taken by the scan, including the work done by visitors after the walk.
+     * @param entries The number of entries visited.
+     * @param directoryReads The number of directories listed.
+     * @param attributeReads The number of attribute reads.
+     * @param operations The number of other filesystem operations made by visitors.
+     */
+    public ScanReport(final Duration elapsed, final long entries, final long directoryReads, final long attributeReads,
+                      final long operations)
+    {
+        super();
+
+        this.elapsed = elapsed;
+        this.entries = entries;
+        this.directoryReads = directoryReads;
+        this.attributeReads = attributeReads;
+        this.operations = operations;
+    }
+
+    /**
+     * Fetch the time taken by the scan.
+     *
+     * @return The elapsed time.
+     */
+    public Duration getElapsed()
+    {
+        return this.elapsed;
+    }
+
+    /**
+     * Fetch the number of entries visited.
+     *
+     * @return The number of entries.
+     */
+    public long getEntries()
+    {
+        return this.entries;
+    }
+
+    /**
+     * Fetch the number of directories listed by the walk.
+     *
+     * @return The number of directory listings.
+     */
+    public long getDirectoryReads()
+    {
+        return this.directoryReads;
+    }
+
+    /**
+     * Fetch the number of attribute reads made by the walk.
+     *
+     * @return The number of attribute reads.
+     */
+    public long getAttributeReads()
+    {
+        return this.attributeReads;
+    }
+
+    /**
+     * Fetch the number of filesystem operations made by visitors, such as opening files to hash them or
+     * changing permissions.
+     *
+     * @return The number of visitor operations.
+     */
+    public long getOperations()
+    {
+        return this.operations;
+    }
+
+    /**
+     * Fetch the total number of filesystem calls made during the scan. Each directory listing, attribute
+     * read and visitor operation is counted once.
+     *
+     * @return The number of filesystem calls.
+     */
+    public long getSyscalls()
+    {
+        return this.directoryReads + this.attributeReads + this.operations;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%d entries in %d ms (%d syscalls: %d directory reads, %d attribute reads, %d visitor operations)",
+                             this.entries, this.elapsed.toMillis(), this.getSyscalls(), this.directoryReads,
+                             this.attributeReads, this.operations);
+    }
+}
@@ -19,11 +19,14 @@ package org.darkware.wpman.security;
 
 import java.nio.file.Path;
 import java.util.Collections;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * A {@code ScanResults} collects the files found to be missing, changed or new during a scan against a
+ * {@link ChecksumDatabase}, along with files which don't match their official checksums in a
+ * {@link KnownChecksums} index. Results may be reported from many threads at once.
+ *
  * @author jeff
  * @since 2016-03-08
  */
@@ -32,14 +35,22 @@ public class ScanResults
     private final Set<Path> missingFiles;
     private final Set<Path> changedFiles;
     private final Set<Path> newFiles;
+    private final Set<Path> unverifiedFiles;
 
+    /**
+     * Create a new result set for a scan which expects to find the given files.
+     *
+     * @param expectedFiles The files recorded in the database under the scanned directory.
+     */
     public ScanResults(final Set<Path> expectedFiles)
     {
         super();
 
-        this.missingFiles = new HashSet<>(expectedFiles);
-        this.changedFiles = new HashSet<>();
-        this.newFiles = new HashSet<>();
+        this.missingFiles = ConcurrentHashMap.newKeySet(expectedFiles.size());
+        this.missingFiles.addAll(expectedFiles);
+        this.changedFiles = ConcurrentHashMap.newKeySet();
+        this.newFiles = ConcurrentHashMap.newKeySet();
+        this.unverifiedFiles = ConcurrentHashMap.newKeySet();
     }
 
     /**
@@ -72,6 +83,17 @@ public class ScanResults
         this.newFiles.add(file);
     }
 
+    /**
+     * Report a file which doesn't match its official checksums, or which isn't an official file in a
+     * directory that should only hold official files.
+     *
+     * @param file The file which failed verification.
+     */
+    public void reportUnverified(final Path file)
+    {
+        this.unverifiedFiles.add(file);
+    }
+
     /**
      * Fetch the set of files with integrity checksums that weren't encountered in the scan.
      *
@@ -102,6 +124,17 @@ public class ScanResults
         return Collections.unmodifiableSet(newFiles);
     }
 
+    /**
+     * Fetch the set of files which failed verification against their official checksums. These may
+     * also appear as new or changed files.
+     *
+     * @return A {@code Set} of {@code Path Paths} of all unverified files.
+     */
+    public Set<Path> getUnverifiedFiles()
+    {
+        return Collections.unmodifiableSet(unverifiedFiles);
+    }
+
     /**
      * Check to see if there are any changes found so far. If this result set is being used by a
      * scanner, the result of this method may change over time. For the most reliable results, wait
@@ -111,10 +144,7 @@ public class ScanResults
      */
     public boolean foundChanges()
     {
-        if (this.changedFiles.size() == 0 &&
-            this.newFiles.size() == 0 &&
-            this.missingFiles.size() == 0) return true;
-        else return false;
+        return !(this.changedFiles.isEmpty() && this.newFiles.isEmpty() && this.missingFiles.isEmpty() && this.unverifiedFiles.isEmpty());
     }
 
     /**
@@ -130,6 +160,7 @@ public class ScanResults
         this.filterDescendants(this.missingFiles, database);
         this.filterDescendants(this.changedFiles, database);
         this.filterDescendants(this.newFiles, database);
+        this.filterDescendants(this.unverifiedFiles, database);
     }
 
     /**
@@ -140,11 +171,6 @@ public class ScanResults
      */
     protected void filterDescendants(final Set<Path> internalSet, final ChecksumDatabase database)
     {
-        Iterator<Path> internalIterator = internalSet.iterator();
-        while(internalIterator.hasNext())
-        {
-            Path current = internalIterator.next();
-            if (database.isSuppressed(current)) internalIterator.remove();
-        }
+        internalSet.removeIf(database::isSuppressed);
     }
 }
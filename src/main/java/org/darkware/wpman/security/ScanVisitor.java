@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * A {@code ScanVisitor} receives the entries found by a {@link ScanEngine} walk. Each visitor is registered
+ * with a root directory, and only receives entries beneath that root. The engine may call a visitor from
+ * several threads at once, so implementations must be safe for concurrent use.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public interface ScanVisitor
+{
+    /**
+     * Prepare for a new scan. This is called before the walk begins.
+     */
+    default void start()
+    {
+    }
+
+    /**
+     * Check if a directory should be skipped by this visitor. The directory itself has already been passed
+     * to {@link #visitDirectory(Path, ScanEntry)}, but nothing under it will be visited. Other visitors may
+     * still visit the directory.
+     *
+     * @param dir The directory to check.
+     * @return {@code true} if the visitor is not interested in anything under the directory.
+     */
+    default boolean isPruned(final Path dir)
+    {
+        return false;
+    }
+
+    /**
+     * Visit a directory found during the walk.
+     *
+     * @param dir The directory.
+     * @param entry The metadata of the directory.
+     */
+    default void visitDirectory(final Path dir, final ScanEntry entry)
+    {
+    }
+
+    /**
+     * Visit a file or any other entry which is not a directory, including symbolic links.
+     *
+     * @param file The file.
+     * @param entry The metadata of the file.
+     */
+    void visitFile(final Path file, final ScanEntry entry);
+
+    /**
+     * Report an entry which exists but could not be read, or a directory which could not be listed. Nothing
+     * beneath a failed directory is visited. Entries removed while the walk is running are not reported.
+     *
+     * @param path The entry which could not be read.
+     * @param cause The error raised while reading it.
+     */
+    default void visitFailed(final Path path, final IOException cause)
+    {
+    }
+
+    /**
+     * Complete the scan. This is called once the walk is finished, and is where any changes collected
+     * during the walk should be applied.
+     */
+    default void finish()
+    {
+    }
+
+    /**
+     * Fetch the number of filesystem operations this visitor made during the last scan, beyond reading the
+     * metadata supplied by the engine.
+     *
+     * @return The number of operations.
+     */
+    default long getOperationCount()
+    {
+        return 0;
+    }
+}
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@code SizeAccounting} is a {@link ScanVisitor} which totals the disk usage of a directory during a
+ * scan. Along with the overall total, the size of each entry directly inside the directory is tracked
+ * separately, which gives a breakdown such as the size of each plugin. Symbolic links are not counted.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class SizeAccounting implements ScanVisitor
+{
+    private final Path root;
+    private final LongAdder totalSize;
+    private final LongAdder fileCount;
+    private final Map<Path, LongAdder> sizes;
+
+    /**
+     * Create a new {@code SizeAccounting} for the given directory.
+     *
+     * @param root The directory to total. This must be the root the visitor is registered with.
+     */
+    public SizeAccounting(final Path root)
+    {
+        super();
+
+        this.root = root;
+        this.totalSize = new LongAdder();
+        this.fileCount = new LongAdder();
+        this.sizes = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void start()
+    {
+        this.totalSize.reset();
+        this.fileCount.reset();
+        this.sizes.clear();
+    }
+
+    @Override
+    public void visitFile(final Path file, final ScanEntry entry)
+    {
+        if (entry.isSymbolicLink()) return;
+
+        this.totalSize.add(entry.getSize());
+        this.fileCount.increment();
+
+        final Path top = this.root.resolve(this.root.relativize(file).getName(0));
+        this.sizes.computeIfAbsent(top, p -> new LongAdder()).add(entry.getSize());
+    }
+
+    /**
+     * Fetch the total size of the files found during the last scan.
+     *
+     * @return The total size, in bytes.
+     */
+    public long getTotalSize()
+    {
+        return this.totalSize.sum();
+    }
+
+    /**
+     * Fetch the number of files found during the last scan.
+     *
+     * @return The number of files.
+     */
+    public long getFileCount()
+    {
+        return this.fileCount.sum();
+    }
+
+    /**
+     * Fetch the size of each entry directly inside the directory. For a subdirectory, this is the total
+     * size of every file beneath it.
+     *
+     * @return A {@link Map} of sizes, in bytes, keyed by entry.
+     */
+    public Map<Path, Long> getSizes()
+    {
+        final Map<Path, Long> result = new HashMap<>();
+        this.sizes.forEach((path, size) -> result.put(path, size.sum()));
+        return result;
+    }
+}
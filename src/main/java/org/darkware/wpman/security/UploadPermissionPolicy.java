@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import org.darkware.wpman.WPManager;
+import org.darkware.wpman.config.UploadsConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An {@code UploadPermissionPolicy} is a {@link ScanVisitor} which enforces the permissions declared by the
+ * {@link UploadsConfig} on everything in the uploads directory. Every required permission is added and every
+ * forbidden permission is removed. Directories are then given the execute permission wherever they can be
+ * read, so they remain usable. Symbolic links are left alone.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class UploadPermissionPolicy implements ScanVisitor
+{
+    /** The mode bits which hold the read permissions. */
+    private static final int READ_BITS = 0444;
+
+    private final int require;
+    private final int forbid;
+    private final Map<Path, Integer> fixes;
+    private final AtomicLong operations;
+
+    /**
+     * Create a new policy from the uploads configuration.
+     *
+     * @param config The {@link UploadsConfig} declaring the required and forbidden permissions.
+     */
+    public UploadPermissionPolicy(final UploadsConfig config)
+    {
+        this(PosixFilePermissions.fromString(config.getRequirePermissions()),
+             PosixFilePermissions.fromString(config.getForbidPermissions()));
+    }
+
+    /**
+     * Create a new policy with explicit permissions.
+     *
+     * @param require The permissions which every entry must have.
+     * @param forbid The permissions which no entry may have.
+     */
+    public UploadPermissionPolicy(final Set<PosixFilePermission> require, final Set<PosixFilePermission> forbid)
+    {
+        super();
+
+        this.require = PermissionCloner.toMode(require);
+        this.forbid = PermissionCloner.toMode(forbid);
+        this.fixes = new ConcurrentHashMap<>();
+        this.operations = new AtomicLong();
+    }
+
+    /**
+     * Calculate the permissions an entry should have under this policy.
+     *
+     * @param mode The current permission bits of the entry.
+     * @param directory {@code true} if the entry is a directory.
+     * @return The permission bits the entry should have.
+     */
+    public int getTargetMode(final int mode, final boolean directory)
+    {
+        int target = (mode | this.require) & ~this.forbid;
+        if (directory) target |= (target & UploadPermissionPolicy.READ_BITS) >> 2;
+        return target;
+    }
+
+    @Override
+    public void start()
+    {
+        this.fixes.clear();
+        this.operations.set(0);
+    }
+
+    @Override
+    public void visitDirectory(final Path dir, final ScanEntry entry)
+    {
+        this.visitFile(dir, entry);
+    }
+
+    @Override
+    public void visitFile(final Path file, final ScanEntry entry)
+    {
+        if (entry.isSymbolicLink()) return;
+
+        final int target = this.getTargetMode(entry.getMode(), entry.isDirectory());
+        if (target != entry.getMode()) this.fixes.put(file, target);
+    }
+
+    @Override
+    public void finish()
+    {
+        for (Map.Entry<Path, Integer> fix : this.fixes.entrySet())
+        {
+            final Set<PosixFilePermission> target = PermissionCloner.toPermissions(fix.getValue());
+            try
+            {
+                Files.getFileAttributeView(fix.getKey(), PosixFileAttributeView.class, LinkOption.NOFOLLOW_LINKS).setPermissions(target);
+                this.operations.incrementAndGet();
+                WPManager.log.info("Updating permissions: {} -> {}", fix.getKey(), PosixFilePermissions.toString(target));
+            }
+            catch (IOException e)
+            {
+                WPManager.log.error("Failed to update permissions of {}: {}", fix.getKey(), e.getLocalizedMessage());
+            }
+        }
+        this.fixes.clear();
+    }
+
+    @Override
+    public long getOperationCount()
+    {
+        return this.operations.get();
+    }
+}
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * An implementation of the 64-bit xxHash algorithm with a seed of zero, which reads data in 32 byte
+ * stripes. The digest is the hash value in big-endian byte order, which is the canonical form used by
+ * other xxHash tools.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+final class XXHash64 implements ChecksumAlgorithm.Digester
+{
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+    private static final int STRIPE = 32;
+
+    private final ByteBuffer pending;
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+    private long length;
+
+    /**
+     * Create a new {@code XXHash64} digester.
+     */
+    XXHash64()
+    {
+        super();
+
+        this.pending = ByteBuffer.allocate(XXHash64.STRIPE).order(ByteOrder.LITTLE_ENDIAN);
+        this.v1 = XXHash64.PRIME1 + XXHash64.PRIME2;
+        this.v2 = XXHash64.PRIME2;
+        this.v3 = 0;
+        this.v4 = -XXHash64.PRIME1;
+    }
+
+    @Override
+    public void update(final ByteBuffer data)
+    {
+        final ByteBuffer input = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        this.length += input.remaining();
+
+        // Complete a stripe left over from the last update
+        if (this.pending.position() > 0)
+        {
+            while (this.pending.hasRemaining() && input.hasRemaining()) this.pending.put(input.get());
+            if (this.pending.hasRemaining())
+            {
+                data.position(data.limit());
+                return;
+            }
+            this.pending.flip();
+            this.stripe(this.pending);
+            this.pending.clear();
+        }
+
+        while (input.remaining() >= XXHash64.STRIPE) this.stripe(input);
+        this.pending.put(input);
+        data.position(data.limit());
+    }
+
+    /**
+     * Mix a single stripe into the accumulators.
+     *
+     * @param input The buffer to read the stripe from.
+     */
+    private void stripe(final ByteBuffer input)
+    {
+        this.v1 = XXHash64.round(this.v1, input.getLong());
+        this.v2 = XXHash64.round(this.v2, input.getLong());
+        this.v3 = XXHash64.round(this.v3, input.getLong());
+        this.v4 = XXHash64.round(this.v4, input.getLong());
+    }
+
+    @Override
+    public byte[] digest()
+    {
+        long hash;
+        if (this.length >= XXHash64.STRIPE)
+        {
+            hash = Long.rotateLeft(this.v1, 1) + Long.rotateLeft(this.v2, 7) + Long.rotateLeft(this.v3, 12) + Long.rotateLeft(this.v4, 18);
+            hash = XXHash64.merge(hash, this.v1);
+            hash = XXHash64.merge(hash, this.v2);
+            hash = XXHash64.merge(hash, this.v3);
+            hash = XXHash64.merge(hash, this.v4);
+        }
+        else hash = XXHash64.PRIME5;
+
+        hash += this.length;
+
+        this.pending.flip();
+        while (this.pending.remaining() >= 8)
+        {
+            hash ^= XXHash64.round(0, this.pending.getLong());
+            hash = Long.rotateLeft(hash, 27) * XXHash64.PRIME1 + XXHash64.PRIME4;
+        }
+        if (this.pending.remaining() >= 4)
+        {
+            hash ^= (this.pending.getInt() & 0xFFFFFFFFL) * XXHash64.PRIME1;
+            hash = Long.rotateLeft(hash, 23) * XXHash64.PRIME2 + XXHash64.PRIME3;
+        }
+        while (this.pending.hasRemaining())
+        {
+            hash ^= (this.pending.get() & 0xFFL) * XXHash64.PRIME5;
+            hash = Long.rotateLeft(hash, 11) * XXHash64.PRIME1;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= XXHash64.PRIME2;
+        hash ^= hash >>> 29;
+        hash *= XXHash64.PRIME3;
+        hash ^= hash >>> 32;
+
+        return ByteBuffer.allocate(8).putLong(hash).array();
+    }
+
+    /**
+     * Mix a single 64-bit lane into an accumulator.
+     *
+     * @param accumulator The accumulator.
+     * @param lane The input lane.
+     * @return The new accumulator value.
+     */
+    private static long round(final long accumulator, final long lane)
+    {
+        return Long.rotateLeft(accumulator + lane * XXHash64.PRIME2, 31) * XXHash64.PRIME1;
+    }
+
+    /**
+     * Merge an accumulator into the final hash.
+     *
+     * @param hash The hash.
+     * @param accumulator The accumulator to merge.
+     * @return The new hash value.
+     */
+    private static long merge(final long hash, final long accumulator)
+    {
+        return (hash ^ XXHash64.round(0, accumulator)) * XXHash64.PRIME1 + XXHash64.PRIME4;
+    }
+}
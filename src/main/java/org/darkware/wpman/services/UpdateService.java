@@ -43,7 +43,7 @@ public class UpdateService extends WPService
     {
         WPManager.log.info("Submitting Core Update action.");
 
-        if (request.isImmediate()) this.getManager().scheduleAction(new WPCoreUpdate());
-        else this.getManager().scheduleAction(new WPCoreUpdate(), this.getConfig().getCoreUpdateWindow());
+        if (request.isImmediate()) this.getManager().getActionService().startPipeline(WPCoreUpdate.pipeline());
+        else this.getManager().getActionService().startPipeline(WPCoreUpdate.pipeline(), this.getConfig().getCoreUpdateWindow());
     }
 }
@@ -0,0 +1,277 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.tracing;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@code Span} is a timed section of work within a trace. Spans are opened through the {@link Tracer}
+ * and must be closed on the thread which opened them, normally with a try-with-resources block. While a
+ * span is open, it is the parent of any span opened on the same thread.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public final class Span implements AutoCloseable
+{
+    /** A span which records nothing, used when there is no trace to record into. */
+    static final Span NOOP = new Span(0, 0, null, "noop");
+
+    private final long traceId;
+    private final long id;
+    private final Span parent;
+    private final Span root;
+    private final String name;
+    private final long timestamp;
+    private final long startNanos;
+    private final Map<String, String> tags;
+    private final List<Span> descendants;
+    private volatile long duration;
+    private volatile String error;
+
+    /**
+     * Create a new open span.
+     *
+     * @param traceId The ID of the trace the span belongs to.
+     * @param id The ID of the span.
+     * @param parent The parent span, or {@code null} if this is the root of the trace.
+     * @param name The name of the span.
+     */
+    Span(final long traceId, final long id, final Span parent, final String name)
+    {
+        super();
+
+        this.traceId = traceId;
+        this.id = id;
+        this.parent = parent;
+        this.root = (parent == null) ? this : parent.root;
+        this.name = name;
+        this.timestamp = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        this.startNanos = System.nanoTime();
+        this.tags = new LinkedHashMap<>();
+        this.descendants = (parent == null) ? new ArrayList<>() : null;
+        this.duration = -1;
+    }
+
+    /**
+     * Attach a tag to this span.
+     *
+     * @param key The tag name.
+     * @param value The tag value. The value is converted to a {@code String}.
+     * @return This span, for chaining.
+     */
+    public Span tag(final String key, final Object value)
+    {
+        if (this == Span.NOOP || value == null) return this;
+
+        synchronized (this.tags)
+        {
+            this.tags.put(key, String.valueOf(value));
+        }
+        return this;
+    }
+
+    /**
+     * Mark this span as failed.
+     *
+     * @param t The error which caused the failure.
+     * @return This span, for chaining.
+     */
+    public Span error(final Throwable t)
+    {
+        if (this == Span.NOOP) return this;
+
+        this.error = t.getClass().getSimpleName() + ": " + t.getLocalizedMessage();
+        return this;
+    }
+
+    /**
+     * Close this span, recording its duration.
+     */
+    @Override
+    public void close()
+    {
+        if (this == Span.NOOP || this.duration >= 0) return;
+
+        this.duration = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - this.startNanos);
+        Tracer.finished(this);
+    }
+
+    /**
+     * Fetch the ID of the trace this span belongs to. For action traces, this is the ID of the action in
+     * the action registry.
+     *
+     * @return The trace ID.
+     */
+    @JsonProperty
+    public long getTraceId()
+    {
+        return this.traceId;
+    }
+
+    /**
+     * Fetch the ID of this span.
+     *
+     * @return The span ID.
+     */
+    @JsonProperty
+    public long getId()
+    {
+        return this.id;
+    }
+
+    /**
+     * Fetch the ID of the parent of this span.
+     *
+     * @return The parent span ID, or {@code 0} if this is the root span.
+     */
+    @JsonProperty
+    public long getParentId()
+    {
+        return (this.parent == null) ? 0 : this.parent.id;
+    }
+
+    /**
+     * Fetch the name of this span.
+     *
+     * @return The span name.
+     */
+    @JsonProperty
+    public String getName()
+    {
+        return this.name;
+    }
+
+    /**
+     * Fetch the time this span was opened.
+     *
+     * @return The start time, in microseconds since the epoch.
+     */
+    @JsonProperty
+    public long getTimestamp()
+    {
+        return this.timestamp;
+    }
+
+    /**
+     * Fetch the length of this span.
+     *
+     * @return The duration in microseconds, or {@code -1} if the span is still open.
+     */
+    @JsonProperty
+    public long getDuration()
+    {
+        return this.duration;
+    }
+
+    /**
+     * Fetch the tags attached to this span.
+     *
+     * @return An unmodifiable copy of the tags.
+     */
+    @JsonProperty
+    public Map<String, String> getTags()
+    {
+        synchronized (this.tags)
+        {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(this.tags));
+        }
+    }
+
+    /**
+     * Fetch the error which caused this span to fail.
+     *
+     * @return A description of the error, or {@code null} if the span did not fail.
+     */
+    @JsonProperty
+    public String getError()
+    {
+        return this.error;
+    }
+
+    /**
+     * Checks if this is the root span of its trace.
+     *
+     * @return {@code true} if the span has no parent.
+     */
+    @JsonIgnore
+    public boolean isRoot()
+    {
+        return this.parent == null;
+    }
+
+    /**
+     * Fetch the value of the monotonic clock when this span was opened. This orders spans opened within
+     * the same millisecond.
+     *
+     * @return The start time, in nanoseconds from an arbitrary origin.
+     */
+    long getStartNanos()
+    {
+        return this.startNanos;
+    }
+
+    /**
+     * Fetch the parent of this span.
+     *
+     * @return The parent span, or {@code null} if this is the root span.
+     */
+    Span getParent()
+    {
+        return this.parent;
+    }
+
+    /**
+     * Record a closed descendant with the root span of this trace, so that the whole trace can be exported
+     * when the root closes.
+     *
+     * @param span The closed descendant.
+     */
+    void collect(final Span span)
+    {
+        synchronized (this.root.descendants)
+        {
+            this.root.descendants.add(span);
+        }
+    }
+
+    /**
+     * Fetch every span of the trace which has closed, including this root span.
+     *
+     * @return A new {@code List} of spans.
+     */
+    List<Span> getTrace()
+    {
+        synchronized (this.root.descendants)
+        {
+            List<Span> trace = new ArrayList<>(this.root.descendants);
+            trace.add(this.root);
+            return trace;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.tracing;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A {@code SpanBuffer} keeps the most recently closed {@link Span}s in a fixed-size ring. Adding a span
+ * never blocks or allocates; once the ring is full, each new span replaces the oldest one.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class SpanBuffer
+{
+    private final AtomicReferenceArray<Span> spans;
+    private final AtomicLong next;
+
+    /**
+     * Create a new buffer.
+     *
+     * @param size The number of spans to keep.
+     */
+    public SpanBuffer(final int size)
+    {
+        super();
+
+        this.spans = new AtomicReferenceArray<>(Math.max(1, size));
+        this.next = new AtomicLong();
+    }
+
+    /**
+     * Add a closed span to the buffer.
+     *
+     * @param span The span to add.
+     */
+    public void add(final Span span)
+    {
+        this.spans.set((int) (this.next.getAndIncrement() % this.spans.length()), span);
+    }
+
+    /**
+     * Fetch the spans of a trace which are still in the buffer.
+     *
+     * @param traceId The ID of the trace.
+     * @return A {@code List} of the trace's spans, ordered by start time. The list is empty if no spans
+     * of the trace are in the buffer.
+     */
+    public List<Span> getTrace(final long traceId)
+    {
+        final List<Span> trace = new ArrayList<>();
+        for (int i = 0; i < this.spans.length(); i++)
+        {
+            Span span = this.spans.get(i);
+            if (span != null && span.getTraceId() == traceId) trace.add(span);
+        }
+        trace.sort(Comparator.comparingLong(Span::getStartNanos));
+
+        return trace;
+    }
+
+    /**
+     * Fetch the number of spans the buffer can hold.
+     *
+     * @return The buffer capacity.
+     */
+    public int getCapacity()
+    {
+        return this.spans.length();
+    }
+}
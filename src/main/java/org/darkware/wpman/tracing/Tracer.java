@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.tracing;
+
+import org.darkware.lazylib.LazyLoader;
+import org.darkware.wpman.config.TracingConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code Tracer} records {@link Span}s for actions and the work they perform. A trace is started by
+ * {@link #trace(String)}, and any code running on the same thread can add child spans with
+ * {@link #span(String)}. When no trace is active on the thread, {@code span} returns a shared span which
+ * records nothing, so instrumented code costs almost nothing outside of a trace.
+ * <p>
+ * Closed spans are kept in a {@link SpanBuffer}. If an export file is configured, each trace is also
+ * appended to it by a {@link ZipkinFileExporter} once its root span closes.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public final class Tracer
+{
+    /** A {@code Logger} for tracing messages. */
+    static final Logger log = LoggerFactory.getLogger("Tracing");
+
+    private static final ThreadLocal<Span> current = new ThreadLocal<>();
+    private static final ThreadLocal<Long> boundTrace = new ThreadLocal<>();
+    private static final AtomicLong unboundTraces = new AtomicLong();
+
+    private static volatile boolean enabled = true;
+    private static volatile SpanBuffer buffer = new SpanBuffer(10000);
+    private static volatile ZipkinFileExporter exporter;
+
+    private Tracer()
+    {
+        super();
+    }
+
+    /**
+     * Apply a tracing configuration. This replaces the span buffer and the exporter.
+     *
+     * @param config The {@link TracingConfig} to apply.
+     */
+    public static synchronized void configure(final TracingConfig config)
+    {
+        Tracer.enabled = config.isEnabled();
+        Tracer.buffer = new SpanBuffer(config.getBufferSize());
+
+        if (Tracer.exporter != null) Tracer.exporter.close();
+        Tracer.exporter = (config.isEnabled() && config.getExportFile() != null)
+                          ? new ZipkinFileExporter(config.getExportFile(), config.getServiceName())
+                          : null;
+    }
+
+    /**
+     * Stop exporting traces, flushing any which are waiting to be written.
+     */
+    public static synchronized void shutdown()
+    {
+        if (Tracer.exporter != null) Tracer.exporter.close();
+        Tracer.exporter = null;
+    }
+
+    /**
+     * Fetch the buffer of recently closed spans.
+     *
+     * @return The {@link SpanBuffer}.
+     */
+    public static SpanBuffer getBuffer()
+    {
+        return Tracer.buffer;
+    }
+
+    /**
+     * Declare the ID to use for the next trace started on the current thread. This allows the executor of
+     * an action to give the action's trace the same ID the action has elsewhere.
+     *
+     * @param traceId The trace ID.
+     */
+    public static void bind(final long traceId)
+    {
+        Tracer.boundTrace.set(traceId);
+    }
+
+    /**
+     * Remove the trace ID declared by {@link #bind(long)}.
+     */
+    public static void unbind()
+    {
+        Tracer.boundTrace.remove();
+    }
+
+    /**
+     * Open the root span of a new trace. If a trace is already active on the current thread, a child span is
+     * opened instead. Traces started without a {@link #bind(long) bound} ID receive a negative ID.
+     *
+     * @param name The name of the span.
+     * @return The new {@link Span}.
+     */
+    public static Span trace(final String name)
+    {
+        if (!Tracer.enabled) return Span.NOOP;
+
+        final Span parent = Tracer.current.get();
+        if (parent != null) return Tracer.open(parent.getTraceId(), parent, name);
+
+        final Long bound = Tracer.boundTrace.get();
+        final long traceId = (bound == null) ? -Tracer.unboundTraces.incrementAndGet() : bound;
+        return Tracer.open(traceId, null, name);
+    }
+
+    /**
+     * Open a child of the active span on the current thread.
+     *
+     * @param name The name of the span.
+     * @return The new {@link Span}, or a span which records nothing if no trace is active.
+     */
+    public static Span span(final String name)
+    {
+        final Span parent = Tracer.current.get();
+        if (parent == null) return Span.NOOP;
+
+        return Tracer.open(parent.getTraceId(), parent, name);
+    }
+
+    /**
+     * Open a span for a lazy load, if a trace is active on the current thread. This is suitable for use as
+     * a {@link LazyLoader.LoadObserver}.
+     *
+     * @param loader The loader which is fetching its data.
+     * @return A {@link Runnable} which closes the span, or {@code null} if no trace is active.
+     */
+    public static Runnable lazyLoad(final LazyLoader loader)
+    {
+        if (Tracer.current.get() == null) return null;
+
+        final String type = loader.getClass().getName();
+        final Span span = Tracer.span("lazy-load " + type.substring(type.lastIndexOf('.') + 1));
+        return span::close;
+    }
+
+    /**
+     * Open a span and make it the active span on the current thread.
+     *
+     * @param traceId The ID of the trace.
+     * @param parent The parent span, or {@code null} for a root span.
+     * @param name The name of the span.
+     * @return The new {@link Span}.
+     */
+    private static Span open(final long traceId, final Span parent, final String name)
+    {
+        long id;
+        do
+        {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0);
+
+        final Span span = new Span(traceId, id, parent, name);
+        Tracer.current.set(span);
+
+        return span;
+    }
+
+    /**
+     * Record a span which has just closed, restoring its parent as the active span.
+     *
+     * @param span The closed span.
+     */
+    static void finished(final Span span)
+    {
+        if (Tracer.current.get() == span)
+        {
+            if (span.getParent() == null) Tracer.current.remove();
+            else Tracer.current.set(span.getParent());
+        }
+
+        Tracer.buffer.add(span);
+
+        final ZipkinFileExporter currentExporter = Tracer.exporter;
+        if (currentExporter == null) return;
+
+        if (span.isRoot()) currentExporter.export(span.getTrace());
+        else span.collect(span);
+    }
+}
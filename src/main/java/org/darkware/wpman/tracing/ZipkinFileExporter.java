@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@code ZipkinFileExporter} appends completed traces to a local file in the Zipkin v2 JSON format. Each
+ * line of the file is the JSON array of one trace's spans, which can be posted unchanged to a Zipkin
+ * collector's {@code /api/v2/spans} endpoint or loaded into other tools that read the format. Writing is
+ * done by a single background thread, so exporting never delays the traced work.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class ZipkinFileExporter
+{
+    private final Path file;
+    private final String serviceName;
+    private final ObjectMapper mapper;
+    private final ExecutorService writer;
+
+    /**
+     * Create a new exporter.
+     *
+     * @param file The file to append traces to.
+     * @param serviceName The service name to record with each span.
+     */
+    public ZipkinFileExporter(final Path file, final String serviceName)
+    {
+        super();
+
+        this.file = file;
+        this.serviceName = serviceName;
+        this.mapper = new ObjectMapper();
+        this.writer = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("trace-export").setDaemon(true).build());
+    }
+
+    /**
+     * Queue a trace to be appended to the file.
+     *
+     * @param trace The spans of the trace.
+     */
+    public void export(final List<Span> trace)
+    {
+        try
+        {
+            this.writer.execute(() -> this.write(trace));
+        }
+        catch (RejectedExecutionException e)
+        {
+            Tracer.log.debug("Dropped trace after the exporter was closed.");
+        }
+    }
+
+    /**
+     * Stop the exporter after writing any queued traces.
+     */
+    public void close()
+    {
+        this.writer.shutdown();
+        try
+        {
+            this.writer.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Append a trace to the file.
+     *
+     * @param trace The spans of the trace.
+     */
+    private void write(final List<Span> trace)
+    {
+        final ArrayNode spans = this.mapper.createArrayNode();
+        for (Span span : trace) spans.add(this.toZipkin(span));
+
+        try
+        {
+            if (this.file.getParent() != null) Files.createDirectories(this.file.getParent());
+            try (BufferedWriter out = Files.newBufferedWriter(this.file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                                                              StandardOpenOption.APPEND))
+            {
+                out.write(this.mapper.writeValueAsString(spans));
+                out.newLine();
+            }
+        }
+        catch (IOException e)
+        {
+            Tracer.log.warn("Failed to export trace to {}: {}", this.file, e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Convert a span to a Zipkin v2 span object.
+     *
+     * @param span The span to convert.
+     * @return The Zipkin span as a JSON object.
+     */
+    private ObjectNode toZipkin(final Span span)
+    {
+        final ObjectNode node = this.mapper.createObjectNode();
+        node.put("traceId", String.format("%016x", span.getTraceId()));
+        node.put("id", String.format("%016x", span.getId()));
+        if (!span.isRoot()) node.put("parentId", String.format("%016x", span.getParentId()));
+        node.put("name", span.getName());
+        node.put("timestamp", span.getTimestamp());
+        node.put("duration", Math.max(1, span.getDuration()));
+        node.putObject("localEndpoint").put("serviceName", this.serviceName);
+
+        final ObjectNode tags = node.putObject("tags");
+        for (Map.Entry<String, String> tag : span.getTags().entrySet()) tags.put(tag.getKey(), tag.getValue());
+        if (span.getError() != null) tags.put("error", span.getError());
+
+        return node;
+    }
+}
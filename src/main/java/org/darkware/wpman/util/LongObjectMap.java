@@ -0,0 +1,288 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A {@code LongObjectMap} is a hash map keyed by primitive {@code long} values. Keys are stored in a flat,
+ * open-addressed array, so lookups never box the key or allocate any objects. This makes it suitable for
+ * lookups on hot paths where a {@code Map<Long, V>} would produce a {@code Long} for every probe.
+ * <p>
+ * All operations are synchronized on the map.
+ *
+ * @param <V> The type of values stored in the map.
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class LongObjectMap<V>
+{
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+
+    /**
+     * Create a new, empty map.
+     */
+    public LongObjectMap()
+    {
+        this(LongObjectMap.MIN_CAPACITY);
+    }
+
+    /**
+     * Create a new, empty map with room for the given number of entries before it must grow.
+     *
+     * @param expected The number of entries expected.
+     */
+    public LongObjectMap(final int expected)
+    {
+        super();
+
+        int capacity = LongObjectMap.MIN_CAPACITY;
+        while (capacity < expected * 2) capacity <<= 1;
+
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+    }
+
+    /**
+     * Compute the home slot for a key.
+     *
+     * @param key The key to locate.
+     * @param mask The capacity mask of the table.
+     * @return The index of the first slot to probe.
+     */
+    private static int slot(final long key, final int mask)
+    {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32)) & mask;
+    }
+
+    /**
+     * Find the slot holding the given key.
+     *
+     * @param key The key to locate.
+     * @return The index of the slot holding the key, or {@code -1} if the key is not present.
+     */
+    private int find(final long key)
+    {
+        final int mask = this.keys.length - 1;
+        int index = LongObjectMap.slot(key, mask);
+
+        while (this.values[index] != null)
+        {
+            if (this.keys[index] == key) return index;
+            index = (index + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Fetch the value stored for the given key.
+     *
+     * @param key The key to look up.
+     * @return The stored value, or {@code null} if the key is not present.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized V get(final long key)
+    {
+        int index = this.find(key);
+        return (index < 0) ? null : (V) this.values[index];
+    }
+
+    /**
+     * Checks if a value is stored for the given key.
+     *
+     * @param key The key to look up.
+     * @return {@code true} if the key is present, otherwise {@code false}.
+     */
+    public synchronized boolean containsKey(final long key)
+    {
+        return this.find(key) >= 0;
+    }
+
+    /**
+     * Store a value for the given key, replacing any existing value.
+     *
+     * @param key The key to store the value under.
+     * @param value The value to store. This may not be {@code null}.
+     * @return The value previously stored for the key, or {@code null} if there was none.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized V put(final long key, final V value)
+    {
+        if (value == null) throw new IllegalArgumentException("Null values are not supported.");
+
+        int index = this.find(key);
+        if (index >= 0)
+        {
+            V previous = (V) this.values[index];
+            this.values[index] = value;
+            return previous;
+        }
+
+        if ((this.size + 1) * 4 > this.keys.length * 3) this.resize(this.keys.length << 1);
+
+        final int mask = this.keys.length - 1;
+        index = LongObjectMap.slot(key, mask);
+        while (this.values[index] != null) index = (index + 1) & mask;
+
+        this.keys[index] = key;
+        this.values[index] = value;
+        this.size++;
+
+        return null;
+    }
+
+    /**
+     * Remove the value stored for the given key.
+     *
+     * @param key The key to remove.
+     * @return The value which was removed, or {@code null} if the key was not present.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized V remove(final long key)
+    {
+        int index = this.find(key);
+        if (index < 0) return null;
+
+        V previous = (V) this.values[index];
+        this.deleteSlot(index);
+
+        return previous;
+    }
+
+    /**
+     * Remove every entry whose value matches the given filter. The filter is called exactly once for each
+     * entry, and every entry is tested before any is removed.
+     *
+     * @param filter The filter to apply to each value.
+     * @return The number of entries removed.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized int removeIf(final Predicate<? super V> filter)
+    {
+        // Removal shifts later entries back, possibly across the end of the table, so collect the keys first.
+        final long[] matched = new long[this.size];
+        int count = 0;
+
+        for (int i = 0; i < this.keys.length; i++)
+        {
+            if (this.values[i] != null && filter.test((V) this.values[i])) matched[count++] = this.keys[i];
+        }
+
+        for (int i = 0; i < count; i++) this.deleteSlot(this.find(matched[i]));
+
+        return count;
+    }
+
+    /**
+     * Fetch the number of entries in the map.
+     *
+     * @return The number of entries.
+     */
+    public synchronized int size()
+    {
+        return this.size;
+    }
+
+    /**
+     * Fetch a snapshot of the values in the map.
+     *
+     * @return A new {@code List} containing every value in the map, in no particular order.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized List<V> values()
+    {
+        List<V> snapshot = new ArrayList<>(this.size);
+        for (Object value : this.values) if (value != null) snapshot.add((V) value);
+
+        return snapshot;
+    }
+
+    /**
+     * Remove every entry from the map.
+     */
+    public synchronized void clear()
+    {
+        Arrays.fill(this.values, null);
+        this.size = 0;
+    }
+
+    /**
+     * Empty a slot, shifting any following entries in the same probe run backward so that lookups
+     * never stop early at the vacated slot.
+     *
+     * @param index The slot to empty.
+     */
+    private void deleteSlot(int index)
+    {
+        final int mask = this.keys.length - 1;
+        int next = (index + 1) & mask;
+
+        while (this.values[next] != null)
+        {
+            int home = LongObjectMap.slot(this.keys[next], mask);
+
+            // Move the entry back if its home slot doesn't lie in the cyclic range (index, next]
+            boolean between = (index <= next) ? (index < home && home <= next) : (index < home || home <= next);
+            if (!between)
+            {
+                this.keys[index] = this.keys[next];
+                this.values[index] = this.values[next];
+                index = next;
+            }
+            next = (next + 1) & mask;
+        }
+
+        this.values[index] = null;
+        this.size--;
+    }
+
+    /**
+     * Rebuild the table with a new capacity.
+     *
+     * @param capacity The new capacity. This must be a power of two.
+     */
+    private void resize(final int capacity)
+    {
+        final long[] oldKeys = this.keys;
+        final Object[] oldValues = this.values;
+
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+
+        final int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            if (oldValues[i] == null) continue;
+
+            int index = LongObjectMap.slot(oldKeys[i], mask);
+            while (this.values[index] != null) index = (index + 1) & mask;
+
+            this.keys[index] = oldKeys[i];
+            this.values[index] = oldValues[i];
+        }
+    }
+}
@@ -176,4 +176,33 @@ public class TimeWindow
     {
         return Duration.between(LocalDateTime.now(), this.getRandomMoment());
     }
+
+    /**
+     * Fetch a moment inside this time window which is chosen deterministically from the given seed. The
+     * same seed will always select the same moment within the same window.
+     *
+     * @param seed The value used to select the moment.
+     * @return A {@code DateTime} representing a moment which is between the earliest (inclusive) and
+     * latest (exclusive) moments in the window.
+     */
+    public LocalDateTime getSeededMoment(final long seed)
+    {
+        long durationSeconds = this.earliest.until(this.latest, ChronoUnit.SECONDS);
+        if (durationSeconds < 1) return this.earliest;
+
+        return this.earliest.plus(Math.floorMod(seed, durationSeconds), ChronoUnit.SECONDS);
+    }
+
+    /**
+     * Fetch a time offset to a moment within the time window which is chosen deterministically from the
+     * given seed.
+     *
+     * @param seed The value used to select the moment.
+     * @return A number of seconds to a moment that is within the time window.
+     * @see #getSeededMoment(long)
+     */
+    public Duration getSeededOffset(final long seed)
+    {
+        return Duration.between(LocalDateTime.now(), this.getSeededMoment(seed));
+    }
 }
@@ -60,7 +60,8 @@ public class WPActionModule extends SimpleModule
         {
             jsonGenerator.writeStartObject();
             jsonGenerator.writeFieldName("blog");
-            this.blogSerializer.serialize(wpAction.getBlog(), jsonGenerator, serializerProvider);
+            if (wpAction.getBlog() == null) jsonGenerator.writeNull();
+            else this.blogSerializer.serialize(wpAction.getBlog(), jsonGenerator, serializerProvider);
             jsonGenerator.writeObjectField("category", wpAction.getCategory());
             jsonGenerator.writeStringField("state", wpAction.getState().toString());
             jsonGenerator.writeStringField("description", wpAction.getDescription());
@@ -31,6 +31,8 @@ import org.darkware.cltools.utils.CSV;
 import org.darkware.wpman.WPManager;
 import org.darkware.wpman.data.Version;
 import org.darkware.wpman.data.WPBlog;
+import org.darkware.wpman.tracing.Span;
+import org.darkware.wpman.tracing.Tracer;
 import org.darkware.wpman.util.JSONHelper;
 import org.darkware.wpman.util.JsonFormatException;
 import org.slf4j.Logger;
@@ -49,12 +51,15 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.PosixFilePermission;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This is a wrapper class that abstracts the execution of the somewhat famous
@@ -76,6 +81,8 @@ public class WPCLI
     protected static final Logger log = LoggerFactory.getLogger("WP-CLI");
 
     private static Path toolPath = Paths.get("/opt/wpcli/wp");
+    private static final Set<Process> processes = ConcurrentHashMap.newKeySet();
+
     public static void setPath(final Path toolPath)
     {
         WPCLI.toolPath = toolPath;
@@ -102,6 +109,46 @@ public class WPCLI
         return null;
     }
 
+    /**
+     * Fetch the number of WP-CLI processes which are currently running.
+     *
+     * @return The number of running processes.
+     */
+    public static int getRunningCount()
+    {
+        return WPCLI.processes.size();
+    }
+
+    /**
+     * Terminate every WP-CLI process which is still running. Each process is first asked to exit, so
+     * that PHP can finish what it is writing. Any process still running after the grace period is killed.
+     *
+     * @param grace The time processes are given to exit before they are killed.
+     * @return The number of processes which had to be killed.
+     * @throws InterruptedException If the thread is interrupted while waiting for the processes to exit.
+     */
+    public static int terminateAll(final Duration grace) throws InterruptedException
+    {
+        final List<Process> running = new ArrayList<>(WPCLI.processes);
+        if (running.isEmpty()) return 0;
+
+        WPCLI.log.info("Terminating {} running WP-CLI processes.", running.size());
+        running.forEach(Process::destroy);
+
+        final long deadline = System.nanoTime() + grace.toNanos();
+        int killed = 0;
+        for (Process process : running)
+        {
+            if (process.waitFor(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) continue;
+
+            process.destroyForcibly();
+            killed++;
+        }
+
+        if (killed > 0) WPCLI.log.warn("Killed {} WP-CLI processes which did not exit within {}s.", killed, grace.getSeconds());
+        return killed;
+    }
+
     /**
      * Update the local WP-CLI tool to the most recent version.
      */
@@ -161,6 +208,7 @@ public class WPCLI
     private final Map<String,WPCLIBasicOption> options;
     private final ByteArrayOutputStream inputData;
     private final PrintWriter input;
+    private volatile String lastError;
 
     public WPCLI(final String group, final String command, final String ... commandArgs)
     {
@@ -364,29 +412,57 @@ public class WPCLI
     protected void runCommand(ProcessReader reader, final byte[] input) throws IOException, WPCLIError
     {
         this.render();
-        this.cmd.attachOutputReader(reader);
-        this.cmd.start();
 
-        // Write the input, if it exists
-        if (input != null && input.length > 0)
+        try (Span span = Tracer.span("wpcli " + this.group + " " + this.command))
         {
-            this.cmd.getOutputStream().write(input);
-            this.cmd.getOutputStream().flush();
-            this.cmd.getOutputStream().close();
+            span.tag("command", this.cmd.quotedString());
+            this.cmd.attachOutputReader(reader);
+            final Process process = this.cmd.start();
+            WPCLI.processes.add(process);
+
+            try
+            {
+                // Write the input, if it exists
+                if (input != null && input.length > 0)
+                {
+                    this.cmd.getOutputStream().write(input);
+                    this.cmd.getOutputStream().flush();
+                    this.cmd.getOutputStream().close();
+                }
+
+                int result = this.cmd.waitForCompletion();
+                span.tag("exit", result);
+
+                if (result != 0)
+                {
+                    String errorMessage = reader.getStringData();
+
+                    /* Check if we tossed an error code, but still succeeded */
+                    if (errorMessage.contains("\nSucess: ")) return;
+
+                    WPManager.log.error("Error running command: " + this.cmd.quotedString());
+                    this.lastError = errorMessage;
+                    WPCLIError error = new WPCLIError(this, "Result=" + result + ": " + errorMessage);
+                    span.error(error);
+                    throw error;
+                }
+            }
+            finally
+            {
+                WPCLI.processes.remove(process);
+            }
         }
+    }
 
-        int result = this.cmd.waitForCompletion();
-
-        if (result != 0)
-        {
-            String errorMessage = reader.getStringData();
-
-            /* Check if we tossed an error code, but still succeeded */
-            if (errorMessage.contains("\nSucess: ")) return;
-
-            WPManager.log.error("Error running command: " + this.cmd.quotedString());
-            throw new WPCLIError(this, "Result=" + result + ": " + errorMessage);
-        }
+    /**
+     * Fetch the error output of the last execution of this command which failed. This is useful after
+     * calling {@link #checkSuccess()}, which discards the error.
+     *
+     * @return The error output, or {@code null} if the command has not failed.
+     */
+    public String getLastError()
+    {
+        return this.lastError;
     }
 
     @Override
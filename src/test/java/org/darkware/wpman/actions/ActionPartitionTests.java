@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.actions;
+
+import com.codahale.metrics.MetricRegistry;
+import org.darkware.wpman.config.ExecutorPartitionConfig;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class ActionPartitionTests
+{
+    private ActionPartition partition(final ExecutorPartitionConfig.RejectionPolicy policy)
+    {
+        return new ActionPartition(WPActionCategory.OTHER, new ExecutorPartitionConfig(1, 1, policy), new MetricRegistry());
+    }
+
+    @Test
+    public void testAbort_full() throws Exception
+    {
+        ActionPartition partition = this.partition(ExecutorPartitionConfig.RejectionPolicy.ABORT);
+        CountDownLatch block = new CountDownLatch(1);
+
+        partition.submit(() -> block.await(5, TimeUnit.SECONDS));
+        partition.submit(() -> true);
+        try
+        {
+            partition.submit(() -> true);
+            fail("Expected the full partition to reject the action.");
+        }
+        catch (RejectedExecutionException e)
+        {
+            assertEquals(1, partition.getRejectedCount());
+        }
+        finally
+        {
+            block.countDown();
+            partition.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDiscard_cancelsFuture() throws Exception
+    {
+        ActionPartition partition = this.partition(ExecutorPartitionConfig.RejectionPolicy.DISCARD);
+        CountDownLatch block = new CountDownLatch(1);
+
+        partition.submit(() -> block.await(5, TimeUnit.SECONDS));
+        Future<Boolean> queued = partition.submit(() -> true);
+        Future<Boolean> dropped = partition.submit(() -> true);
+
+        assertTrue(dropped.isCancelled());
+        block.countDown();
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+        partition.shutdownNow();
+    }
+
+    @Test
+    public void testDiscardOldest_replacesQueued() throws Exception
+    {
+        ActionPartition partition = this.partition(ExecutorPartitionConfig.RejectionPolicy.DISCARD_OLDEST);
+        CountDownLatch block = new CountDownLatch(1);
+
+        partition.submit(() -> block.await(5, TimeUnit.SECONDS));
+        Future<Boolean> oldest = partition.submit(() -> true);
+        Future<Boolean> newest = partition.submit(() -> true);
+
+        assertTrue(oldest.isCancelled());
+        assertFalse(newest.isCancelled());
+        block.countDown();
+        assertTrue(newest.get(5, TimeUnit.SECONDS));
+        partition.shutdownNow();
+    }
+
+    @Test
+    public void testDrain_cancelsQueuedKeepsRunning() throws Exception
+    {
+        ActionPartition partition = this.partition(ExecutorPartitionConfig.RejectionPolicy.ABORT);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch block = new CountDownLatch(1);
+
+        Future<Boolean> running = partition.submit(() -> {
+            started.countDown();
+            return block.await(5, TimeUnit.SECONDS);
+        });
+        Future<Boolean> queued = partition.submit(() -> true);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertEquals(1, partition.drain());
+        assertTrue(queued.isCancelled());
+        assertFalse(running.isDone());
+
+        block.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertTrue(partition.awaitTermination(5000));
+    }
+
+    @Test
+    public void testCallerRuns_dispatchWaitsForRoom() throws Exception
+    {
+        ActionPartition partition = this.partition(ExecutorPartitionConfig.RejectionPolicy.CALLER_RUNS);
+        CountDownLatch block = new CountDownLatch(1);
+
+        partition.submit(() -> block.await(5, TimeUnit.SECONDS));
+        partition.submit(() -> true);
+
+        Thread caller = Thread.currentThread();
+        AtomicReference<Thread> runner = new AtomicReference<>();
+        FutureTask<Boolean> overflow = new FutureTask<>(() -> {
+            runner.set(Thread.currentThread());
+            return true;
+        });
+        partition.dispatch(overflow);
+        assertFalse(overflow.isDone());
+
+        block.countDown();
+        assertTrue(overflow.get(5, TimeUnit.SECONDS));
+        assertNotSame(caller, runner.get());
+        assertEquals(1, partition.getRejectedCount());
+        partition.shutdownNow();
+    }
+
+    @Test
+    public void testCallerRuns_overflowIsBounded() throws Exception
+    {
+        ActionPartition partition = this.partition(ExecutorPartitionConfig.RejectionPolicy.CALLER_RUNS);
+        CountDownLatch block = new CountDownLatch(1);
+
+        partition.submit(() -> block.await(5, TimeUnit.SECONDS));
+        partition.submit(() -> true);
+        FutureTask<Boolean> waiting = new FutureTask<>(() -> true);
+        FutureTask<Boolean> dropped = new FutureTask<>(() -> true);
+        partition.dispatch(waiting);
+        partition.dispatch(dropped);
+
+        assertEquals(1, partition.getOverflowSize());
+        assertTrue(dropped.isCancelled());
+        assertEquals(2, partition.getRejectedCount());
+
+        block.countDown();
+        assertTrue(waiting.get(5, TimeUnit.SECONDS));
+        assertEquals(0, partition.getOverflowSize());
+        partition.shutdownNow();
+    }
+
+    @Test
+    public void testDrain_cancelsOverflow() throws Exception
+    {
+        ActionPartition partition = this.partition(ExecutorPartitionConfig.RejectionPolicy.CALLER_RUNS);
+        CountDownLatch block = new CountDownLatch(1);
+
+        partition.submit(() -> block.await(5, TimeUnit.SECONDS));
+        partition.submit(() -> true);
+        FutureTask<Boolean> overflow = new FutureTask<>(() -> true);
+        partition.dispatch(overflow);
+
+        assertEquals(2, partition.drain());
+        assertTrue(overflow.isCancelled());
+        block.countDown();
+        assertTrue(partition.awaitTermination(5000));
+    }
+}
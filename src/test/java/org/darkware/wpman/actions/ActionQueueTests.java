@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.actions;
+
+import com.codahale.metrics.MetricRegistry;
+import org.darkware.wpman.data.WPBlog;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class ActionQueueTests
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRecover_pendingOnly() throws IOException
+    {
+        Path file = this.folder.getRoot().toPath().resolve("actions.queue");
+
+        ActionQueue queue = new ActionQueue(file, new MetricRegistry());
+        queue.record(new StubAction("akismet"), 1000);
+        long released = queue.record(new StubAction("jetpack"), 2000);
+        queue.release(released);
+        queue.close();
+
+        List<ActionQueue.Entry> entries = ActionQueueTests.recover(file);
+        assertEquals(1, entries.size());
+        assertEquals(StubAction.class.getName(), entries.get(0).getType());
+        assertEquals("akismet", entries.get(0).getArgument());
+        assertEquals(1000, entries.get(0).getDue());
+
+        assertTrue(ActionQueueTests.recover(file).isEmpty());
+    }
+
+    @Test
+    public void testRecover_deduplicates() throws IOException
+    {
+        Path file = this.folder.getRoot().toPath().resolve("actions.queue");
+
+        ActionQueue queue = new ActionQueue(file, new MetricRegistry());
+        queue.record(new StubAction("akismet"), 5000);
+        queue.record(new StubAction("akismet"), 3000);
+        queue.close();
+
+        List<ActionQueue.Entry> entries = ActionQueueTests.recover(file);
+        assertEquals(1, entries.size());
+        assertEquals(3000, entries.get(0).getDue());
+    }
+
+    @Test
+    public void testRecover_skipsDamagedLines() throws IOException
+    {
+        Path file = this.folder.getRoot().toPath().resolve("actions.queue");
+
+        ActionQueue queue = new ActionQueue(file, new MetricRegistry());
+        queue.record(new StubAction("akismet"), 1000);
+        queue.close();
+        Files.write(file, "{\"id\":7,\"event\":\"que".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        assertEquals(1, ActionQueueTests.recover(file).size());
+    }
+
+    private static List<ActionQueue.Entry> recover(final Path file)
+    {
+        List<ActionQueue.Entry> entries = new ArrayList<>();
+        ActionQueue queue = new ActionQueue(file, new MetricRegistry());
+        queue.recover(entries::add);
+        queue.close();
+
+        return entries;
+    }
+
+    public static final class StubAction implements WPDurableAction<Boolean>
+    {
+        private final String slug;
+
+        public StubAction(final String slug)
+        {
+            this.slug = slug;
+        }
+
+        @Override
+        public String getRecoveryArgument()
+        {
+            return this.slug;
+        }
+
+        @Override
+        public WPActionKey getIdentity()
+        {
+            return new WPActionKey(WPActionCategory.INSTALL, "plugin:" + this.slug, "install");
+        }
+
+        @Override
+        public Boolean call()
+        {
+            return true;
+        }
+
+        @Override
+        public boolean hasTimeout()
+        {
+            return false;
+        }
+
+        @Override
+        public int getTimeout()
+        {
+            return 0;
+        }
+
+        @Override
+        public String getDescription()
+        {
+            return "Stub " + this.slug;
+        }
+
+        @Override
+        public WPActionState getState()
+        {
+            return WPActionState.SCHEDULED;
+        }
+
+        @Override
+        public LocalDateTime getCreationTime()
+        {
+            return LocalDateTime.now();
+        }
+
+        @Override
+        public LocalDateTime getStartTime()
+        {
+            return null;
+        }
+
+        @Override
+        public LocalDateTime getCompletionTime()
+        {
+            return null;
+        }
+
+        @Override
+        public void registerFuture(final Future<Boolean> future)
+        {
+        }
+
+        @Override
+        public WPActionCategory getCategory()
+        {
+            return WPActionCategory.INSTALL;
+        }
+
+        @Override
+        public WPBlog getBlog()
+        {
+            return null;
+        }
+
+        @Override
+        public Future<Boolean> getFuture()
+        {
+            return null;
+        }
+
+        @Override
+        public void cancel()
+        {
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.actions;
+
+import org.darkware.wpman.data.WPBlog;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class ActionRegistryTests
+{
+    private static final EnumSet<WPActionState> ALL_STATES = EnumSet.noneOf(WPActionState.class);
+    private static final EnumSet<WPActionCategory> ALL_CATEGORIES = EnumSet.noneOf(WPActionCategory.class);
+
+    @Test
+    public void testComplete_movesToHistory()
+    {
+        ActionRegistry registry = new ActionRegistry(10, 60000);
+        StubAction action = new StubAction(WPActionCategory.CRON);
+
+        long id = registry.register(action);
+        assertEquals(1, registry.getActiveCount());
+
+        action.state = WPActionState.COMPLETE;
+        registry.complete(id);
+
+        assertEquals(0, registry.getActiveCount());
+        assertEquals(1, registry.getHistoryCount());
+        assertNull(registry.getActive(id));
+        assertNotNull(registry.getSummary(id));
+        assertEquals(WPActionState.COMPLETE, registry.getSummary(id).getState());
+    }
+
+    @Test
+    public void testHistory_ringOverwrites()
+    {
+        ActionRegistry registry = new ActionRegistry(3, 60000);
+
+        for (int i = 0; i < 5; i++) registry.complete(registry.register(new StubAction(WPActionCategory.CRON)));
+
+        ActionPage page = registry.list(ALL_STATES, ALL_CATEGORIES, 0, 10);
+        assertEquals(3, page.getTotal());
+        assertEquals(5, page.getActions().get(0).getId());
+        assertEquals(3, page.getActions().get(2).getId());
+        assertNull(registry.getSummary(1));
+    }
+
+    @Test
+    public void testHistory_expires()
+    {
+        ActionRegistry registry = new ActionRegistry(10, -1);
+
+        registry.complete(registry.register(new StubAction(WPActionCategory.CRON)));
+
+        assertEquals(0, registry.getHistoryCount());
+    }
+
+    @Test
+    public void testList_filterAndPage()
+    {
+        ActionRegistry registry = new ActionRegistry(10, 60000);
+
+        for (int i = 0; i < 4; i++) registry.register(new StubAction(WPActionCategory.CRON));
+        for (int i = 0; i < 3; i++) registry.register(new StubAction(WPActionCategory.INSTALL));
+        StubAction done = new StubAction(WPActionCategory.CRON);
+        done.state = WPActionState.COMPLETE;
+        registry.complete(registry.register(done));
+
+        ActionPage cron = registry.list(ALL_STATES, EnumSet.of(WPActionCategory.CRON), 1, 2);
+        assertEquals(5, cron.getTotal());
+        assertEquals(2, cron.getActions().size());
+        assertEquals(3, cron.getActions().get(0).getId());
+
+        ActionPage scheduled = registry.list(EnumSet.of(WPActionState.SCHEDULED), ALL_CATEGORIES, 0, 100);
+        assertEquals(7, scheduled.getTotal());
+    }
+
+    private static final class StubAction implements WPAction<Boolean>
+    {
+        private final WPActionCategory category;
+        private WPActionState state = WPActionState.SCHEDULED;
+
+        private StubAction(final WPActionCategory category)
+        {
+            this.category = category;
+        }
+
+        @Override
+        public Boolean call()
+        {
+            return true;
+        }
+
+        @Override
+        public boolean hasTimeout()
+        {
+            return false;
+        }
+
+        @Override
+        public int getTimeout()
+        {
+            return 0;
+        }
+
+        @Override
+        public String getDescription()
+        {
+            return "Stub";
+        }
+
+        @Override
+        public WPActionState getState()
+        {
+            return this.state;
+        }
+
+        @Override
+        public LocalDateTime getCreationTime()
+        {
+            return null;
+        }
+
+        @Override
+        public LocalDateTime getStartTime()
+        {
+            return null;
+        }
+
+        @Override
+        public LocalDateTime getCompletionTime()
+        {
+            return null;
+        }
+
+        @Override
+        public void registerFuture(final Future<Boolean> future)
+        {
+        }
+
+        @Override
+        public WPActionCategory getCategory()
+        {
+            return this.category;
+        }
+
+        @Override
+        public WPBlog getBlog()
+        {
+            return null;
+        }
+
+        @Override
+        public Future<Boolean> getFuture()
+        {
+            return null;
+        }
+
+        @Override
+        public void cancel()
+        {
+            this.state = WPActionState.CANCELLED;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.actions;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.darkware.wpman.ContextManager;
+import org.darkware.wpman.WPManager;
+import org.darkware.wpman.config.ActionConfig;
+import org.darkware.wpman.config.AdaptiveConcurrencyConfig;
+import org.darkware.wpman.config.ExecutorPartitionConfig;
+import org.darkware.wpman.config.RetryConfig;
+import org.darkware.wpman.config.RetryPolicyConfig;
+import org.darkware.wpman.config.WordpressConfigData;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class ActionServiceRule extends TemporaryFolder
+{
+    private final int poolSize;
+    private Path queueFile;
+    private WPActionService service;
+
+    public ActionServiceRule()
+    {
+        this(1);
+    }
+
+    public ActionServiceRule(final int poolSize)
+    {
+        super();
+
+        this.poolSize = poolSize;
+    }
+
+    @Override
+    protected void before() throws Throwable
+    {
+        super.before();
+
+        ContextManager.local().registerInstance(new ObjectMapper());
+        ContextManager.local().registerInstance(new MetricRegistry(), MetricRegistry.class);
+        this.queueFile = this.getRoot().toPath().resolve("actions.queue");
+
+        final RetryConfig retry = new RetryConfig()
+        {{
+            this.setPolicy(FlakyAction.class.getSimpleName(), new RetryPolicyConfig(3, 1, 1));
+        }};
+        final ActionConfig actions = new ActionConfig()
+        {{
+            for (WPActionCategory category : WPActionCategory.values())
+            {
+                this.setPartition(category, new ExecutorPartitionConfig(ActionServiceRule.this.poolSize, 100, ExecutorPartitionConfig.RejectionPolicy.ABORT,
+                                                                        new AdaptiveConcurrencyConfig(), 1));
+            }
+            this.setRetry(retry);
+        }};
+        final WordpressConfigData config = new WordpressConfigData()
+        {{
+            this.setActionConfig(actions);
+        }};
+        config.setBasePath(this.getRoot().toPath());
+        final Map<String, Path> dataFiles = new HashMap<>();
+        dataFiles.put("actionQueue", this.queueFile);
+        config.setDataFiles(dataFiles);
+
+        this.service = new WPManager(config).getActionService();
+    }
+
+    @Override
+    protected void after()
+    {
+        if (this.service != null) this.stop();
+
+        super.after();
+    }
+
+    public WPActionService getService()
+    {
+        return this.service;
+    }
+
+    public Path getQueueFile()
+    {
+        return this.queueFile;
+    }
+
+    /**
+     * Stop the service the way the application does at shutdown.
+     */
+    public void stop()
+    {
+        this.service.stopIntake();
+        this.service.drain();
+        this.service.close();
+        this.service = null;
+    }
+
+    /**
+     * Occupy every thread of a partition until the returned latch is released.
+     *
+     * @param category The {@link WPActionCategory} of the partition.
+     * @return The latch which releases the partition.
+     * @throws InterruptedException If the wait is interrupted.
+     */
+    public CountDownLatch blockPartition(final WPActionCategory category) throws InterruptedException
+    {
+        final CountDownLatch started = new CountDownLatch(this.poolSize);
+        final CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < this.poolSize; i++)
+        {
+            this.service.scheduleAction(new TestAction(category, () -> {
+                started.countDown();
+                release.await();
+                return true;
+            }));
+        }
+        started.await();
+
+        return release;
+    }
+
+    /**
+     * Wait for a condition to become true.
+     *
+     * @param condition The condition to wait for.
+     * @throws InterruptedException If the wait is interrupted.
+     */
+    public static void await(final BooleanSupplier condition) throws InterruptedException
+    {
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (!condition.getAsBoolean())
+        {
+            assertTrue("Timed out waiting for the service.", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.actions;
+
+import org.darkware.wpman.config.AdaptiveConcurrencyConfig;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class ConcurrencyLimiterTests
+{
+    private static final long MILLIS = 1000000L;
+
+    @Test
+    public void testIncrease_withDemand()
+    {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(new AdaptiveConcurrencyConfig(true, 1, 3), 1);
+
+        for (int i = 0; i < 50; i++) limiter.sample(100 * MILLIS, false, true);
+
+        assertEquals(3, limiter.getLimit());
+    }
+
+    @Test
+    public void testSteady_withoutDemand()
+    {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(new AdaptiveConcurrencyConfig(true, 1, 4), 2);
+
+        for (int i = 0; i < 50; i++) limiter.sample(100 * MILLIS, false, false);
+
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    public void testDecrease_onErrors()
+    {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(new AdaptiveConcurrencyConfig(true, 1, 8), 8);
+
+        for (int i = 0; i < 10; i++) limiter.sample(100 * MILLIS, i % 2 == 0, true);
+
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    public void testDecrease_onLatency()
+    {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(new AdaptiveConcurrencyConfig(true, 2, 8), 4);
+
+        for (int i = 0; i < 10; i++) limiter.sample(100 * MILLIS, false, true);
+        assertEquals(5, limiter.getLimit());
+
+        for (int i = 0; i < 30; i++) limiter.sample(1000 * MILLIS, false, true);
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    public void testDecrease_whenOverloaded()
+    {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(new AdaptiveConcurrencyConfig(true, 1, 4), 4);
+        limiter.setOverloaded(true);
+
+        for (int i = 0; i < 10; i++) limiter.sample(100 * MILLIS, false, true);
+
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    public void testInitial_clamped()
+    {
+        assertEquals(4, new ConcurrencyLimiter(new AdaptiveConcurrencyConfig(true, 1, 4), 10).getLimit());
+        assertEquals(2, new ConcurrencyLimiter(new AdaptiveConcurrencyConfig(true, 2, 4), 1).getLimit());
+    }
+}
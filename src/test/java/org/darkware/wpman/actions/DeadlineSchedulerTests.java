@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.actions;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class DeadlineSchedulerTests
+{
+    @Test
+    public void testExpire() throws Exception
+    {
+        DeadlineScheduler scheduler = new DeadlineScheduler(new MetricRegistry(), 5);
+        CountDownLatch fired = new CountDownLatch(1);
+
+        DeadlineScheduler.Deadline deadline = scheduler.schedule(20, TimeUnit.MILLISECONDS, fired::countDown);
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertTrue(deadline.isExpired());
+        assertFalse(deadline.cancel());
+        assertEquals(0, scheduler.getPending());
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testCancel() throws Exception
+    {
+        DeadlineScheduler scheduler = new DeadlineScheduler(new MetricRegistry(), 5);
+        CountDownLatch fired = new CountDownLatch(1);
+
+        DeadlineScheduler.Deadline deadline = scheduler.schedule(20, TimeUnit.MILLISECONDS, fired::countDown);
+        assertEquals(1, scheduler.getPending());
+        assertTrue(deadline.cancel());
+        assertEquals(0, scheduler.getPending());
+
+        assertFalse(fired.await(200, TimeUnit.MILLISECONDS));
+        assertFalse(deadline.isExpired());
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testMultipleRotations() throws Exception
+    {
+        // 512 slots of 1ms: a 700ms deadline shares its bucket with ticks on an earlier rotation
+        DeadlineScheduler scheduler = new DeadlineScheduler(new MetricRegistry(), 1);
+        CountDownLatch fired = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        scheduler.schedule(700, TimeUnit.MILLISECONDS, fired::countDown);
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 700);
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testRelease_recordsTimeToCancel() throws Exception
+    {
+        MetricRegistry metrics = new MetricRegistry();
+        DeadlineScheduler scheduler = new DeadlineScheduler(metrics, 5);
+        CountDownLatch fired = new CountDownLatch(1);
+
+        DeadlineScheduler.Deadline expired = scheduler.schedule(10, TimeUnit.MILLISECONDS, fired::countDown);
+        DeadlineScheduler.Deadline released = scheduler.schedule(1, TimeUnit.MINUTES, fired::countDown);
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+
+        expired.release();
+        released.release();
+
+        assertEquals(1, metrics.timer(MetricRegistry.name("actions", "timeouts", "time-to-cancel")).getCount());
+        assertEquals(0, scheduler.getPending());
+        scheduler.shutdown();
+    }
+}
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.actions;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+class FlakyAction extends WPBasicAction<Boolean>
+{
+    private final int failures;
+    final AtomicInteger calls;
+
+    public FlakyAction(final int failures)
+    {
+        super(WPActionCategory.MAINTENANCE);
+
+        this.failures = failures;
+        this.calls = new AtomicInteger();
+    }
+
+    @Override
+    public String getDescription()
+    {
+        return "Flaky action";
+    }
+
+    @Override
+    public Boolean exec()
+    {
+        if (this.calls.incrementAndGet() > this.failures) return true;
+
+        this.recordFailure("Deadlock found when trying to get lock");
+        return false;
+    }
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.actions;
+
+import org.darkware.wpman.config.RetryConfig;
+import org.darkware.wpman.config.RetryPolicyConfig;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class RetryPolicyTests
+{
+    private final RetryPolicy policy = new RetryPolicy(new RetryPolicyConfig(3, 30, 100),
+                                                       RetryPolicy.compile(new RetryConfig().getPatterns()));
+
+    @Test
+    public void testTransient_defaultPatterns()
+    {
+        assertTrue(this.policy.isTransient("Result=1: Error: Deadlock found when trying to get lock; try restarting transaction"));
+        assertTrue(this.policy.isTransient("Result=1: Warning: Download failed. cURL error 28: Operation timed out"));
+        assertTrue(this.policy.isTransient("Result=1: Error: HTTP 503 from api.wordpress.org"));
+        assertFalse(this.policy.isTransient("Result=1: Error: The 'akismet' plugin could not be found."));
+        assertFalse(this.policy.isTransient(null));
+    }
+
+    @Test
+    public void testShouldRetry_attempts()
+    {
+        String failure = "Result=1: Error: Lock wait timeout exceeded";
+
+        assertTrue(this.policy.shouldRetry(1, failure));
+        assertTrue(this.policy.shouldRetry(2, failure));
+        assertFalse(this.policy.shouldRetry(3, failure));
+    }
+
+    @Test
+    public void testDelay_backoffAndCap()
+    {
+        assertEquals(30000, this.policy.getDelay(1, 1.0));
+        assertEquals(60000, this.policy.getDelay(2, 1.0));
+        assertEquals(100000, this.policy.getDelay(3, 1.0));
+        assertEquals(100000, this.policy.getDelay(10, 1.0));
+    }
+
+    @Test
+    public void testDelay_jitter()
+    {
+        assertEquals(15000, this.policy.getDelay(1, 0.0));
+        assertEquals(22500, this.policy.getDelay(1, 0.5));
+
+        RetryPolicy unknown = new RetryPolicy(new RetryPolicyConfig(2, 0, 0), Collections.emptyList());
+        assertEquals(1000, unknown.getDelay(1, 0.0));
+        assertFalse(unknown.shouldRetry(1, "Deadlock found"));
+    }
+}
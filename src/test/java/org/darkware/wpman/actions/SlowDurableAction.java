@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.actions;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class SlowDurableAction extends WPBasicAction<Boolean> implements WPDurableAction<Boolean>
+{
+    final CountDownLatch started;
+    private final String target;
+
+    public SlowDurableAction(final String target)
+    {
+        super(WPActionCategory.MAINTENANCE);
+
+        this.target = target;
+        this.started = new CountDownLatch(1);
+    }
+
+    @Override
+    public WPActionKey getIdentity()
+    {
+        return new WPActionKey(this.getCategory(), this.target, "slow");
+    }
+
+    @Override
+    public String getRecoveryArgument()
+    {
+        return this.target;
+    }
+
+    @Override
+    public String getDescription()
+    {
+        return "Slow durable action";
+    }
+
+    @Override
+    public Boolean exec()
+    {
+        this.started.countDown();
+        try
+        {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+            return true;
+        }
+        catch (InterruptedException e)
+        {
+            // Killed by the drain timeout, like a WP-CLI process
+            return false;
+        }
+    }
+}
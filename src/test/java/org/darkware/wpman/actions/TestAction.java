@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.actions;
+
+import java.util.concurrent.Callable;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+class TestAction extends WPBasicAction<Boolean>
+{
+    private final String target;
+    private final Callable<Boolean> body;
+
+    public TestAction(final WPActionCategory category, final Callable<Boolean> body)
+    {
+        this(category, null, body);
+    }
+
+    public TestAction(final WPActionCategory category, final String target, final Callable<Boolean> body)
+    {
+        super(category);
+
+        this.target = target;
+        this.body = body;
+    }
+
+    @Override
+    public WPActionKey getIdentity()
+    {
+        return (this.target == null) ? null : new WPActionKey(this.getCategory(), this.target, "test");
+    }
+
+    @Override
+    public String getDescription()
+    {
+        return "Test action";
+    }
+
+    @Override
+    public Boolean exec()
+    {
+        try
+        {
+            return this.body.call();
+        }
+        catch (Exception e)
+        {
+            return false;
+        }
+    }
+}
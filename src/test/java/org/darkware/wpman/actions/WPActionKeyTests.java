@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.actions;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class WPActionKeyTests
+{
+    @Test
+    public void testEquality()
+    {
+        WPActionKey a = new WPActionKey(WPActionCategory.INSTALL, "plugin:akismet", "install");
+        WPActionKey b = new WPActionKey(WPActionCategory.INSTALL, "plugin:akismet", "install");
+
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertEquals("install/plugin:akismet/install", a.toString());
+    }
+
+    @Test
+    public void testDistinct()
+    {
+        WPActionKey install = new WPActionKey(WPActionCategory.INSTALL, "plugin:akismet", "install");
+
+        assertNotEquals(install, new WPActionKey(WPActionCategory.MAINTENANCE, "plugin:akismet", "install"));
+        assertNotEquals(install, new WPActionKey(WPActionCategory.INSTALL, "theme:akismet", "install"));
+        assertNotEquals(install, new WPActionKey(WPActionCategory.INSTALL, "plugin:akismet", "remove"));
+    }
+}
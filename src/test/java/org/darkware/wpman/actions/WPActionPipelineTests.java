@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.actions;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class WPActionPipelineTests
+{
+    @Rule
+    public ActionServiceRule actions = new ActionServiceRule(2);
+
+    @Test
+    public void testStart_runsDependenciesFirst() throws Exception
+    {
+        final List<String> order = Collections.synchronizedList(new ArrayList<>());
+        final WPActionPipeline pipeline = new WPActionPipeline("Ordered");
+        final WPActionPipeline.Node core = pipeline.add(new TestAction(WPActionCategory.MAINTENANCE, () -> order.add("core")));
+        final WPActionPipeline.Node plugin = pipeline.add(new TestAction(WPActionCategory.INSTALL, () -> order.add("plugin")), core);
+        pipeline.add(new TestAction(WPActionCategory.MAINTENANCE, () -> order.add("database")), core, plugin);
+        this.actions.getService().startPipeline(pipeline);
+
+        ActionServiceRule.await(pipeline::isComplete);
+
+        assertTrue(pipeline.isSuccessful());
+        assertEquals(Arrays.asList("core", "plugin", "database"), order);
+    }
+
+    @Test
+    public void testFailure_skipsDependents() throws Exception
+    {
+        final AtomicInteger skippedRuns = new AtomicInteger();
+        final WPActionPipeline pipeline = new WPActionPipeline("Failing");
+        final WPActionPipeline.Node core = pipeline.add(new TestAction(WPActionCategory.MAINTENANCE, () -> false));
+        final WPActionPipeline.Node plugin = pipeline.add(new TestAction(WPActionCategory.INSTALL, () -> skippedRuns.incrementAndGet() > 0), core);
+        final WPActionPipeline.Node database = pipeline.add(new TestAction(WPActionCategory.MAINTENANCE, () -> skippedRuns.incrementAndGet() > 0), plugin);
+        final WPActionPipeline.Node theme = pipeline.add(new TestAction(WPActionCategory.INSTALL, () -> true));
+        this.actions.getService().startPipeline(pipeline);
+
+        ActionServiceRule.await(pipeline::isComplete);
+
+        assertFalse(pipeline.isSuccessful());
+        assertEquals(WPActionPipeline.NodeState.FAILED, core.getState());
+        assertEquals(WPActionPipeline.NodeState.SKIPPED, plugin.getState());
+        assertEquals(WPActionPipeline.NodeState.SKIPPED, database.getState());
+        assertEquals(WPActionPipeline.NodeState.SUCCEEDED, theme.getState());
+        assertEquals(0, skippedRuns.get());
+    }
+
+    @Test
+    public void testCancel_stopsWaitingNodes() throws Exception
+    {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger laterRuns = new AtomicInteger();
+        final WPActionPipeline pipeline = new WPActionPipeline("Cancelled");
+        final WPActionPipeline.Node core = pipeline.add(new TestAction(WPActionCategory.MAINTENANCE, () -> {
+            started.countDown();
+            release.await();
+            return true;
+        }));
+        final WPActionPipeline.Node plugin = pipeline.add(new TestAction(WPActionCategory.INSTALL, () -> laterRuns.incrementAndGet() > 0), core);
+        this.actions.getService().startPipeline(pipeline);
+        started.await();
+
+        pipeline.cancel();
+        release.countDown();
+        Thread.sleep(200);
+
+        assertTrue(pipeline.isComplete());
+        assertEquals(WPActionPipeline.NodeState.CANCELLED, core.getState());
+        assertEquals(WPActionPipeline.NodeState.SKIPPED, plugin.getState());
+        assertEquals(0, laterRuns.get());
+    }
+
+    @Test
+    public void testDispatch_boundsFanOutByPoolSize() throws Exception
+    {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+        final WPActionPipeline pipeline = new WPActionPipeline("Wide");
+        for (int i = 0; i < 5; i++)
+        {
+            pipeline.add(new TestAction(WPActionCategory.MAINTENANCE, () -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                release.await();
+                running.decrementAndGet();
+                return true;
+            }));
+        }
+        this.actions.getService().startPipeline(pipeline);
+
+        ActionServiceRule.await(() -> running.get() == 2);
+        final long submitted = pipeline.getNodes().stream().filter(n -> n.getState() == WPActionPipeline.NodeState.RUNNING).count();
+        release.countDown();
+        ActionServiceRule.await(pipeline::isComplete);
+
+        assertEquals(2, submitted);
+        assertEquals(2, peak.get());
+        assertTrue(pipeline.isSuccessful());
+    }
+
+    @Test
+    public void testStep_coalescesWithScheduledAction() throws Exception
+    {
+        final CountDownLatch release = this.actions.blockPartition(WPActionCategory.INSTALL);
+        final AtomicInteger runs = new AtomicInteger();
+        this.actions.getService().scheduleAction(new TestAction(WPActionCategory.INSTALL, "akismet", () -> runs.incrementAndGet() > 0));
+
+        final WPActionPipeline pipeline = new WPActionPipeline("Coalesced");
+        final WPActionPipeline.Node plugin = pipeline.add(new TestAction(WPActionCategory.INSTALL, "akismet", () -> runs.incrementAndGet() > 0));
+        final WPActionPipeline.Node database = pipeline.add(new TestAction(WPActionCategory.MAINTENANCE, () -> true), plugin);
+        this.actions.getService().startPipeline(pipeline);
+        release.countDown();
+
+        ActionServiceRule.await(pipeline::isComplete);
+
+        assertEquals(1, runs.get());
+        assertEquals(WPActionPipeline.NodeState.SUCCEEDED, plugin.getState());
+        assertEquals(WPActionPipeline.NodeState.SUCCEEDED, database.getState());
+    }
+
+    @Test
+    public void testStep_coalescesOntoFinishedAction() throws Exception
+    {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger runs = new AtomicInteger();
+        this.actions.getService().scheduleAction(new TestAction(WPActionCategory.INSTALL, "akismet", () -> {
+            started.countDown();
+            release.await();
+            return runs.incrementAndGet() > 0;
+        }));
+        started.await();
+
+        // Let the running action finish after the step has been coalesced onto it, but before the step
+        // starts listening for its outcome
+        final WPActionPipeline pipeline = new WPActionPipeline("Late coalesce");
+        final WPActionPipeline.Node plugin = pipeline.add(new TestAction(WPActionCategory.INSTALL, "akismet", () -> runs.incrementAndGet() > 0)
+        {
+            @Override
+            public void registerFuture(final Future<Boolean> future)
+            {
+                super.registerFuture(future);
+                release.countDown();
+                try
+                {
+                    future.get(10, TimeUnit.SECONDS);
+                    Thread.sleep(100);
+                }
+                catch (Exception e)
+                {
+                    throw new AssertionError(e);
+                }
+            }
+        });
+        final WPActionPipeline.Node database = pipeline.add(new TestAction(WPActionCategory.MAINTENANCE, () -> true), plugin);
+        this.actions.getService().startPipeline(pipeline);
+
+        ActionServiceRule.await(pipeline::isComplete);
+
+        assertEquals(1, runs.get());
+        assertEquals(WPActionPipeline.NodeState.SUCCEEDED, plugin.getState());
+        assertEquals(WPActionPipeline.NodeState.SUCCEEDED, database.getState());
+    }
+}
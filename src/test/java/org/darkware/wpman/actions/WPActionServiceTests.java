@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.actions;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class WPActionServiceTests
+{
+    @Rule
+    public ActionServiceRule actions = new ActionServiceRule();
+
+    @Test
+    public void testPipeline_readyNodesSurviveRestart() throws Exception
+    {
+        this.actions.blockPartition(WPActionCategory.INSTALL);
+
+        final WPActionPipeline pipeline = new WPActionPipeline("Core update");
+        final WPActionPipeline.Node core = pipeline.add(new TestAction(WPActionCategory.MAINTENANCE, () -> true));
+        pipeline.add(new WPDatabaseUpdate("7"), core);
+        pipeline.add(new WPDatabaseUpdate("8"), core);
+        pipeline.add(new WPDatabaseUpdate("9"), core);
+        this.actions.getService().startPipeline(pipeline);
+
+        ActionServiceRule.await(() -> pipeline.getNodes().get(1).getState() == WPActionPipeline.NodeState.RUNNING);
+        this.actions.stop();
+
+        final List<ActionQueue.Entry> entries = new ArrayList<>();
+        final ActionQueue queue = new ActionQueue(this.actions.getQueueFile(), new MetricRegistry());
+        queue.recover(entries::add);
+        queue.close();
+
+        final List<String> blogs = entries.stream().map(ActionQueue.Entry::getArgument).sorted().collect(Collectors.toList());
+        assertEquals(3, entries.size());
+        assertTrue(entries.stream().allMatch(e -> e.getType().equals(WPDatabaseUpdate.class.getName())));
+        assertEquals(Arrays.asList("7", "8", "9"), blogs);
+
+        final ActionQueue.Entry entry = entries.get(0);
+        final WPDurableAction<?> recovered = (WPDurableAction<?>) Class.forName(entry.getType()).getConstructor(String.class).newInstance(entry.getArgument());
+        assertEquals(entry.getKey(), recovered.getIdentity().toString());
+    }
+
+    @Test
+    public void testScheduleAction_coalescesQueuedDuplicate() throws Exception
+    {
+        final CountDownLatch release = this.actions.blockPartition(WPActionCategory.MAINTENANCE);
+        final AtomicInteger runs = new AtomicInteger();
+
+        final Future<Boolean> first = this.actions.getService().scheduleAction(new TestAction(WPActionCategory.MAINTENANCE, "akismet", () -> runs.incrementAndGet() > 0));
+        final Future<Boolean> second = this.actions.getService().scheduleAction(new TestAction(WPActionCategory.MAINTENANCE, "akismet", () -> runs.incrementAndGet() > 0));
+        assertSame(first, second);
+
+        release.countDown();
+        first.get(10, TimeUnit.SECONDS);
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void testScheduleAction_delayedCoalescesOntoImmediate() throws Exception
+    {
+        final CountDownLatch release = this.actions.blockPartition(WPActionCategory.MAINTENANCE);
+        final AtomicInteger runs = new AtomicInteger();
+
+        final Future<Boolean> immediate = this.actions.getService().scheduleAction(new TestAction(WPActionCategory.MAINTENANCE, "akismet", () -> runs.incrementAndGet() > 0));
+        final Future<Boolean> delayed = this.actions.getService().scheduleAction(new TestAction(WPActionCategory.MAINTENANCE, "akismet", () -> runs.incrementAndGet() > 0), 1);
+        assertSame(immediate, delayed);
+
+        release.countDown();
+        immediate.get(10, TimeUnit.SECONDS);
+        Thread.sleep(1500);
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void testScheduleAction_immediateAdvancesDelayed() throws Exception
+    {
+        final AtomicInteger runs = new AtomicInteger();
+
+        final Future<Boolean> delayed = this.actions.getService().scheduleAction(new TestAction(WPActionCategory.MAINTENANCE, "akismet", () -> runs.incrementAndGet() > 0), 3600);
+        final Future<Boolean> immediate = this.actions.getService().scheduleAction(new TestAction(WPActionCategory.MAINTENANCE, "akismet", () -> runs.incrementAndGet() > 0));
+        assertSame(delayed, immediate);
+
+        immediate.get(10, TimeUnit.SECONDS);
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void testRetry_transientFailureIsRetried() throws Exception
+    {
+        final FlakyAction action = new FlakyAction(1);
+        final Future<Boolean> future = this.actions.getService().scheduleAction(action);
+
+        assertTrue(future.get(10, TimeUnit.SECONDS));
+        assertEquals(2, action.calls.get());
+    }
+
+    @Test
+    public void testStopIntake_cancelsPendingRetry() throws Exception
+    {
+        final FlakyAction action = new FlakyAction(Integer.MAX_VALUE);
+        final TrackedActionFuture<Boolean> future = (TrackedActionFuture<Boolean>) this.actions.getService().scheduleAction(action);
+        ActionServiceRule.await(future::isRetryPending);
+
+        this.actions.getService().stopIntake();
+        assertTrue(future.isCancelled());
+        assertEquals(1, action.calls.get());
+    }
+
+    @Test
+    public void testStopIntake_cancelsDelayedAction() throws Exception
+    {
+        final AtomicInteger runs = new AtomicInteger();
+        final Future<Boolean> future = this.actions.getService().scheduleAction(new TestAction(WPActionCategory.MAINTENANCE, () -> runs.incrementAndGet() > 0), 3600);
+
+        this.actions.getService().stopIntake();
+        assertTrue(future.isCancelled());
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    public void testDrain_keepsInterruptedDurableAction() throws Exception
+    {
+        final SlowDurableAction action = new SlowDurableAction("blog:7");
+        this.actions.getService().scheduleAction(action);
+        action.started.await();
+
+        this.actions.stop();
+
+        final List<ActionQueue.Entry> entries = new ArrayList<>();
+        final ActionQueue queue = new ActionQueue(this.actions.getQueueFile(), new MetricRegistry());
+        queue.recover(entries::add);
+        queue.close();
+
+        assertEquals(1, entries.size());
+        assertEquals(SlowDurableAction.class.getName(), entries.get(0).getType());
+        assertEquals("blog:7", entries.get(0).getArgument());
+    }
+}
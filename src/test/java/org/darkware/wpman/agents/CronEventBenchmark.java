@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.agents;
+
+import org.darkware.wpman.util.LongObjectMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of checking a sweep's worth of cron hooks against the schedule using {@link CronEvent}
+ * objects and using packed {@link CronEventKey}s. Run with the {@code benchmark} profile, which enables the
+ * GC profiler to report the allocation rate of each approach.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CronEventBenchmark
+{
+    private static final int BLOGS = 1000;
+    private static final String[] HOOKS = { "wp_version_check", "wp_update_plugins", "wp_update_themes",
+                                            "wp_scheduled_delete", "delete_expired_transients",
+                                            "wp_scheduled_auto_draft_delete", "publish_future_post", "jetpack_sync" };
+
+    private final CronHookNames names = new CronHookNames();
+    private final Set<CronEvent> legacySchedule = new HashSet<>();
+    private final LongObjectMap<Object> keySchedule = new LongObjectMap<>();
+
+    private String[] sweepHooks;
+    private int[] sweepBlogs;
+    private LocalDateTime[] sweepTimes;
+
+    /**
+     * Build a schedule containing every hook of every blog, and the sweep data which is checked against it.
+     */
+    @Setup
+    public void setup()
+    {
+        final int count = CronEventBenchmark.BLOGS * CronEventBenchmark.HOOKS.length;
+        this.sweepHooks = new String[count];
+        this.sweepBlogs = new int[count];
+        this.sweepTimes = new LocalDateTime[count];
+
+        LocalDateTime base = LocalDateTime.now().withNano(0);
+        int i = 0;
+        for (int blog = 1; blog <= CronEventBenchmark.BLOGS; blog++)
+        {
+            for (String hook : CronEventBenchmark.HOOKS)
+            {
+                // Sweep data is freshly parsed on each sweep, so the strings are not the interned instances
+                this.sweepHooks[i] = new String(hook);
+                this.sweepBlogs[i] = blog;
+                // CronEvent needs a WPBlog, so the legacy schedule distinguishes blogs by time instead
+                this.sweepTimes[i] = base.plusSeconds(i);
+
+                this.legacySchedule.add(new CronEvent(null, hook, this.sweepTimes[i]));
+                this.keySchedule.put(CronEventKey.pack(blog, this.names.idOf(hook), CronEventKey.toEpochSecond(this.sweepTimes[i])), hook);
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Check every hook in the sweep by building a {@link CronEvent} for it.
+     *
+     * @return The number of hooks already scheduled.
+     */
+    @Benchmark
+    public int cronEventLookup()
+    {
+        int found = 0;
+        for (int i = 0; i < this.sweepHooks.length; i++)
+        {
+            if (this.legacySchedule.contains(new CronEvent(null, this.sweepHooks[i], this.sweepTimes[i]))) found++;
+        }
+        return found;
+    }
+
+    /**
+     * Check every hook in the sweep by packing its {@link CronEventKey}.
+     *
+     * @return The number of hooks already scheduled.
+     */
+    @Benchmark
+    public int packedKeyLookup()
+    {
+        int found = 0;
+        for (int i = 0; i < this.sweepHooks.length; i++)
+        {
+            long key = CronEventKey.pack(this.sweepBlogs[i], this.names.idOf(this.sweepHooks[i]), CronEventKey.toEpochSecond(this.sweepTimes[i]));
+            if (this.keySchedule.containsKey(key)) found++;
+        }
+        return found;
+    }
+}
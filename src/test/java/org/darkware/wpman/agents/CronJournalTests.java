@@ -0,0 +1,249 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.agents;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SlidingWindowReservoir;
+import org.darkware.wpman.actions.ActionServiceRule;
+import org.darkware.wpman.actions.WPCronHookExec;
+import org.darkware.wpman.data.WPBlog;
+import org.darkware.wpman.data.WPCronHook;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class CronJournalTests
+{
+    /** The size of a new journal file. */
+    private static final long INITIAL_SIZE = 4 * 1024 * 1024;
+
+    @Rule
+    public ActionServiceRule manager = new ActionServiceRule();
+
+    private Path file;
+    private WPBlog blog;
+    private WPCronHook versionCheck;
+    private WPCronHook scheduledDelete;
+    private WPCronHook publishFuture;
+
+    @Before
+    public void setUp()
+    {
+        this.file = this.manager.getRoot().toPath().resolve("cron.journal");
+        this.blog = new WPBlog()
+        {{
+            this.setBlogId(7);
+            this.setDomain("blog7.example.com");
+        }};
+
+        final LocalDateTime execTime = LocalDateTime.of(2026, 10, 18, 12, 0);
+        this.versionCheck = new WPCronHook("wp_version_check", execTime);
+        this.scheduledDelete = new WPCronHook("wp_scheduled_delete", execTime);
+        this.publishFuture = new WPCronHook("publish_future_post", execTime.plusMinutes(5));
+    }
+
+    @Test
+    public void testReplay_afterCrash() throws Exception
+    {
+        final MetricRegistry metrics = CronJournalTests.journalMetrics();
+        final CronHookNames crashedNames = new CronHookNames();
+        final CronJournal crashed = new CronJournal(this.file, crashedNames, metrics);
+        try
+        {
+            crashed.started(this.blog, this.versionCheck);
+            crashed.completed(this.blog, this.versionCheck);
+            crashed.started(this.blog, this.scheduledDelete);
+            crashed.scheduled(this.key(this.publishFuture, crashedNames));
+            CronJournalTests.awaitCommitted(metrics, 4);
+
+            final CronHookNames names = new CronHookNames();
+            try (CronJournal replayed = new CronJournal(this.file, names, new MetricRegistry()))
+            {
+                assertEquals(CronJournal.State.COMPLETED, replayed.getState(this.key(this.versionCheck, names)));
+                assertEquals(CronJournal.State.STARTED, replayed.getState(this.key(this.scheduledDelete, names)));
+                assertEquals(CronJournal.State.SCHEDULED, replayed.getState(this.key(this.publishFuture, names)));
+
+                assertEquals(1, replayed.getInterrupted().size());
+                final CronJournal.Occurrence interrupted = replayed.getInterrupted().get(0);
+                assertEquals(7, interrupted.getBlogId());
+                assertEquals("wp_scheduled_delete", interrupted.getHook());
+                assertEquals(this.scheduledDelete.getNextRun(), interrupted.getExecTime());
+            }
+        }
+        finally
+        {
+            crashed.close();
+        }
+    }
+
+    @Test
+    public void testCompact_keepsReplayedState() throws Exception
+    {
+        final MetricRegistry firstMetrics = CronJournalTests.journalMetrics();
+        final CronJournal first = new CronJournal(this.file, new CronHookNames(), firstMetrics);
+
+        final MetricRegistry secondMetrics = CronJournalTests.journalMetrics();
+        final CronHookNames secondNames = new CronHookNames();
+        CronJournal second = null;
+        try
+        {
+            first.started(this.blog, this.versionCheck);
+            first.started(this.blog, this.scheduledDelete);
+            CronJournalTests.awaitCommitted(firstMetrics, 2);
+
+            second = new CronJournal(this.file, secondNames, secondMetrics);
+            assertEquals(2, second.getInterrupted().size());
+
+            // Outgrow the initial file so that the journal has to compact before it can write
+            final long key = this.key(this.publishFuture, secondNames);
+            final int batch = 20000;
+            long written = 0;
+            while (written * 40 < 3 * CronJournalTests.INITIAL_SIZE / 2)
+            {
+                for (int i = 0; i < batch; i++) second.scheduled(key);
+                written += batch;
+                CronJournalTests.awaitCommitted(secondMetrics, written);
+            }
+            second.completed(this.blog, this.versionCheck);
+            CronJournalTests.awaitCommitted(secondMetrics, written + 1);
+
+            assertEquals(CronJournalTests.INITIAL_SIZE, Files.size(this.file));
+        }
+        finally
+        {
+            first.close();
+        }
+
+        final CronHookNames names = new CronHookNames();
+        try (CronJournal replayed = new CronJournal(this.file, names, new MetricRegistry()))
+        {
+            assertEquals(CronJournal.State.COMPLETED, replayed.getState(this.key(this.versionCheck, names)));
+            assertEquals(CronJournal.State.STARTED, replayed.getState(this.key(this.scheduledDelete, names)));
+            assertEquals(CronJournal.State.SCHEDULED, replayed.getState(this.key(this.publishFuture, names)));
+            assertNull(replayed.getState(CronEventKey.pack(8, names.idOf("wp_version_check"), CronEventKey.toEpochSecond(this.versionCheck.getNextRun()))));
+            assertEquals(1, replayed.getInterrupted().size());
+        }
+        finally
+        {
+            second.close();
+        }
+    }
+
+    @Test
+    public void testOpen_replacesDamagedHeader() throws Exception
+    {
+        try (CronJournal journal = new CronJournal(this.file, new CronHookNames(), new MetricRegistry()))
+        {
+            journal.started(this.blog, this.versionCheck);
+        }
+        try (FileChannel channel = FileChannel.open(this.file, StandardOpenOption.WRITE))
+        {
+            channel.write(ByteBuffer.allocate(8).putLong(0, Long.MAX_VALUE), 8);
+        }
+
+        final CronHookNames names = new CronHookNames();
+        try (CronJournal journal = new CronJournal(this.file, names, new MetricRegistry()))
+        {
+            assertNull(journal.getState(this.key(this.versionCheck, names)));
+            journal.completed(this.blog, this.scheduledDelete);
+        }
+
+        final CronHookNames reopenedNames = new CronHookNames();
+        try (CronJournal journal = new CronJournal(this.file, reopenedNames, new MetricRegistry()))
+        {
+            assertEquals(CronJournal.State.COMPLETED, journal.getState(this.key(this.scheduledDelete, reopenedNames)));
+        }
+    }
+
+    @Test
+    public void testExec_failedHookIsRescheduled() throws Exception
+    {
+        final CronHookNames names = new CronHookNames();
+        try (CronJournal journal = new CronJournal(this.file, names, new MetricRegistry()))
+        {
+            final long key = this.key(this.versionCheck, names);
+            final WPCronHookExec exec = new WPCronHookExec(this.blog, this.versionCheck);
+            exec.journalTo(journal);
+
+            assertFalse(exec.exec());
+            assertEquals(CronJournal.State.FAILED, journal.getState(key));
+            assertFalse(journal.isSettled(key));
+
+            journal.scheduled(key);
+            assertEquals(CronJournal.State.SCHEDULED, journal.getState(key));
+            journal.started(this.blog, this.versionCheck);
+            journal.completed(this.blog, this.versionCheck);
+            assertTrue(journal.isSettled(key));
+        }
+    }
+
+    /**
+     * Pack the key of a test hook occurrence.
+     *
+     * @param hook The hook occurrence.
+     * @param names The {@link CronHookNames} to intern the hook name with.
+     * @return The packed {@link CronEventKey}.
+     */
+    private long key(final WPCronHook hook, final CronHookNames names)
+    {
+        return CronEventKey.of(this.blog, hook, names);
+    }
+
+    /**
+     * Create a metrics registry which keeps the size of every batch a journal commits.
+     *
+     * @return A new {@link MetricRegistry}.
+     */
+    private static MetricRegistry journalMetrics()
+    {
+        final MetricRegistry metrics = new MetricRegistry();
+        metrics.register("cron.journal.batch-size", new Histogram(new SlidingWindowReservoir(1 << 20)));
+
+        return metrics;
+    }
+
+    /**
+     * Wait for a journal to commit the given number of records.
+     *
+     * @param metrics The {@link MetricRegistry} the journal reports to.
+     * @param records The total number of records expected.
+     * @throws InterruptedException If the wait is interrupted.
+     */
+    private static void awaitCommitted(final MetricRegistry metrics, final long records) throws InterruptedException
+    {
+        ActionServiceRule.await(() -> Arrays.stream(metrics.histogram("cron.journal.batch-size").getSnapshot().getValues()).sum() == records);
+    }
+}
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.agents;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.darkware.wpman.ContextManager;
+import org.darkware.wpman.config.CronConfig;
+import org.darkware.wpman.config.CronShardConfig;
+import org.darkware.wpman.config.WordpressConfigData;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class CronShardCoordinatorTests
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private CronShardCoordinator coordinator(final Path leaseDir, final int leaseDuration)
+    {
+        ContextManager.local().registerInstance(new ObjectMapper());
+        final CronShardConfig sharding = new CronShardConfig()
+        {{
+            this.setNodeId("alpha");
+            this.setLeaseDir(leaseDir);
+            this.setLeaseDuration(leaseDuration);
+        }};
+        final CronConfig cron = new CronConfig()
+        {{
+            this.setSharding(sharding);
+        }};
+
+        return new CronShardCoordinator(new WordpressConfigData()
+        {{
+            this.setCronConfig(cron);
+        }});
+    }
+
+    private long leaseTime(final Path leaseDir) throws Exception
+    {
+        return Long.parseLong(new String(Files.readAllBytes(leaseDir.resolve("alpha.lease")), StandardCharsets.UTF_8).trim());
+    }
+
+    @Test
+    public void testRenewal_keepsLeaseBetweenSweeps() throws Exception
+    {
+        final Path leaseDir = this.folder.newFolder("leases").toPath();
+        final CronShardCoordinator coordinator = this.coordinator(leaseDir, 3);
+        coordinator.startRenewal(Duration.ofSeconds(1));
+        try
+        {
+            coordinator.refresh();
+            final long first = this.leaseTime(leaseDir);
+
+            Thread.sleep(2500);
+
+            assertTrue(this.leaseTime(leaseDir) > first);
+        }
+        finally
+        {
+            coordinator.release();
+        }
+
+        assertFalse(Files.exists(leaseDir.resolve("alpha.lease")));
+    }
+
+    @Test
+    public void testRenewal_raisesShortLease() throws Exception
+    {
+        final Path leaseDir = this.folder.newFolder("leases").toPath();
+        final CronShardCoordinator coordinator = this.coordinator(leaseDir, 90);
+        coordinator.startRenewal(Duration.ofMinutes(5));
+        try
+        {
+            assertEquals(300, coordinator.getLeaseDuration());
+
+            // A peer which renewed two minutes ago is still a member
+            Files.write(leaseDir.resolve("beta.lease"),
+                        Long.toString(System.currentTimeMillis() - Duration.ofMinutes(2).toMillis()).getBytes(StandardCharsets.UTF_8));
+            coordinator.refresh();
+            assertEquals(new HashSet<>(Arrays.asList("alpha", "beta")), coordinator.getMembers());
+        }
+        finally
+        {
+            coordinator.release();
+        }
+    }
+
+    @Test
+    public void testRenewal_ignoredWithoutLeases()
+    {
+        final CronShardCoordinator coordinator = this.coordinator(null, 90);
+        coordinator.startRenewal(Duration.ofMinutes(5));
+
+        assertEquals(90, coordinator.getLeaseDuration());
+        coordinator.refresh();
+        assertEquals(Collections.singleton("alpha"), coordinator.getMembers());
+        coordinator.release();
+    }
+}
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.agents;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class CronShardRingTests
+{
+    @Test
+    public void testOwner_single()
+    {
+        CronShardRing ring = new CronShardRing(Collections.singleton("alpha"), 64);
+
+        for (int blogId = 1; blogId < 2000; blogId++) assertEquals("alpha", ring.ownerOf(blogId));
+    }
+
+    @Test
+    public void testOwner_empty()
+    {
+        CronShardRing ring = new CronShardRing(Collections.emptySet(), 64);
+
+        assertNull(ring.ownerOf(1));
+    }
+
+    @Test
+    public void testOwner_distribution()
+    {
+        CronShardRing ring = new CronShardRing(Arrays.asList("alpha", "beta", "gamma"), 64);
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int blogId = 1; blogId <= 3000; blogId++) counts.merge(ring.ownerOf(blogId), 1, Integer::sum);
+
+        assertEquals(3, counts.size());
+        for (int count : counts.values()) assertTrue(count > 500);
+    }
+
+    @Test
+    public void testOwner_minimalHandoff()
+    {
+        CronShardRing before = new CronShardRing(Arrays.asList("alpha", "beta", "gamma"), 64);
+        CronShardRing after = new CronShardRing(Arrays.asList("alpha", "beta", "gamma", "delta"), 64);
+
+        for (int blogId = 1; blogId <= 3000; blogId++)
+        {
+            String newOwner = after.ownerOf(blogId);
+            if (!newOwner.equals("delta")) assertEquals(before.ownerOf(blogId), newOwner);
+        }
+    }
+}
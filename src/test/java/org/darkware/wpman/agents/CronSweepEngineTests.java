@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.agents;
+
+import com.codahale.metrics.MetricRegistry;
+import org.darkware.wpman.actions.ActionServiceRule;
+import org.darkware.wpman.config.CronConfig;
+import org.darkware.wpman.config.WordpressConfigData;
+import org.darkware.wpman.data.WPBlog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class CronSweepEngineTests
+{
+    @Rule
+    public ActionServiceRule manager = new ActionServiceRule();
+
+    private MetricRegistry metrics;
+    private CronSweepEngine engine;
+
+    @Before
+    public void setUp()
+    {
+        this.metrics = new MetricRegistry();
+        final CronConfig cron = new CronConfig()
+        {{
+            this.setSweepParallelism(2);
+            this.setBlogScanDeadline(1);
+        }};
+        this.engine = new CronSweepEngine(new WordpressConfigData()
+        {{
+            this.setCronConfig(cron);
+        }}, this.metrics);
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.engine.shutdown();
+    }
+
+    @Test
+    public void testSweep_scansEveryBlog() throws Exception
+    {
+        final Set<String> scanned = Collections.synchronizedSet(new HashSet<>());
+
+        assertTrue(this.engine.sweep(this.blogs(5), b -> scanned.add(b.getDomain()), () -> true));
+
+        assertEquals(5, scanned.size());
+        assertEquals(0, this.metrics.counter("cron.sweep.late-blogs").getCount());
+    }
+
+    @Test
+    public void testSweep_failedScanDoesNotStopSweep() throws Exception
+    {
+        final Set<String> scanned = Collections.synchronizedSet(new HashSet<>());
+
+        assertTrue(this.engine.sweep(this.blogs(4), b -> {
+            if (b.getBlogId() == 2) throw new IllegalStateException("Broken blog");
+            scanned.add(b.getDomain());
+        }, () -> true));
+
+        assertEquals(3, scanned.size());
+    }
+
+    @Test
+    public void testSweep_interruptsLateScan() throws Exception
+    {
+        final CountDownLatch interrupted = new CountDownLatch(1);
+
+        final long start = System.nanoTime();
+        assertTrue(this.engine.sweep(this.blogs(3), b -> {
+            if (b.getBlogId() != 1) return;
+            try
+            {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+            }
+            catch (InterruptedException e)
+            {
+                interrupted.countDown();
+                throw e;
+            }
+        }, () -> true));
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+        assertEquals(1, this.metrics.counter("cron.sweep.late-blogs").getCount());
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testSweep_disabledCancelsScans() throws Exception
+    {
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicBoolean enabled = new AtomicBoolean(true);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+
+        final Thread disabler = new Thread(() -> {
+            try
+            {
+                started.await();
+                enabled.set(false);
+            }
+            catch (InterruptedException e)
+            {
+                // Test is ending
+            }
+        });
+        disabler.start();
+
+        assertFalse(this.engine.sweep(this.blogs(1), b -> {
+            started.countDown();
+            try
+            {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+            }
+            catch (InterruptedException e)
+            {
+                interrupted.countDown();
+                throw e;
+            }
+        }, enabled::get));
+
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+        assertEquals(0, this.metrics.counter("cron.sweep.late-blogs").getCount());
+    }
+
+    /**
+     * Create a list of test blogs.
+     *
+     * @param count The number of blogs to create.
+     * @return A {@code List} of blogs with sequential IDs starting at 1.
+     */
+    private List<WPBlog> blogs(final int count)
+    {
+        final List<WPBlog> blogs = new ArrayList<>();
+        for (int i = 1; i <= count; i++)
+        {
+            final int blogId = i;
+            blogs.add(new WPBlog()
+            {{
+                this.setBlogId(blogId);
+                this.setDomain("blog" + blogId + ".example.com");
+            }});
+        }
+
+        return blogs;
+    }
+}
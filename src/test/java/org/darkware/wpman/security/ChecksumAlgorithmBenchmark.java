@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the throughput of each {@link ChecksumAlgorithm}. Every operation digests one mebibyte, so the
+ * reported operations per second are the throughput in MiB/s. The file benchmark reads through the same
+ * path as a scan, from a file which stays in the page cache.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChecksumAlgorithmBenchmark
+{
+    private static final int SIZE = 1024 * 1024;
+
+    @Param({ "SHA256", "XXHASH64" })
+    private ChecksumAlgorithm algorithm;
+
+    private Path root;
+    private ByteBuffer data;
+    private Path file;
+    private ChecksumDatabase checksums;
+
+    /**
+     * Fill a direct buffer and a file with random data, and create an empty database which uses the
+     * algorithm being measured.
+     *
+     * @throws IOException If the file could not be written.
+     */
+    @Setup
+    public void setup() throws IOException
+    {
+        byte[] content = new byte[ChecksumAlgorithmBenchmark.SIZE];
+        new Random(1234).nextBytes(content);
+
+        this.data = ByteBuffer.allocateDirect(ChecksumAlgorithmBenchmark.SIZE);
+        this.data.put(content).flip();
+
+        this.root = Files.createTempDirectory("checksum-bench");
+        this.file = Files.write(this.root.resolve("data.bin"), content);
+
+        // An empty database file is loaded rather than triggering an initial scan
+        Path dbFile = Files.createFile(this.root.resolve("checksums.db"));
+        this.checksums = new ChecksumDatabase(dbFile, this.root, this.algorithm);
+    }
+
+    /**
+     * Delete the generated files.
+     *
+     * @throws IOException If the files could not be removed.
+     */
+    @TearDown
+    public void teardown() throws IOException
+    {
+        this.checksums.close();
+        try (Stream<Path> paths = Files.walk(this.root))
+        {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    /**
+     * Digest a mebibyte already in memory.
+     *
+     * @return The digest.
+     */
+    @Benchmark
+    public byte[] digestMemory()
+    {
+        final ChecksumAlgorithm.Digester digester = this.algorithm.newDigester();
+        digester.update(this.data.duplicate());
+        return digester.digest();
+    }
+
+    /**
+     * Read and digest a mebibyte file, as a scan does.
+     *
+     * @return The encoded checksum.
+     */
+    @Benchmark
+    public String digestFile()
+    {
+        return this.checksums.calculateChecksum(this.file);
+    }
+}
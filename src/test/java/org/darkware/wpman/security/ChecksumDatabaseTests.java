@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import org.darkware.wpman.config.IntegrityConfig;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class ChecksumDatabaseTests
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] digest(final int seed)
+    {
+        byte[] digest = new byte[ChecksumSnapshot.DIGEST_LENGTH];
+        for (int i = 0; i < digest.length; i++) digest[i] = (byte) (seed * 31 + i);
+        return digest;
+    }
+
+    @Test
+    public void testSnapshot_lookup() throws IOException
+    {
+        List<String> keys = new ArrayList<>();
+        for (int p = 0; p < 10; p++)
+            for (int f = 0; f < 13; f++)
+                keys.add("wp-content/plugins/plugin" + p + "/includes/file" + f + ".php");
+        keys.add("wp-config.php");
+        keys.add("wp-content/thémes/café.php");
+        Collections.sort(keys, ChecksumSnapshot.KEY_ORDER);
+
+        Path file = this.folder.getRoot().toPath().resolve("snapshot.db");
+        try (ChecksumSnapshot.Writer writer = new ChecksumSnapshot.Writer(file, ChecksumAlgorithm.SHA256))
+        {
+            for (int i = 0; i < keys.size(); i++)
+                writer.add(keys.get(i), new ChecksumEntry(ChecksumDatabaseTests.digest(i), (i % 2 == 0) ? new FileStamp(i, 2L * i, 3L * i, 4L * i) : null));
+            writer.finish();
+        }
+
+        assertTrue(ChecksumSnapshot.isSnapshot(file));
+        ChecksumSnapshot snapshot = ChecksumSnapshot.open(file);
+        assertEquals(keys.size(), snapshot.size());
+        for (int i = 0; i < keys.size(); i++)
+        {
+            ChecksumEntry entry = snapshot.get(keys.get(i));
+            assertEquals(new ChecksumEntry(ChecksumDatabaseTests.digest(i), (i % 2 == 0) ? new FileStamp(i, 2L * i, 3L * i, 4L * i) : null), entry);
+        }
+
+        assertNull(snapshot.get("wp-content/plugins/plugin3/includes/file99.php"));
+        assertNull(snapshot.get("a"));
+        assertNull(snapshot.get("zzz"));
+
+        ChecksumSnapshot.Cursor cursor = snapshot.seek("wp-content/plugins/plugin4/");
+        assertEquals("wp-content/plugins/plugin4/includes/file0.php", cursor.key());
+    }
+
+    @Test
+    public void testLoad_convertsTextDatabase() throws IOException
+    {
+        Path root = this.folder.newFolder("site").toPath();
+        Path dbFile = this.folder.getRoot().toPath().resolve("checksums.db");
+        List<String> lines = new ArrayList<>();
+        lines.add(root.resolve("index.php") + ":" + new ChecksumEntry(ChecksumDatabaseTests.digest(1), null).getChecksum());
+        lines.add(root.resolve("wp-content/a:b.php") + ":" + new ChecksumEntry(ChecksumDatabaseTests.digest(2), null).getChecksum() + ",10,20,30,40");
+        lines.add(root.resolve("broken.php") + ":");
+        Files.write(dbFile, lines, StandardCharsets.UTF_8);
+
+        ChecksumDatabase checksums = new ChecksumDatabase(dbFile, root);
+        assertTrue(ChecksumSnapshot.isSnapshot(dbFile));
+        assertEquals(3, checksums.entriesForPath(root).size());
+        assertTrue(checksums.isUnchanged(root.resolve("wp-content/a:b.php"), new FileStamp(10, 20, 30, 40)));
+        assertFalse(checksums.isUnchanged(root.resolve("index.php"), new FileStamp(10, 20, 30, 40)));
+    }
+
+    @Test
+    public void testCompact_keepsChanges() throws IOException
+    {
+        Path root = this.folder.newFolder("site").toPath();
+        Path dbFile = this.folder.newFile("checksums.db").toPath();
+        for (int i = 0; i < 5; i++) Files.write(Files.createDirectories(root.resolve("dir" + i)).resolve("file.php"), ("file " + i).getBytes(StandardCharsets.UTF_8));
+
+        ChecksumDatabase checksums = new ChecksumDatabase(dbFile, root);
+        for (int i = 0; i < 5; i++) checksums.update(root.resolve("dir" + i + "/file.php"));
+        checksums.compact();
+        assertTrue(ChecksumSnapshot.isSnapshot(dbFile));
+
+        // Changes after the compaction are only in the log until the next one
+        checksums.removeDirectory(root.resolve("dir1"));
+        checksums.remove(root.resolve("dir2/file.php"));
+        Files.write(root.resolve("dir3/file.php"), "changed".getBytes(StandardCharsets.UTF_8));
+        checksums.update(root.resolve("dir3/file.php"));
+        checksums.writeDatabase();
+        checksums.close();
+
+        ChecksumDatabase reloaded = new ChecksumDatabase(dbFile, root);
+        assertEquals(3, reloaded.entriesForPath(root).size());
+        assertFalse(reloaded.hasChecksum(root.resolve("dir1/file.php")));
+        assertFalse(reloaded.hasChecksum(root.resolve("dir2/file.php")));
+        assertTrue(reloaded.check(root.resolve("dir0/file.php")));
+        assertTrue(reloaded.check(root.resolve("dir3/file.php")));
+        assertEquals(1, reloaded.entriesForPath(root.resolve("dir4")).size());
+    }
+
+    @Test
+    public void testTree_tracksChanges() throws IOException
+    {
+        Path root = this.folder.newFolder("site").toPath();
+        Path dbFile = this.folder.newFile("checksums.db").toPath();
+        for (String dir : new String[] { "a", "b", "c" })
+            for (int i = 0; i < 3; i++)
+                Files.write(Files.createDirectories(root.resolve(dir + "/sub")).resolve("file" + i + ".php"), ("file " + i).getBytes(StandardCharsets.UTF_8));
+
+        ChecksumDatabase checksums = new ChecksumDatabase(dbFile, root);
+        DirectoryScanner scanner = new DirectoryScanner(root, checksums, new IntegrityConfig(1, 1));
+        scanner.updateChecksums(true);
+        scanner.scan();
+
+        String rootHash = checksums.getTreeHash(root);
+        assertEquals(checksums.getTreeHash(root.resolve("a")), checksums.getTreeHash(root.resolve("b")));
+        ChecksumTreeStatus status = checksums.getTreeStatus(root.resolve("a/sub"), true);
+        assertEquals(3, status.getFileCount());
+        assertEquals(3, status.getFiles().size());
+        assertEquals(3, checksums.getTreeStatus(root, false).getDirectories().size());
+
+        checksums.removeDirectory(root.resolve("c"));
+        assertNull(checksums.getTreeHash(root.resolve("c")));
+        assertFalse(rootHash.equals(checksums.getTreeHash(root)));
+
+        // The tree is rebuilt to the same state when the database is reloaded
+        String changedHash = checksums.getTreeHash(root);
+        checksums.writeDatabase();
+        checksums.loadDatabase();
+        assertEquals(changedHash, checksums.getTreeHash(root));
+        assertEquals(6, checksums.getTreeStatus(root, false).getFileCount());
+    }
+
+    @Test
+    public void testAlgorithm_keptByExistingDatabase() throws IOException
+    {
+        Path root = this.folder.newFolder("site").toPath();
+        Path dbFile = this.folder.newFile("checksums.db").toPath();
+        Files.write(root.resolve("index.php"), "<?php".getBytes(StandardCharsets.UTF_8));
+
+        ChecksumDatabase checksums = new ChecksumDatabase(dbFile, root, ChecksumAlgorithm.XXHASH64);
+        checksums.update(root.resolve("index.php"));
+        assertEquals(8, checksums.getEntry(root.resolve("index.php")).getDigest().length);
+        checksums.compact();
+        checksums.close();
+
+        ChecksumDatabase reloaded = new ChecksumDatabase(dbFile, root, ChecksumAlgorithm.SHA256);
+        assertEquals(ChecksumAlgorithm.XXHASH64, reloaded.getAlgorithm());
+        assertTrue(reloaded.check(root.resolve("index.php")));
+
+        Files.write(root.resolve("index.php"), "<?php exit;".getBytes(StandardCharsets.UTF_8));
+        assertFalse(reloaded.check(root.resolve("index.php")));
+    }
+}
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class ChecksumTreeTests
+{
+    private static byte[] digest(final int seed)
+    {
+        byte[] digest = new byte[32];
+        new Random(seed).nextBytes(digest);
+        return digest;
+    }
+
+    private static List<String> keys()
+    {
+        List<String> keys = new ArrayList<>();
+        keys.add("index.php");
+        for (int p = 0; p < 5; p++)
+            for (int f = 0; f < 6; f++)
+                keys.add("wp-content/plugins/plugin" + p + "/inc/file" + f + ".php");
+        return keys;
+    }
+
+    @Test
+    public void testHash_independentOfOrder()
+    {
+        List<String> keys = ChecksumTreeTests.keys();
+        ChecksumTree forward = new ChecksumTree("/");
+        for (String key : keys) forward.add(key, ChecksumTreeTests.digest(key.hashCode()));
+
+        Collections.shuffle(keys, new Random(42));
+        ChecksumTree shuffled = new ChecksumTree("/");
+        for (String key : keys) shuffled.add(key, ChecksumTreeTests.digest(key.hashCode()));
+
+        assertArrayEquals(forward.getRoot().getHash(), shuffled.getRoot().getHash());
+        assertEquals(keys.size(), forward.getRoot().getFileCount());
+        assertEquals(5, forward.find("wp-content/plugins").getChildren().size());
+        assertEquals(6, forward.find("wp-content/plugins/plugin2").getFileCount());
+    }
+
+    @Test
+    public void testHash_sameContentsSameHash()
+    {
+        ChecksumTree tree = new ChecksumTree("/");
+        tree.add("a/x/one.php", ChecksumTreeTests.digest(1));
+        tree.add("a/x/two.php", ChecksumTreeTests.digest(2));
+        tree.add("b/x/one.php", ChecksumTreeTests.digest(1));
+        tree.add("b/x/two.php", ChecksumTreeTests.digest(2));
+
+        assertArrayEquals(tree.find("a").getHash(), tree.find("b").getHash());
+
+        tree.replace("b/x/two.php", ChecksumTreeTests.digest(2), ChecksumTreeTests.digest(3));
+        assertFalse(Arrays.equals(tree.find("a").getHash(), tree.find("b").getHash()));
+        assertFalse(Arrays.equals(tree.find("a/x").getHash(), tree.find("b/x").getHash()));
+
+        tree.replace("b/x/two.php", ChecksumTreeTests.digest(3), ChecksumTreeTests.digest(2));
+        assertArrayEquals(tree.find("a").getHash(), tree.find("b").getHash());
+    }
+
+    @Test
+    public void testRemove_restoresHash()
+    {
+        ChecksumTree empty = new ChecksumTree("/");
+        ChecksumTree tree = new ChecksumTree("/");
+        for (String key : ChecksumTreeTests.keys()) tree.add(key, ChecksumTreeTests.digest(key.hashCode()));
+
+        ChecksumTree partial = new ChecksumTree("/");
+        for (String key : ChecksumTreeTests.keys())
+            if (!key.startsWith("wp-content/plugins/plugin3/")) partial.add(key, ChecksumTreeTests.digest(key.hashCode()));
+
+        assertTrue(tree.removeDirectory("wp-content/plugins/plugin3"));
+        assertNull(tree.find("wp-content/plugins/plugin3"));
+        assertArrayEquals(partial.getRoot().getHash(), tree.getRoot().getHash());
+        assertEquals(partial.getRoot().getFileCount(), tree.getRoot().getFileCount());
+
+        for (String key : ChecksumTreeTests.keys())
+            if (!key.startsWith("wp-content/plugins/plugin3/")) tree.remove(key, ChecksumTreeTests.digest(key.hashCode()));
+
+        assertArrayEquals(empty.getRoot().getHash(), tree.getRoot().getHash());
+        assertTrue(tree.getRoot().getChildren().isEmpty());
+        assertFalse(tree.removeDirectory("wp-content"));
+    }
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import org.darkware.wpman.config.IntegrityConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares a full integrity scan of a generated site tree using the serial walker and using the parallel
+ * work-stealing walker with a separate hashing pool. The tree is written to a temporary directory once,
+ * so later iterations mostly measure scans against a warm page cache.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DirectoryScannerBenchmark
+{
+    private static final int PLUGINS = 40;
+    private static final int DIRECTORIES = 8;
+    private static final int FILES = 25;
+
+    private Path root;
+    private ChecksumDatabase checksums;
+
+    /**
+     * Build a tree of plugin-like directories and record the checksum of every file in it.
+     *
+     * @throws IOException If the tree could not be written.
+     */
+    @Setup
+    public void setup() throws IOException
+    {
+        this.root = Files.createTempDirectory("integrity-bench");
+        Path site = Files.createDirectories(this.root.resolve("site"));
+
+        Random random = new Random(1234);
+        byte[] content = new byte[16 * 1024];
+        for (int p = 0; p < DirectoryScannerBenchmark.PLUGINS; p++)
+        {
+            for (int d = 0; d < DirectoryScannerBenchmark.DIRECTORIES; d++)
+            {
+                Path dir = Files.createDirectories(site.resolve("plugin" + p).resolve("dir" + d));
+                for (int f = 0; f < DirectoryScannerBenchmark.FILES; f++)
+                {
+                    random.nextBytes(content);
+                    Files.write(dir.resolve("file" + f + ".php"), content);
+                }
+            }
+        }
+
+        // An empty database file is loaded rather than triggering an initial scan
+        Path dbFile = Files.createFile(this.root.resolve("checksums.db"));
+        this.checksums = new ChecksumDatabase(dbFile, site);
+
+        DirectoryScanner scanner = new DirectoryScanner(site, this.checksums, new IntegrityConfig(0, 4));
+        scanner.updateChecksums(true);
+        scanner.scan();
+    }
+
+    /**
+     * Delete the generated tree.
+     *
+     * @throws IOException If the tree could not be removed.
+     */
+    @TearDown
+    public void teardown() throws IOException
+    {
+        try (Stream<Path> paths = Files.walk(this.root))
+        {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    /**
+     * Scan the tree with a single thread, hashing each file as it is visited.
+     *
+     * @return The number of changed files found.
+     */
+    @Benchmark
+    public int serialScan()
+    {
+        return new DirectoryScanner(this.root.resolve("site"), this.checksums, new IntegrityConfig(1, 1)).scan().getChangedFiles().size();
+    }
+
+    /**
+     * Scan the tree with a walker per processor and a pool of four hashing threads.
+     *
+     * @return The number of changed files found.
+     */
+    @Benchmark
+    public int parallelScan()
+    {
+        return new DirectoryScanner(this.root.resolve("site"), this.checksums, new IntegrityConfig(0, 4)).scan().getChangedFiles().size();
+    }
+}
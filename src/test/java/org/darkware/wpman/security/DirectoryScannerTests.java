@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import org.darkware.wpman.config.IntegrityConfig;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class DirectoryScannerTests
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path createTree() throws IOException
+    {
+        Path root = this.folder.newFolder("site").toPath();
+        for (int d = 0; d < 4; d++)
+        {
+            Path dir = Files.createDirectories(root.resolve("dir" + d).resolve("sub"));
+            for (int f = 0; f < 5; f++)
+            {
+                Files.write(dir.resolve("file" + f + ".php"), ("content " + d + f).getBytes(StandardCharsets.UTF_8));
+                Files.write(dir.getParent().resolve("top" + f + ".php"), ("top " + d + f).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return root;
+    }
+
+    private void checkScan(final IntegrityConfig integrity) throws IOException
+    {
+        Path root = this.createTree();
+        Path dbFile = this.folder.newFile("checksums.db").toPath();
+        ChecksumDatabase checksums = new ChecksumDatabase(dbFile, root);
+
+        DirectoryScanner initial = new DirectoryScanner(root, checksums, integrity);
+        initial.updateChecksums(true);
+        ScanResults first = initial.scan();
+        assertEquals(40, first.getNewFiles().size());
+        assertTrue(first.getChangedFiles().isEmpty());
+
+        Files.write(root.resolve("dir1/sub/file2.php"), "altered".getBytes(StandardCharsets.UTF_8));
+        Files.write(root.resolve("dir2/added.php"), "added".getBytes(StandardCharsets.UTF_8));
+        Files.delete(root.resolve("dir3/top4.php"));
+
+        ScanResults second = new DirectoryScanner(root, checksums, integrity).scan();
+        assertEquals(1, second.getChangedFiles().size());
+        assertTrue(second.getChangedFiles().contains(root.resolve("dir1/sub/file2.php")));
+        assertEquals(1, second.getNewFiles().size());
+        assertTrue(second.getNewFiles().contains(root.resolve("dir2/added.php")));
+        assertEquals(1, second.getMissingFiles().size());
+        assertTrue(second.getMissingFiles().contains(root.resolve("dir3/top4.php")));
+    }
+
+    @Test
+    public void testScan_serial() throws IOException
+    {
+        this.checkScan(new IntegrityConfig(1, 1));
+    }
+
+    @Test
+    public void testScan_parallel() throws IOException
+    {
+        this.checkScan(new IntegrityConfig(4, 2));
+    }
+
+    @Test
+    public void testScan_skipsUnchangedFiles() throws IOException
+    {
+        Path root = this.createTree();
+        Path dbFile = this.folder.newFile("checksums.db").toPath();
+        AtomicInteger hashed = new AtomicInteger();
+        ChecksumDatabase checksums = new ChecksumDatabase(dbFile, root)
+        {
+            @Override
+            protected String calculateChecksum(final Path file)
+            {
+                hashed.incrementAndGet();
+                return super.calculateChecksum(file);
+            }
+        };
+        IntegrityConfig integrity = new IntegrityConfig(1, 1)
+        {
+            {
+                this.setRehashSample(0);
+            }
+        };
+
+        DirectoryScanner initial = new DirectoryScanner(root, checksums, integrity);
+        initial.updateChecksums(true);
+        initial.scan();
+        assertEquals(40, hashed.get());
+
+        // Stamps survive a round trip through the database file
+        checksums.writeDatabase();
+        checksums.loadDatabase();
+
+        hashed.set(0);
+        Files.write(root.resolve("dir0/top1.php"), "rewritten".getBytes(StandardCharsets.UTF_8));
+        ScanResults rescan = new DirectoryScanner(root, checksums, integrity).scan();
+        assertEquals(1, rescan.getChangedFiles().size());
+        assertTrue(rescan.getNewFiles().isEmpty());
+        assertTrue(hashed.get() <= 2);
+
+        hashed.set(0);
+        DirectoryScanner full = new DirectoryScanner(root, checksums, integrity);
+        full.rehashAll(true);
+        full.scan();
+        assertTrue(hashed.get() >= 40);
+    }
+
+    @Test
+    public void testScanFiles_onlyChecksGivenFiles() throws IOException
+    {
+        Path root = this.createTree();
+        Path dbFile = this.folder.newFile("checksums.db").toPath();
+        ChecksumDatabase checksums = new ChecksumDatabase(dbFile, root);
+        IntegrityConfig integrity = new IntegrityConfig(1, 1);
+
+        DirectoryScanner initial = new DirectoryScanner(root, checksums, integrity);
+        initial.updateChecksums(true);
+        initial.scan();
+
+        Files.write(root.resolve("dir1/sub/file2.php"), "altered".getBytes(StandardCharsets.UTF_8));
+        Files.write(root.resolve("dir2/sub/file3.php"), "unreported".getBytes(StandardCharsets.UTF_8));
+        Files.write(root.resolve("dir2/added.php"), "added".getBytes(StandardCharsets.UTF_8));
+        Files.delete(root.resolve("dir3/top4.php"));
+
+        ScanResults results = new DirectoryScanner(root, checksums, integrity).scanFiles(
+                Arrays.asList(root.resolve("dir1/sub/file2.php"), root.resolve("dir2/added.php"), root.resolve("dir3/top4.php")));
+        assertEquals(1, results.getChangedFiles().size());
+        assertTrue(results.getChangedFiles().contains(root.resolve("dir1/sub/file2.php")));
+        assertEquals(1, results.getNewFiles().size());
+        assertTrue(results.getNewFiles().contains(root.resolve("dir2/added.php")));
+        assertEquals(1, results.getMissingFiles().size());
+        assertTrue(results.getMissingFiles().contains(root.resolve("dir3/top4.php")));
+    }
+
+    @Test
+    public void testScanFiles_directoryKeepsKnownFiles() throws IOException
+    {
+        Path root = this.createTree();
+        Path dbFile = this.folder.newFile("checksums.db").toPath();
+        ChecksumDatabase checksums = new ChecksumDatabase(dbFile, root);
+        IntegrityConfig integrity = new IntegrityConfig(1, 1);
+
+        DirectoryScanner initial = new DirectoryScanner(root, checksums, integrity);
+        initial.updateChecksums(true);
+        initial.scan();
+
+        Path dir = root.resolve("dir1");
+        Files.write(dir.resolve("sub/file2.php"), "altered".getBytes(StandardCharsets.UTF_8));
+        Files.delete(dir.resolve("top4.php"));
+
+        ScanResults results = new DirectoryScanner(root, checksums, integrity).scanFiles(Collections.singletonList(dir));
+        assertEquals(1, results.getChangedFiles().size());
+        assertTrue(results.getChangedFiles().contains(dir.resolve("sub/file2.php")));
+        assertEquals(1, results.getMissingFiles().size());
+        assertTrue(results.getMissingFiles().contains(dir.resolve("top4.php")));
+        assertEquals(9, checksums.entriesForPath(dir).size());
+    }
+}
@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import org.apache.commons.codec.binary.Base64;
+import org.darkware.wpman.config.IntegrityConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the per-file cost of checking an unchanged file during a scan: the ignore and suppression
+ * lookups, the database probe and the stamp comparison. Hashing is stubbed out, so the numbers only
+ * cover the bookkeeping around it.
+ *
+ * @author jeff
+ * @since 2026-10-18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileCheckBenchmark
+{
+    private static final int DIRECTORIES = 50;
+    private static final int FILES = 40;
+    private static final int SUPPRESSED = 25;
+
+    private Path root;
+    private DirectoryScanner scanner;
+    private List<Path> files;
+    private List<FileStamp> stamps;
+
+    /**
+     * Build a tree of small files, record them in a database with a stubbed checksum, and suppress a set
+     * of directories which don't contain any of the files.
+     *
+     * @throws IOException If the tree could not be written.
+     */
+    @Setup
+    public void setup() throws IOException
+    {
+        this.root = Files.createTempDirectory("integrity-check-bench");
+        Path site = Files.createDirectories(this.root.resolve("site"));
+
+        this.files = new ArrayList<>();
+        this.stamps = new ArrayList<>();
+        for (int d = 0; d < FileCheckBenchmark.DIRECTORIES; d++)
+        {
+            Path dir = Files.createDirectories(site.resolve("wp-content/plugins/plugin" + d + "/includes"));
+            for (int f = 0; f < FileCheckBenchmark.FILES; f++)
+            {
+                Path file = Files.write(dir.resolve("file" + f + ".php"), new byte[] { (byte) f });
+                this.files.add(file);
+                this.stamps.add(FileStamp.read(file));
+            }
+        }
+
+        final String stubChecksum = Base64.encodeBase64String(new byte[32]);
+        Path dbFile = Files.createFile(this.root.resolve("checksums.db"));
+        ChecksumDatabase checksums = new ChecksumDatabase(dbFile, site)
+        {
+            @Override
+            protected String calculateChecksum(final Path file)
+            {
+                return stubChecksum;
+            }
+        };
+        for (int s = 0; s < FileCheckBenchmark.SUPPRESSED; s++)
+        {
+            checksums.suppress(site.resolve("wp-content/plugins/updating" + s));
+        }
+
+        IntegrityConfig integrity = new IntegrityConfig(1, 1)
+        {
+            {
+                this.setRehashSample(0);
+            }
+        };
+        this.scanner = new DirectoryScanner(site, checksums, integrity);
+        this.scanner.ignore(site.resolve("wp-content/debug.log"));
+        this.scanner.updateChecksums(true);
+        this.scanner.scan();
+    }
+
+    /**
+     * Delete the generated tree.
+     *
+     * @throws IOException If the tree could not be removed.
+     */
+    @TearDown
+    public void teardown() throws IOException
+    {
+        try (Stream<Path> paths = Files.walk(this.root))
+        {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    /**
+     * Check every file using the stamps read during setup, as the parallel walker does after reading the
+     * directory entry.
+     */
+    @Benchmark
+    @OperationsPerInvocation(FileCheckBenchmark.DIRECTORIES * FileCheckBenchmark.FILES)
+    public void checkStampedFile()
+    {
+        for (int i = 0; i < this.files.size(); i++) this.scanner.checkFile(this.files.get(i), this.stamps.get(i));
+    }
+
+    /**
+     * Check every file, reading its stamp from the filesystem first.
+     */
+    @Benchmark
+    @OperationsPerInvocation(FileCheckBenchmark.DIRECTORIES * FileCheckBenchmark.FILES)
+    public void checkFile()
+    {
+        for (Path file : this.files) this.scanner.checkFile(file);
+    }
+}
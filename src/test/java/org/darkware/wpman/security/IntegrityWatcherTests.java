@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import org.darkware.wpman.config.IntegrityConfig;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class IntegrityWatcherTests
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testPoll_ignoresDirectoryMetadata() throws IOException, InterruptedException
+    {
+        Path root = this.folder.newFolder("site").toPath();
+        Path dir = Files.createDirectories(root.resolve("wp-content/plugins/foo"));
+        Path file = root.resolve("index.php");
+        ChecksumDatabase checksums = new ChecksumDatabase(this.folder.newFile("checksums.db").toPath(), root);
+        DirectoryScanner rules = new DirectoryScanner(root, checksums, new IntegrityConfig(1, 1));
+
+        try (IntegrityWatcher watcher = new IntegrityWatcher(root, rules, Duration.ZERO, 100))
+        {
+            Files.setPosixFilePermissions(dir, PosixFilePermissions.fromString("rwxr-x---"));
+            Files.write(file, "<?php".getBytes(StandardCharsets.UTF_8));
+
+            // Wait for the file event, which arrives after the directory event
+            for (int i = 0; i < 50 && watcher.getPendingCount() == 0; i++)
+            {
+                Thread.sleep(100);
+                watcher.poll();
+            }
+            Thread.sleep(100);
+            watcher.poll();
+
+            assertEquals(Collections.singleton(file), watcher.takeReady());
+        }
+    }
+}
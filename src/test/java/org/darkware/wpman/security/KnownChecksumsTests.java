@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import org.darkware.wpman.config.IntegrityConfig;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class KnownChecksumsTests
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ManifestCache cannedCache() throws URISyntaxException, IOException
+    {
+        Path canned = Paths.get(KnownChecksumsTests.class.getResource("/manifests").toURI());
+        Path cacheDir = this.folder.newFolder("manifests").toPath();
+        try (Stream<Path> files = Files.walk(canned))
+        {
+            for (Path file : (Iterable<Path>) files::iterator)
+            {
+                if (!Files.isRegularFile(file)) continue;
+
+                Path copy = cacheDir.resolve(canned.relativize(file).toString());
+                Files.createDirectories(copy.getParent());
+                Files.copy(file, copy);
+            }
+        }
+
+        return new ManifestCache(cacheDir)
+        {
+            @Override
+            protected boolean download(final URI source, final Path target)
+            {
+                return false;
+            }
+        };
+    }
+
+    private void write(final Path root, final String file, final String content) throws IOException
+    {
+        Path path = root.resolve(file);
+        Files.createDirectories(path.getParent());
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testCache_readsCannedManifests() throws URISyntaxException, IOException
+    {
+        ManifestCache cache = this.cannedCache();
+
+        ChecksumManifest core = cache.getCore("6.4.2", "en_US");
+        assertNotNull(core);
+        assertEquals(4, core.getFiles().size());
+        assertEquals(1, core.getFiles().get("index.php").getMd5().size());
+
+        ChecksumManifest plugin = cache.getPlugin("akismet", "5.3");
+        assertNotNull(plugin);
+        assertEquals(2, plugin.getFiles().get("readme.txt").getSha256().size());
+
+        assertNull(cache.getPlugin("akismet", "9.9"));
+        assertNull(cache.getPlugin("../core", "6.4.2-en_US"));
+    }
+
+    private Path createSite(final ChecksumAlgorithm algorithm) throws IOException
+    {
+        Path root = this.folder.newFolder("site-" + algorithm).toPath();
+        this.write(root, "index.php", "<?php require 'wp-blog-header.php';");
+        this.write(root, "wp-config.php", "<?php define('DB_NAME', 'wp');");
+        this.write(root, "wp-admin/admin.php", "<?php // admin, with an injected payload");
+        this.write(root, "wp-includes/version.php", "<?php $wp_version = '6.4.2';");
+        this.write(root, "wp-includes/shell.php", "<?php eval($_POST['x']);");
+        this.write(root, "wp-content/plugins/hello.php", "<?php // a different hello");
+        this.write(root, "wp-content/plugins/akismet/akismet.php", "<?php // akismet");
+        this.write(root, "wp-content/plugins/akismet/readme.txt", "=== Akismet ===");
+        this.write(root, "wp-content/plugins/akismet/backdoor.php", "<?php // backdoor");
+        this.write(root, "wp-content/plugins/premium/premium.php", "<?php // premium");
+        return root;
+    }
+
+    private KnownChecksums index(final Path root) throws IOException, URISyntaxException
+    {
+        Map<String, String> plugins = new HashMap<>();
+        plugins.put("akismet", "5.3");
+        plugins.put("premium", "1.0");
+        return this.cannedCache().index(root, "6.4.2", "en_US", root.resolve("wp-content/plugins"), plugins);
+    }
+
+    private void checkScan(final ChecksumAlgorithm algorithm) throws IOException, URISyntaxException
+    {
+        Path root = this.createSite(algorithm);
+        KnownChecksums known = this.index(root);
+        assertEquals(5, known.size());
+
+        Path dbFile = this.folder.newFile("checksums-" + algorithm + ".db").toPath();
+        ChecksumDatabase checksums = new ChecksumDatabase(dbFile, root, algorithm);
+        DirectoryScanner scanner = new DirectoryScanner(root, checksums, new IntegrityConfig(1, 1));
+        scanner.updateChecksums(true);
+        scanner.verifyKnown(known);
+
+        ScanResults results = scanner.scan();
+        assertEquals(new HashSet<>(Arrays.asList(root.resolve("wp-admin/admin.php"),
+                                                 root.resolve("wp-includes/shell.php"),
+                                                 root.resolve("wp-content/plugins/akismet/backdoor.php"))),
+                     results.getUnverifiedFiles());
+    }
+
+    @Test
+    public void testScan_reportsUnverifiedFiles_sha256() throws IOException, URISyntaxException
+    {
+        this.checkScan(ChecksumAlgorithm.SHA256);
+    }
+
+    @Test
+    public void testScan_reportsUnverifiedFiles_xxhash() throws IOException, URISyntaxException
+    {
+        this.checkScan(ChecksumAlgorithm.XXHASH64);
+    }
+
+    @Test
+    public void testScan_verifiesUnchangedFiles_sha256() throws IOException, URISyntaxException
+    {
+        Path root = this.createSite(ChecksumAlgorithm.SHA256);
+        Path dbFile = this.folder.newFile("checksums.db").toPath();
+        Path tampered = root.resolve("wp-content/plugins/akismet/akismet.php");
+        AtomicBoolean tamper = new AtomicBoolean(true);
+        ChecksumDatabase checksums = new ChecksumDatabase(dbFile, root, ChecksumAlgorithm.SHA256)
+        {
+            @Override
+            protected String calculateChecksum(final Path file)
+            {
+                // Record the digest of other content, as if the file was replaced without changing its stamp
+                if (tamper.get() && file.equals(tampered)) return super.calculateChecksum(root.resolve("index.php"));
+                return super.calculateChecksum(file);
+            }
+        };
+        IntegrityConfig integrity = new IntegrityConfig(1, 1)
+        {
+            {
+                this.setRehashSample(0);
+            }
+        };
+
+        DirectoryScanner initial = new DirectoryScanner(root, checksums, integrity);
+        initial.updateChecksums(true);
+        initial.scan();
+        tamper.set(false);
+
+        DirectoryScanner scanner = new DirectoryScanner(root, checksums, integrity);
+        scanner.verifyKnown(this.index(root));
+        ScanResults results = scanner.scan();
+        assertEquals(new HashSet<>(Arrays.asList(root.resolve("wp-includes/shell.php"), tampered,
+                                                 root.resolve("wp-content/plugins/akismet/backdoor.php"))),
+                     results.getUnverifiedFiles());
+    }
+}
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class ManifestCacheTests
+{
+    private static final String CORE_MANIFEST = "{\"checksums\": {\"index.php\": \"926dd0f95df723f9ed934eb058882cc8\"}}";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path cacheDir;
+    private Map<String, String> responses;
+    private List<String> requests;
+    private ManifestCache cache;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.cacheDir = this.folder.newFolder("manifests").toPath();
+        this.responses = new HashMap<>();
+        this.requests = new ArrayList<>();
+        this.cache = new ManifestCache(this.cacheDir)
+        {
+            @Override
+            protected boolean download(final URI source, final Path target) throws IOException
+            {
+                final String locale = source.getQuery().replaceAll(".*locale=", "");
+                ManifestCacheTests.this.requests.add(locale);
+
+                final String response = ManifestCacheTests.this.responses.get(locale);
+                if (response == null) throw new IOException("Connection timed out");
+                Files.write(target, response.getBytes(StandardCharsets.UTF_8));
+                return true;
+            }
+        };
+    }
+
+    @Test
+    public void testGetCore_downloadsOnce()
+    {
+        this.responses.put("en_US", ManifestCacheTests.CORE_MANIFEST);
+
+        assertNotNull(this.cache.getCore("6.4.2", "en_US"));
+        assertNotNull(new ManifestCache(this.cacheDir).getCore("6.4.2", "en_US"));
+        assertEquals(1, this.requests.size());
+    }
+
+    @Test
+    public void testGetCore_fallsBackToDefaultLocale()
+    {
+        this.responses.put("de_DE", "{\"checksums\": false}");
+        this.responses.put("en_US", ManifestCacheTests.CORE_MANIFEST);
+
+        ChecksumManifest manifest = this.cache.getCore("6.4.2", "de_DE");
+        assertNotNull(manifest);
+        assertEquals(1, manifest.getFiles().size());
+        assertFalse(Files.exists(this.cacheDir.resolve("core/6.4.2-de_DE.json")));
+
+        this.requests.clear();
+        assertNotNull(this.cache.getCore("6.4.2", "de_DE"));
+        assertTrue(this.requests.isEmpty());
+    }
+
+    @Test
+    public void testGetCore_backsOffAfterFailure()
+    {
+        assertNull(this.cache.getCore("6.4.2", "de_DE"));
+        assertEquals(1, this.requests.size());
+        assertFalse(Files.exists(this.cacheDir.resolve("core/6.4.2-de_DE.json")));
+
+        this.responses.put("de_DE", ManifestCacheTests.CORE_MANIFEST);
+        assertNull(this.cache.getCore("6.4.2", "de_DE"));
+        assertEquals(1, this.requests.size());
+    }
+}
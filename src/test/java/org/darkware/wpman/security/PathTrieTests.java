@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class PathTrieTests
+{
+    @Test
+    public void testCovers_ancestors()
+    {
+        PathTrie trie = new PathTrie();
+        trie.add(Paths.get("/var/www/wp-content/plugins/akismet"));
+
+        assertTrue(trie.covers(Paths.get("/var/www/wp-content/plugins/akismet")));
+        assertTrue(trie.covers(Paths.get("/var/www/wp-content/plugins/akismet/lib/class.php")));
+        assertFalse(trie.covers(Paths.get("/var/www/wp-content/plugins")));
+        assertFalse(trie.covers(Paths.get("/var/www/wp-content/plugins/akismet-extra/index.php")));
+        assertFalse(trie.covers(Paths.get("var/www/wp-content/plugins/akismet")));
+    }
+
+    @Test
+    public void testContains_exact()
+    {
+        PathTrie trie = new PathTrie();
+        Path log = Paths.get("/var/www/wp-content/debug.log");
+        trie.add(log);
+        trie.add(log);
+
+        assertEquals(1, trie.size());
+        assertTrue(trie.contains(log));
+        assertFalse(trie.contains(log.getParent()));
+        assertFalse(trie.contains(log.resolve("child")));
+    }
+
+    @Test
+    public void testRemove()
+    {
+        PathTrie trie = new PathTrie();
+        Path parent = Paths.get("/site/plugins");
+        Path child = parent.resolve("hello-dolly");
+        trie.add(parent);
+        trie.add(child);
+
+        trie.remove(parent);
+        assertEquals(1, trie.size());
+        assertFalse(trie.covers(parent.resolve("other/file.php")));
+        assertTrue(trie.covers(child.resolve("hello.php")));
+
+        trie.remove(child);
+        assertEquals(0, trie.size());
+        assertFalse(trie.covers(child));
+    }
+}
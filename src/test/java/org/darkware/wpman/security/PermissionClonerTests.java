@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class PermissionClonerTests
+{
+    private Path base;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.base = Files.createTempDirectory("perm-test");
+        Files.setPosixFilePermissions(this.base, PosixFilePermissions.fromString("rwxr-x---"));
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        try (Stream<Path> paths = Files.walk(this.base))
+        {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private static String mode(final Path file) throws IOException
+    {
+        return PosixFilePermissions.toString(Files.getPosixFilePermissions(file));
+    }
+
+    @Test
+    public void testCall_clonesPermissions() throws IOException
+    {
+        Path dir = Files.createDirectories(this.base.resolve("a/b"));
+        Files.setPosixFilePermissions(dir, PosixFilePermissions.fromString("rwxrwxrwx"));
+        Path file = Files.createFile(dir.resolve("file.php"));
+        Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rwxrwxrwx"));
+        Path ignored = Files.createFile(this.base.resolve("a/ignored.php"));
+        Files.setPosixFilePermissions(ignored, PosixFilePermissions.fromString("rw-rw-rw-"));
+
+        PermissionCloner cloner = new PermissionCloner(this.base);
+        cloner.exclude(ignored);
+
+        assertEquals(3, (int) cloner.call());
+        assertEquals("rwxr-x---", PermissionClonerTests.mode(dir.getParent()));
+        assertEquals("rwxr-x---", PermissionClonerTests.mode(dir));
+        assertEquals("rw-r-----", PermissionClonerTests.mode(file));
+        assertEquals("rw-rw-rw-", PermissionClonerTests.mode(ignored));
+    }
+
+    @Test
+    public void testCall_skipsUnchangedDirectories() throws IOException
+    {
+        Path dir = Files.createDirectories(this.base.resolve("a"));
+        Files.setPosixFilePermissions(dir, PosixFilePermissions.fromString("rwxr-x---"));
+        Path file = Files.createFile(dir.resolve("file.php"));
+        Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-r-----"));
+
+        Map<Path, PermissionCloner.Fingerprint> fingerprints = new HashMap<>();
+        assertEquals(0, (int) new PermissionCloner(this.base, fingerprints).call());
+
+        // Changing an existing file leaves the directory fingerprint alone
+        Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-rw-rw-"));
+        PermissionCloner incremental = new PermissionCloner(this.base, fingerprints);
+        assertEquals(0, (int) incremental.call());
+        assertEquals(2, incremental.getDirectoriesSkipped());
+        assertEquals("rw-rw-rw-", PermissionClonerTests.mode(file));
+
+        // A full check still finds it
+        assertEquals(1, (int) new PermissionCloner(this.base).call());
+        assertEquals("rw-r-----", PermissionClonerTests.mode(file));
+    }
+
+    @Test
+    public void testToMode_roundTrip()
+    {
+        EnumSet<PosixFilePermission> permissions = EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.GROUP_EXECUTE,
+                                                              PosixFilePermission.OTHERS_WRITE);
+        assertEquals(0412, PermissionCloner.toMode(permissions));
+        assertEquals(permissions, PermissionCloner.toPermissions(0412));
+    }
+}
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import org.darkware.wpman.config.IntegrityConfig;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class ScanEngineTests
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path root;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.root = this.folder.newFolder("site").toPath();
+        Files.createDirectories(this.root.resolve("wp-content/uploads/2016"));
+        Files.createDirectories(this.root.resolve("wp-content/plugins/akismet"));
+        Files.write(this.root.resolve("index.php"), new byte[10]);
+        Files.write(this.root.resolve("wp-content/uploads/2016/photo.jpg"), new byte[100]);
+        Files.write(this.root.resolve("wp-content/plugins/akismet/akismet.php"), new byte[1000]);
+    }
+
+    /**
+     * A visitor which records the files it is given, and prunes a single directory.
+     */
+    private static final class RecordingVisitor implements ScanVisitor
+    {
+        private final Set<Path> files = ConcurrentHashMap.newKeySet();
+        private final Path pruned;
+
+        private RecordingVisitor(final Path pruned)
+        {
+            this.pruned = pruned;
+        }
+
+        @Override
+        public boolean isPruned(final Path dir)
+        {
+            return dir.equals(this.pruned);
+        }
+
+        @Override
+        public void visitFile(final Path file, final ScanEntry entry)
+        {
+            this.files.add(file);
+        }
+    }
+
+    @Test
+    public void testScan_visitorRootsAndPruning()
+    {
+        final Path content = this.root.resolve("wp-content");
+        final Path uploads = content.resolve("uploads");
+
+        RecordingVisitor everything = new RecordingVisitor(uploads);
+        RecordingVisitor uploadsOnly = new RecordingVisitor(null);
+        SizeAccounting sizes = new SizeAccounting(content);
+
+        ScanEngine engine = new ScanEngine(2);
+        engine.register(this.root, everything);
+        engine.register(uploads, uploadsOnly);
+        engine.register(content, sizes);
+        ScanReport report = engine.scan();
+
+        assertEquals(2, everything.files.size());
+        assertTrue(everything.files.contains(this.root.resolve("index.php")));
+        assertEquals(1, uploadsOnly.files.size());
+        assertTrue(uploadsOnly.files.contains(uploads.resolve("2016/photo.jpg")));
+
+        assertEquals(1100, sizes.getTotalSize());
+        assertEquals(1000, (long) sizes.getSizes().get(content.resolve("plugins")));
+
+        // Every entry is read once, even though three visitors share the walk
+        assertEquals(8, report.getEntries());
+        assertEquals(6, report.getDirectoryReads());
+        assertEquals(report.getEntries() + 1, report.getAttributeReads());
+    }
+
+    @Test
+    public void testScan_checksumVisitorHashesOffWalkers() throws IOException
+    {
+        final Set<String> hashThreads = ConcurrentHashMap.newKeySet();
+        final ChecksumDatabase checksums = new ChecksumDatabase(this.folder.newFile("checksums.db").toPath(), this.root)
+        {
+            @Override
+            protected String calculateChecksum(final Path file)
+            {
+                hashThreads.add(Thread.currentThread().getName());
+                return super.calculateChecksum(file);
+            }
+        };
+        final DirectoryScanner initial = new DirectoryScanner(this.root, checksums, new IntegrityConfig(1, 1));
+        initial.updateChecksums(true);
+        initial.scan();
+
+        Files.write(this.root.resolve("index.php"), new byte[20]);
+        Files.write(this.root.resolve("wp-content/added.php"), new byte[5]);
+        Files.delete(this.root.resolve("wp-content/uploads/2016/photo.jpg"));
+        hashThreads.clear();
+
+        final IntegrityConfig integrity = new IntegrityConfig(2, 2)
+        {
+            {
+                this.setRehashSample(0);
+            }
+        };
+        final DirectoryScanner scanner = new DirectoryScanner(this.root, checksums, integrity);
+        scanner.updateChecksums(true);
+        final ScanEngine engine = new ScanEngine(2);
+        engine.register(this.root, scanner.visitor());
+        final ScanReport report = engine.scan();
+
+        final ScanResults results = scanner.getResults();
+        assertEquals(Collections.singleton(this.root.resolve("index.php")), results.getChangedFiles());
+        assertEquals(Collections.singleton(this.root.resolve("wp-content/added.php")), results.getNewFiles());
+        assertEquals(Collections.singleton(this.root.resolve("wp-content/uploads/2016/photo.jpg")), results.getMissingFiles());
+        assertEquals(2, report.getOperations());
+
+        assertTrue(hashThreads.stream().allMatch(t -> t.startsWith("integrity-hash-")));
+    }
+}
@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import org.junit.Test;
+
+import java.nio.file.attribute.PosixFilePermissions;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class UploadPermissionPolicyTests
+{
+    @Test
+    public void testTargetMode()
+    {
+        UploadPermissionPolicy policy = new UploadPermissionPolicy(PosixFilePermissions.fromString("rw-r-----"),
+                                                                   PosixFilePermissions.fromString("--x--xrwx"));
+
+        assertEquals(0640, policy.getTargetMode(0755, false));
+        assertEquals(0640, policy.getTargetMode(0600, false));
+        assertEquals(0660, policy.getTargetMode(0666, false));
+        assertEquals(0750, policy.getTargetMode(0700, true));
+        assertEquals(0770, policy.getTargetMode(0777, true));
+    }
+}
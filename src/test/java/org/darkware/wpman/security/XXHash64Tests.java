@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.security;
+
+import com.google.common.io.BaseEncoding;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class XXHash64Tests
+{
+    private String hash(final String text)
+    {
+        XXHash64 digester = new XXHash64();
+        digester.update(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+        return BaseEncoding.base16().lowerCase().encode(digester.digest());
+    }
+
+    @Test
+    public void testDigest_knownValues()
+    {
+        assertEquals("ef46db3751d8e999", this.hash(""));
+        assertEquals("d24ec4f1a98c6e5b", this.hash("a"));
+        assertEquals("44bc2cf5ad770999", this.hash("abc"));
+        assertEquals("fbcea83c8a378bf1", this.hash("Nobody inspects the spammish repetition"));
+    }
+
+    @Test
+    public void testDigest_chunked()
+    {
+        byte[] data = new byte[4099];
+        new Random(42).nextBytes(data);
+
+        XXHash64 whole = new XXHash64();
+        whole.update(ByteBuffer.wrap(data));
+
+        XXHash64 chunked = new XXHash64();
+        for (int offset = 0, chunk = 1; offset < data.length; offset += chunk, chunk = chunk * 2 + 3)
+        {
+            chunked.update(ByteBuffer.wrap(data, offset, Math.min(chunk, data.length - offset)));
+        }
+
+        assertArrayEquals(whole.digest(), chunked.digest());
+    }
+}
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.tracing;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class TracerTests
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testTrace_nestedSpans()
+    {
+        Tracer.bind(4242);
+        try (Span root = Tracer.trace("action"))
+        {
+            try (Span child = Tracer.span("wpcli plugin install"))
+            {
+                child.tag("exit", 0);
+                Tracer.span("lazy-load PluginList").close();
+            }
+        }
+        finally
+        {
+            Tracer.unbind();
+        }
+
+        List<Span> trace = Tracer.getBuffer().getTrace(4242);
+        assertEquals(3, trace.size());
+        assertEquals("action", trace.get(0).getName());
+        assertEquals(0, trace.get(0).getParentId());
+        assertEquals(trace.get(0).getId(), trace.get(1).getParentId());
+        assertEquals(trace.get(1).getId(), trace.get(2).getParentId());
+        assertEquals("0", trace.get(1).getTags().get("exit"));
+    }
+
+    @Test
+    public void testSpan_noTrace()
+    {
+        assertSame(Span.NOOP, Tracer.span("orphan"));
+    }
+
+    @Test
+    public void testExport_zipkinLine() throws IOException
+    {
+        Path file = this.folder.getRoot().toPath().resolve("traces.json");
+
+        Tracer.bind(77);
+        try (Span root = Tracer.trace("export"))
+        {
+            root.error(new IllegalStateException("boom"));
+        }
+        finally
+        {
+            Tracer.unbind();
+        }
+
+        ZipkinFileExporter exporter = new ZipkinFileExporter(file, "wpmanager");
+        exporter.export(Tracer.getBuffer().getTrace(77));
+        exporter.close();
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+        for (String expected : Arrays.asList("\"traceId\":\"000000000000004d\"", "\"serviceName\":\"wpmanager\"", "\"error\":\"IllegalStateException: boom\""))
+        {
+            assertTrue(lines.get(0), lines.get(0).contains(expected));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2016. darkware.org and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+
+package org.darkware.wpman.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jeff
+ * @since 2026-10-18
+ */
+public class LongObjectMapTests
+{
+    @Test
+    public void testPutGet_simple()
+    {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        map.put(42L, "answer");
+        map.put(-7L, "negative");
+
+        assertEquals("answer", map.get(42L));
+        assertEquals("negative", map.get(-7L));
+        assertNull(map.get(43L));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    public void testPut_replace()
+    {
+        LongObjectMap<String> map = new LongObjectMap<>();
+
+        assertNull(map.put(1L, "first"));
+        assertEquals("first", map.put(1L, "second"));
+        assertEquals("second", map.get(1L));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testRemove_simple()
+    {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        map.put(1L, "one");
+
+        assertEquals("one", map.remove(1L));
+        assertFalse(map.containsKey(1L));
+        assertNull(map.remove(1L));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void testRandomized_matchesHashMap()
+    {
+        LongObjectMap<Long> map = new LongObjectMap<>();
+        Map<Long, Long> reference = new HashMap<>();
+        Random random = new Random(1234);
+
+        for (int i = 0; i < 50000; i++)
+        {
+            long key = random.nextInt(2000);
+            if (random.nextBoolean())
+            {
+                assertEquals(reference.put(key, key * 3), map.put(key, key * 3));
+            }
+            else
+            {
+                assertEquals(reference.remove(key), map.remove(key));
+            }
+        }
+
+        assertEquals(reference.size(), map.size());
+        for (long key = 0; key < 2000; key++) assertEquals(reference.get(key), map.get(key));
+    }
+
+    @Test
+    public void testRemoveIf_keepsRemainingReachable()
+    {
+        LongObjectMap<Long> map = new LongObjectMap<>();
+        for (long key = 0; key < 5000; key++) map.put(key << 20, key);
+
+        int removed = map.removeIf(v -> v % 3 == 0);
+
+        assertEquals(1667, removed);
+        assertEquals(5000 - 1667, map.size());
+        for (long key = 0; key < 5000; key++) assertEquals(key % 3 != 0, map.containsKey(key << 20));
+        assertTrue(map.values().stream().noneMatch(v -> v % 3 == 0));
+    }
+
+    @Test
+    public void testRemoveIf_testsEachEntryOnce()
+    {
+        Random random = new Random(1234);
+
+        for (int round = 0; round < 1000; round++)
+        {
+            // Small, nearly full tables make it likely that entries wrap around the end of the table.
+            LongObjectMap<Long> map = new LongObjectMap<>(8);
+            for (int i = 0; i < 12; i++) map.put(random.nextLong(), (long) i);
+
+            Map<Long, Integer> calls = new HashMap<>();
+            int removed = map.removeIf(v -> {
+                calls.merge(v, 1, Integer::sum);
+                return random.nextBoolean();
+            });
+
+            assertEquals(12, calls.size());
+            assertTrue(calls.values().stream().allMatch(c -> c == 1));
+            assertEquals(12 - removed, map.size());
+        }
+    }
+}
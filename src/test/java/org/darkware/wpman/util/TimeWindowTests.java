@@ -22,6 +22,7 @@ import org.junit.Test;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -80,4 +81,29 @@ public class TimeWindowTests
             }
     }
 
+    @Test
+    public void testSeededMoment_exhaustive()
+    {
+        LocalDateTime start = TimeWindow.nextTime(3, 15);
+        LocalDateTime stop = start.plus(5, ChronoUnit.MINUTES);
+        TimeWindow window = new TimeWindow(start, stop);
+
+        for (long seed = -1000; seed < 1000; seed++)
+        {
+            LocalDateTime moment = window.getSeededMoment(seed);
+            assertTrue(moment.equals(start) || moment.isAfter(start));
+            assertTrue(moment.isBefore(stop));
+            assertEquals(moment, window.getSeededMoment(seed));
+        }
+    }
+
+    @Test
+    public void testSeededMoment_empty()
+    {
+        LocalDateTime start = TimeWindow.nextTime(3, 15);
+        TimeWindow window = new TimeWindow(start, start);
+
+        assertEquals(start, window.getSeededMoment(12345));
+    }
+
 }